@@ -0,0 +1,134 @@
+package com.example.hospital.benchmark;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tiempo hasta la primera respuesta de HospitalApplication en cada modo de arranque: desde que se lanza el proceso
+ * hasta que GET /api/especialidad responde. Usa la base configurada en application.properties del jar.
+ *
+ * <pre>
+ *   mvn -f ../pom.xml -Paot package -DskipTests      (jar con el contexto AOT del perfil "rapido")
+ *   mvn -f ../pom.xml -Pnative native:compile        (opcional, requiere GraalVM)
+ *   java -cp target/benchmarks.jar com.example.hospital.benchmark.ArranqueBenchmark ../target/hospital-0.0.1-SNAPSHOT-exec.jar 5
+ * </pre>
+ *
+ * El jar se extrae (java -Djarmode=tools) porque CDS no funciona con jars anidados; el archivo CDS sale de una
+ * ejecucion de entrenamiento que termina al refrescar el contexto.
+ */
+public final class ArranqueBenchmark {
+
+    private static final Duration ESPERA_MAXIMA = Duration.ofMinutes(2);
+    private static final String PERFIL_RAPIDO = "--spring.profiles.active=rapido";
+    private static final String AOT = "-Dspring.aot.enabled=true";
+
+    private ArranqueBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path jar = Path.of(args.length > 0 ? args[0] : "../target/hospital-0.0.1-SNAPSHOT-exec.jar").toAbsolutePath();
+        int repeticiones = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Path trabajo = Path.of("target", "arranque").toAbsolutePath();
+        Path extraido = trabajo.resolve("app");
+        Path archivoCds = trabajo.resolve("hospital.jsa");
+        Files.createDirectories(trabajo);
+
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        ejecutar(trabajo, List.of(java, "-Djarmode=tools", "-jar", jar.toString(), "extract", "--force",
+                "--destination", extraido.toString()));
+        String aplicacion = extraido.resolve(jar.getFileName()).toString();
+        // Entrenamiento: carga las clases del arranque con AOT y termina al refrescar el contexto.
+        ejecutar(trabajo, List.of(java, "-XX:ArchiveClassesAtExit=" + archivoCds, AOT,
+                "-Dspring.context.exit=onRefresh", "-jar", aplicacion, PERFIL_RAPIDO));
+
+        List<Modo> modos = new ArrayList<>(List.of(
+                new Modo("ddl-auto", List.of(java, "-jar", aplicacion)),
+                new Modo("rapido", List.of(java, "-jar", aplicacion, PERFIL_RAPIDO)),
+                new Modo("rapido+aot", List.of(java, AOT, "-jar", aplicacion, PERFIL_RAPIDO)),
+                new Modo("rapido+aot+cds", List.of(java, "-XX:SharedArchiveFile=" + archivoCds, AOT,
+                        "-jar", aplicacion, PERFIL_RAPIDO))));
+        Path nativo = jar.resolveSibling("hospital");
+        if (Files.isExecutable(nativo)) {
+            modos.add(new Modo("nativo", List.of(nativo.toString(), PERFIL_RAPIDO)));
+        }
+
+        HttpClient cliente = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        System.out.printf("%-16s %10s %10s %10s%n", "modo", "minimo ms", "mediana ms", "maximo ms");
+        for (Modo modo : modos) {
+            long[] tiempos = new long[repeticiones];
+            try {
+                for (int i = 0; i < repeticiones; i++) {
+                    tiempos[i] = primeraRespuesta(cliente, trabajo, modo.comando());
+                }
+            } catch (IllegalStateException e) {
+                System.out.printf("%-16s %s%n", modo.nombre(), e.getMessage());
+                continue;
+            }
+            Arrays.sort(tiempos);
+            System.out.printf("%-16s %10d %10d %10d%n", modo.nombre(), tiempos[0], tiempos[repeticiones / 2],
+                    tiempos[repeticiones - 1]);
+        }
+    }
+
+    private static long primeraRespuesta(HttpClient cliente, Path trabajo, List<String> base) throws Exception {
+        int puerto = puertoLibre();
+        List<String> comando = new ArrayList<>(base);
+        comando.add("--server.port=" + puerto);
+        comando.add("--management.server.port=" + puertoLibre());
+        HttpRequest peticion = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + puerto + "/api/especialidad"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+
+        long inicio = System.nanoTime();
+        Process proceso = new ProcessBuilder(comando).directory(trabajo.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(trabajo.resolve("ultimo-arranque.log").toFile())
+                .start();
+        try {
+            while (System.nanoTime() - inicio < ESPERA_MAXIMA.toNanos()) {
+                if (!proceso.isAlive()) {
+                    throw new IllegalStateException("el proceso termino al arrancar (ver target/arranque/ultimo-arranque.log)");
+                }
+                try {
+                    HttpResponse<Void> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.discarding());
+                    if (respuesta.statusCode() < 500) {
+                        return (System.nanoTime() - inicio) / 1_000_000;
+                    }
+                } catch (IOException e) {
+                    // Aun no escucha.
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("sin respuesta en " + ESPERA_MAXIMA.toSeconds() + " s");
+        } finally {
+            proceso.destroy();
+            proceso.waitFor();
+        }
+    }
+
+    private static void ejecutar(Path trabajo, List<String> comando) throws Exception {
+        Process proceso = new ProcessBuilder(comando).directory(trabajo.toFile()).inheritIO().start();
+        if (proceso.waitFor() != 0) {
+            throw new IllegalStateException("Fallo: " + String.join(" ", comando));
+        }
+    }
+
+    private static int puertoLibre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private record Modo(String nombre, List<String> comando) {
+    }
+}
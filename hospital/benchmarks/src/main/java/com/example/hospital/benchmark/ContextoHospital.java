@@ -0,0 +1,62 @@
+package com.example.hospital.benchmark;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.hospital.HospitalApplication;
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.entity.Especialidad;
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.repository.ConsultaRepository;
+import com.example.hospital.repository.DoctorRepository;
+import com.example.hospital.repository.EspecialidadRepository;
+import com.example.hospital.repository.PacienteRepository;
+
+/**
+ * Levanta HospitalApplication sin servidor web contra una base H2 en memoria y la llena con datos sinteticos.
+ */
+final class ContextoHospital {
+
+    private static final int LOTE = 1_000;
+
+    private ContextoHospital() {
+    }
+
+    static ConfigurableApplicationContext iniciar() {
+        // Los argumentos de linea de comandos tienen prioridad sobre el application.properties de MySQL.
+        return new SpringApplicationBuilder(HospitalApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--logging.level.root=WARN");
+    }
+
+    static Datos poblar(ConfigurableApplicationContext contexto, int pacientes, int consultas) {
+        DatosSinteticos datos = new DatosSinteticos(42);
+        List<Especialidad> especialidades = contexto.getBean(EspecialidadRepository.class)
+                .saveAll(datos.especialidades(12));
+        List<Doctor> doctores = contexto.getBean(DoctorRepository.class)
+                .saveAll(datos.doctores(80, especialidades));
+        List<Paciente> listaPacientes = contexto.getBean(PacienteRepository.class)
+                .saveAll(datos.pacientes(pacientes, 0));
+        ConsultaRepository consultaRepository = contexto.getBean(ConsultaRepository.class);
+        for (int guardadas = 0; guardadas < consultas; guardadas += LOTE) {
+            List<Consulta> lote = datos.consultas(Math.min(LOTE, consultas - guardadas), listaPacientes, doctores);
+            consultaRepository.saveAll(lote);
+        }
+        return new Datos(especialidades, doctores, listaPacientes);
+    }
+
+    record Datos(List<Especialidad> especialidades, List<Doctor> doctores, List<Paciente> pacientes) {
+    }
+}
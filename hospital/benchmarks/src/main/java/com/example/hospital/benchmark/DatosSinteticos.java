@@ -0,0 +1,120 @@
+package com.example.hospital.benchmark;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.entity.Especialidad;
+import com.example.hospital.entity.Historial;
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.entity.Receta;
+
+/**
+ * Genera datos reproducibles (semilla fija) con proporciones parecidas a produccion:
+ * pocas especialidades, decenas de doctores y muchas consultas por paciente.
+ */
+public class DatosSinteticos {
+
+    public static final LocalDateTime INICIO = LocalDateTime.of(2020, 1, 1, 8, 0);
+    public static final int DIAS = 5 * 365;
+
+    private static final String[] NOMBRES = {"Ana", "Luis", "Maria", "Jose", "Carmen", "Pedro", "Lucia", "Jorge", "Elena", "Diego"};
+    private static final String[] APELLIDOS = {"Garcia", "Lopez", "Martinez", "Sanchez", "Perez", "Gomez", "Torres", "Ramirez", "Flores", "Vera"};
+    private static final String[] MOTIVOS = {"Control", "Dolor de cabeza", "Fiebre", "Chequeo anual", "Dolor abdominal", "Tos persistente"};
+    private static final String[] DIAGNOSTICOS = {"Migrana cronica", "Gripe estacional", "Hipertension arterial", "Gastritis aguda",
+            "Bronquitis", "Diabetes tipo 2", "Faringitis", "Lumbalgia mecanica"};
+    private static final String[] MEDICAMENTOS = {"Paracetamol", "Ibuprofeno", "Amoxicilina", "Omeprazol", "Losartan", "Metformina"};
+
+    private final Random random;
+
+    public DatosSinteticos(long semilla) {
+        this.random = new Random(semilla);
+    }
+
+    public List<Especialidad> especialidades(int cantidad) {
+        List<Especialidad> especialidades = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            Especialidad especialidad = new Especialidad();
+            especialidad.setNombre("Especialidad " + i);
+            especialidad.setDescripcion("Descripcion de la especialidad " + i);
+            especialidades.add(especialidad);
+        }
+        return especialidades;
+    }
+
+    public List<Doctor> doctores(int cantidad, List<Especialidad> especialidades) {
+        List<Doctor> doctores = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            Doctor doctor = new Doctor();
+            doctor.setNombre(elegir(NOMBRES));
+            doctor.setApellido(elegir(APELLIDOS));
+            doctor.setTelefono("09" + (10_000_000 + random.nextInt(89_999_999)));
+            doctor.setEspecialidad(especialidades.get(random.nextInt(especialidades.size())));
+            doctores.add(doctor);
+        }
+        return doctores;
+    }
+
+    public List<Paciente> pacientes(int cantidad, int desde) {
+        List<Paciente> pacientes = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            pacientes.add(paciente(desde + i));
+        }
+        return pacientes;
+    }
+
+    public Paciente paciente(int numero) {
+        Paciente paciente = new Paciente();
+        paciente.setNombre(elegir(NOMBRES));
+        paciente.setApellido(elegir(APELLIDOS));
+        paciente.setEdad(1 + random.nextInt(95));
+        paciente.setCedula(String.format("%010d", numero));
+        paciente.setTelefono("09" + (10_000_000 + random.nextInt(89_999_999)));
+        Historial historial = new Historial();
+        historial.setFecha(LocalDate.of(2019, 1, 1).plusDays(random.nextInt(365)));
+        historial.setDescripcion("Antecedentes del paciente " + numero);
+        historial.setPaciente(paciente);
+        paciente.setHistorial(historial);
+        return paciente;
+    }
+
+    public List<Consulta> consultas(int cantidad, List<Paciente> pacientes, List<Doctor> doctores) {
+        List<Consulta> consultas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            consultas.add(consulta(pacientes.get(random.nextInt(pacientes.size())),
+                    doctores.get(random.nextInt(doctores.size()))));
+        }
+        return consultas;
+    }
+
+    public Consulta consulta(Paciente paciente, Doctor doctor) {
+        Consulta consulta = new Consulta();
+        consulta.setFecha(INICIO.plusMinutes(random.nextInt(DIAS * 24 * 60)));
+        consulta.setMotivo(elegir(MOTIVOS));
+        consulta.setDiagnostico(elegir(DIAGNOSTICOS) + ". Reposo y control en " + (1 + random.nextInt(30)) + " dias.");
+        consulta.setPaciente(paciente);
+        consulta.setDoctor(doctor);
+        Receta receta = new Receta();
+        receta.setMedicamento(elegir(MEDICAMENTOS));
+        receta.setDosis((1 + random.nextInt(3)) + " veces al dia");
+        receta.setConsulta(consulta);
+        consulta.setReceta(receta);
+        return consulta;
+    }
+
+    public String diagnostico() {
+        return elegir(DIAGNOSTICOS).split(" ")[0].toLowerCase();
+    }
+
+    public LocalDateTime fecha() {
+        return INICIO.plusMinutes(random.nextInt(DIAS * 24 * 60));
+    }
+
+    private String elegir(String[] valores) {
+        return valores[random.nextInt(valores.length)];
+    }
+}
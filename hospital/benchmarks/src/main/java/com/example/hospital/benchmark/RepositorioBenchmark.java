@@ -0,0 +1,63 @@
+package com.example.hospital.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.repository.ConsultaRepository;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositorioBenchmark {
+
+    @Param({"10000", "100000"})
+    private int consultas;
+
+    private ConfigurableApplicationContext contexto;
+    private ConsultaRepository consultaRepository;
+    private DatosSinteticos generador;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = ContextoHospital.iniciar();
+        ContextoHospital.poblar(contexto, Math.max(1_000, consultas / 10), consultas);
+        consultaRepository = contexto.getBean(ConsultaRepository.class);
+        generador = new DatosSinteticos(11);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public List<Consulta> findByFechaBetweenUnDia() {
+        LocalDateTime inicio = generador.fecha();
+        return consultaRepository.findByFechaBetween(inicio, inicio.plusDays(1));
+    }
+
+    @Benchmark
+    public List<Consulta> findByDiagnosticoContainingIgnoreCase() {
+        return consultaRepository.findByDiagnosticoContainingIgnoreCase(generador.diagnostico());
+    }
+}
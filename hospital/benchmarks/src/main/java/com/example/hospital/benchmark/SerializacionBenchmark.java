@@ -0,0 +1,54 @@
+package com.example.hospital.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.entity.Especialidad;
+import com.example.hospital.entity.Paciente;
+
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializacionBenchmark {
+
+    @Param({"1", "50", "1000"})
+    private int consultas;
+
+    private ObjectMapper objectMapper;
+    private List<Consulta> grafo;
+
+    @Setup
+    public void preparar() {
+        objectMapper = JsonMapper.builder().build();
+        DatosSinteticos datos = new DatosSinteticos(3);
+        List<Especialidad> especialidades = datos.especialidades(12);
+        List<Doctor> doctores = datos.doctores(80, especialidades);
+        List<Paciente> pacientes = datos.pacientes(Math.max(1, consultas / 5), 0);
+        grafo = datos.consultas(consultas, pacientes, doctores);
+    }
+
+    @Benchmark
+    public byte[] serializarConsultas() {
+        return objectMapper.writeValueAsBytes(grafo);
+    }
+}
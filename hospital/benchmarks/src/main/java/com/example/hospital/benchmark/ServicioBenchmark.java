@@ -0,0 +1,98 @@
+package com.example.hospital.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.hospital.dto.ConsultaVista;
+import com.example.hospital.dto.PaginaCursor;
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.service.ConsultaService;
+import com.example.hospital.service.PacienteService;
+import com.example.hospital.service.RegistroPacienteService;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServicioBenchmark {
+
+    private static final int PACIENTES = 5_000;
+    private static final int CONSULTAS = 20_000;
+
+    private final AtomicInteger siguienteCedula = new AtomicInteger(PACIENTES);
+
+    private ConfigurableApplicationContext contexto;
+    private PacienteService pacienteService;
+    private RegistroPacienteService registroPacienteService;
+    private ConsultaService consultaService;
+    private ContextoHospital.Datos datos;
+    private DatosSinteticos generador;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = ContextoHospital.iniciar();
+        datos = ContextoHospital.poblar(contexto, PACIENTES, CONSULTAS);
+        pacienteService = contexto.getBean(PacienteService.class);
+        registroPacienteService = contexto.getBean(RegistroPacienteService.class);
+        consultaService = contexto.getBean(ConsultaService.class);
+        generador = new DatosSinteticos(7);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Paciente crearPaciente() {
+        Paciente paciente = generador.paciente(siguienteCedula.getAndIncrement());
+        return registroPacienteService.registrarPaciente(paciente, false, null).paciente();
+    }
+
+    @Benchmark
+    public Paciente obtenerPacientePorId() {
+        Paciente paciente = datos.pacientes().get(siguienteCedula.get() % PACIENTES);
+        return pacienteService.obtenerPacientePorId(paciente.getIdPaciente()).orElseThrow();
+    }
+
+    @Benchmark
+    public Paciente actualizarPaciente() {
+        Paciente existente = datos.pacientes().get(siguienteCedula.get() % PACIENTES);
+        Paciente cambios = new Paciente();
+        cambios.setNombre(existente.getNombre());
+        cambios.setApellido(existente.getApellido());
+        cambios.setEdad(existente.getEdad());
+        cambios.setCedula(existente.getCedula());
+        cambios.setTelefono("0999999999");
+        return pacienteService.actualizarPaciente(existente.getIdPaciente(), cambios);
+    }
+
+    @Benchmark
+    public Consulta crearConsulta() {
+        Paciente paciente = datos.pacientes().get(siguienteCedula.get() % PACIENTES);
+        Consulta consulta = generador.consulta(paciente, datos.doctores().get(0));
+        return consultaService.crearConsulta(consulta);
+    }
+
+    @Benchmark
+    public PaginaCursor<ConsultaVista> listarPrimeraPaginaConsultas() {
+        return consultaService.listarConsulta(null, 50);
+    }
+}
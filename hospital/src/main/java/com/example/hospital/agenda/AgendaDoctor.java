@@ -0,0 +1,120 @@
+package com.example.hospital.agenda;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.example.hospital.entity.Doctor;
+
+/**
+ * Reservas de un doctor como minutos de inicio ordenados. El arreglo no se modifica nunca: cada reserva publica una
+ * copia con compareAndSet, asi las lecturas no bloquean y dos doctores distintos no comparten ningun estado.
+ */
+final class AgendaDoctor {
+
+    private static final long[] VACIA = new long[0];
+
+    final Integer idDoctor;
+    volatile Integer idEspecialidad;
+    volatile String nombre;
+    volatile String apellido;
+
+    private final AtomicReference<long[]> reservas = new AtomicReference<>(VACIA);
+
+    AgendaDoctor(Integer idDoctor) {
+        this.idDoctor = idDoctor;
+    }
+
+    void actualizar(Doctor doctor) {
+        nombre = doctor.getNombre();
+        apellido = doctor.getApellido();
+        idEspecialidad = doctor.getEspecialidad() == null ? null : doctor.getEspecialidad().getIdEspecialidad();
+    }
+
+    /**
+     * Reserva [minuto, minuto + duracion) si no se solapa con otra reserva.
+     */
+    boolean reservar(long minuto, int duracion) {
+        while (true) {
+            long[] actual = reservas.get();
+            int posicion = posicion(actual, minuto);
+            if (solapa(actual, posicion, minuto, duracion)) {
+                return false;
+            }
+            if (reservas.compareAndSet(actual, insertar(actual, posicion, minuto))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Carga una reserva existente sin comprobar solapes: los datos historicos pueden tenerlos.
+     */
+    void agregar(long minuto) {
+        while (true) {
+            long[] actual = reservas.get();
+            if (reservas.compareAndSet(actual, insertar(actual, posicion(actual, minuto), minuto))) {
+                return;
+            }
+        }
+    }
+
+    void liberar(long minuto) {
+        while (true) {
+            long[] actual = reservas.get();
+            int indice = Arrays.binarySearch(actual, minuto);
+            if (indice < 0) {
+                return;
+            }
+            long[] nuevo = new long[actual.length - 1];
+            System.arraycopy(actual, 0, nuevo, 0, indice);
+            System.arraycopy(actual, indice + 1, nuevo, indice, nuevo.length - indice);
+            if (reservas.compareAndSet(actual, nuevo)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Descarta las reservas que empiezan antes de {@code minuto}.
+     */
+    void purgar(long minuto) {
+        while (true) {
+            long[] actual = reservas.get();
+            int posicion = posicion(actual, minuto);
+            if (posicion == 0 || reservas.compareAndSet(actual, Arrays.copyOfRange(actual, posicion, actual.length))) {
+                return;
+            }
+        }
+    }
+
+    long[] reservas() {
+        return reservas.get();
+    }
+
+    int tamanio() {
+        return reservas.get().length;
+    }
+
+    static boolean libre(long[] reservas, long minuto, int duracion) {
+        return !solapa(reservas, posicion(reservas, minuto), minuto, duracion);
+    }
+
+    private static boolean solapa(long[] reservas, int posicion, long minuto, int duracion) {
+        // Todas las reservas duran lo mismo: solo pueden chocar la anterior y la siguiente al punto de insercion.
+        return (posicion > 0 && reservas[posicion - 1] + duracion > minuto)
+                || (posicion < reservas.length && reservas[posicion] < minuto + duracion);
+    }
+
+    private static int posicion(long[] reservas, long minuto) {
+        int indice = Arrays.binarySearch(reservas, minuto);
+        return indice >= 0 ? indice : -indice - 1;
+    }
+
+    private static long[] insertar(long[] actual, int posicion, long minuto) {
+        long[] nuevo = new long[actual.length + 1];
+        System.arraycopy(actual, 0, nuevo, 0, posicion);
+        nuevo[posicion] = minuto;
+        System.arraycopy(actual, posicion, nuevo, posicion + 1, actual.length - posicion);
+        return nuevo;
+    }
+}
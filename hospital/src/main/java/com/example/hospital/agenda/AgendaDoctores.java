@@ -0,0 +1,158 @@
+package com.example.hospital.agenda;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.hospital.dto.DisponibilidadDoctor;
+import com.example.hospital.dto.ReservaAgenda;
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.repository.ConsultaRepository;
+import com.example.hospital.repository.DoctorRepository;
+import com.example.hospital.shard.Shards;
+
+/**
+ * Agenda en memoria de todos los doctores: evita reservar dos consultas solapadas para un mismo doctor y responde
+ * los horarios libres sin consultar la base. Cada consulta ocupa {@code duracion-minutos} desde su fecha.
+ * Se carga antes de que el servidor acepte peticiones, solo con las consultas desde hoy.
+ */
+@Component
+public class AgendaDoctores implements SmartInitializingSingleton {
+
+    public static final int DIAS_DISPONIBILIDAD_MAXIMO = 31;
+
+    private static final Logger log = LoggerFactory.getLogger(AgendaDoctores.class);
+
+    private final Map<Integer, AgendaDoctor> agendas = new ConcurrentHashMap<>();
+    private final ConsultaRepository consultaRepository;
+    private final DoctorRepository doctorRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Shards shards;
+    private final int duracion;
+    private final LocalTime horaInicio;
+    private final LocalTime horaFin;
+
+    public AgendaDoctores(ConsultaRepository consultaRepository, DoctorRepository doctorRepository,
+            TransactionTemplate transactionTemplate, Shards shards,
+            @Value("${hospital.agenda.duracion-minutos:30}") int duracion,
+            @Value("${hospital.agenda.hora-inicio:08:00}") String horaInicio,
+            @Value("${hospital.agenda.hora-fin:18:00}") String horaFin) {
+        this.consultaRepository = consultaRepository;
+        this.doctorRepository = doctorRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.shards = shards;
+        this.duracion = duracion;
+        this.horaInicio = LocalTime.parse(horaInicio);
+        this.horaFin = LocalTime.parse(horaFin);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long inicio = System.currentTimeMillis();
+        LocalDateTime desde = LocalDate.now().atStartOfDay();
+        int[] reservas = {0};
+        transactionTemplate.executeWithoutResult(status -> {
+            doctorRepository.findAllConEspecialidad().forEach(this::registrarDoctor);
+            // Las consultas de un doctor estan en los shards de sus pacientes.
+            for (ReservaAgenda reserva : shards.reunir(shard -> consultaRepository.findReservasDesde(desde), null)) {
+                agenda(reserva.idDoctor()).agregar(minuto(reserva.fecha()));
+                reservas[0]++;
+            }
+        });
+        log.info("Agenda de doctores cargada: {} doctores, {} reservas en {} ms",
+                agendas.size(), reservas[0], System.currentTimeMillis() - inicio);
+    }
+
+    /**
+     * Reserva el horario si el doctor no tiene otra consulta que se solape. Es atomico por doctor.
+     *
+     * @return false si el horario ya esta ocupado
+     */
+    public boolean reservar(Integer idDoctor, LocalDateTime fecha) {
+        return agenda(idDoctor).reservar(minuto(fecha), duracion);
+    }
+
+    public void liberar(Integer idDoctor, LocalDateTime fecha) {
+        AgendaDoctor agenda = agendas.get(idDoctor);
+        if (agenda != null) {
+            agenda.liberar(minuto(fecha));
+        }
+    }
+
+    public boolean libre(Integer idDoctor, LocalDateTime fecha) {
+        AgendaDoctor agenda = agendas.get(idDoctor);
+        return agenda == null || AgendaDoctor.libre(agenda.reservas(), minuto(fecha), duracion);
+    }
+
+    public void registrarDoctor(Doctor doctor) {
+        agenda(doctor.getIdDoctor()).actualizar(doctor);
+    }
+
+    public void eliminarDoctor(Integer idDoctor) {
+        agendas.remove(idDoctor);
+    }
+
+    /**
+     * Horarios libres de los doctores de la especialidad entre dos dias (inclusive), sin los que ya pasaron.
+     */
+    public List<DisponibilidadDoctor> disponibilidad(Integer idEspecialidad, LocalDate desde, LocalDate hasta) {
+        if (desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha inicial es posterior a la final");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) >= DIAS_DISPONIBILIDAD_MAXIMO) {
+            throw new IllegalArgumentException("El rango no puede superar " + DIAS_DISPONIBILIDAD_MAXIMO + " dias");
+        }
+        long ahora = minuto(LocalDateTime.now());
+        List<DisponibilidadDoctor> resultado = new ArrayList<>();
+        for (AgendaDoctor agenda : agendas.values()) {
+            if (!Objects.equals(agenda.idEspecialidad, idEspecialidad)) {
+                continue;
+            }
+            long[] reservas = agenda.reservas();
+            List<LocalDateTime> horarios = new ArrayList<>();
+            for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+                for (LocalDateTime horario = dia.atTime(horaInicio);
+                        !horario.plusMinutes(duracion).isAfter(dia.atTime(horaFin));
+                        horario = horario.plusMinutes(duracion)) {
+                    long minuto = minuto(horario);
+                    if (minuto >= ahora && AgendaDoctor.libre(reservas, minuto, duracion)) {
+                        horarios.add(horario);
+                    }
+                }
+            }
+            resultado.add(new DisponibilidadDoctor(agenda.idDoctor, agenda.nombre, agenda.apellido, horarios));
+        }
+        resultado.sort(Comparator.comparing(DisponibilidadDoctor::idDoctor));
+        return resultado;
+    }
+
+    @Scheduled(cron = "${hospital.agenda.purga-cron:0 0 3 * * *}")
+    public void purgar() {
+        long hoy = minuto(LocalDate.now().atStartOfDay());
+        agendas.values().forEach(agenda -> agenda.purgar(hoy));
+    }
+
+    private AgendaDoctor agenda(Integer idDoctor) {
+        return agendas.computeIfAbsent(idDoctor, AgendaDoctor::new);
+    }
+
+    private static long minuto(LocalDateTime fecha) {
+        return fecha.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+}
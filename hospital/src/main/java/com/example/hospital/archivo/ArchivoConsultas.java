@@ -0,0 +1,213 @@
+package com.example.hospital.archivo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Consultas antiguas fuera de la base: segmentos columnares comprimidos en disco local, cada uno con su indice
+ * min/max en memoria. Las lecturas descartan por indice los segmentos que no pueden coincidir y solo abren el resto.
+ * Los segmentos no se modifican; MovimientoArchivo agrega uno nuevo por lote archivado. Hasta que el borrado en la
+ * base confirma, el segmento lleva la extension de pendiente: las busquedas lo ven (el repositorio prefiere la fila
+ * de la tabla), pero los recorridos completos no, porque sus filas todavia cuentan en la tabla.
+ */
+@Component
+public class ArchivoConsultas {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchivoConsultas.class);
+
+    static final Comparator<ConsultaArchivada> RECIENTES = Comparator.comparing(ConsultaArchivada::fecha)
+            .thenComparing(ConsultaArchivada::idConsulta)
+            .reversed();
+
+    private final Path directorio;
+    private final AtomicLong secuenciaSegmento = new AtomicLong();
+    private final Counter leidos;
+    private final Counter descartados;
+    private final MeterRegistry registry;
+
+    // Copia en escritura: las lecturas recorren una lista fija aunque se publique un segmento a la vez.
+    private volatile List<SegmentoConsultas> segmentos;
+
+    public ArchivoConsultas(@Value("${hospital.archivo.directorio:data/archivo}") String directorio,
+            MeterRegistry registry) {
+        this.directorio = Path.of(directorio);
+        try {
+            Files.createDirectories(this.directorio);
+            this.segmentos = cargarSegmentos(this.directorio);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.leidos = Counter.builder("hospital.archivo.segmentos.leidos")
+                .description("Segmentos del archivo abiertos por una lectura")
+                .register(registry);
+        this.descartados = Counter.builder("hospital.archivo.segmentos.descartados")
+                .description("Segmentos del archivo descartados por su indice min/max")
+                .register(registry);
+        this.registry = registry;
+    }
+
+    // Fuera del constructor: los gauges guardan una referencia a la instancia, que ahi aun no termino de construirse.
+    @PostConstruct
+    public void registrarMetricas() {
+        Gauge.builder("hospital.archivo.segmentos", this, a -> a.segmentos.size())
+                .description("Segmentos en el archivo de consultas")
+                .register(registry);
+        Gauge.builder("hospital.archivo.filas", this, ArchivoConsultas::filas)
+                .description("Consultas archivadas")
+                .register(registry);
+        if (!segmentos.isEmpty()) {
+            log.info("Archivo de consultas: {} segmentos, {} filas", segmentos.size(), filas());
+        }
+    }
+
+    /** Sin segmentos las lecturas del repositorio no pasan por el archivo. */
+    public boolean vacio() {
+        return segmentos.isEmpty();
+    }
+
+    public long filas() {
+        return segmentos.stream().mapToLong(SegmentoConsultas::filas).sum();
+    }
+
+    /** Filas que cumplen el filtro, ordenadas por fecha e id. */
+    public List<ConsultaArchivada> buscar(FiltroArchivo filtro) {
+        List<ConsultaArchivada> resultado = new ArrayList<>();
+        recorrerSegmentos(segmentos, filtro, resultado::add);
+        resultado.sort(RECIENTES.reversed());
+        return resultado;
+    }
+
+    /**
+     * Las {@code limite} filas mas recientes que cumplen el filtro, en orden fecha desc, id desc. Los segmentos se
+     * abren del mas reciente al mas antiguo y se deja de leer cuando ninguno de los restantes puede superar a la
+     * ultima fila ya reunida.
+     */
+    public List<ConsultaArchivada> buscarRecientes(FiltroArchivo filtro, int limite) {
+        List<SegmentoConsultas> porFecha = new ArrayList<>(segmentos);
+        porFecha.sort(Comparator.comparing(SegmentoConsultas::fechaMaxima).reversed());
+        List<ConsultaArchivada> resultado = new ArrayList<>();
+        for (SegmentoConsultas segmento : porFecha) {
+            if (resultado.size() >= limite && segmento.fechaMaxima().isBefore(resultado.getLast().fecha())) {
+                break;
+            }
+            recorrerSegmentos(List.of(segmento), filtro, resultado::add);
+            resultado.sort(RECIENTES);
+            if (resultado.size() > limite) {
+                resultado.subList(limite, resultado.size()).clear();
+            }
+        }
+        return resultado;
+    }
+
+    /** Entrega el archivo completo segmento a segmento, para cargas y reconstrucciones que lo recorren entero. */
+    public void recorrer(Consumer<List<ConsultaArchivada>> consumidor) {
+        for (SegmentoConsultas segmento : segmentos) {
+            if (segmento.pendiente()) {
+                continue;
+            }
+            List<ConsultaArchivada> filas = new ArrayList<>(segmento.filas());
+            segmento.leer(FiltroArchivo.todas(), filas::add);
+            consumidor.accept(filas);
+        }
+    }
+
+    SegmentoConsultas publicar(List<ConsultaArchivada> consultas) {
+        String nombre = "consultas-%013d-%04d%s%s".formatted(System.currentTimeMillis(),
+                secuenciaSegmento.incrementAndGet(), SegmentoConsultas.EXTENSION, SegmentoConsultas.PENDIENTE);
+        SegmentoConsultas segmento = SegmentoConsultas.escribir(directorio.resolve(nombre), consultas);
+        reemplazar(null, segmento);
+        return segmento;
+    }
+
+    /**
+     * Da al segmento pendiente su nombre final, una vez confirmado el borrado en la base. Si el renombre falla queda
+     * pendiente, y MovimientoArchivo lo reconcilia al arrancar.
+     */
+    void confirmar(SegmentoConsultas pendiente) {
+        String nombre = pendiente.archivo().getFileName().toString();
+        Path definitivo = pendiente.archivo().resolveSibling(
+                nombre.substring(0, nombre.length() - SegmentoConsultas.PENDIENTE.length()));
+        try {
+            Files.move(pendiente.archivo(), definitivo, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("No se pudo confirmar el segmento {}; se reconcilia al arrancar", pendiente.archivo(), e);
+            return;
+        }
+        reemplazar(pendiente, SegmentoConsultas.abrir(definitivo));
+    }
+
+    /** Segmentos cuyo borrado en la base no consta como confirmado. */
+    List<SegmentoConsultas> pendientes() {
+        return segmentos.stream().filter(SegmentoConsultas::pendiente).toList();
+    }
+
+    /** Retira un segmento recien publicado cuyo borrado en la base no llego a confirmarse. */
+    void descartar(SegmentoConsultas segmento) {
+        reemplazar(segmento, null);
+        try {
+            Files.deleteIfExists(segmento.archivo());
+        } catch (IOException e) {
+            log.error("No se pudo borrar el segmento descartado {}; sus filas saldran duplicadas hasta borrarlo",
+                    segmento.archivo(), e);
+        }
+    }
+
+    private synchronized void reemplazar(SegmentoConsultas anterior, SegmentoConsultas nuevo) {
+        List<SegmentoConsultas> nuevos = new ArrayList<>(segmentos);
+        if (anterior != null) {
+            nuevos.remove(anterior);
+        }
+        if (nuevo != null) {
+            nuevos.add(nuevo);
+        }
+        segmentos = List.copyOf(nuevos);
+    }
+
+    private void recorrerSegmentos(List<SegmentoConsultas> candidatos, FiltroArchivo filtro,
+            Consumer<ConsultaArchivada> consumidor) {
+        for (SegmentoConsultas segmento : candidatos) {
+            if (segmento.puedeContener(filtro)) {
+                leidos.increment();
+                segmento.leer(filtro, consumidor);
+            } else {
+                descartados.increment();
+            }
+        }
+    }
+
+    private static List<SegmentoConsultas> cargarSegmentos(Path directorio) throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            List<SegmentoConsultas> cargados = new ArrayList<>();
+            for (Path archivo : archivos.sorted().toList()) {
+                String nombre = archivo.getFileName().toString();
+                if (nombre.endsWith(SegmentoConsultas.TEMPORAL)) {
+                    // Escritura interrumpida: sus filas nunca se borraron de la base.
+                    Files.delete(archivo);
+                } else if (nombre.endsWith(SegmentoConsultas.EXTENSION)
+                        || nombre.endsWith(SegmentoConsultas.EXTENSION + SegmentoConsultas.PENDIENTE)) {
+                    cargados.add(SegmentoConsultas.abrir(archivo));
+                }
+            }
+            return List.copyOf(cargados);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.hospital.archivo;
+
+import java.time.LocalDateTime;
+
+/** Consulta y su receta (si tiene) tal como quedaron al moverse al archivo. */
+public record ConsultaArchivada(
+        Integer idConsulta,
+        Long version,
+        LocalDateTime fecha,
+        String motivo,
+        String diagnostico,
+        Integer idPaciente,
+        Integer idDoctor,
+        Integer idReceta,
+        Long versionReceta,
+        String medicamento,
+        String dosis) {
+}
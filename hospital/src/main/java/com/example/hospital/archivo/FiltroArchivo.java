@@ -0,0 +1,64 @@
+package com.example.hospital.archivo;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.function.Predicate;
+
+/**
+ * Condiciones de una lectura del archivo. Fecha, paciente, doctor e ids se comparan con el indice min/max de cada
+ * segmento antes de abrirlo; la condicion libre solo se evalua sobre las filas que pasaron lo anterior.
+ *
+ * @param desde inclusivo, null sin limite
+ * @param hasta inclusivo, null sin limite
+ */
+public record FiltroArchivo(
+        LocalDateTime desde,
+        LocalDateTime hasta,
+        Integer idPaciente,
+        Integer idDoctor,
+        Collection<Integer> ids,
+        Predicate<ConsultaArchivada> condicion) {
+
+    public static FiltroArchivo todas() {
+        return new FiltroArchivo(null, null, null, null, null, null);
+    }
+
+    public static FiltroArchivo entre(LocalDateTime desde, LocalDateTime hasta) {
+        return new FiltroArchivo(desde, hasta, null, null, null, null);
+    }
+
+    public static FiltroArchivo dePaciente(Integer idPaciente) {
+        return new FiltroArchivo(null, null, idPaciente, null, null, null);
+    }
+
+    public static FiltroArchivo deDoctor(Integer idDoctor) {
+        return new FiltroArchivo(null, null, null, idDoctor, null, null);
+    }
+
+    public static FiltroArchivo conIds(Collection<Integer> ids) {
+        return new FiltroArchivo(null, null, null, null, ids, null);
+    }
+
+    public static FiltroArchivo donde(Predicate<ConsultaArchivada> condicion) {
+        return new FiltroArchivo(null, null, null, null, null, condicion);
+    }
+
+    /** Agrega una condicion libre a la que ya hubiera. */
+    public FiltroArchivo y(Predicate<ConsultaArchivada> otra) {
+        return new FiltroArchivo(desde, hasta, idPaciente, idDoctor, ids, condicion == null ? otra : condicion.and(otra));
+    }
+
+    /** Restringe a fechas desde la dada (inclusiva). */
+    public FiltroArchivo noAnteriorA(LocalDateTime fecha) {
+        return new FiltroArchivo(desde == null || fecha.isAfter(desde) ? fecha : desde, hasta, idPaciente, idDoctor,
+                ids, condicion);
+    }
+
+    /** Filas estrictamente anteriores a (fecha, idConsulta) en el orden fecha desc, id desc de los cursores. */
+    public FiltroArchivo antesDe(LocalDateTime fecha, Integer idConsulta) {
+        Predicate<ConsultaArchivada> anterior = c -> c.fecha().isBefore(fecha)
+                || (c.fecha().isEqual(fecha) && c.idConsulta() < idConsulta);
+        return new FiltroArchivo(desde, hasta == null || fecha.isBefore(hasta) ? fecha : hasta, idPaciente, idDoctor,
+                ids, condicion == null ? anterior : condicion.and(anterior));
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.hospital.archivo;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+
+import com.example.hospital.cambios.VersionesTabla;
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.Receta;
+import com.example.hospital.shard.Shards;
+
+/**
+ * Mueve al archivo las consultas (con su receta) anteriores a la antiguedad configurada, un segmento por
+ * transaccion; RecetaRepository lee las recetas archivadas de ahi. El segmento se publica como pendiente antes del
+ * commit, toma su nombre final despues y se descarta si el borrado no confirma; mientras tanto
+ * una lectura puede ver la fila en los dos lados, y el repositorio se queda con la de la tabla. Con shards se
+ * archiva shard por shard hacia el mismo archivo.
+ */
+@Component
+public class MovimientoArchivo {
+
+    private static final Logger log = LoggerFactory.getLogger(MovimientoArchivo.class);
+
+    private static final String SELECCIONAR = """
+            select new com.example.hospital.archivo.ConsultaArchivada(c.idConsulta, c.version, c.fecha, c.motivo,
+                c.diagnostico, c.paciente.idPaciente, c.doctor.idDoctor, r.idReceta, r.version, r.medicamento, r.dosis)
+            from Consulta c left join c.receta r
+            where c.fecha < :corte
+            order by c.fecha, c.idConsulta
+            """;
+    // La version evita archivar una copia vieja de una fila editada entre la lectura y el borrado.
+    private static final String BORRAR_RECETA = "delete from receta where id = ? and version = ?";
+    private static final String BORRAR_CONSULTA = "delete from consulta where id = ? and version = ?";
+    private static final String EN_TABLA = "select count(*) from consulta where id in (%s)";
+    private static final int IDS_POR_CONSULTA = 1000;
+
+    private final ArchivoConsultas archivoConsultas;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Shards shards;
+    private final VersionesTabla versionesTabla;
+    private final boolean habilitado;
+    private final int antiguedadDias;
+    private final int filasPorSegmento;
+
+    public MovimientoArchivo(ArchivoConsultas archivoConsultas, EntityManager entityManager, JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate, Shards shards, VersionesTabla versionesTabla,
+            @Value("${hospital.archivo.habilitado:false}") boolean habilitado,
+            @Value("${hospital.archivo.antiguedad-dias:365}") int antiguedadDias,
+            @Value("${hospital.archivo.filas-por-segmento:50000}") int filasPorSegmento) {
+        if (antiguedadDias < 1 || filasPorSegmento < 1) {
+            throw new IllegalArgumentException("hospital.archivo.antiguedad-dias y filas-por-segmento deben ser positivos");
+        }
+        this.archivoConsultas = archivoConsultas;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.shards = shards;
+        this.versionesTabla = versionesTabla;
+        this.habilitado = habilitado;
+        this.antiguedadDias = antiguedadDias;
+        this.filasPorSegmento = filasPorSegmento;
+    }
+
+    /**
+     * Un segmento pendiente al arrancar quedo de una caida entre su escritura y el fin de la transaccion: si sus
+     * consultas siguen en la tabla el borrado no confirmo y se descarta; si ya no estan, se confirma.
+     */
+    @PostConstruct
+    public void reconciliar() {
+        for (SegmentoConsultas segmento : archivoConsultas.pendientes()) {
+            List<Integer> ids = new ArrayList<>(segmento.filas());
+            segmento.leer(FiltroArchivo.todas(), c -> ids.add(c.idConsulta()));
+            boolean enTabla = !ids.isEmpty() && shards.en(shards.deId(ids.getFirst()), () -> algunaEnTabla(ids));
+            if (enTabla) {
+                archivoConsultas.descartar(segmento);
+            } else {
+                archivoConsultas.confirmar(segmento);
+            }
+            log.info("Segmento pendiente {} {} al arrancar", segmento.archivo().getFileName(),
+                    enTabla ? "descartado" : "confirmado");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${hospital.archivo.intervalo-ms:3600000}")
+    public void programado() {
+        if (habilitado) {
+            archivar(LocalDate.now().minusDays(antiguedadDias).atStartOfDay());
+        }
+    }
+
+    /** Archiva todo lo anterior al corte; devuelve las filas movidas. */
+    public long archivar(LocalDateTime corte) {
+        long inicio = System.currentTimeMillis();
+        long movidas = 0;
+        for (int shard = 0; shard < shards.cantidad(); shard++) {
+            movidas += shards.en(shard, () -> archivarShard(corte));
+        }
+        if (movidas > 0) {
+            log.info("Archivadas {} consultas anteriores a {} en {} ms", movidas, corte,
+                    System.currentTimeMillis() - inicio);
+        }
+        return movidas;
+    }
+
+    private long archivarShard(LocalDateTime corte) {
+        long movidas = 0;
+        try {
+            int lote;
+            do {
+                lote = moverLote(corte);
+                movidas += lote;
+            } while (lote == filasPorSegmento);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            log.warn("Archivo interrumpido por una edicion concurrente; se reintenta en la siguiente pasada: {}",
+                    e.getMessage());
+        }
+        return movidas;
+    }
+
+    private int moverLote(LocalDateTime corte) {
+        return transactionTemplate.execute(status -> {
+            List<ConsultaArchivada> filas = entityManager.createQuery(SELECCIONAR, ConsultaArchivada.class)
+                    .setParameter("corte", corte)
+                    .setMaxResults(filasPorSegmento)
+                    .getResultList();
+            if (filas.isEmpty()) {
+                return 0;
+            }
+            borrar(filas);
+            SegmentoConsultas segmento = archivoConsultas.publicar(filas);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int estado) {
+                    if (estado != STATUS_COMMITTED) {
+                        archivoConsultas.descartar(segmento);
+                        return;
+                    }
+                    archivoConsultas.confirmar(segmento);
+                    // El borrado fue por JDBC: Hibernate no avisa a VersionesTabla. Los listados de pacientes
+                    // incluyen sus consultas.
+                    versionesTabla.registrarCambio(VersionesTabla.CONSULTA);
+                    if (filas.stream().anyMatch(fila -> fila.idReceta() != null)) {
+                        versionesTabla.registrarCambio(VersionesTabla.RECETA);
+                    }
+                    versionesTabla.registrarCambio(VersionesTabla.PACIENTE);
+                    filas.forEach(fila -> versionesTabla.registrarCambioPaciente(fila.idPaciente()));
+                }
+            });
+            return filas.size();
+        });
+    }
+
+    // Las recetas primero: su clave foranea apunta a la consulta.
+    private void borrar(List<ConsultaArchivada> filas) {
+        List<Object[]> recetas = new ArrayList<>();
+        List<Object[]> consultas = new ArrayList<>(filas.size());
+        for (ConsultaArchivada fila : filas) {
+            if (fila.idReceta() != null) {
+                recetas.add(new Object[] {fila.idReceta(), fila.versionReceta()});
+            }
+            consultas.add(new Object[] {fila.idConsulta(), fila.version()});
+        }
+        if (!recetas.isEmpty()) {
+            comprobar(jdbcTemplate.batchUpdate(BORRAR_RECETA, recetas), recetas, Receta.class);
+        }
+        comprobar(jdbcTemplate.batchUpdate(BORRAR_CONSULTA, consultas), consultas, Consulta.class);
+    }
+
+    private boolean algunaEnTabla(List<Integer> ids) {
+        for (int i = 0; i < ids.size(); i += IDS_POR_CONSULTA) {
+            List<Integer> tramo = ids.subList(i, Math.min(i + IDS_POR_CONSULTA, ids.size()));
+            String sql = EN_TABLA.formatted(String.join(", ", Collections.nCopies(tramo.size(), "?")));
+            if (jdbcTemplate.queryForObject(sql, Long.class, tramo.toArray()) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void comprobar(int[] borradas, List<Object[]> filas, Class<?> entidad) {
+        for (int i = 0; i < borradas.length; i++) {
+            if (borradas[i] == 0) {
+                throw new ObjectOptimisticLockingFailureException(entidad, filas.get(i)[0]);
+            }
+        }
+    }
+}
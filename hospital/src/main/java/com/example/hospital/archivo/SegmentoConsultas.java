@@ -0,0 +1,448 @@
+package com.example.hospital.archivo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Segmento inmutable del archivo de consultas. Las filas se guardan ordenadas por (fecha, id) y por columnas: cada
+ * columna se codifica por separado (enteros en varint, con delta donde la columna va ordenada; textos con su
+ * longitud) y se comprime con Deflate. Una lectura descomprime primero solo las columnas que filtra, y el resto
+ * unicamente si alguna fila coincide. La cabecera lleva el indice min/max con el que se descartan segmentos sin
+ * abrirlos.
+ *
+ * <pre>
+ *  0  int   magia
+ *  4  short formato
+ *  6  int   filas
+ * 10  long  fecha minima, fecha maxima (microsegundos desde 1970, hora local sin zona)
+ * 26  int   id, paciente y doctor: minimo y maximo de cada uno
+ * 50  short columnas
+ * 52  por columna: int longitud original, int longitud comprimida
+ *     columnas comprimidas, en orden
+ * </pre>
+ */
+final class SegmentoConsultas {
+
+    static final String EXTENSION = ".seg";
+    static final String TEMPORAL = ".tmp";
+    // Segmento escrito cuyo borrado en la base aun no se confirmo.
+    static final String PENDIENTE = ".pend";
+
+    private static final int MAGIA = 0x48435347;
+    private static final short FORMATO = 1;
+    private static final int ID = 0;
+    private static final int FECHA = 1;
+    private static final int VERSION = 2;
+    private static final int PACIENTE = 3;
+    private static final int DOCTOR = 4;
+    private static final int MOTIVO = 5;
+    private static final int DIAGNOSTICO = 6;
+    private static final int RECETA = 7;
+    private static final int VERSION_RECETA = 8;
+    private static final int MEDICAMENTO = 9;
+    private static final int DOSIS = 10;
+    private static final int COLUMNAS = 11;
+    private static final int CABECERA = 52 + COLUMNAS * 8;
+
+    private static final Comparator<ConsultaArchivada> ORDEN =
+            Comparator.comparing(ConsultaArchivada::fecha).thenComparing(ConsultaArchivada::idConsulta);
+
+    private final Path archivo;
+    private final int filas;
+    private final long fechaMinima;
+    private final long fechaMaxima;
+    private final int idMinimo;
+    private final int idMaximo;
+    private final int pacienteMinimo;
+    private final int pacienteMaximo;
+    private final int doctorMinimo;
+    private final int doctorMaximo;
+    private final int[] longitudes;
+    private final int[] comprimidas;
+    private final long[] posiciones;
+
+    private SegmentoConsultas(Path archivo, ByteBuffer cabecera) {
+        if (cabecera.getInt(0) != MAGIA || cabecera.getShort(4) != FORMATO || cabecera.getShort(50) != COLUMNAS) {
+            throw new IllegalStateException("Segmento de archivo invalido: " + archivo);
+        }
+        this.archivo = archivo;
+        this.filas = cabecera.getInt(6);
+        this.fechaMinima = cabecera.getLong(10);
+        this.fechaMaxima = cabecera.getLong(18);
+        this.idMinimo = cabecera.getInt(26);
+        this.idMaximo = cabecera.getInt(30);
+        this.pacienteMinimo = cabecera.getInt(34);
+        this.pacienteMaximo = cabecera.getInt(38);
+        this.doctorMinimo = cabecera.getInt(42);
+        this.doctorMaximo = cabecera.getInt(46);
+        this.longitudes = new int[COLUMNAS];
+        this.comprimidas = new int[COLUMNAS];
+        this.posiciones = new long[COLUMNAS];
+        long posicion = CABECERA;
+        for (int i = 0; i < COLUMNAS; i++) {
+            longitudes[i] = cabecera.getInt(52 + i * 8);
+            comprimidas[i] = cabecera.getInt(56 + i * 8);
+            posiciones[i] = posicion;
+            posicion += comprimidas[i];
+        }
+    }
+
+    static SegmentoConsultas abrir(Path archivo) {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            ByteBuffer cabecera = ByteBuffer.allocate(CABECERA);
+            leerCompleto(canal, cabecera, 0);
+            return new SegmentoConsultas(archivo, cabecera);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Escribe las filas en un temporal, lo sincroniza y lo renombra de forma atomica: un segmento con el nombre
+     * final siempre esta completo.
+     */
+    static SegmentoConsultas escribir(Path archivo, List<ConsultaArchivada> consultas) {
+        ConsultaArchivada[] ordenadas = consultas.toArray(ConsultaArchivada[]::new);
+        Arrays.sort(ordenadas, ORDEN);
+        Columna[] columnas = new Columna[COLUMNAS];
+        for (int i = 0; i < COLUMNAS; i++) {
+            columnas[i] = new Columna(ordenadas.length * 4);
+        }
+        ByteBuffer cabecera = ByteBuffer.allocate(CABECERA);
+        long fechaAnterior = 0;
+        int idAnterior = 0;
+        int idMinimo = Integer.MAX_VALUE, idMaximo = Integer.MIN_VALUE;
+        int pacienteMinimo = Integer.MAX_VALUE, pacienteMaximo = Integer.MIN_VALUE;
+        int doctorMinimo = Integer.MAX_VALUE, doctorMaximo = Integer.MIN_VALUE;
+        for (ConsultaArchivada c : ordenadas) {
+            long fecha = micros(c.fecha());
+            columnas[ID].zigzag((long) c.idConsulta() - idAnterior);
+            columnas[FECHA].varint(fecha - fechaAnterior);
+            columnas[VERSION].varint(c.version() != null ? c.version() : 0);
+            columnas[PACIENTE].varint(c.idPaciente());
+            columnas[DOCTOR].varint(c.idDoctor());
+            columnas[MOTIVO].texto(c.motivo());
+            columnas[DIAGNOSTICO].texto(c.diagnostico());
+            columnas[RECETA].varint(c.idReceta() != null ? c.idReceta() : 0);
+            columnas[VERSION_RECETA].varint(c.versionReceta() != null ? c.versionReceta() : 0);
+            columnas[MEDICAMENTO].texto(c.medicamento());
+            columnas[DOSIS].texto(c.dosis());
+            idAnterior = c.idConsulta();
+            fechaAnterior = fecha;
+            idMinimo = Math.min(idMinimo, c.idConsulta());
+            idMaximo = Math.max(idMaximo, c.idConsulta());
+            pacienteMinimo = Math.min(pacienteMinimo, c.idPaciente());
+            pacienteMaximo = Math.max(pacienteMaximo, c.idPaciente());
+            doctorMinimo = Math.min(doctorMinimo, c.idDoctor());
+            doctorMaximo = Math.max(doctorMaximo, c.idDoctor());
+        }
+        cabecera.putInt(MAGIA).putShort(FORMATO).putInt(ordenadas.length)
+                .putLong(ordenadas.length > 0 ? micros(ordenadas[0].fecha()) : 0)
+                .putLong(fechaAnterior)
+                .putInt(idMinimo).putInt(idMaximo)
+                .putInt(pacienteMinimo).putInt(pacienteMaximo)
+                .putInt(doctorMinimo).putInt(doctorMaximo)
+                .putShort((short) COLUMNAS);
+        byte[][] comprimidas = new byte[COLUMNAS][];
+        for (int i = 0; i < COLUMNAS; i++) {
+            comprimidas[i] = columnas[i].comprimir();
+            cabecera.putInt(columnas[i].longitud).putInt(comprimidas[i].length);
+        }
+        cabecera.flip();
+
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + TEMPORAL);
+        try {
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                escribirCompleto(canal, cabecera);
+                for (byte[] columna : comprimidas) {
+                    escribirCompleto(canal, ByteBuffer.wrap(columna));
+                }
+                canal.force(true);
+            }
+            Files.move(temporal, archivo, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temporal);
+            } catch (IOException ignorada) {
+                e.addSuppressed(ignorada);
+            }
+            throw new UncheckedIOException(e);
+        }
+        return abrir(archivo);
+    }
+
+    /** Indice min/max: false si ninguna fila del segmento puede cumplir el filtro. */
+    boolean puedeContener(FiltroArchivo filtro) {
+        if (filas == 0) {
+            return false;
+        }
+        if (filtro.desde() != null && fechaMaxima < micros(filtro.desde())) {
+            return false;
+        }
+        if (filtro.hasta() != null && fechaMinima > micros(filtro.hasta())) {
+            return false;
+        }
+        if (filtro.idPaciente() != null && (filtro.idPaciente() < pacienteMinimo || filtro.idPaciente() > pacienteMaximo)) {
+            return false;
+        }
+        if (filtro.idDoctor() != null && (filtro.idDoctor() < doctorMinimo || filtro.idDoctor() > doctorMaximo)) {
+            return false;
+        }
+        return filtro.ids() == null || filtro.ids().stream().anyMatch(id -> id >= idMinimo && id <= idMaximo);
+    }
+
+    void leer(FiltroArchivo filtro, Consumer<ConsultaArchivada> consumidor) {
+        if (!puedeContener(filtro)) {
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            // Primero las columnas del indice; los textos solo se descomprimen si alguna fila pasa.
+            int[] ids = new int[filas];
+            long[] fechas = new long[filas];
+            Lector lectorIds = columna(canal, ID);
+            Lector lectorFechas = columna(canal, FECHA);
+            int id = 0;
+            long fecha = 0;
+            for (int i = 0; i < filas; i++) {
+                id = Math.toIntExact(id + lectorIds.zigzag());
+                fecha += lectorFechas.varint();
+                ids[i] = id;
+                fechas[i] = fecha;
+            }
+            int[] pacientes = enteros(canal, PACIENTE);
+            int[] doctores = enteros(canal, DOCTOR);
+            boolean[] coincide = new boolean[filas];
+            boolean alguna = false;
+            long desde = filtro.desde() != null ? micros(filtro.desde()) : Long.MIN_VALUE;
+            long hasta = filtro.hasta() != null ? micros(filtro.hasta()) : Long.MAX_VALUE;
+            for (int i = 0; i < filas; i++) {
+                coincide[i] = fechas[i] >= desde && fechas[i] <= hasta
+                        && (filtro.idPaciente() == null || pacientes[i] == filtro.idPaciente())
+                        && (filtro.idDoctor() == null || doctores[i] == filtro.idDoctor())
+                        && (filtro.ids() == null || filtro.ids().contains(ids[i]));
+                alguna |= coincide[i];
+            }
+            if (!alguna) {
+                return;
+            }
+
+            Lector versiones = columna(canal, VERSION);
+            Lector motivos = columna(canal, MOTIVO);
+            Lector diagnosticos = columna(canal, DIAGNOSTICO);
+            Lector recetas = columna(canal, RECETA);
+            Lector versionesReceta = columna(canal, VERSION_RECETA);
+            Lector medicamentos = columna(canal, MEDICAMENTO);
+            Lector dosis = columna(canal, DOSIS);
+            for (int i = 0; i < filas; i++) {
+                long version = versiones.varint();
+                String motivo = motivos.texto();
+                String diagnostico = diagnosticos.texto();
+                int idReceta = (int) recetas.varint();
+                long versionReceta = versionesReceta.varint();
+                String medicamento = medicamentos.texto();
+                String textoDosis = dosis.texto();
+                if (!coincide[i]) {
+                    continue;
+                }
+                ConsultaArchivada consulta = new ConsultaArchivada(ids[i], version, fecha(fechas[i]), motivo,
+                        diagnostico, pacientes[i], doctores[i], idReceta != 0 ? idReceta : null,
+                        idReceta != 0 ? versionReceta : null, medicamento, textoDosis);
+                if (filtro.condicion() == null || filtro.condicion().test(consulta)) {
+                    consumidor.accept(consulta);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    Path archivo() {
+        return archivo;
+    }
+
+    int filas() {
+        return filas;
+    }
+
+    boolean pendiente() {
+        return archivo.getFileName().toString().endsWith(PENDIENTE);
+    }
+
+    LocalDateTime fechaMaxima() {
+        return fecha(fechaMaxima);
+    }
+
+    long tamanioEnDisco() {
+        return CABECERA + Arrays.stream(comprimidas).asLongStream().sum();
+    }
+
+    private int[] enteros(FileChannel canal, int indice) throws IOException {
+        Lector lector = columna(canal, indice);
+        int[] valores = new int[filas];
+        for (int i = 0; i < filas; i++) {
+            valores[i] = (int) lector.varint();
+        }
+        return valores;
+    }
+
+    private Lector columna(FileChannel canal, int indice) throws IOException {
+        ByteBuffer comprimida = ByteBuffer.allocate(comprimidas[indice]);
+        leerCompleto(canal, comprimida, posiciones[indice]);
+        byte[] datos = new byte[longitudes[indice]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(comprimida.array());
+            int leidos = 0;
+            while (leidos < datos.length && !inflater.finished()) {
+                leidos += inflater.inflate(datos, leidos, datos.length - leidos);
+            }
+            if (leidos != datos.length) {
+                throw new IllegalStateException("Columna truncada en " + archivo);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Columna corrupta en " + archivo, e);
+        } finally {
+            inflater.end();
+        }
+        return new Lector(datos);
+    }
+
+    static long micros(LocalDateTime fecha) {
+        return fecha.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + fecha.getNano() / 1_000;
+    }
+
+    static LocalDateTime fecha(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static void leerCompleto(FileChannel canal, ByteBuffer destino, long posicion) throws IOException {
+        while (destino.hasRemaining()) {
+            int leidos = canal.read(destino, posicion + destino.position());
+            if (leidos < 0) {
+                throw new IOException("Fin de archivo inesperado");
+            }
+        }
+        destino.flip();
+    }
+
+    private static void escribirCompleto(FileChannel canal, ByteBuffer origen) throws IOException {
+        while (origen.hasRemaining()) {
+            canal.write(origen);
+        }
+    }
+
+    private static final class Columna {
+
+        private byte[] datos;
+        private int longitud;
+
+        Columna(int capacidad) {
+            this.datos = new byte[Math.max(16, capacidad)];
+        }
+
+        void zigzag(long valor) {
+            varint((valor << 1) ^ (valor >> 63));
+        }
+
+        void varint(long valor) {
+            asegurar(10);
+            while ((valor & ~0x7FL) != 0) {
+                datos[longitud++] = (byte) ((valor & 0x7F) | 0x80);
+                valor >>>= 7;
+            }
+            datos[longitud++] = (byte) valor;
+        }
+
+        // Longitud + 1 para distinguir null (0) de la cadena vacia (1).
+        void texto(String texto) {
+            if (texto == null) {
+                varint(0);
+                return;
+            }
+            byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length + 1L);
+            asegurar(bytes.length);
+            System.arraycopy(bytes, 0, datos, longitud, bytes.length);
+            longitud += bytes.length;
+        }
+
+        byte[] comprimir() {
+            Deflater deflater = new Deflater();
+            try {
+                deflater.setInput(datos, 0, longitud);
+                deflater.finish();
+                byte[] salida = new byte[Math.max(64, longitud / 2)];
+                int escritos = 0;
+                while (!deflater.finished()) {
+                    if (escritos == salida.length) {
+                        salida = Arrays.copyOf(salida, salida.length * 2);
+                    }
+                    escritos += deflater.deflate(salida, escritos, salida.length - escritos);
+                }
+                return Arrays.copyOf(salida, escritos);
+            } finally {
+                deflater.end();
+            }
+        }
+
+        private void asegurar(int adicional) {
+            if (longitud + adicional > datos.length) {
+                datos = Arrays.copyOf(datos, Math.max(datos.length * 2, longitud + adicional));
+            }
+        }
+    }
+
+    private static final class Lector {
+
+        private final byte[] datos;
+        private int posicion;
+
+        Lector(byte[] datos) {
+            this.datos = datos;
+        }
+
+        long zigzag() {
+            long valor = varint();
+            return (valor >>> 1) ^ -(valor & 1);
+        }
+
+        long varint() {
+            long valor = 0;
+            int desplazamiento = 0;
+            byte b;
+            do {
+                b = datos[posicion++];
+                valor |= (long) (b & 0x7F) << desplazamiento;
+                desplazamiento += 7;
+            } while (b < 0);
+            return valor;
+        }
+
+        String texto() {
+            int longitud = (int) varint();
+            if (longitud == 0) {
+                return null;
+            }
+            String texto = new String(datos, posicion, longitud - 1, StandardCharsets.UTF_8);
+            posicion += longitud - 1;
+            return texto;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.hospital.auditoria;
+
+/** El ordinal se graba en los segmentos: solo agregar valores al final. */
+public enum AccionAuditada {
+    LEER,
+    CREAR,
+    ACTUALIZAR,
+    ELIMINAR
+}
@@ -0,0 +1,163 @@
+package com.example.hospital.auditoria;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Registro de auditoria de accesos a datos clinicos. Cada acceso ocupa 24 bytes en un segmento mapeado en memoria;
+ * el camino de escritura no toma candados ni hace E/S (el fsync es periodico), y solo la rotacion de segmento,
+ * una vez cada varios millones de registros, se sincroniza.
+ */
+@Component
+public class Auditoria {
+
+    private final boolean habilitada;
+    private final Path directorio;
+    private final int tamanioSegmento;
+    private final Object rotacion = new Object();
+    private final AtomicLong secuenciaSegmento = new AtomicLong();
+    // Segmentos rotados que aun pueden tener escrituras en curso; se sincronizan una vez mas antes de soltarlos.
+    private final List<SegmentoAuditoria> retirados = new ArrayList<>();
+
+    private volatile SegmentoAuditoria actual;
+
+    public Auditoria(@Value("${hospital.auditoria.habilitada:true}") boolean habilitada,
+            @Value("${hospital.auditoria.directorio:data/auditoria}") String directorio,
+            @Value("${hospital.auditoria.tamanio-segmento:67108864}") int tamanioSegmento) {
+        this.habilitada = habilitada;
+        this.directorio = Path.of(directorio);
+        this.tamanioSegmento = tamanioSegmento;
+        if (habilitada) {
+            try {
+                Files.createDirectories(this.directorio);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.actual = abrirSegmento();
+        }
+    }
+
+    public void registrar(EntidadAuditada entidad, AccionAuditada accion, Integer idEntidad, Integer idPaciente) {
+        if (habilitada) {
+            escribir(System.currentTimeMillis(), entidad, accion, valor(idEntidad), valor(idPaciente), origenActual());
+        }
+    }
+
+    /** Registra un acceso por elemento; el origen y el instante se calculan una sola vez. */
+    public <T> void registrarTodos(EntidadAuditada entidad, AccionAuditada accion, Iterable<T> elementos,
+            ToIntFunction<T> idEntidad, ToIntFunction<T> idPaciente) {
+        if (!habilitada) {
+            return;
+        }
+        long instante = System.currentTimeMillis();
+        int origen = origenActual();
+        for (T elemento : elementos) {
+            escribir(instante, entidad, accion, idEntidad.applyAsInt(elemento), idPaciente.applyAsInt(elemento), origen);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${hospital.auditoria.intervalo-sincronizacion-ms:1000}")
+    public void sincronizar() {
+        if (!habilitada) {
+            return;
+        }
+        List<SegmentoAuditoria> pendientes;
+        synchronized (rotacion) {
+            pendientes = new ArrayList<>(retirados);
+            retirados.clear();
+        }
+        pendientes.forEach(SegmentoAuditoria::sincronizar);
+        actual.sincronizar();
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        sincronizar();
+    }
+
+    Path directorio() {
+        return directorio;
+    }
+
+    private void escribir(long instante, EntidadAuditada entidad, AccionAuditada accion, int idEntidad, int idPaciente,
+            int origen) {
+        byte codigoEntidad = (byte) entidad.ordinal();
+        byte codigoAccion = (byte) accion.ordinal();
+        while (true) {
+            SegmentoAuditoria segmento = actual;
+            if (segmento.escribir(instante, idPaciente, idEntidad, origen, codigoEntidad, codigoAccion)) {
+                return;
+            }
+            rotar(segmento);
+        }
+    }
+
+    private void rotar(SegmentoAuditoria lleno) {
+        synchronized (rotacion) {
+            if (actual == lleno) {
+                retirados.add(lleno);
+                actual = abrirSegmento();
+            }
+        }
+    }
+
+    private SegmentoAuditoria abrirSegmento() {
+        // El nombre empieza con el instante de apertura: la consulta lo usa para descartar segmentos fuera de rango.
+        String nombre = "auditoria-%013d-%04d%s".formatted(System.currentTimeMillis(),
+                secuenciaSegmento.incrementAndGet(), SegmentoAuditoria.EXTENSION);
+        return SegmentoAuditoria.crear(directorio.resolve(nombre), tamanioSegmento);
+    }
+
+    private static int valor(Integer id) {
+        return id != null ? id : 0;
+    }
+
+    private static int origenActual() {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (atributos instanceof ServletRequestAttributes servlet) {
+            return ipv4(servlet.getRequest().getRemoteAddr());
+        }
+        return 0;
+    }
+
+    /** IPv4 empaquetada en un int; otras direcciones se registran como 0. */
+    static int ipv4(String direccion) {
+        if (direccion == null) {
+            return 0;
+        }
+        int resultado = 0;
+        int octeto = 0;
+        int puntos = 0;
+        for (int i = 0; i < direccion.length(); i++) {
+            char c = direccion.charAt(i);
+            if (c == '.') {
+                if (octeto > 255) {
+                    return 0;
+                }
+                resultado = (resultado << 8) | octeto;
+                octeto = 0;
+                puntos++;
+            } else if (c >= '0' && c <= '9' && octeto < 1000) {
+                octeto = octeto * 10 + (c - '0');
+            } else {
+                return 0;
+            }
+        }
+        return puntos == 3 && octeto <= 255 ? (resultado << 8) | octeto : 0;
+    }
+}
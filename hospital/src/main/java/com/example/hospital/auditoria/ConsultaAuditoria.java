@@ -0,0 +1,119 @@
+package com.example.hospital.auditoria;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Recorre los segmentos de auditoria filtrando por paciente y rango de tiempo. Solo usa el JDK, para poder
+ * ejecutarse fuera de la aplicacion:
+ *
+ * <pre>
+ * java -cp hospital-0.0.1-SNAPSHOT.jar com.example.hospital.auditoria.ConsultaAuditoria \
+ *     data/auditoria 42 2024-03-01T00:00:00Z 2024-04-01T00:00:00Z
+ * </pre>
+ */
+public final class ConsultaAuditoria {
+
+    private static final EntidadAuditada[] ENTIDADES = EntidadAuditada.values();
+    private static final AccionAuditada[] ACCIONES = AccionAuditada.values();
+    // Un registro puede llevar un instante tomado justo antes de que se abriera su segmento.
+    private static final long MARGEN_APERTURA_MS = 60_000;
+
+    private ConsultaAuditoria() {
+    }
+
+    /**
+     * @param idPaciente null para todos los pacientes
+     * @param desde      inclusivo
+     * @param hasta      exclusivo
+     */
+    public static void recorrer(Path directorio, Integer idPaciente, Instant desde, Instant hasta,
+            Consumer<RegistroAuditoria> consumidor) {
+        long desdeMs = desde.toEpochMilli();
+        long hastaMs = hasta.toEpochMilli();
+        List<Path> segmentos = segmentos(directorio);
+        for (int i = 0; i < segmentos.size(); i++) {
+            // Un segmento cubre desde su apertura hasta la apertura del siguiente; el ultimo sigue abierto.
+            long apertura = apertura(segmentos.get(i));
+            long cierre = i + 1 < segmentos.size() ? apertura(segmentos.get(i + 1)) : Long.MAX_VALUE;
+            if (apertura - MARGEN_APERTURA_MS >= hastaMs || cierre < desdeMs) {
+                continue;
+            }
+            recorrerSegmento(segmentos.get(i), idPaciente, desdeMs, hastaMs, consumidor);
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Uso: ConsultaAuditoria <directorio> [idPaciente|*] [desde ISO-8601] [hasta ISO-8601]");
+            System.exit(2);
+        }
+        Path directorio = Path.of(args[0]);
+        Integer idPaciente = args.length > 1 && !"*".equals(args[1]) ? Integer.valueOf(args[1]) : null;
+        Instant desde = args.length > 2 ? Instant.parse(args[2]) : Instant.EPOCH;
+        Instant hasta = args.length > 3 ? Instant.parse(args[3]) : Instant.now();
+        recorrer(directorio, idPaciente, desde, hasta, r -> System.out.printf("%s\t%s\t%s\t%d\t%d\t%s%n",
+                r.instante(), r.entidad(), r.accion(), r.idEntidad(), r.idPaciente(), r.origen()));
+    }
+
+    private static void recorrerSegmento(Path archivo, Integer idPaciente, long desdeMs, long hastaMs,
+            Consumer<RegistroAuditoria> consumidor) {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            int limite = buffer.capacity() - SegmentoAuditoria.TAMANIO_REGISTRO;
+            // No se corta en el primer hueco: tras una caida puede haber registros reservados y nunca escritos.
+            for (int base = 0; base <= limite; base += SegmentoAuditoria.TAMANIO_REGISTRO) {
+                if (buffer.getShort(base + 22) != SegmentoAuditoria.MARCA) {
+                    continue;
+                }
+                long instante = buffer.getLong(base);
+                int paciente = buffer.getInt(base + 8);
+                if (instante < desdeMs || instante >= hastaMs || (idPaciente != null && paciente != idPaciente)) {
+                    continue;
+                }
+                consumidor.accept(new RegistroAuditoria(
+                        Instant.ofEpochMilli(instante),
+                        ENTIDADES[buffer.get(base + 20)],
+                        ACCIONES[buffer.get(base + 21)],
+                        buffer.getInt(base + 12),
+                        paciente,
+                        ipv4(buffer.getInt(base + 16))));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<Path> segmentos(Path directorio) {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return new ArrayList<>(archivos
+                    .filter(p -> p.getFileName().toString().endsWith(SegmentoAuditoria.EXTENSION))
+                    .sorted()
+                    .toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long apertura(Path segmento) {
+        // auditoria-<epoch ms, 13 digitos>-<secuencia>.seg
+        return Long.parseLong(segmento.getFileName().toString().substring(10, 23));
+    }
+
+    private static String ipv4(int origen) {
+        if (origen == 0) {
+            return "-";
+        }
+        return (origen >>> 24) + "." + ((origen >>> 16) & 0xFF) + "." + ((origen >>> 8) & 0xFF) + "." + (origen & 0xFF);
+    }
+}
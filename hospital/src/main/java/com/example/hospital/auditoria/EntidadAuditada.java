@@ -0,0 +1,8 @@
+package com.example.hospital.auditoria;
+
+/** El ordinal se graba en los segmentos: solo agregar valores al final. */
+public enum EntidadAuditada {
+    PACIENTE,
+    HISTORIAL,
+    RECETA
+}
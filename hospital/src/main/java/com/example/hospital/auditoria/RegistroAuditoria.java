@@ -0,0 +1,12 @@
+package com.example.hospital.auditoria;
+
+import java.time.Instant;
+
+public record RegistroAuditoria(
+        Instant instante,
+        EntidadAuditada entidad,
+        AccionAuditada accion,
+        int idEntidad,
+        int idPaciente,
+        String origen) {
+}
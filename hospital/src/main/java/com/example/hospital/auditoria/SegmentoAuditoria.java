@@ -0,0 +1,81 @@
+package com.example.hospital.auditoria;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Archivo de auditoria mapeado en memoria con registros de tamanio fijo. Cada productor reserva su posicion con un
+ * getAndAdd y escribe sin candados; la marca se publica al final con semantica release, de modo que un registro
+ * con marca valida siempre esta completo.
+ *
+ * <pre>
+ *  0  long  instante (epoch ms)
+ *  8  int   idPaciente
+ * 12  int   idEntidad
+ * 16  int   origen (IPv4)
+ * 20  byte  entidad
+ * 21  byte  accion
+ * 22  short marca
+ * </pre>
+ */
+final class SegmentoAuditoria {
+
+    static final int TAMANIO_REGISTRO = 24;
+    static final short MARCA = (short) 0xA5D1;
+    static final String EXTENSION = ".seg";
+
+    private static final VarHandle MARCAS = MethodHandles.byteBufferViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+
+    private final Path archivo;
+    private final MappedByteBuffer buffer;
+    private final long capacidad;
+    private final AtomicLong cursor = new AtomicLong();
+
+    private SegmentoAuditoria(Path archivo, MappedByteBuffer buffer) {
+        this.archivo = archivo;
+        this.buffer = buffer;
+        this.capacidad = buffer.capacity() - buffer.capacity() % TAMANIO_REGISTRO;
+    }
+
+    static SegmentoAuditoria crear(Path archivo, int tamanio) {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return new SegmentoAuditoria(archivo, canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanio));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Devuelve false si el segmento esta lleno; el llamador debe rotar. */
+    boolean escribir(long instante, int idPaciente, int idEntidad, int origen, byte entidad, byte accion) {
+        long posicion = cursor.getAndAdd(TAMANIO_REGISTRO);
+        if (posicion + TAMANIO_REGISTRO > capacidad) {
+            return false;
+        }
+        int base = (int) posicion;
+        buffer.putLong(base, instante);
+        buffer.putInt(base + 8, idPaciente);
+        buffer.putInt(base + 12, idEntidad);
+        buffer.putInt(base + 16, origen);
+        buffer.put(base + 20, entidad);
+        buffer.put(base + 21, accion);
+        MARCAS.setRelease(buffer, base + 22, MARCA);
+        return true;
+    }
+
+    void sincronizar() {
+        buffer.force();
+    }
+
+    Path archivo() {
+        return archivo;
+    }
+}
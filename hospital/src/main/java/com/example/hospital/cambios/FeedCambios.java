@@ -0,0 +1,97 @@
+package com.example.hospital.cambios;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.hospital.entity.EventoCambio;
+import com.example.hospital.shard.Shards;
+
+/**
+ * Envia el outbox por Server-Sent Events. Cada suscriptor tiene su hilo virtual: lee lotes desde su ultima
+ * secuencia y el envio bloquea mientras el cliente no consume, lo que da contrapresion sin buffers intermedios.
+ * Un evento que confirmo tarde puede llegar despues de otros de secuencia mayor. Con shards cada base tiene su
+ * propio outbox y una sola secuencia no los ordena; el feed no se sirve.
+ */
+@Component
+public class FeedCambios {
+
+    static final int TAMANIO_LOTE = 500;
+    static final long ESPERA_MS = 1_000;
+    static final long LATIDO_MS = 15_000;
+
+    private final RegistroCambios registroCambios;
+    private final Shards shards;
+    private final Semaphore suscripciones;
+
+    public FeedCambios(RegistroCambios registroCambios, Shards shards,
+            @Value("${hospital.cambios.suscriptores-maximos:100}") int suscriptoresMaximos) {
+        this.registroCambios = registroCambios;
+        this.shards = shards;
+        this.suscripciones = new Semaphore(suscriptoresMaximos);
+    }
+
+    /**
+     * Devuelve null si se alcanzo el maximo de suscriptores.
+     *
+     * @throws IllegalStateException si hospital.shards.habilitado esta activo
+     */
+    public SseEmitter suscribir(long desde, String tabla) {
+        if (shards.habilitado()) {
+            throw new IllegalStateException("El feed de cambios no esta disponible con hospital.shards.habilitado");
+        }
+        if (!suscripciones.tryAcquire()) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(0L);
+        AtomicBoolean activo = new AtomicBoolean(true);
+        emitter.onCompletion(() -> activo.set(false));
+        emitter.onTimeout(() -> activo.set(false));
+        emitter.onError(e -> activo.set(false));
+
+        Thread.ofVirtual().name("feed-cambios").start(() -> {
+            try {
+                LectorCambios lector = registroCambios.lector(desde);
+                long ultimoEnvio = System.currentTimeMillis();
+                while (activo.get()) {
+                    List<EventoCambio> lote = lector.leer(TAMANIO_LOTE);
+                    if (!lote.isEmpty()) {
+                        long ultimo = lector.ultimo();
+                        // El filtro por tabla se aplica aqui para que el corte por huecos vea la secuencia completa.
+                        List<EventoCambio> eventos = tabla == null ? lote
+                                : lote.stream().filter(evento -> tabla.equals(evento.getTabla())).toList();
+                        if (!eventos.isEmpty()) {
+                            emitter.send(SseEmitter.event()
+                                    .id(Long.toString(ultimo))
+                                    .name("cambios")
+                                    .data(eventos, MediaType.APPLICATION_JSON));
+                            ultimoEnvio = System.currentTimeMillis();
+                        }
+                        continue;
+                    }
+                    if (System.currentTimeMillis() - ultimoEnvio > LATIDO_MS) {
+                        emitter.send(SseEmitter.event().comment("latido"));
+                        ultimoEnvio = System.currentTimeMillis();
+                    }
+                    registroCambios.esperar(ESPERA_MS);
+                }
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                // El cliente se desconecto.
+                emitter.completeWithError(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emitter.complete();
+            } finally {
+                suscripciones.release();
+            }
+        });
+        return emitter;
+    }
+}
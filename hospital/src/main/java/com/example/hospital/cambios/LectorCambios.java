@@ -0,0 +1,84 @@
+package com.example.hospital.cambios;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import com.example.hospital.entity.EventoCambio;
+
+/**
+ * Cursor de un suscriptor sobre el outbox. Avanza por secuencia y corta el lote en el primer hueco reciente, para
+ * no adelantarse a una transaccion que todavia no confirmo. Un hueco que pasa de ESPERA_HUECO_MS se salta pero
+ * se sigue buscando durante VIGILANCIA_HUECO_MS: si la transaccion confirma tarde, su evento se entrega entonces,
+ * fuera de orden, en lugar de perderse. No es seguro entre hilos; cada suscriptor tiene el suyo.
+ */
+public class LectorCambios {
+
+    // Cubre transacciones lentas sin vigilar para siempre los numeros que deja un rollback.
+    static final long VIGILANCIA_HUECO_MS = 10 * 60_000;
+    static final long REVISION_HUECOS_MS = 1_000;
+    // Un hueco mas grande que lo que queda por vigilar no es una transaccion en curso (una purga, por ejemplo).
+    static final int HUECOS_MAXIMOS = 10_000;
+    private static final int SECUENCIAS_POR_CONSULTA = 1_000;
+
+    private final RegistroCambios registroCambios;
+    private long ultimo;
+    // Secuencia saltada -> instante en que se salto.
+    private final TreeMap<Long, Long> huecos = new TreeMap<>();
+    private long ultimaRevision;
+
+    LectorCambios(RegistroCambios registroCambios, long desde) {
+        this.registroCambios = registroCambios;
+        this.ultimo = desde;
+    }
+
+    /** Mayor secuencia leida en orden; los eventos tardios no la mueven. */
+    public long ultimo() {
+        return ultimo;
+    }
+
+    public List<EventoCambio> leer(int maximo) {
+        long ahora = System.currentTimeMillis();
+        List<EventoCambio> eventos = new ArrayList<>(revisarHuecos(ahora));
+        LocalDateTime limiteHueco = LocalDateTime.now().minusNanos(RegistroCambios.ESPERA_HUECO_MS * 1_000_000);
+        long esperado = ultimo + 1;
+        for (EventoCambio evento : registroCambios.siguientes(ultimo, maximo)) {
+            if (evento.getSecuencia() != esperado) {
+                if (evento.getFecha().isAfter(limiteHueco)) {
+                    break;
+                }
+                saltar(esperado, evento.getSecuencia(), ahora);
+            }
+            eventos.add(evento);
+            ultimo = evento.getSecuencia();
+            esperado = ultimo + 1;
+        }
+        return eventos;
+    }
+
+    private void saltar(long desde, long hasta, long ahora) {
+        if (hasta - desde > HUECOS_MAXIMOS - huecos.size()) {
+            return;
+        }
+        for (long secuencia = desde; secuencia < hasta; secuencia++) {
+            huecos.put(secuencia, ahora);
+        }
+    }
+
+    private List<EventoCambio> revisarHuecos(long ahora) {
+        if (huecos.isEmpty() || ahora - ultimaRevision < REVISION_HUECOS_MS) {
+            return List.of();
+        }
+        ultimaRevision = ahora;
+        huecos.values().removeIf(saltado -> ahora - saltado > VIGILANCIA_HUECO_MS);
+        List<Long> secuencias = new ArrayList<>(huecos.keySet());
+        List<EventoCambio> tardios = new ArrayList<>();
+        for (int i = 0; i < secuencias.size(); i += SECUENCIAS_POR_CONSULTA) {
+            tardios.addAll(registroCambios.porSecuencia(
+                    secuencias.subList(i, Math.min(i + SECUENCIAS_POR_CONSULTA, secuencias.size()))));
+        }
+        tardios.forEach(evento -> huecos.remove(evento.getSecuencia()));
+        return tardios;
+    }
+}
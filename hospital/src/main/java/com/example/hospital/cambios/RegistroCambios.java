@@ -0,0 +1,113 @@
+package com.example.hospital.cambios;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.hospital.entity.EventoCambio;
+import com.example.hospital.entity.OperacionCambio;
+import com.example.hospital.repository.EventoCambioRepository;
+import com.example.hospital.shard.Shards;
+
+import lombok.RequiredArgsConstructor;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Outbox de cambios: cada alta, modificacion o baja agrega una fila a evento_cambio dentro de la misma transaccion
+ * que el cambio, de modo que el orden de secuencia refleja lo que realmente se confirmo.
+ */
+@Component
+@RequiredArgsConstructor
+public class RegistroCambios {
+
+    // Un hueco en la secuencia puede ser una transaccion que aun no confirma; se espera este tiempo antes de saltarlo.
+    static final long ESPERA_HUECO_MS = 5_000;
+    // Los suscriptores empiezan desde una secuencia reciente; lo anterior a este plazo se borra.
+    static final long DIAS_RETENCION = 7;
+
+    private static final String INSERTAR = """
+            insert into evento_cambio (tabla, id_entidad, operacion, fecha, datos) values (?, ?, ?, ?, ?)
+            """;
+    private static final String PURGAR = "delete from evento_cambio where fecha < ?";
+
+    private final EventoCambioRepository eventoCambioRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Shards shards;
+
+    private final Object monitor = new Object();
+
+    public void registrar(String tabla, Integer idEntidad, OperacionCambio operacion, Object datos) {
+        EventoCambio evento = new EventoCambio();
+        evento.setTabla(tabla);
+        evento.setIdEntidad(idEntidad);
+        evento.setOperacion(operacion);
+        evento.setFecha(LocalDateTime.now());
+        evento.setDatos(datos != null ? objectMapper.writeValueAsString(datos) : null);
+        eventoCambioRepository.save(evento);
+        avisarAlConfirmar();
+    }
+
+    public void registrarLote(String tabla, OperacionCambio operacion, List<Integer> ids, List<?> datos) {
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> filas = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            filas.add(new Object[] {tabla, ids.get(i), operacion.name(), ahora, objectMapper.writeValueAsString(datos.get(i))});
+        }
+        jdbcTemplate.batchUpdate(INSERTAR, filas);
+        avisarAlConfirmar();
+    }
+
+    /** Cursor sobre el outbox a partir de {@code desde}; ver {@link LectorCambios}. */
+    public LectorCambios lector(long desde) {
+        return new LectorCambios(this, desde);
+    }
+
+    @Scheduled(cron = "${hospital.cambios.purga-cron:0 37 * * * *}")
+    public void purgar() {
+        Timestamp limite = Timestamp.valueOf(LocalDateTime.now().minusDays(DIAS_RETENCION));
+        shards.enCadaShard(() -> jdbcTemplate.update(PURGAR, limite));
+    }
+
+    List<EventoCambio> siguientes(long desde, int maximo) {
+        return eventoCambioRepository.findBySecuenciaGreaterThanOrderBySecuencia(desde, Limit.of(maximo));
+    }
+
+    List<EventoCambio> porSecuencia(Collection<Long> secuencias) {
+        return eventoCambioRepository.findBySecuenciaInOrderBySecuencia(secuencias);
+    }
+
+    public void esperar(long milisegundos) throws InterruptedException {
+        synchronized (monitor) {
+            monitor.wait(milisegundos);
+        }
+    }
+
+    private void avisarAlConfirmar() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            avisar();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                avisar();
+            }
+        });
+    }
+
+    private void avisar() {
+        synchronized (monitor) {
+            monitor.notifyAll();
+        }
+    }
+}
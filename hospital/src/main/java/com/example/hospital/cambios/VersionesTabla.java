@@ -0,0 +1,269 @@
+package com.example.hospital.cambios;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.Historial;
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.entity.Receta;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Contador de cambios por tabla, incrementado despues de cada commit de Hibernate o de una escritura JDBC que lo
+ * avise. Permite responder 304 a los listados sin consultar la base: si ningun contador cambio, el ETag anterior
+ * sigue siendo valido. Los cambios se suman tambien en version_tabla, y cada instancia lee de ahi los de las demas
+ * cada hospital.versiones.intervalo-ms. El ETag sale de esa fila, asi que es el mismo en todas las instancias y
+ * despues de un reinicio.
+ */
+@Component
+@RequiredArgsConstructor
+public class VersionesTabla implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    public static final String PACIENTE = "paciente";
+    public static final String DOCTOR = "doctor";
+    public static final String ESPECIALIDAD = "especialidad";
+    public static final String CONSULTA = "consulta";
+    public static final String RECETA = "receta";
+    public static final String HISTORIAL = "historial";
+
+    static final Set<String> TABLAS = Set.of(PACIENTE, DOCTOR, ESPECIALIDAD, CONSULTA, RECETA, HISTORIAL);
+    // Las que entran en los datos clinicos de un paciente; ver versionPaciente.
+    static final Set<String> CLINICAS = Set.of(PACIENTE, CONSULTA, RECETA, HISTORIAL);
+
+    private static final Logger log = LoggerFactory.getLogger(VersionesTabla.class);
+
+    private static final String SUMAR = """
+            insert into version_tabla (tabla, version, modificado) values (?, ?, ?)
+            on duplicate key update version = version + values(version), modificado = greatest(modificado, values(modificado))
+            """;
+
+    // Versiones de los datos clinicos por paciente, repartidas en franjas para acotar la memoria; dos pacientes de
+    // la misma franja solo comparten invalidaciones.
+    static final int FRANJAS_PACIENTE = 4096;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final long inicio = System.currentTimeMillis();
+    // Version de cada tabla en version_tabla contando los cambios de este proceso aun sin sumar; solo crece, asi
+    // que un ETag no se repite para datos distintos.
+    private final Map<String, AtomicLong> vistas = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> modificaciones = new ConcurrentHashMap<>();
+    private final AtomicLongArray versionesPaciente = new AtomicLongArray(FRANJAS_PACIENTE);
+    // Cambios clinicos de otras instancias vistos en version_tabla; de ellos no se sabe el paciente.
+    private final AtomicLong cambiosClinicosAjenos = new AtomicLong();
+    private volatile boolean sincronizada;
+    // Cambios de este proceso aun no sumados en version_tabla, y lo ultimo leido de ella.
+    private final Map<String, Long> pendientes = new ConcurrentHashMap<>();
+    private final Map<String, Version> compartidas = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void registrar() {
+        EventListenerRegistry registro = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registro.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registro.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registro.appendListeners(EventType.POST_COMMIT_DELETE, this);
+        // Los primeros ETag ya salen de version_tabla.
+        sincronizar();
+    }
+
+    public void registrarCambio(String tabla) {
+        if (!TABLAS.contains(tabla)) {
+            return;
+        }
+        // Antes que pendientes: sincronizar no debe ver el cambio pendiente sin verlo tambien en la vista.
+        vista(tabla).incrementAndGet();
+        modificaciones.computeIfAbsent(tabla, k -> new AtomicLong()).accumulateAndGet(System.currentTimeMillis(), Math::max);
+        pendientes.merge(tabla, 1L, Long::sum);
+    }
+
+    /** Suma en version_tabla los cambios de este proceso y trae los de las demas instancias. */
+    @Scheduled(fixedDelayString = "${hospital.versiones.intervalo-ms:1000}")
+    public synchronized void sincronizar() {
+        long ahora = System.currentTimeMillis();
+        List<Object[]> filas = new ArrayList<>();
+        Map<String, Long> enviados = new HashMap<>();
+        for (String tabla : pendientes.keySet()) {
+            Long cambios = pendientes.remove(tabla);
+            if (cambios != null) {
+                filas.add(new Object[] {tabla, cambios, ahora});
+                enviados.put(tabla, cambios);
+            }
+        }
+        try {
+            if (!filas.isEmpty()) {
+                jdbcTemplate.batchUpdate(SUMAR, filas);
+            }
+            jdbcTemplate.query("select tabla, version, modificado from version_tabla", rs -> {
+                String tabla = rs.getString(1);
+                Version nueva = new Version(rs.getLong(2), rs.getLong(3));
+                Version anterior = compartidas.put(tabla, nueva);
+                vista(tabla).accumulateAndGet(nueva.version() + pendientes.getOrDefault(tabla, 0L), Math::max);
+                if (sincronizada && CLINICAS.contains(tabla)) {
+                    // Lo que crecio la fila aparte de lo que acaba de sumar este proceso lo escribio otra instancia.
+                    long ajenos = nueva.version() - (anterior != null ? anterior.version() : 0)
+                            - enviados.getOrDefault(tabla, 0L);
+                    if (ajenos > 0) {
+                        cambiosClinicosAjenos.addAndGet(ajenos);
+                    }
+                }
+            });
+            sincronizada = true;
+        } catch (DataAccessException e) {
+            filas.forEach(fila -> pendientes.merge((String) fila[0], (Long) fila[1], Long::sum));
+            log.warn("No se pudieron sincronizar las versiones de tabla", e);
+        }
+    }
+
+    /**
+     * Cambia tras cada commit de este proceso que toca al paciente, su historial, sus consultas o sus recetas, y
+     * tras cualquier cambio clinico de otra instancia en cuanto sincronizar lo trae.
+     */
+    public long versionPaciente(int idPaciente) {
+        return versionesPaciente.get(Math.floorMod(idPaciente, FRANJAS_PACIENTE)) + cambiosClinicosAjenos.get();
+    }
+
+    /** Para las escrituras JDBC, que no pasan por los eventos de Hibernate; llamar despues del commit. */
+    public void registrarCambioPaciente(int idPaciente) {
+        versionesPaciente.incrementAndGet(Math.floorMod(idPaciente, FRANJAS_PACIENTE));
+    }
+
+    // Cambia al instante con los commits de este proceso y con los de otras instancias al sincronizar.
+    public String etag(String... tablas) {
+        return Arrays.stream(tablas)
+                .map(tabla -> Long.toString(vista(tabla).get(), 36))
+                .collect(Collectors.joining(".", "\"t-", "\""));
+    }
+
+    public long ultimaModificacion(String... tablas) {
+        long ultima = inicio;
+        for (String tabla : tablas) {
+            AtomicLong modificacion = modificaciones.get(tabla);
+            if (modificacion != null) {
+                ultima = Math.max(ultima, modificacion.get());
+            }
+            ultima = Math.max(ultima, compartida(tabla).modificado());
+        }
+        return ultima;
+    }
+
+    public static String etagEntidad(String tabla, Integer id, Long version) {
+        return "\"" + tabla + "-" + id + "-v" + version + "\"";
+    }
+
+    /** Version contenida en un If-Match generado por {@link #etagEntidad}, o null si no aplica. */
+    public static Long versionDeEtag(String etag) {
+        if (etag == null) {
+            return null;
+        }
+        String valor = etag.replace("W/", "").replace("\"", "").trim();
+        int indice = valor.lastIndexOf("-v");
+        if (indice < 0) {
+            return null;
+        }
+        try {
+            return Long.valueOf(valor.substring(indice + 2));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        registrarCambio(tabla(event.getEntity()));
+        registrarCambioClinico(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        registrarCambio(tabla(event.getEntity()));
+        registrarCambioClinico(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        registrarCambio(tabla(event.getEntity()));
+        registrarCambioClinico(event.getEntity());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return true;
+    }
+
+    private void registrarCambioClinico(Object entidad) {
+        Integer idPaciente = switch (entidad) {
+            case Paciente paciente -> paciente.getIdPaciente();
+            case Historial historial -> historial.getPaciente() != null ? historial.getPaciente().getIdPaciente() : null;
+            case Consulta consulta -> consulta.getPaciente() != null ? consulta.getPaciente().getIdPaciente() : null;
+            case Receta receta -> receta.getConsulta() != null && receta.getConsulta().getPaciente() != null
+                    ? receta.getConsulta().getPaciente().getIdPaciente()
+                    : null;
+            default -> null;
+        };
+        if (idPaciente != null) {
+            registrarCambioPaciente(idPaciente);
+        }
+    }
+
+    private AtomicLong vista(String tabla) {
+        return vistas.computeIfAbsent(tabla, k -> new AtomicLong());
+    }
+
+    private Version compartida(String tabla) {
+        return compartidas.getOrDefault(tabla, Version.NINGUNA);
+    }
+
+    private static String tabla(Object entidad) {
+        return entidad.getClass().getSimpleName().toLowerCase(Locale.ROOT);
+    }
+
+    private record Version(long version, long modificado) {
+
+        static final Version NINGUNA = new Version(0, 0);
+    }
+}
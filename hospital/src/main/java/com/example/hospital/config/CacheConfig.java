@@ -0,0 +1,15 @@
+package com.example.hospital.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String DOCTORES = "doctores";
+    public static final String DOCTOR = "doctor";
+    public static final String ESPECIALIDADES = "especialidades";
+    public static final String ESPECIALIDAD = "especialidad";
+    public static final String TIMELINE = "timeline";
+}
@@ -0,0 +1,53 @@
+package com.example.hospital.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Invalida caches cuando confirma la transaccion en curso, o ya si no hay ninguna. Un @CacheEvict dentro de la
+ * transaccion vacia la cache antes del commit: una lectura concurrente la vuelve a llenar con los datos viejos.
+ */
+@Component
+@RequiredArgsConstructor
+public class InvalidacionCache {
+
+    private final CacheManager cacheManager;
+
+    public void limpiar(String... caches) {
+        alConfirmar(() -> {
+            for (String nombre : caches) {
+                Cache cache = cacheManager.getCache(nombre);
+                if (cache != null) {
+                    cache.clear();
+                }
+            }
+        });
+    }
+
+    public void quitar(String nombre, Object clave) {
+        alConfirmar(() -> {
+            Cache cache = cacheManager.getCache(nombre);
+            if (cache != null) {
+                cache.evict(clave);
+            }
+        });
+    }
+
+    private static void alConfirmar(Runnable invalidacion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidacion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidacion.run();
+            }
+        });
+    }
+}
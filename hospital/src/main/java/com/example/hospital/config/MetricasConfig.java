@@ -0,0 +1,18 @@
+package com.example.hospital.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.hospital.metricas.SqlMuestreado;
+
+@Configuration
+public class MetricasConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlMuestreado(@Value("${hospital.sql.muestreo:0}") double muestreo) {
+        return propiedades -> propiedades.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlMuestreado(muestreo));
+    }
+}
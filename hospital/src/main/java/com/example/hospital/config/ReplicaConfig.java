@@ -0,0 +1,64 @@
+package com.example.hospital.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.example.hospital.replica.EnrutadorReplica;
+import com.example.hospital.replica.MonitorReplica;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Con hospital.replica.habilitada=true las transacciones de solo lectura usan la replica y el resto la
+ * primaria. La conexion se pide de forma perezosa: para entonces el gestor de transacciones ya marco la
+ * conexion como readOnly y LazyConnectionDataSourceProxy elige el pool segun esa marca.
+ */
+@Configuration
+@ConditionalOnProperty(name = "hospital.replica.habilitada", havingValue = "true")
+public class ReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primariaDataSource(DataSourceProperties propiedades) {
+        HikariDataSource dataSource = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primaria");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("hospital.replica.datasource")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public MonitorReplica monitorReplica(@Qualifier("primariaDataSource") HikariDataSource primaria,
+            @Qualifier("replicaDataSource") HikariDataSource replica,
+            @Value("${hospital.replica.retraso-maximo-ms:3000}") long retrasoMaximoMs,
+            MeterRegistry registry) {
+        return MonitorReplica.crear(primaria, replica, retrasoMaximoMs, registry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primariaDataSource") HikariDataSource primaria,
+            @Qualifier("replicaDataSource") HikariDataSource replica,
+            MonitorReplica monitor, MeterRegistry registry) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaria);
+        proxy.setReadOnlyDataSource(EnrutadorReplica.crear(primaria, replica, monitor, registry));
+        return proxy;
+    }
+}
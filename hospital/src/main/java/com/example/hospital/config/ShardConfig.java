@@ -0,0 +1,52 @@
+package com.example.hospital.config;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.example.hospital.shard.EnrutadorShards;
+import com.zaxxer.hikari.HikariConfig;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Con hospital.shards.habilitado=true los datos de pacientes se reparten entre las bases de
+ * hospital.shards.conexiones[n] y spring.datasource no se usa. Como en ReplicaConfig la conexion se pide de forma
+ * perezosa, asi un metodo @Transactional puede elegir su shard con Shards.en antes de la primera sentencia.
+ */
+@Configuration
+@ConditionalOnProperty(name = "hospital.shards.habilitado", havingValue = "true")
+public class ShardConfig {
+
+    @Bean
+    public EnrutadorShards enrutadorShards(Environment environment, MeterRegistry registry) {
+        if (environment.getProperty("hospital.replica.habilitada", Boolean.class, false)) {
+            throw new IllegalStateException("hospital.shards y hospital.replica no se pueden habilitar juntos");
+        }
+        String ddlAuto = environment.getProperty("spring.jpa.hibernate.ddl-auto", "");
+        if (ddlAuto.startsWith("create")) {
+            // Hibernate solo veria el shard 0 y lo recrearia sin los ids intercalados.
+            throw new IllegalStateException("Con shards el esquema lo crean las migraciones; ddl-auto=" + ddlAuto
+                    + " no esta permitido");
+        }
+        List<HikariConfig> conexiones = Binder.get(environment)
+                .bind("hospital.shards.conexiones", Bindable.listOf(HikariConfig.class))
+                .orElse(List.of());
+        return EnrutadorShards.crear(conexiones, registry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(EnrutadorShards enrutador) {
+        return new LazyConnectionDataSourceProxy(enrutador);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.hospital.controllers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.hospital.cambios.FeedCambios;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/cambios")
+@RequiredArgsConstructor
+public class CambioController {
+
+    private final FeedCambios feedCambios;
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> suscribir(
+            @RequestParam(required = false) Long desde,
+            @RequestParam(required = false) String tabla,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long ultimoEvento) {
+        long secuencia = ultimoEvento != null ? ultimoEvento : (desde != null ? desde : 0L);
+        SseEmitter emitter;
+        try {
+            emitter = feedCambios.suscribir(secuencia, tabla);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).build();
+        }
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.hospital.controllers;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Soporte para ?fields=a,b,c: devuelve solo las propiedades pedidas de cada fila del listado.
+ */
+final class CamposSeleccionados {
+
+    private static final TypeReference<LinkedHashMap<String, Object>> MAPA = new TypeReference<>() {
+    };
+
+    private CamposSeleccionados() {
+    }
+
+    static List<?> aplicar(ObjectMapper objectMapper, List<?> filas, String fields) {
+        if (fields == null || fields.isBlank()) {
+            return filas;
+        }
+        Set<String> campos = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(campo -> !campo.isEmpty())
+                .collect(Collectors.toSet());
+        return filas.stream()
+                .map(fila -> {
+                    LinkedHashMap<String, Object> valores = objectMapper.convertValue(fila, MAPA);
+                    valores.keySet().retainAll(campos);
+                    return valores;
+                })
+                .toList();
+    }
+}
@@ -1,19 +1,44 @@
 package com.example.hospital.controllers;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.hospital.cambios.VersionesTabla;
+import com.example.hospital.dto.ConsultaCambio;
+import com.example.hospital.dto.ConsultaVista;
+import com.example.hospital.dto.DisponibilidadDoctor;
+import com.example.hospital.dto.Pagina;
+import com.example.hospital.dto.PaginaCursor;
 import com.example.hospital.entity.Consulta;
+import com.example.hospital.escritura.Aceptacion;
+import com.example.hospital.escritura.EscrituraConsultas;
+import com.example.hospital.replica.LecturaPrimaria;
 import com.example.hospital.service.ConsultaService;
 
 import lombok.RequiredArgsConstructor;
+import tools.jackson.databind.ObjectMapper;
 
 @RestController
 @RequestMapping("/api/consulta")
@@ -21,16 +46,133 @@ import lombok.RequiredArgsConstructor;
 public class ConsultaController {
 
     private final ConsultaService consultaService;
+    private final ObjectMapper objectMapper;
+    private final VersionesTabla versionesTabla;
+    private final EscrituraConsultas escrituraConsultas;
 
+    @Value("${hospital.escritura.consultas.espera-confirmacion-ms:10000}")
+    private long esperaConfirmacionMs;
+
+    @Value("${hospital.exportacion.tiempo-maximo-ms:1800000}")
+    private long tiempoMaximoExportacionMs;
+
+    /**
+     * Con la escritura diferida habilitada, {@code Prefer: respond-async} responde 202 en cuanto la consulta esta en
+     * el diario; sin ese encabezado se espera el commit del lote (lectura de lo propio escrito).
+     */
     @PostMapping
-    public ResponseEntity<Consulta> crearConsulta(@RequestBody Consulta consulta) {
-        Consulta nuevaConsulta = consultaService.crearConsulta(consulta);
-        return ResponseEntity.status(HttpStatus.CREATED).body(nuevaConsulta);
+    public ResponseEntity<?> crearConsulta(@RequestBody Consulta consulta,
+            @RequestHeader(value = "Prefer", required = false) String preferencia) {
+        if (!escrituraConsultas.habilitada()) {
+            try {
+                Consulta nuevaConsulta = consultaService.crearConsulta(consulta);
+                return ResponseEntity.status(HttpStatus.CREATED).body(nuevaConsulta);
+            } catch (DuplicateKeyException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+            }
+        }
+        boolean asincrona = preferencia != null && preferencia.contains("respond-async");
+        Aceptacion aceptacion;
+        try {
+            aceptacion = escrituraConsultas.aceptar(consulta, !asincrona);
+        } catch (DuplicateKeyException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        if (asincrona) {
+            return ResponseEntity.accepted().body(Map.of("numero", aceptacion.numero()));
+        }
+        try {
+            ConsultaCambio creada = aceptacion.confirmacion().get(esperaConfirmacionMs, TimeUnit.MILLISECONDS);
+            return ResponseEntity.status(HttpStatus.CREATED).body(creada);
+        } catch (TimeoutException e) {
+            return ResponseEntity.accepted().body(Map.of("numero", aceptacion.numero()));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DuplicateKeyException) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getCause().getMessage()));
+            }
+            return ResponseEntity.badRequest().body(Map.of("error", "Consulta rechazada por la base de datos"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.accepted().body(Map.of("numero", aceptacion.numero()));
+        }
     }
 
     @GetMapping
-    public ResponseEntity<List<Consulta>> listarConsultas() {
-        List<Consulta> consultas = consultaService.listarConsulta();
-        return ResponseEntity.ok(consultas);
+    public ResponseEntity<PaginaCursor<?>> listarConsultas(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+        // La vista de consultas muestra nombres de paciente, doctor y especialidad.
+        String[] tablas = {VersionesTabla.CONSULTA, VersionesTabla.PACIENTE, VersionesTabla.DOCTOR, VersionesTabla.ESPECIALIDAD};
+        String etag = versionesTabla.etag(tablas);
+        long modificado = versionesTabla.ultimaModificacion(tablas);
+        if (request.checkNotModified(etag, modificado)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        try {
+            PaginaCursor<ConsultaVista> pagina = LecturaPrimaria.en(() -> consultaService.listarConsulta(cursor, size));
+            List<?> contenido = CamposSeleccionados.aplicar(objectMapper, pagina.getContenido(), fields);
+            PaginaCursor<?> respuesta = new PaginaCursor<>(contenido, pagina.getTamanio(), pagina.getSiguienteCursor());
+            return ResponseEntity.ok().eTag(etag).lastModified(modificado).body(respuesta);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<Pagina<Consulta>> buscarConsultas(
+            @RequestParam("q") String texto,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(consultaService.buscarConsultas(texto, page, size));
+    }
+
+    @GetMapping("/doctor/{idDoctor}/agenda")
+    public ResponseEntity<Pagina<Consulta>> agendaDoctor(
+            @PathVariable Integer idDoctor,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            @RequestParam(required = false) Integer dias,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(consultaService.agendaDoctor(idDoctor, fecha, dias, page, size));
+    }
+
+    /**
+     * Horarios libres de los doctores de una especialidad; se responde desde la agenda en memoria.
+     */
+    @GetMapping("/disponibilidad")
+    public ResponseEntity<List<DisponibilidadDoctor>> disponibilidadEspecialidad(
+            @RequestParam Integer especialidad,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        try {
+            return ResponseEntity.ok(consultaService.disponibilidadEspecialidad(especialidad, desde, hasta));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/paciente/{idPaciente}/recientes")
+    public ResponseEntity<Pagina<Consulta>> consultasRecientesPaciente(
+            @PathVariable Integer idPaciente,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(consultaService.consultasRecientesPaciente(idPaciente, page, size));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarConsultas(WebRequest request) {
+        NdjsonEscritor.ampliarTiempoMaximo(request, tiempoMaximoExportacionMs);
+        StreamingResponseBody cuerpo = salida -> {
+            try (NdjsonEscritor escritor = new NdjsonEscritor(objectMapper, salida)) {
+                consultaService.recorrerConsultas(escritor::escribir);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(cuerpo);
     }
-}
\ No newline at end of file
+}
@@ -4,15 +4,21 @@ import java.util.List;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.example.hospital.cambios.VersionesTabla;
+import com.example.hospital.dto.Sugerencia;
 import com.example.hospital.entity.Doctor;
 import com.example.hospital.service.DoctorService;
 
@@ -24,6 +30,7 @@ import lombok.RequiredArgsConstructor;
 public class DoctorController {
     
     private final DoctorService doctorService;
+    private final VersionesTabla versionesTabla;
 
     @PostMapping
     public ResponseEntity<Doctor> crearDoctor(@RequestBody Doctor doctor) {
@@ -32,19 +39,40 @@ public class DoctorController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Doctor> actualizarDoctor(@PathVariable Integer id, @RequestBody Doctor doctor) {
+    public ResponseEntity<Doctor> actualizarDoctor(@PathVariable Integer id, @RequestBody Doctor doctor,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        Long version = VersionesTabla.versionDeEtag(ifMatch);
+        if (version != null) {
+            doctor.setVersion(version);
+        }
         try {
             Doctor doctorActualizado = doctorService.actualizarDoctor(id, doctor);
-            return ResponseEntity.ok(doctorActualizado);
+            return ResponseEntity.ok()
+                    .eTag(VersionesTabla.etagEntidad(VersionesTabla.DOCTOR, id, doctorActualizado.getVersion()))
+                    .body(doctorActualizado);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
 
     @GetMapping
-    public ResponseEntity<List<Doctor>> listarDoctores() {
+    public ResponseEntity<List<Doctor>> listarDoctores(WebRequest request) {
+        String etag = versionesTabla.etag(VersionesTabla.DOCTOR, VersionesTabla.ESPECIALIDAD);
+        long modificado = versionesTabla.ultimaModificacion(VersionesTabla.DOCTOR, VersionesTabla.ESPECIALIDAD);
+        if (request.checkNotModified(etag, modificado)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         List<Doctor> doctores = doctorService.listarDoctor();
-        return ResponseEntity.ok(doctores);
+        return ResponseEntity.ok().eTag(etag).lastModified(modificado).body(doctores);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<Sugerencia>> buscarDoctores(
+            @RequestParam("q") String texto,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(doctorService.buscarDoctores(texto, size));
     }
 
     @DeleteMapping("/{id}")
@@ -0,0 +1,111 @@
+package com.example.hospital.controllers;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import com.example.hospital.cambios.VersionesTabla;
+import com.example.hospital.entity.Especialidad;
+import com.example.hospital.service.EspecialidadService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/especialidad")
+@RequiredArgsConstructor
+public class EspecialidadController {
+
+    // La respuesta incluye los doctores de cada especialidad.
+    private static final String[] TABLAS = {VersionesTabla.ESPECIALIDAD, VersionesTabla.DOCTOR};
+
+    private final EspecialidadService especialidadService;
+    private final VersionesTabla versionesTabla;
+
+    @PostMapping
+    public ResponseEntity<Especialidad> crearEspecialidad(@RequestBody Especialidad especialidad) {
+        Especialidad nuevaEspecialidad = especialidadService.crearEspecialidad(especialidad);
+        return ResponseEntity.status(HttpStatus.CREATED).body(nuevaEspecialidad);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<Especialidad> actualizarEspecialidad(@PathVariable Integer id,
+            @RequestBody Especialidad especialidad,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        Long version = VersionesTabla.versionDeEtag(ifMatch);
+        if (version != null) {
+            especialidad.setVersion(version);
+        }
+        try {
+            Especialidad especialidadActualizada = especialidadService.actualizarEspecialidad(id, especialidad);
+            return ResponseEntity.ok()
+                    .eTag(VersionesTabla.etagEntidad(VersionesTabla.ESPECIALIDAD, id,
+                            especialidadActualizada.getVersion()))
+                    .body(especialidadActualizada);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PutMapping("/batch")
+    public ResponseEntity<List<Especialidad>> guardarEspecialidades(@RequestBody List<Especialidad> especialidades) {
+        return GuardadoLote.guardar(especialidades, especialidadService::guardarEspecialidades);
+    }
+
+    @GetMapping
+    public ResponseEntity<List<Especialidad>> listarEspecialidades(WebRequest request) {
+        String etag = versionesTabla.etag(TABLAS);
+        long modificado = versionesTabla.ultimaModificacion(TABLAS);
+        if (request.checkNotModified(etag, modificado)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        List<Especialidad> especialidades = especialidadService.listarEspecialidad();
+        return ResponseEntity.ok().eTag(etag).lastModified(modificado).body(especialidades);
+    }
+
+    /** Varios registros por id en una sola consulta IN, en el orden pedido; los ids inexistentes se omiten. */
+    @GetMapping("/batch")
+    public ResponseEntity<List<Especialidad>> obtenerEspecialidades(@RequestParam List<Integer> ids) {
+        if (ids.isEmpty() || ids.size() > GuardadoLote.MAXIMO_LOTE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(especialidadService.obtenerEspecialidadesPorIds(ids));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Especialidad> obtenerEspecialidad(@PathVariable Integer id, WebRequest request) {
+        return especialidadService.obtenerEspecialidadPorId(id)
+                .map(especialidad -> {
+                    String etag = VersionesTabla.etagEntidad(VersionesTabla.ESPECIALIDAD, id, especialidad.getVersion());
+                    if (request.checkNotModified(etag)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<Especialidad>build();
+                    }
+                    return ResponseEntity.ok().eTag(etag).body(especialidad);
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> eliminarEspecialidad(@PathVariable Integer id) {
+        try {
+            especialidadService.eliminarEspecialidad(id);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
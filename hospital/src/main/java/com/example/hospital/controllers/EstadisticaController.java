@@ -0,0 +1,54 @@
+package com.example.hospital.controllers;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.hospital.dto.ConteoDiario;
+import com.example.hospital.dto.ConteoTotal;
+import com.example.hospital.service.EstadisticaService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/stats")
+@RequiredArgsConstructor
+public class EstadisticaController {
+
+    private final EstadisticaService estadisticaService;
+
+    @GetMapping("/doctores")
+    public ResponseEntity<List<ConteoDiario>> consultasPorDoctor(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        return ResponseEntity.ok(estadisticaService.consultasPorDoctor(desde, hasta));
+    }
+
+    @GetMapping("/especialidades")
+    public ResponseEntity<List<ConteoDiario>> consultasPorEspecialidad(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        return ResponseEntity.ok(estadisticaService.consultasPorEspecialidad(desde, hasta));
+    }
+
+    @GetMapping("/diagnosticos")
+    public ResponseEntity<List<ConteoTotal>> diagnosticosFrecuentes(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) Integer limite) {
+        return ResponseEntity.ok(estadisticaService.diagnosticosFrecuentes(desde, hasta, limite));
+    }
+
+    @PostMapping("/reconstruir")
+    public ResponseEntity<Void> reconstruir() {
+        estadisticaService.reconstruir();
+        return ResponseEntity.accepted().build();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.hospital.controllers;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.ConstraintViolationException.ConstraintKind;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+/**
+ * PUT /batch de los catalogos: alta o modificacion de varios registros en una sola transaccion; si uno falla, no
+ * se guarda ninguno.
+ */
+final class GuardadoLote {
+
+    // Tope de registros por lote; tambien lo usa GET /batch.
+    static final int MAXIMO_LOTE = 500;
+
+    private GuardadoLote() {
+    }
+
+    /**
+     * 400 si el lote esta vacio, es demasiado grande o la base rechaza un dato; 409 ante una version vieja o una
+     * clave repetida; 404 si un id no existe.
+     */
+    static <T> ResponseEntity<List<T>> guardar(List<T> registros, UnaryOperator<List<T>> guardado) {
+        if (registros.isEmpty() || registros.size() > MAXIMO_LOTE) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(guardado.apply(registros));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (DataIntegrityViolationException e) {
+            return claveRepetida(e) ? ResponseEntity.status(HttpStatus.CONFLICT).build()
+                    : ResponseEntity.badRequest().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Hibernate traduce la violacion de unicidad a DataIntegrityViolationException; el tipo queda en la causa.
+    private static boolean claveRepetida(DataIntegrityViolationException e) {
+        return e instanceof DuplicateKeyException
+                || e.getCause() instanceof ConstraintViolationException violacion
+                        && violacion.getKind() == ConstraintKind.UNIQUE;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.hospital.controllers;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import com.example.hospital.cambios.VersionesTabla;
+import com.example.hospital.entity.Historial;
+import com.example.hospital.replica.LecturaPrimaria;
+import com.example.hospital.service.HistorialService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/historial")
+@RequiredArgsConstructor
+public class HistorialController {
+
+    // La respuesta incluye el paciente.
+    private static final String[] TABLAS = {VersionesTabla.HISTORIAL, VersionesTabla.PACIENTE};
+
+    private final HistorialService historialService;
+    private final VersionesTabla versionesTabla;
+
+    @PostMapping
+    public ResponseEntity<Historial> crearHistorial(@RequestBody Historial historial) {
+        Historial nuevoHistorial = historialService.crearHistorial(historial);
+        return ResponseEntity.status(HttpStatus.CREATED).body(nuevoHistorial);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<Historial> actualizarHistorial(@PathVariable Integer id, @RequestBody Historial historial,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        Long version = VersionesTabla.versionDeEtag(ifMatch);
+        if (version != null) {
+            historial.setVersion(version);
+        }
+        try {
+            Historial historialActualizado = historialService.actualizarHistorial(id, historial);
+            return ResponseEntity.ok()
+                    .eTag(VersionesTabla.etagEntidad(VersionesTabla.HISTORIAL, id, historialActualizado.getVersion()))
+                    .body(historialActualizado);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PutMapping("/batch")
+    public ResponseEntity<List<Historial>> guardarHistoriales(@RequestBody List<Historial> historiales) {
+        return GuardadoLote.guardar(historiales, historialService::guardarHistoriales);
+    }
+
+    @GetMapping
+    public ResponseEntity<List<Historial>> listarHistoriales(WebRequest request) {
+        String etag = versionesTabla.etag(TABLAS);
+        long modificado = versionesTabla.ultimaModificacion(TABLAS);
+        if (request.checkNotModified(etag, modificado)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        List<Historial> historiales = LecturaPrimaria.en(historialService::listarHistorial);
+        return ResponseEntity.ok().eTag(etag).lastModified(modificado).body(historiales);
+    }
+
+    /** Varios registros por id en una sola consulta IN, en el orden pedido; los ids inexistentes se omiten. */
+    @GetMapping("/batch")
+    public ResponseEntity<List<Historial>> obtenerHistoriales(@RequestParam List<Integer> ids) {
+        if (ids.isEmpty() || ids.size() > GuardadoLote.MAXIMO_LOTE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(historialService.obtenerHistorialesPorIds(ids));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Historial> obtenerHistorial(@PathVariable Integer id, WebRequest request) {
+        return historialService.obtenerHistorialPorId(id)
+                .map(historial -> {
+                    String etag = VersionesTabla.etagEntidad(VersionesTabla.HISTORIAL, id, historial.getVersion());
+                    if (request.checkNotModified(etag)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<Historial>build();
+                    }
+                    return ResponseEntity.ok().eTag(etag).body(historial);
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> eliminarHistorial(@PathVariable Integer id) {
+        try {
+            historialService.eliminarHistorial(id);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.hospital.controllers;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Escribe una fila JSON por linea directamente sobre la respuesta, sin acumular el listado en memoria.
+ */
+class NdjsonEscritor implements AutoCloseable {
+
+    private static final int TAMANIO_BUFFER = 64 * 1024;
+
+    private final ObjectMapper objectMapper;
+    private final OutputStream salida;
+    private long filas;
+
+    NdjsonEscritor(ObjectMapper objectMapper, OutputStream salida) {
+        this.objectMapper = objectMapper;
+        this.salida = new BufferedOutputStream(salida, TAMANIO_BUFFER);
+    }
+
+    /** Solo la exportacion recibe este tiempo maximo; el resto de peticiones asincronas conserva el suyo. */
+    static void ampliarTiempoMaximo(WebRequest request, long tiempoMaximoMs) {
+        AsyncWebRequest asincrona = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asincrona != null) {
+            asincrona.setTimeout(tiempoMaximoMs);
+        }
+    }
+
+    void escribir(Object fila) {
+        try {
+            salida.write(objectMapper.writeValueAsBytes(fila));
+            salida.write('\n');
+            // La primera fila se envia de inmediato para que el cliente reciba bytes sin esperar al buffer.
+            if (++filas == 1) {
+                salida.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        salida.flush();
+    }
+}
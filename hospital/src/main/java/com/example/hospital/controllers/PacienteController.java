@@ -1,59 +1,199 @@
 package com.example.hospital.controllers;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.hospital.cambios.VersionesTabla;
+import com.example.hospital.dto.PacienteExportacion;
+import com.example.hospital.dto.PacienteVista;
+import com.example.hospital.dto.ResultadoCarga;
+import com.example.hospital.dto.ResultadoRegistro;
+import com.example.hospital.dto.Sugerencia;
+import com.example.hospital.dto.TimelinePaciente;
 import com.example.hospital.entity.Paciente;
+import com.example.hospital.replica.LecturaPrimaria;
+import com.example.hospital.service.CargaPacienteService;
 import com.example.hospital.service.PacienteService;
+import com.example.hospital.service.RegistroPacienteService;
 
 import lombok.RequiredArgsConstructor;
+import tools.jackson.databind.ObjectMapper;
 
 @RestController
 @RequestMapping("/api/paciente")
 @RequiredArgsConstructor
 public class PacienteController {
 
+    static final int LONGITUD_CLAVE = 100;
+
     private final PacienteService pacienteService;
+    private final RegistroPacienteService registroPacienteService;
+    private final CargaPacienteService cargaPacienteService;
+    private final ObjectMapper objectMapper;
+    private final VersionesTabla versionesTabla;
+
+    @Value("${hospital.exportacion.tiempo-maximo-ms:1800000}")
+    private long tiempoMaximoExportacionMs;
 
+    /**
+     * Alta por cedula: una cedula ya registrada responde 409 con el paciente existente, o 200 tras actualizarlo si
+     * {@code upsert=true}. Con {@code Idempotency-Key} un reintento devuelve la misma respuesta que el primer intento.
+     */
     @PostMapping
-    public ResponseEntity<Paciente> crearPaciente(@RequestBody Paciente paciente) {
-        Paciente nuevoPaciente = pacienteService.crearPaciente(paciente);
-        return ResponseEntity.status(HttpStatus.CREATED).body(nuevoPaciente);
+    public ResponseEntity<Paciente> crearPaciente(@RequestBody Paciente paciente,
+            @RequestParam(defaultValue = "false") boolean upsert,
+            @RequestHeader(value = "Idempotency-Key", required = false) String claveIdempotencia) {
+        if (claveIdempotencia != null && (claveIdempotencia.isBlank() || claveIdempotencia.length() > LONGITUD_CLAVE)) {
+            return ResponseEntity.badRequest().build();
+        }
+        ResultadoRegistro resultado;
+        try {
+            resultado = registroPacienteService.registrarPaciente(paciente, upsert, claveIdempotencia);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        ResponseEntity.BodyBuilder respuesta = switch (resultado.estado()) {
+            case CREADO -> ResponseEntity.status(HttpStatus.CREATED);
+            case ACTUALIZADO -> ResponseEntity.ok();
+            case EXISTENTE, EN_CURSO -> ResponseEntity.status(HttpStatus.CONFLICT);
+            case CLAVE_REUTILIZADA -> ResponseEntity.status(HttpStatus.UNPROCESSABLE_CONTENT);
+        };
+        if (resultado.repetido()) {
+            respuesta.header("Idempotent-Replayed", "true");
+        }
+        Paciente cuerpo = resultado.paciente();
+        if (cuerpo == null) {
+            return respuesta.build();
+        }
+        return respuesta
+                .location(URI.create("/api/paciente/" + cuerpo.getIdPaciente()))
+                .eTag(VersionesTabla.etagEntidad(VersionesTabla.PACIENTE, cuerpo.getIdPaciente(), cuerpo.getVersion()))
+                .body(cuerpo);
+    }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ResultadoCarga> cargarPacientes(InputStream cuerpo) {
+        ResultadoCarga resultado = cargaPacienteService.cargarPacientes(
+                objectMapper.readerFor(Paciente.class).readValues(cuerpo));
+        return respuestaCarga(resultado);
+    }
+
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public ResponseEntity<ResultadoCarga> cargarPacientesCsv(InputStream cuerpo) {
+        ResultadoCarga resultado = cargaPacienteService.cargarPacientesCsv(
+                new InputStreamReader(cuerpo, StandardCharsets.UTF_8));
+        return respuestaCarga(resultado);
+    }
+
+    // Una entrada mal formada responde 400 con el resultado parcial: lo anterior al error ya quedo cargado.
+    private static ResponseEntity<ResultadoCarga> respuestaCarga(ResultadoCarga resultado) {
+        return resultado.getError() == null
+                ? ResponseEntity.ok(resultado)
+                : ResponseEntity.badRequest().body(resultado);
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Paciente> actualizarPaciente(@PathVariable Integer id, @RequestBody Paciente paciente) {
+    public ResponseEntity<Paciente> actualizarPaciente(@PathVariable Integer id, @RequestBody Paciente paciente,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        Long version = VersionesTabla.versionDeEtag(ifMatch);
+        if (version != null) {
+            paciente.setVersion(version);
+        }
         try {
             Paciente pacienteActualizado = pacienteService.actualizarPaciente(id, paciente);
-            return ResponseEntity.ok(pacienteActualizado);
+            return ResponseEntity.ok()
+                    .eTag(VersionesTabla.etagEntidad(VersionesTabla.PACIENTE, id, pacienteActualizado.getVersion()))
+                    .body(pacienteActualizado);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (IllegalStateException e) {
+            // La cedula nueva llevaria al paciente a otro shard.
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
 
     @GetMapping
-    public ResponseEntity<List<Paciente>> listarPacientes() {
-        List<Paciente> pacientes = pacienteService.listarPaciente();
-        return ResponseEntity.ok(pacientes);
+    public ResponseEntity<List<?>> listarPacientes(@RequestParam(required = false) String fields, WebRequest request) {
+        String etag = versionesTabla.etag(VersionesTabla.PACIENTE);
+        long modificado = versionesTabla.ultimaModificacion(VersionesTabla.PACIENTE);
+        if (request.checkNotModified(etag, modificado)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        // El ETag sale de las versiones de la primaria: el cuerpo no puede venir de una replica atrasada.
+        List<PacienteVista> pacientes = LecturaPrimaria.en(pacienteService::listarPacienteVista);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .lastModified(modificado)
+                .body(CamposSeleccionados.aplicar(objectMapper, pacientes, fields));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarPacientes(WebRequest request) {
+        NdjsonEscritor.ampliarTiempoMaximo(request, tiempoMaximoExportacionMs);
+        StreamingResponseBody cuerpo = salida -> {
+            try (NdjsonEscritor escritor = new NdjsonEscritor(objectMapper, salida)) {
+                pacienteService.recorrerPacientes(paciente -> escritor.escribir(PacienteExportacion.desde(paciente)));
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(cuerpo);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<Sugerencia>> buscarPacientes(
+            @RequestParam("q") String texto,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(pacienteService.buscarPacientes(texto, size));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Paciente> obtenerPaciente(@PathVariable Integer id) {
+    public ResponseEntity<Paciente> obtenerPaciente(@PathVariable Integer id, WebRequest request) {
         return pacienteService.obtenerPacientePorId(id)
-                .map(ResponseEntity::ok)
+                .map(paciente -> {
+                    String etag = VersionesTabla.etagEntidad(VersionesTabla.PACIENTE, id, paciente.getVersion());
+                    if (request.checkNotModified(etag)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<Paciente>build();
+                    }
+                    return ResponseEntity.ok().eTag(etag).body(paciente);
+                })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/{id}/timeline")
+    public ResponseEntity<TimelinePaciente> timelinePaciente(@PathVariable Integer id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return pacienteService.timelinePaciente(id, cursor, size)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> eliminarPaciente(@PathVariable Integer id) {
         try {
@@ -0,0 +1,111 @@
+package com.example.hospital.controllers;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import com.example.hospital.cambios.VersionesTabla;
+import com.example.hospital.entity.Receta;
+import com.example.hospital.replica.LecturaPrimaria;
+import com.example.hospital.service.RecetaService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/receta")
+@RequiredArgsConstructor
+public class RecetaController {
+
+    // La respuesta incluye la consulta con su paciente, historial, doctor y especialidad.
+    private static final String[] TABLAS = {VersionesTabla.RECETA, VersionesTabla.CONSULTA, VersionesTabla.PACIENTE,
+            VersionesTabla.HISTORIAL, VersionesTabla.DOCTOR, VersionesTabla.ESPECIALIDAD};
+
+    private final RecetaService recetaService;
+    private final VersionesTabla versionesTabla;
+
+    @PostMapping
+    public ResponseEntity<Receta> crearReceta(@RequestBody Receta receta) {
+        Receta nuevaReceta = recetaService.crearReceta(receta);
+        return ResponseEntity.status(HttpStatus.CREATED).body(nuevaReceta);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<Receta> actualizarReceta(@PathVariable Integer id, @RequestBody Receta receta,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        Long version = VersionesTabla.versionDeEtag(ifMatch);
+        if (version != null) {
+            receta.setVersion(version);
+        }
+        try {
+            Receta recetaActualizada = recetaService.actualizarReceta(id, receta);
+            return ResponseEntity.ok()
+                    .eTag(VersionesTabla.etagEntidad(VersionesTabla.RECETA, id, recetaActualizada.getVersion()))
+                    .body(recetaActualizada);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PutMapping("/batch")
+    public ResponseEntity<List<Receta>> guardarRecetas(@RequestBody List<Receta> recetas) {
+        return GuardadoLote.guardar(recetas, recetaService::guardarRecetas);
+    }
+
+    @GetMapping
+    public ResponseEntity<List<Receta>> listarRecetas(WebRequest request) {
+        String etag = versionesTabla.etag(TABLAS);
+        long modificado = versionesTabla.ultimaModificacion(TABLAS);
+        if (request.checkNotModified(etag, modificado)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        List<Receta> recetas = LecturaPrimaria.en(recetaService::listarReceta);
+        return ResponseEntity.ok().eTag(etag).lastModified(modificado).body(recetas);
+    }
+
+    /** Varios registros por id en una sola consulta IN, en el orden pedido; los ids inexistentes se omiten. */
+    @GetMapping("/batch")
+    public ResponseEntity<List<Receta>> obtenerRecetas(@RequestParam List<Integer> ids) {
+        if (ids.isEmpty() || ids.size() > GuardadoLote.MAXIMO_LOTE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(recetaService.obtenerRecetasPorIds(ids));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Receta> obtenerReceta(@PathVariable Integer id, WebRequest request) {
+        return recetaService.obtenerRecetaPorId(id)
+                .map(receta -> {
+                    String etag = VersionesTabla.etagEntidad(VersionesTabla.RECETA, id, receta.getVersion());
+                    if (request.checkNotModified(etag)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<Receta>build();
+                    }
+                    return ResponseEntity.ok().eTag(etag).body(receta);
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> eliminarReceta(@PathVariable Integer id) {
+        try {
+            recetaService.eliminarReceta(id);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.hospital.dto;
+
+import java.time.LocalDate;
+
+public record CabeceraTimeline(
+        Integer idPaciente,
+        String nombre,
+        String apellido,
+        Integer edad,
+        String cedula,
+        String telefono,
+        Integer idHistorial,
+        LocalDate fechaHistorial,
+        String descripcionHistorial) {
+}
@@ -0,0 +1,26 @@
+package com.example.hospital.dto;
+
+import java.time.LocalDateTime;
+
+import com.example.hospital.entity.Consulta;
+
+public record ConsultaCambio(
+        Integer idConsulta,
+        LocalDateTime fecha,
+        String motivo,
+        String diagnostico,
+        Integer idPaciente,
+        Integer idDoctor,
+        Long version) {
+
+    public static ConsultaCambio desde(Consulta consulta) {
+        return new ConsultaCambio(
+                consulta.getIdConsulta(),
+                consulta.getFecha(),
+                consulta.getMotivo(),
+                consulta.getDiagnostico(),
+                consulta.getPaciente() != null ? consulta.getPaciente().getIdPaciente() : null,
+                consulta.getDoctor() != null ? consulta.getDoctor().getIdDoctor() : null,
+                consulta.getVersion());
+    }
+}
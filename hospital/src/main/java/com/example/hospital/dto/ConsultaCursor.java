@@ -0,0 +1,37 @@
+package com.example.hospital.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posicion opaca dentro del listado de consultas ordenado por (fecha, id) descendente.
+ */
+public record ConsultaCursor(LocalDateTime fecha, Integer idConsulta) {
+
+    private static final String SEPARADOR = "|";
+
+    public static ConsultaCursor desde(ConsultaVista consulta) {
+        return new ConsultaCursor(consulta.fecha(), consulta.idConsulta());
+    }
+
+    public String codificar() {
+        String valor = fecha + SEPARADOR + idConsulta;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ConsultaCursor decodificar(String token) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separador = valor.lastIndexOf(SEPARADOR);
+            if (separador < 0) {
+                throw new IllegalArgumentException("Cursor invalido: " + token);
+            }
+            return new ConsultaCursor(LocalDateTime.parse(valor.substring(0, separador)),
+                    Integer.valueOf(valor.substring(separador + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor invalido: " + token, e);
+        }
+    }
+}
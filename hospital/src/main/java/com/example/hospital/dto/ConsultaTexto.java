@@ -0,0 +1,7 @@
+package com.example.hospital.dto;
+
+public record ConsultaTexto(
+        Integer idConsulta,
+        String motivo,
+        String diagnostico) {
+}
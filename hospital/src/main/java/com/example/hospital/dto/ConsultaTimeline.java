@@ -0,0 +1,17 @@
+package com.example.hospital.dto;
+
+import java.time.LocalDateTime;
+
+public record ConsultaTimeline(
+        Integer idConsulta,
+        LocalDateTime fecha,
+        String motivo,
+        String diagnostico,
+        Integer idDoctor,
+        String doctorNombre,
+        String doctorApellido,
+        String especialidad,
+        Integer idReceta,
+        String medicamento,
+        String dosis) {
+}
@@ -0,0 +1,16 @@
+package com.example.hospital.dto;
+
+import java.time.LocalDateTime;
+
+public record ConsultaVista(
+        Integer idConsulta,
+        LocalDateTime fecha,
+        String motivo,
+        Integer idPaciente,
+        String pacienteNombre,
+        String pacienteApellido,
+        Integer idDoctor,
+        String doctorNombre,
+        String doctorApellido,
+        String especialidad) {
+}
@@ -0,0 +1,6 @@
+package com.example.hospital.dto;
+
+import java.time.LocalDate;
+
+public record ConteoDiario(LocalDate fecha, String clave, Long total) {
+}
@@ -0,0 +1,4 @@
+package com.example.hospital.dto;
+
+public record ConteoTotal(String clave, Long total) {
+}
@@ -0,0 +1,11 @@
+package com.example.hospital.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record DisponibilidadDoctor(
+        Integer idDoctor,
+        String nombre,
+        String apellido,
+        List<LocalDateTime> horarios) {
+}
@@ -0,0 +1,12 @@
+package com.example.hospital.dto;
+
+public enum EstadoRegistro {
+    CREADO,
+    ACTUALIZADO,
+    /** La cedula ya estaba registrada y no se pidio upsert: se devuelve el paciente existente. */
+    EXISTENTE,
+    /** La clave de idempotencia ya se uso con otro cuerpo. */
+    CLAVE_REUTILIZADA,
+    /** Otra solicitud con la misma clave aun no termina. */
+    EN_CURSO
+}
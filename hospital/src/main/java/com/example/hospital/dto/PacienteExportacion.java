@@ -0,0 +1,30 @@
+package com.example.hospital.dto;
+
+import java.time.LocalDate;
+
+import com.example.hospital.entity.Historial;
+import com.example.hospital.entity.Paciente;
+
+public record PacienteExportacion(
+        Integer idPaciente,
+        String nombre,
+        String apellido,
+        Integer edad,
+        String cedula,
+        String telefono,
+        String historialDescripcion,
+        LocalDate historialFecha) {
+
+    public static PacienteExportacion desde(Paciente paciente) {
+        Historial historial = paciente.getHistorial();
+        return new PacienteExportacion(
+                paciente.getIdPaciente(),
+                paciente.getNombre(),
+                paciente.getApellido(),
+                paciente.getEdad(),
+                paciente.getCedula(),
+                paciente.getTelefono(),
+                historial != null ? historial.getDescripcion() : null,
+                historial != null ? historial.getFecha() : null);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.hospital.dto;
+
+import com.example.hospital.entity.Paciente;
+
+public record PacienteVista(
+        Integer idPaciente,
+        String nombre,
+        String apellido,
+        Integer edad,
+        String cedula,
+        String telefono) {
+
+    public static PacienteVista desde(Paciente paciente) {
+        return new PacienteVista(
+                paciente.getIdPaciente(),
+                paciente.getNombre(),
+                paciente.getApellido(),
+                paciente.getEdad(),
+                paciente.getCedula(),
+                paciente.getTelefono());
+    }
+}
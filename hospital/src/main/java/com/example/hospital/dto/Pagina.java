@@ -0,0 +1,16 @@
+package com.example.hospital.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class Pagina<T> {
+
+    private List<T> contenido;
+    private int pagina;
+    private int tamanio;
+    private long total;
+}
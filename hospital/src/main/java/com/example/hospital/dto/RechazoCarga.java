@@ -0,0 +1,4 @@
+package com.example.hospital.dto;
+
+public record RechazoCarga(long fila, String cedula, String motivo) {
+}
@@ -0,0 +1,6 @@
+package com.example.hospital.dto;
+
+import java.time.LocalDateTime;
+
+public record ReservaAgenda(Integer idDoctor, LocalDateTime fecha) {
+}
@@ -0,0 +1,34 @@
+package com.example.hospital.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class ResultadoCarga {
+
+    private static final int RECHAZOS_MAXIMOS = 1000;
+
+    private long aceptados;
+    private long rechazados;
+    private List<RechazoCarga> rechazos = new ArrayList<>();
+    // Entrada mal formada: las filas anteriores quedaron cargadas y la carga se detuvo en esta.
+    private String error;
+
+    public void aceptar(int filas) {
+        aceptados += filas;
+    }
+
+    public void rechazar(long fila, String cedula, String motivo) {
+        rechazados++;
+        // Solo se detallan los primeros rechazos para que el reporte no crezca con el archivo.
+        if (rechazos.size() < RECHAZOS_MAXIMOS) {
+            rechazos.add(new RechazoCarga(fila, cedula, motivo));
+        }
+    }
+
+    public void interrumpir(long fila, String motivo) {
+        error = "Fila " + fila + ": " + motivo;
+    }
+}
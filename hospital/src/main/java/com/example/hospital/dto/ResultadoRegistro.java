@@ -0,0 +1,9 @@
+package com.example.hospital.dto;
+
+import com.example.hospital.entity.Paciente;
+
+/**
+ * @param repetido true si la respuesta se reconstruye a partir de una clave de idempotencia ya usada
+ */
+public record ResultadoRegistro(EstadoRegistro estado, Paciente paciente, boolean repetido) {
+}
@@ -0,0 +1,8 @@
+package com.example.hospital.dto;
+
+public record Sugerencia(
+        Integer id,
+        String nombre,
+        String apellido,
+        String cedula) {
+}
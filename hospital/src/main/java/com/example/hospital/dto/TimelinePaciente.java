@@ -0,0 +1,13 @@
+package com.example.hospital.dto;
+
+import java.util.List;
+
+/**
+ * Paciente con su historial y una pagina de consultas (con doctor, especialidad y receta), de la mas reciente a la
+ * mas antigua. {@code siguienteCursor} es null en la ultima pagina.
+ */
+public record TimelinePaciente(
+        CabeceraTimeline paciente,
+        List<ConsultaTimeline> consultas,
+        String siguienteCursor) {
+}
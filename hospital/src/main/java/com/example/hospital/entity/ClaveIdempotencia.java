@@ -0,0 +1,29 @@
+package com.example.hospital.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@Table(name = "clave_idempotencia", indexes = {
+        @Index(name = "idx_clave_idempotencia_fecha", columnList = "fecha")
+})
+public class ClaveIdempotencia {
+
+    @Id
+    @Column(name = "clave", length = 100)
+    private String clave;
+
+    @Column(name = "huella", nullable = false, length = 64)
+    private String huella;
+
+    @Column(name = "id_paciente")
+    private Integer idPaciente;
+
+    @Column(name = "estado", length = 20)
+    private String estado;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDateTime fecha;
+}
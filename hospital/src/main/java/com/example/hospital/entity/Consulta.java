@@ -7,7 +7,11 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "consulta")
+@Table(name = "consulta", indexes = {
+        @Index(name = "idx_consulta_fecha_id", columnList = "fecha, id"),
+        @Index(name = "idx_consulta_doctor_fecha", columnList = "id_doctor, fecha"),
+        @Index(name = "idx_consulta_paciente_fecha", columnList = "id_paciente, fecha")
+})
 public class Consulta {
 
     @Id
@@ -15,6 +19,10 @@ public class Consulta {
     @Column(name = "id")
     private Integer idConsulta;
 
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint not null default 0")
+    private Long version;
+
     @Column(name = "fecha", nullable = false)
     private LocalDateTime fecha;
 
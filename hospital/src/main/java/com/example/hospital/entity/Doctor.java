@@ -14,6 +14,10 @@ public class Doctor {
     @Column(name = "id")
     private Integer idDoctor;
 
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint not null default 0")
+    private Long version;
+
     @Column(name = "nombre", nullable = false, length = 100)
     private String nombre;
 
@@ -12,6 +12,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Data;
 
 @Entity
@@ -24,6 +25,10 @@ public class Especialidad {
     @Column(name = "id")
     private Integer idEspecialidad;
 
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint not null default 0")
+    private Long version;
+
     @Column(name = "nombre", nullable = false, length = 100)
     private String nombre;
 
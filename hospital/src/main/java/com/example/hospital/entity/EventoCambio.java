@@ -0,0 +1,36 @@
+package com.example.hospital.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@Table(name = "evento_cambio", indexes = {
+        @Index(name = "idx_evento_cambio_fecha", columnList = "fecha")
+})
+public class EventoCambio {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "secuencia")
+    private Long secuencia;
+
+    @Column(name = "tabla", nullable = false, length = 30)
+    private String tabla;
+
+    @Column(name = "id_entidad", nullable = false)
+    private Integer idEntidad;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operacion", nullable = false, length = 20)
+    private OperacionCambio operacion;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDateTime fecha;
+
+    @JsonRawValue
+    @Column(name = "datos", columnDefinition = "TEXT")
+    private String datos;
+}
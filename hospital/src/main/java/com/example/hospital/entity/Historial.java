@@ -15,6 +15,10 @@ public class Historial {
     @Column(name = "id")
     private Integer idHistorial;
 
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint not null default 0")
+    private Long version;
+
     @Column(name = "descripcion", columnDefinition = "TEXT")
     private String descripcion;
 
@@ -23,6 +27,6 @@ public class Historial {
 
     @OneToOne
     @JoinColumn(name = "id_paciente", unique = true, nullable = false)
-    @JsonIgnoreProperties("historial")
+    @JsonIgnoreProperties({"historial", "consultas"})
     private Paciente paciente;
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.example.hospital.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fila que la primaria actualiza cada segundo; leida en la replica indica cuanto retraso lleva la replicacion.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "latido_replica")
+public class LatidoReplica {
+
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    @Column(name = "instante", nullable = false)
+    private Long instante;
+}
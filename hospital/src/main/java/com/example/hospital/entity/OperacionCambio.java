@@ -0,0 +1,7 @@
+package com.example.hospital.entity;
+
+public enum OperacionCambio {
+    CREAR,
+    ACTUALIZAR,
+    ELIMINAR
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.Data;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.util.List;
+import org.hibernate.annotations.BatchSize;
 
 @Entity
 @Data
@@ -15,6 +16,10 @@ public class Paciente {
     @Column(name = "id")
     private Integer idPaciente;
 
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint not null default 0")
+    private Long version;
+
     @Column(name = "nombre", nullable = false, length = 100)
     private String nombre;
 
@@ -35,6 +40,7 @@ public class Paciente {
     private Historial historial;
     
     @OneToMany(mappedBy = "paciente")
+    @BatchSize(size = 100)
     @JsonIgnoreProperties("paciente")
     private List<Consulta> consultas;
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.example.hospital.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "punto_control")
+public class PuntoControl {
+
+    @Id
+    @Column(name = "nombre", length = 50)
+    private String nombre;
+
+    @Column(name = "posicion", nullable = false)
+    private Long posicion;
+}
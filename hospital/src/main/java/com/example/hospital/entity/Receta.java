@@ -14,6 +14,10 @@ public class Receta {
     @Column(name = "id")
     private Integer idReceta;
 
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint not null default 0")
+    private Long version;
+
     @Column(name = "medicamento", length = 200)
     private String medicamento;
 
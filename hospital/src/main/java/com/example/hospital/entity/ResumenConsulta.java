@@ -0,0 +1,31 @@
+package com.example.hospital.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDate;
+
+@Entity
+@Data
+@Table(name = "resumen_consulta", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_resumen_consulta", columnNames = {"tipo", "fecha", "clave"})
+})
+public class ResumenConsulta {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long idResumen;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDate fecha;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 20)
+    private TipoResumen tipo;
+
+    @Column(name = "clave", nullable = false, length = 100)
+    private String clave;
+
+    @Column(name = "total", nullable = false)
+    private Long total;
+}
@@ -0,0 +1,7 @@
+package com.example.hospital.entity;
+
+public enum TipoResumen {
+    DOCTOR,
+    ESPECIALIDAD,
+    DIAGNOSTICO
+}
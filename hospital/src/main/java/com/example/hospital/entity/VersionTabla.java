@@ -0,0 +1,27 @@
+package com.example.hospital.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cambios acumulados de una tabla entre todas las instancias; VersionesTabla la suma y la lee por JDBC.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "version_tabla")
+public class VersionTabla {
+
+    @Id
+    @Column(name = "tabla", length = 30)
+    private String tabla;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Column(name = "modificado", nullable = false)
+    private Long modificado;
+}
@@ -0,0 +1,11 @@
+package com.example.hospital.escritura;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.example.hospital.dto.ConsultaCambio;
+
+/**
+ * Resultado de encolar una consulta: el numero en el diario y, si se pidio, la confirmacion del commit.
+ */
+public record Aceptacion(long numero, CompletableFuture<ConsultaCambio> confirmacion) {
+}
@@ -0,0 +1,27 @@
+package com.example.hospital.escritura;
+
+import java.time.LocalDateTime;
+
+import com.example.hospital.entity.Consulta;
+
+/**
+ * Consulta aceptada por la escritura diferida y aun no confirmada en la base; es tambien la linea del diario.
+ */
+public record ConsultaPendiente(
+        long numero,
+        LocalDateTime fecha,
+        String motivo,
+        String diagnostico,
+        Integer idPaciente,
+        Integer idDoctor) {
+
+    static ConsultaPendiente desde(long numero, Consulta consulta) {
+        return new ConsultaPendiente(
+                numero,
+                consulta.getFecha(),
+                consulta.getMotivo(),
+                consulta.getDiagnostico(),
+                consulta.getPaciente().getIdPaciente(),
+                consulta.getDoctor().getIdDoctor());
+    }
+}
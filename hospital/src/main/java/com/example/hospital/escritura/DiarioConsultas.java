@@ -0,0 +1,144 @@
+package com.example.hospital.escritura;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Diario local de solo anexado: una linea JSON por consulta aceptada. Las escrituras se serializan por el llamador;
+ * el fsync se agrupa, de modo que un solo force cubre todas las lineas escritas hasta ese momento.
+ */
+class DiarioConsultas implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(DiarioConsultas.class);
+
+    private final Path archivo;
+    private final ObjectMapper objectMapper;
+    private final FileChannel canal;
+    private final ReentrantLock sincronizacion = new ReentrantLock();
+
+    private volatile long ultimoEscrito;
+    private volatile long ultimoSincronizado;
+
+    DiarioConsultas(Path archivo, ObjectMapper objectMapper) {
+        this.archivo = archivo;
+        this.objectMapper = objectMapper;
+        try {
+            if (archivo.getParent() != null) {
+                Files.createDirectories(archivo.getParent());
+            }
+            this.canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Lee las entradas del diario; una ultima linea incompleta (caida a mitad de escritura) se descarta. */
+    List<ConsultaPendiente> leer() {
+        List<ConsultaPendiente> entradas = new ArrayList<>();
+        try (BufferedReader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                if (linea.isBlank()) {
+                    continue;
+                }
+                try {
+                    entradas.add(objectMapper.readValue(linea, ConsultaPendiente.class));
+                } catch (JacksonException e) {
+                    log.warn("Linea ilegible en el diario {}, se descarta", archivo);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!entradas.isEmpty()) {
+            ultimoEscrito = entradas.getLast().numero();
+            ultimoSincronizado = ultimoEscrito;
+        }
+        return entradas;
+    }
+
+    /** Debe llamarse con el candado de escritura del llamador tomado, para que el orden del archivo sea el de numero. */
+    void agregar(ConsultaPendiente pendiente) {
+        byte[] linea = (objectMapper.writeValueAsString(pendiente) + "\n").getBytes(StandardCharsets.UTF_8);
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(linea);
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ultimoEscrito = pendiente.numero();
+    }
+
+    /** Garantiza que la entrada {@code numero} esta en disco; varios hilos comparten un mismo force. */
+    void sincronizar(long numero) {
+        if (ultimoSincronizado >= numero) {
+            return;
+        }
+        sincronizacion.lock();
+        try {
+            if (ultimoSincronizado >= numero) {
+                return;
+            }
+            long escrito = ultimoEscrito;
+            canal.force(false);
+            ultimoSincronizado = escrito;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            sincronizacion.unlock();
+        }
+    }
+
+    /** Vacia el archivo; solo es seguro cuando todas las entradas escritas estan confirmadas en la base. */
+    void truncar() {
+        sincronizacion.lock();
+        try {
+            canal.truncate(0);
+            canal.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            sincronizacion.unlock();
+        }
+    }
+
+    long tamanio() {
+        try {
+            return canal.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    long ultimoEscrito() {
+        return ultimoEscrito;
+    }
+
+    @Override
+    public void close() {
+        try {
+            canal.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.example.hospital.escritura;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+
+import com.example.hospital.agenda.AgendaDoctores;
+import com.example.hospital.dto.ConsultaCambio;
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.entity.PuntoControl;
+import com.example.hospital.repository.DoctorRepository;
+import com.example.hospital.repository.PacienteRepository;
+import com.example.hospital.repository.PuntoControlRepository;
+import com.example.hospital.service.ConsultaService;
+import com.example.hospital.shard.Shards;
+
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Escritura diferida de consultas. La solicitud se valida, se anexa al diario local (con fsync agrupado) y se
+ * encola; un unico hilo agrupa la cola en transacciones de hasta {@code tamanio-lote} consultas. El ultimo numero
+ * confirmado se guarda en punto_control dentro de la misma transaccion, asi que al reiniciar se reprocesa solo lo
+ * que el diario tiene por encima de ese numero y ninguna consulta se inserta dos veces. Esa garantia necesita
+ * una sola base, por eso no se admite junto con shards.
+ */
+@Component
+public class EscrituraConsultas {
+
+    private static final Logger log = LoggerFactory.getLogger(EscrituraConsultas.class);
+
+    static final String PUNTO_CONTROL = "escritura-consultas";
+    static final long ESPERA_MS = 200;
+    static final long REINTENTO_MS = 1_000;
+    static final long TAMANIO_COMPACTACION = 1L << 20;
+    static final long ESPERA_CIERRE_MS = 30_000;
+
+    private final ConsultaService consultaService;
+    private final PacienteRepository pacienteRepository;
+    private final DoctorRepository doctorRepository;
+    private final AgendaDoctores agendaDoctores;
+    private final PuntoControlRepository puntoControlRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final boolean habilitada;
+    private final String rutaDiario;
+    private final int capacidad;
+    private final int tamanioLote;
+
+    // Toma de numero, anexado al diario y encolado ocurren juntos para que la cola respete el orden del diario.
+    private final ReentrantLock escritura = new ReentrantLock();
+
+    private BlockingQueue<Solicitud> cola;
+    private DiarioConsultas diario;
+    private Thread consumidor;
+    private Timer commit;
+    private DistributionSummary lotes;
+    private long siguienteNumero;
+    private volatile long confirmado;
+    private volatile boolean activa;
+
+    public EscrituraConsultas(ConsultaService consultaService,
+            PacienteRepository pacienteRepository,
+            DoctorRepository doctorRepository,
+            AgendaDoctores agendaDoctores,
+            PuntoControlRepository puntoControlRepository,
+            EntityManager entityManager,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            Shards shards,
+            @Value("${hospital.escritura.consultas.habilitada:false}") boolean habilitada,
+            @Value("${hospital.escritura.consultas.diario:data/consultas.diario}") String rutaDiario,
+            @Value("${hospital.escritura.consultas.capacidad:10000}") int capacidad,
+            @Value("${hospital.escritura.consultas.tamanio-lote:200}") int tamanioLote) {
+        if (habilitada && shards.habilitado()) {
+            // Un lote mezcla pacientes de varios shards y punto_control solo puede confirmarse junto con uno.
+            throw new IllegalStateException("hospital.escritura.consultas y hospital.shards no se pueden habilitar juntos");
+        }
+        this.consultaService = consultaService;
+        this.pacienteRepository = pacienteRepository;
+        this.doctorRepository = doctorRepository;
+        this.agendaDoctores = agendaDoctores;
+        this.puntoControlRepository = puntoControlRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.habilitada = habilitada;
+        this.rutaDiario = rutaDiario;
+        this.capacidad = capacidad;
+        this.tamanioLote = tamanioLote;
+    }
+
+    public boolean habilitada() {
+        return habilitada && activa;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!habilitada) {
+            return;
+        }
+        cola = new ArrayBlockingQueue<>(capacidad);
+        diario = new DiarioConsultas(Path.of(rutaDiario), objectMapper);
+        confirmado = puntoControlRepository.findById(PUNTO_CONTROL).map(PuntoControl::getPosicion).orElse(0L);
+
+        List<ConsultaPendiente> pendientes = diario.leer().stream().filter(p -> p.numero() > confirmado).toList();
+        for (int i = 0; i < pendientes.size(); i += tamanioLote) {
+            persistir(pendientes.subList(i, Math.min(i + tamanioLote, pendientes.size())).stream()
+                    .map(p -> new Solicitud(p, null)).toList());
+        }
+        if (!pendientes.isEmpty()) {
+            log.info("Diario de consultas: {} consultas reprocesadas", pendientes.size());
+        }
+        siguienteNumero = Math.max(confirmado, diario.ultimoEscrito()) + 1;
+        diario.truncar();
+
+        Gauge.builder("hospital.escritura.consultas.cola", cola, BlockingQueue::size)
+                .description("Consultas aceptadas pendientes de commit")
+                .register(meterRegistry);
+        commit = Timer.builder("hospital.escritura.consultas.commit")
+                .description("Duracion de cada transaccion de lote")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        lotes = DistributionSummary.builder("hospital.escritura.consultas.lote")
+                .description("Consultas por transaccion")
+                .register(meterRegistry);
+
+        activa = true;
+        consumidor = Thread.ofPlatform().name("escritura-consultas").daemon().start(this::consumir);
+    }
+
+    /**
+     * Valida y encola la consulta. Al volver, la consulta ya esta en disco en el diario.
+     *
+     * @throws IllegalArgumentException si la consulta no es valida
+     * @throws DuplicateKeyException si el doctor ya tiene una consulta en ese horario
+     * @throws RejectedExecutionException si la cola esta llena
+     */
+    public Aceptacion aceptar(Consulta consulta, boolean esperarConfirmacion) {
+        validar(consulta);
+        CompletableFuture<ConsultaCambio> confirmacion = esperarConfirmacion ? new CompletableFuture<>() : null;
+        ConsultaPendiente pendiente;
+        escritura.lock();
+        try {
+            if (!activa) {
+                throw new RejectedExecutionException("Escritura de consultas detenida");
+            }
+            if (cola.remainingCapacity() == 0) {
+                throw new RejectedExecutionException("Cola de escritura de consultas llena");
+            }
+            pendiente = ConsultaPendiente.desde(siguienteNumero++, consulta);
+            diario.agregar(pendiente);
+            cola.add(new Solicitud(pendiente, confirmacion));
+        } finally {
+            escritura.unlock();
+        }
+        diario.sincronizar(pendiente.numero());
+        return new Aceptacion(pendiente.numero(), confirmacion);
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        if (!activa) {
+            return;
+        }
+        // Lo que quede en la cola esta en el diario y se reprocesa al arrancar.
+        activa = false;
+        // El consumidor termina el lote en curso antes de salir; hasta entonces sigue usando el diario.
+        consumidor.join(ESPERA_CIERRE_MS);
+        if (consumidor.isAlive()) {
+            log.warn("La escritura de consultas no termino su lote; el diario se cierra con el proceso");
+            return;
+        }
+        escritura.lock();
+        try {
+            diario.close();
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    private void validar(Consulta consulta) {
+        if (consulta.getFecha() == null || consulta.getMotivo() == null || consulta.getMotivo().isBlank()) {
+            throw new IllegalArgumentException("Fecha y motivo son obligatorios");
+        }
+        if (consulta.getPaciente() == null || consulta.getPaciente().getIdPaciente() == null
+                || !pacienteRepository.existsById(consulta.getPaciente().getIdPaciente())) {
+            throw new IllegalArgumentException("Paciente inexistente");
+        }
+        if (consulta.getDoctor() == null || consulta.getDoctor().getIdDoctor() == null
+                || !doctorRepository.existsById(consulta.getDoctor().getIdDoctor())) {
+            throw new IllegalArgumentException("Doctor inexistente");
+        }
+        // Comprobacion temprana; la reserva efectiva se hace al confirmar el lote en crearConsulta.
+        if (!agendaDoctores.libre(consulta.getDoctor().getIdDoctor(), consulta.getFecha())) {
+            throw new DuplicateKeyException("El doctor ya tiene una consulta en ese horario");
+        }
+    }
+
+    private void consumir() {
+        List<Solicitud> lote = new ArrayList<>(tamanioLote);
+        while (activa) {
+            try {
+                if (lote.isEmpty()) {
+                    Solicitud primera = cola.poll(ESPERA_MS, TimeUnit.MILLISECONDS);
+                    if (primera == null) {
+                        compactar();
+                        continue;
+                    }
+                    lote.add(primera);
+                    cola.drainTo(lote, tamanioLote - 1);
+                }
+                persistir(lote);
+                lote.clear();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // Base no disponible u otro fallo transitorio: se reintenta el mismo lote sin perder el orden. Lo
+                // que el reintento de a una ya confirmo no se vuelve a insertar.
+                log.error("Fallo la escritura de un lote de {} consultas, se reintenta", lote.size(), e);
+                lote.removeIf(solicitud -> solicitud.pendiente().numero() <= confirmado);
+                try {
+                    Thread.sleep(REINTENTO_MS);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void persistir(List<Solicitud> lote) {
+        Timer.Sample muestra = Timer.start();
+        try {
+            List<ConsultaCambio> creadas = transactionTemplate.execute(status -> guardar(lote));
+            for (int i = 0; i < lote.size(); i++) {
+                completar(lote.get(i), creadas.get(i));
+            }
+        } catch (DataIntegrityViolationException e) {
+            // Una fila rechazada por la base no debe arrastrar al resto del lote: se reintenta de a una.
+            for (Solicitud solicitud : lote) {
+                long numero = solicitud.pendiente().numero();
+                try {
+                    completar(solicitud, transactionTemplate.execute(status -> guardar(List.of(solicitud))).getFirst());
+                } catch (DataIntegrityViolationException rechazo) {
+                    log.warn("Consulta {} del diario rechazada por la base: {}", numero,
+                            rechazo.getMostSpecificCause().getMessage());
+                    transactionTemplate.executeWithoutResult(status -> avanzar(numero));
+                    if (solicitud.confirmacion() != null) {
+                        solicitud.confirmacion().completeExceptionally(rechazo);
+                    }
+                }
+                // Cada fila se confirmo junto con su punto de control.
+                confirmado = numero;
+            }
+        }
+        confirmado = lote.getLast().pendiente().numero();
+        if (commit != null) {
+            muestra.stop(commit);
+            lotes.record(lote.size());
+        }
+    }
+
+    private List<ConsultaCambio> guardar(List<Solicitud> lote) {
+        List<ConsultaCambio> creadas = new ArrayList<>(lote.size());
+        for (Solicitud solicitud : lote) {
+            ConsultaPendiente pendiente = solicitud.pendiente();
+            Consulta consulta = new Consulta();
+            consulta.setFecha(pendiente.fecha());
+            consulta.setMotivo(pendiente.motivo());
+            consulta.setDiagnostico(pendiente.diagnostico());
+            consulta.setPaciente(entityManager.getReference(Paciente.class, pendiente.idPaciente()));
+            consulta.setDoctor(entityManager.getReference(Doctor.class, pendiente.idDoctor()));
+            creadas.add(ConsultaCambio.desde(consultaService.crearConsulta(consulta)));
+        }
+        avanzar(lote.getLast().pendiente().numero());
+        return creadas;
+    }
+
+    private void avanzar(long numero) {
+        puntoControlRepository.save(new PuntoControl(PUNTO_CONTROL, numero));
+    }
+
+    private void completar(Solicitud solicitud, ConsultaCambio creada) {
+        if (solicitud.confirmacion() != null) {
+            solicitud.confirmacion().complete(creada);
+        }
+    }
+
+    private void compactar() {
+        escritura.lock();
+        try {
+            if (diario.ultimoEscrito() <= confirmado && diario.tamanio() > TAMANIO_COMPACTACION) {
+                diario.truncar();
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    private record Solicitud(ConsultaPendiente pendiente, CompletableFuture<ConsultaCambio> confirmacion) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.hospital.metricas;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Publica los contadores de Statistics de Hibernate (requiere hibernate.generate_statistics=true).
+ */
+@Component
+@RequiredArgsConstructor
+public class HibernateMetricas implements MeterBinder {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        FunctionCounter.builder("hospital.hibernate.sentencias", statistics, Statistics::getPrepareStatementCount)
+                .description("Sentencias JDBC preparadas")
+                .register(registry);
+        FunctionCounter.builder("hospital.hibernate.consultas", statistics, Statistics::getQueryExecutionCount)
+                .description("Consultas HQL/SQL ejecutadas")
+                .register(registry);
+        FunctionCounter.builder("hospital.hibernate.entidades.cargadas", statistics, Statistics::getEntityLoadCount)
+                .register(registry);
+        FunctionCounter.builder("hospital.hibernate.colecciones.cargadas", statistics, Statistics::getCollectionFetchCount)
+                .description("Colecciones inicializadas de forma perezosa; un aumento suele indicar N+1")
+                .register(registry);
+        FunctionCounter.builder("hospital.hibernate.transacciones", statistics, Statistics::getTransactionCount)
+                .register(registry);
+        Gauge.builder("hospital.hibernate.consulta.maxima.ms", statistics, Statistics::getQueryExecutionMaxTime)
+                .description("Consulta mas lenta desde el arranque")
+                .register(registry);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.hospital.metricas;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Cronometra cada metodo publico de las clases *ServiceImpl como hospital.servicio{clase, metodo, excepcion}.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class MetricasServicioAspect {
+
+    private final MeterRegistry meterRegistry;
+    // Un Timer por metodo y excepcion; registrarlo en cada llamada recorre el registro y arma los tags otra vez.
+    private final Map<Clave, Timer> timers = new ConcurrentHashMap<>();
+
+    @Around("execution(public * com.example.hospital.service.impl.*ServiceImpl.*(..))")
+    public Object medir(ProceedingJoinPoint punto) throws Throwable {
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        String excepcion = "none";
+        try {
+            return punto.proceed();
+        } catch (Throwable e) {
+            excepcion = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            muestra.stop(timer(punto.getSignature(), excepcion));
+        }
+    }
+
+    private Timer timer(Signature firma, String excepcion) {
+        // Spring crea una firma nueva por llamada; el Method si es estable y sirve de clave.
+        Method metodo = ((MethodSignature) firma).getMethod();
+        return timers.computeIfAbsent(new Clave(metodo, excepcion), clave -> Timer.builder("hospital.servicio")
+                .tag("clase", firma.getDeclaringType().getSimpleName())
+                .tag("metodo", firma.getName())
+                .tag("excepcion", excepcion)
+                .register(meterRegistry));
+    }
+
+    private record Clave(Method metodo, String excepcion) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.hospital.metricas;
+
+import java.io.Serial;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registra una fraccion de las sentencias SQL en una sola linea clave=valor, en lugar de show-sql sobre stdout.
+ */
+public class SqlMuestreado implements StatementInspector {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger log = LoggerFactory.getLogger("hospital.sql");
+
+    private final double muestreo;
+
+    public SqlMuestreado(double muestreo) {
+        this.muestreo = muestreo;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (muestreo > 0 && log.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < muestreo) {
+            log.info("sql hilo=\"{}\" sentencia=\"{}\"", Thread.currentThread().getName(), sql.replace('"', '\''));
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.hospital.replica;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Origen de las conexiones de solo lectura: la replica mientras su retraso este dentro del limite, la
+ * primaria en caso contrario o dentro de LecturaPrimaria.en.
+ */
+public class EnrutadorReplica extends AbstractRoutingDataSource {
+
+    static final String PRIMARIA = "primaria";
+    static final String REPLICA = "replica";
+
+    private final MonitorReplica monitor;
+    private final Counter lecturasPrimaria;
+    private final Counter lecturasReplica;
+
+    private EnrutadorReplica(MonitorReplica monitor, MeterRegistry registry) {
+        this.monitor = monitor;
+        this.lecturasPrimaria = contador(registry, PRIMARIA);
+        this.lecturasReplica = contador(registry, REPLICA);
+    }
+
+    /** Enrutador listo para usar: no es un bean, asi que se inicializa aqui y no en el constructor. */
+    public static EnrutadorReplica crear(DataSource primaria, DataSource replica, MonitorReplica monitor,
+            MeterRegistry registry) {
+        EnrutadorReplica enrutador = new EnrutadorReplica(monitor, registry);
+        enrutador.setTargetDataSources(Map.of(PRIMARIA, primaria, REPLICA, replica));
+        enrutador.setDefaultTargetDataSource(primaria);
+        enrutador.setLenientFallback(false);
+        enrutador.afterPropertiesSet();
+        return enrutador;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!LecturaPrimaria.activa() && monitor.disponible()) {
+            lecturasReplica.increment();
+            return REPLICA;
+        }
+        lecturasPrimaria.increment();
+        return PRIMARIA;
+    }
+
+    private static Counter contador(MeterRegistry registry, String pool) {
+        return Counter.builder("hospital.datasource.lecturas")
+                .description("Conexiones de solo lectura entregadas por pool")
+                .tag("pool", pool)
+                .register(registry);
+    }
+}
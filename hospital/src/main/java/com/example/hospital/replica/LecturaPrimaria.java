@@ -0,0 +1,33 @@
+package com.example.hospital.replica;
+
+import java.util.function.Supplier;
+
+/**
+ * Lecturas de solo lectura que aun asi van a la primaria: las que acompanan un ETag calculado con las versiones
+ * de la primaria y las que llenan una cache, que con datos atrasados de la replica quedarian mal hasta expirar.
+ * Sin replica habilitada no cambia nada.
+ */
+public final class LecturaPrimaria {
+
+    private static final ThreadLocal<Boolean> ACTIVA = new ThreadLocal<>();
+
+    private LecturaPrimaria() {
+    }
+
+    /** La conexion se pide de forma perezosa, asi que basta con que la transaccion empiece y termine dentro. */
+    public static <T> T en(Supplier<T> lectura) {
+        boolean anidada = ACTIVA.get() != null;
+        ACTIVA.set(Boolean.TRUE);
+        try {
+            return lectura.get();
+        } finally {
+            if (!anidada) {
+                ACTIVA.remove();
+            }
+        }
+    }
+
+    static boolean activa() {
+        return ACTIVA.get() != null;
+    }
+}
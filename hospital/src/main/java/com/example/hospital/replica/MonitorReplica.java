@@ -0,0 +1,90 @@
+package com.example.hospital.replica;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Mide el retraso de la replica con un latido: la primaria escribe la hora actual en latido_replica y la
+ * replica se lee justo despues; la diferencia es lo que la replicacion lleva de atraso. Sirve igual con
+ * MySQL que con dos bases embebidas, a diferencia de SHOW REPLICA STATUS.
+ */
+public class MonitorReplica {
+
+    private static final Logger log = LoggerFactory.getLogger(MonitorReplica.class);
+
+    private static final String ACTUALIZAR = "update latido_replica set instante = ? where id = 1";
+    private static final String INSERTAR = "insert into latido_replica (id, instante) values (1, ?)";
+    private static final String LEER = "select instante from latido_replica where id = 1";
+
+    private final JdbcTemplate primaria;
+    private final JdbcTemplate replica;
+    private final long retrasoMaximoMs;
+
+    // -1 mientras no se haya podido leer la replica; hasta entonces las lecturas van a la primaria.
+    private final AtomicLong retrasoMs = new AtomicLong(-1);
+    private volatile boolean disponible;
+
+    private MonitorReplica(DataSource primaria, DataSource replica, long retrasoMaximoMs) {
+        this.primaria = new JdbcTemplate(primaria);
+        this.replica = new JdbcTemplate(replica);
+        this.retrasoMaximoMs = retrasoMaximoMs;
+    }
+
+    /** Crea el monitor y registra sus medidores, que guardan una referencia a el. */
+    public static MonitorReplica crear(DataSource primaria, DataSource replica, long retrasoMaximoMs,
+            MeterRegistry registry) {
+        MonitorReplica monitor = new MonitorReplica(primaria, replica, retrasoMaximoMs);
+        Gauge.builder("hospital.replica.retraso.ms", monitor.retrasoMs, AtomicLong::get)
+                .description("Retraso medido de la replica; -1 si no responde")
+                .register(registry);
+        Gauge.builder("hospital.replica.disponible", monitor, m -> m.disponible ? 1 : 0)
+                .description("1 si las lecturas se envian a la replica")
+                .register(registry);
+        return monitor;
+    }
+
+    public boolean disponible() {
+        return disponible;
+    }
+
+    public long retrasoMs() {
+        return retrasoMs.get();
+    }
+
+    @Scheduled(fixedDelayString = "${hospital.replica.intervalo-latido-ms:1000}")
+    public void comprobar() {
+        long ahora = System.currentTimeMillis();
+        try {
+            if (primaria.update(ACTUALIZAR, ahora) == 0) {
+                primaria.update(INSERTAR, ahora);
+            }
+        } catch (DataAccessException e) {
+            log.warn("No se pudo escribir el latido en la primaria: {}", e.getMessage());
+        }
+
+        boolean anterior = disponible;
+        try {
+            Long visto = replica.queryForObject(LEER, Long.class);
+            long retraso = Math.max(0, ahora - visto);
+            retrasoMs.set(retraso);
+            disponible = retraso <= retrasoMaximoMs;
+        } catch (DataAccessException e) {
+            retrasoMs.set(-1);
+            disponible = false;
+        }
+        if (anterior != disponible) {
+            log.info("Lecturas de solo lectura hacia {} (retraso {} ms)",
+                    disponible ? "la replica" : "la primaria", retrasoMs.get());
+        }
+    }
+}
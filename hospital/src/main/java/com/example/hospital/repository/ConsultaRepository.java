@@ -3,22 +3,47 @@ package com.example.hospital.repository;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.hospital.dto.ReservaAgenda;
 import com.example.hospital.entity.Consulta;
-import com.example.hospital.entity.Doctor;
-import com.example.hospital.entity.Paciente;
 
+/**
+ * Las lecturas de ConsultaRepositoryArchivo incluyen las consultas archivadas; el resto (streams de
+ * ConsultaRepositoryStream, agenda, recientes, reservas) y todas las escrituras trabajan solo sobre la tabla.
+ */
 @Repository
-public interface ConsultaRepository extends JpaRepository<Consulta, Integer> {
-    List<Consulta> findByPaciente(Paciente paciente);
-    List<Consulta> findByPacienteIdPaciente(Integer idPaciente);
-    List<Consulta> findByDoctor(Doctor doctor);
-    List<Consulta> findByDoctorIdDoctor(Integer idDoctor);
-    List<Consulta> findByMotivo(String motivo);
-    List<Consulta> findByMotivoContainingIgnoreCase(String motivo);
-    List<Consulta> findByDiagnostico(String diagnostico);
-    List<Consulta> findByDiagnosticoContainingIgnoreCase(String diagnostico);
-    List<Consulta> findByFechaBetween(LocalDateTime inicio, LocalDateTime fin);
+public interface ConsultaRepository extends JpaRepository<Consulta, Integer>, ConsultaRepositoryArchivo,
+        ConsultaRepositoryStream {
+
+    @EntityGraph(attributePaths = {"paciente", "paciente.historial", "doctor", "doctor.especialidad", "receta"})
+    @Query(value = """
+            select c from Consulta c
+            where c.doctor.idDoctor = :idDoctor and c.fecha >= :desde and c.fecha < :hasta
+            order by c.fecha, c.idConsulta
+            """,
+            countQuery = """
+            select count(c) from Consulta c
+            where c.doctor.idDoctor = :idDoctor and c.fecha >= :desde and c.fecha < :hasta
+            """)
+    Page<Consulta> findAgendaDoctor(@Param("idDoctor") Integer idDoctor, @Param("desde") LocalDateTime desde,
+            @Param("hasta") LocalDateTime hasta, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"paciente", "paciente.historial", "doctor", "doctor.especialidad", "receta"})
+    @Query(value = """
+            select c from Consulta c
+            where c.paciente.idPaciente = :idPaciente
+            order by c.fecha desc, c.idConsulta desc
+            """,
+            countQuery = "select count(c) from Consulta c where c.paciente.idPaciente = :idPaciente")
+    Page<Consulta> findRecientesPaciente(@Param("idPaciente") Integer idPaciente, Pageable pageable);
+
+    @Query("select new com.example.hospital.dto.ReservaAgenda(c.doctor.idDoctor, c.fecha) from Consulta c where c.fecha >= :desde")
+    List<ReservaAgenda> findReservasDesde(@Param("desde") LocalDateTime desde);
 }
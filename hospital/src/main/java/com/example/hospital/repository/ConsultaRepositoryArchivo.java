@@ -0,0 +1,47 @@
+package com.example.hospital.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.data.domain.Limit;
+
+import com.example.hospital.dto.ConsultaTimeline;
+import com.example.hospital.dto.ConsultaVista;
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.entity.Receta;
+
+/**
+ * Lecturas de ConsultaRepository que incluyen las consultas archivadas. Las filas del archivo se devuelven como
+ * entidades sin gestionar (con paciente y doctor cargados de la base) y son de solo lectura.
+ */
+public interface ConsultaRepositoryArchivo {
+
+    List<Consulta> findAll();
+
+    List<Consulta> findByPaciente(Paciente paciente);
+    List<Consulta> findByPacienteIdPaciente(Integer idPaciente);
+    List<Consulta> findByDoctor(Doctor doctor);
+    List<Consulta> findByDoctorIdDoctor(Integer idDoctor);
+    List<Consulta> findByMotivo(String motivo);
+    List<Consulta> findByMotivoContainingIgnoreCase(String motivo);
+    List<Consulta> findByDiagnostico(String diagnostico);
+    List<Consulta> findByDiagnosticoContainingIgnoreCase(String diagnostico);
+    List<Consulta> findByFechaBetween(LocalDateTime inicio, LocalDateTime fin);
+    List<Consulta> findByIdConsultaIn(Collection<Integer> ids);
+
+    List<ConsultaVista> findPrimeraPagina(Limit limit);
+    List<ConsultaVista> findPaginaDespuesDe(LocalDateTime fecha, Integer idConsulta, Limit limit);
+
+    List<ConsultaTimeline> findTimeline(Integer idPaciente, Limit limit);
+    List<ConsultaTimeline> findTimelineDespuesDe(Integer idPaciente, LocalDateTime fecha, Integer idConsulta, Limit limit);
+
+    /** Recetas que se archivaron con su consulta, o todas las del archivo con ids null. */
+    List<Receta> findRecetasArchivadas(Collection<Integer> idsReceta);
+
+    /** Recorre solo el archivo, en lotes; streamAll cubre la tabla. */
+    void recorrerArchivadas(int tamanioLote, Consumer<List<Consulta>> consumidor);
+}
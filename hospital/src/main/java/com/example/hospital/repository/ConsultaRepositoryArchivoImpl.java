@@ -0,0 +1,310 @@
+package com.example.hospital.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.springframework.data.domain.Limit;
+
+import jakarta.persistence.EntityManager;
+
+import com.example.hospital.archivo.ArchivoConsultas;
+import com.example.hospital.archivo.ConsultaArchivada;
+import com.example.hospital.archivo.FiltroArchivo;
+import com.example.hospital.dto.ConsultaTimeline;
+import com.example.hospital.dto.ConsultaVista;
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.entity.Receta;
+import com.example.hospital.shard.Shards;
+
+/**
+ * Primero la tabla y despues el archivo, solo si tiene segmentos. Una fila presente en los dos lados (un lote a
+ * medio archivar) se toma de la tabla. Las paginas ordenadas por fecha piden al archivo solo lo que puede entrar
+ * en la pagina: si la tabla ya la lleno, lo anterior a su ultima fila ni se abre. Con shards el archivo es uno solo
+ * y cada shard ve solo las filas de sus pacientes.
+ */
+class ConsultaRepositoryArchivoImpl implements ConsultaRepositoryArchivo {
+
+    private static final int IDS_POR_CONSULTA = 1000;
+    private static final String PACIENTES = "select p from Paciente p left join fetch p.historial where p.idPaciente in :ids";
+    private static final String DOCTORES = "select d from Doctor d left join fetch d.especialidad where d.idDoctor in :ids";
+
+    private final ConsultaTablaRepository tabla;
+    private final ArchivoConsultas archivoConsultas;
+    private final EntityManager entityManager;
+    private final Shards shards;
+
+    ConsultaRepositoryArchivoImpl(ConsultaTablaRepository tabla, ArchivoConsultas archivoConsultas,
+            EntityManager entityManager, Shards shards) {
+        this.tabla = tabla;
+        this.archivoConsultas = archivoConsultas;
+        this.entityManager = entityManager;
+        this.shards = shards;
+    }
+
+    @Override
+    public List<Consulta> findAll() {
+        return combinar(tabla.findAll(), FiltroArchivo.todas());
+    }
+
+    @Override
+    public List<Consulta> findByPaciente(Paciente paciente) {
+        return findByPacienteIdPaciente(paciente.getIdPaciente());
+    }
+
+    @Override
+    public List<Consulta> findByPacienteIdPaciente(Integer idPaciente) {
+        return combinar(tabla.findByPacienteIdPaciente(idPaciente), FiltroArchivo.dePaciente(idPaciente));
+    }
+
+    @Override
+    public List<Consulta> findByDoctor(Doctor doctor) {
+        return findByDoctorIdDoctor(doctor.getIdDoctor());
+    }
+
+    @Override
+    public List<Consulta> findByDoctorIdDoctor(Integer idDoctor) {
+        return combinar(tabla.findByDoctorIdDoctor(idDoctor), FiltroArchivo.deDoctor(idDoctor));
+    }
+
+    @Override
+    public List<Consulta> findByMotivo(String motivo) {
+        return combinar(tabla.findByMotivo(motivo), FiltroArchivo.donde(c -> Objects.equals(c.motivo(), motivo)));
+    }
+
+    @Override
+    public List<Consulta> findByMotivoContainingIgnoreCase(String motivo) {
+        return combinar(tabla.findByMotivoContainingIgnoreCase(motivo),
+                FiltroArchivo.donde(contiene(ConsultaArchivada::motivo, motivo)));
+    }
+
+    @Override
+    public List<Consulta> findByDiagnostico(String diagnostico) {
+        return combinar(tabla.findByDiagnostico(diagnostico),
+                FiltroArchivo.donde(c -> Objects.equals(c.diagnostico(), diagnostico)));
+    }
+
+    @Override
+    public List<Consulta> findByDiagnosticoContainingIgnoreCase(String diagnostico) {
+        return combinar(tabla.findByDiagnosticoContainingIgnoreCase(diagnostico),
+                FiltroArchivo.donde(contiene(ConsultaArchivada::diagnostico, diagnostico)));
+    }
+
+    @Override
+    public List<Consulta> findByFechaBetween(LocalDateTime inicio, LocalDateTime fin) {
+        return combinar(tabla.findByFechaBetween(inicio, fin), FiltroArchivo.entre(inicio, fin));
+    }
+
+    @Override
+    public List<Consulta> findByIdConsultaIn(Collection<Integer> ids) {
+        List<Consulta> calientes = tabla.findByIdConsultaIn(ids);
+        if (archivoConsultas.vacio() || calientes.size() == ids.size()) {
+            return calientes;
+        }
+        Set<Integer> faltantes = new HashSet<>(ids);
+        calientes.forEach(c -> faltantes.remove(c.getIdConsulta()));
+        return combinar(calientes, FiltroArchivo.conIds(faltantes));
+    }
+
+    @Override
+    public List<ConsultaVista> findPrimeraPagina(Limit limit) {
+        return combinarRecientes(tabla.findPrimeraPagina(limit), FiltroArchivo.todas(), limit,
+                this::aVistas, ConsultaVista::idConsulta, ConsultaVista::fecha);
+    }
+
+    @Override
+    public List<ConsultaVista> findPaginaDespuesDe(LocalDateTime fecha, Integer idConsulta, Limit limit) {
+        return combinarRecientes(tabla.findPaginaDespuesDe(fecha, idConsulta, limit),
+                FiltroArchivo.todas().antesDe(fecha, idConsulta), limit,
+                this::aVistas, ConsultaVista::idConsulta, ConsultaVista::fecha);
+    }
+
+    @Override
+    public List<ConsultaTimeline> findTimeline(Integer idPaciente, Limit limit) {
+        return combinarRecientes(tabla.findTimeline(idPaciente, limit), FiltroArchivo.dePaciente(idPaciente), limit,
+                this::aTimeline, ConsultaTimeline::idConsulta, ConsultaTimeline::fecha);
+    }
+
+    @Override
+    public List<ConsultaTimeline> findTimelineDespuesDe(Integer idPaciente, LocalDateTime fecha, Integer idConsulta,
+            Limit limit) {
+        return combinarRecientes(tabla.findTimelineDespuesDe(idPaciente, fecha, idConsulta, limit),
+                FiltroArchivo.dePaciente(idPaciente).antesDe(fecha, idConsulta), limit,
+                this::aTimeline, ConsultaTimeline::idConsulta, ConsultaTimeline::fecha);
+    }
+
+    @Override
+    public List<Receta> findRecetasArchivadas(Collection<Integer> idsReceta) {
+        if (archivoConsultas.vacio()) {
+            return new ArrayList<>();
+        }
+        Set<Integer> ids = idsReceta != null ? Set.copyOf(idsReceta) : null;
+        List<ConsultaArchivada> archivadas = archivoConsultas.buscar(delShard(FiltroArchivo.donde(
+                c -> c.idReceta() != null && (ids == null || ids.contains(c.idReceta())))));
+        return aConsultas(archivadas).stream().map(Consulta::getReceta).toList();
+    }
+
+    @Override
+    public void recorrerArchivadas(int tamanioLote, Consumer<List<Consulta>> consumidor) {
+        int shard = shards.actual();
+        archivoConsultas.recorrer(segmento -> {
+            List<ConsultaArchivada> filas = shards.habilitado()
+                    ? segmento.stream().filter(c -> shards.deId(c.idPaciente()) == shard).toList()
+                    : segmento;
+            for (int i = 0; i < filas.size(); i += tamanioLote) {
+                consumidor.accept(aConsultas(filas.subList(i, Math.min(i + tamanioLote, filas.size()))));
+            }
+        });
+    }
+
+    private List<Consulta> combinar(List<Consulta> calientes, FiltroArchivo filtro) {
+        if (archivoConsultas.vacio()) {
+            return calientes;
+        }
+        List<ConsultaArchivada> archivadas = archivoConsultas.buscar(delShard(filtro));
+        if (archivadas.isEmpty()) {
+            return calientes;
+        }
+        Set<Integer> enTabla = new HashSet<>();
+        calientes.forEach(c -> enTabla.add(c.getIdConsulta()));
+        // Un corte anterior o un lote a medio archivar pueden dejar en la tabla filas mas antiguas que las del archivo.
+        List<Consulta> resultado = aConsultas(archivadas.stream().filter(a -> !enTabla.contains(a.idConsulta())).toList());
+        resultado.addAll(calientes);
+        resultado.sort(Comparator.comparing(Consulta::getFecha).thenComparing(Consulta::getIdConsulta));
+        return resultado;
+    }
+
+    private <T> List<T> combinarRecientes(List<T> calientes, FiltroArchivo filtro, Limit limit,
+            Function<List<ConsultaArchivada>, List<T>> convertir, Function<T, Integer> id,
+            Function<T, LocalDateTime> fecha) {
+        if (archivoConsultas.vacio()) {
+            return calientes;
+        }
+        int limite = limit.isLimited() ? limit.max() : Integer.MAX_VALUE;
+        if (!calientes.isEmpty() && calientes.size() >= limite) {
+            filtro = filtro.noAnteriorA(fecha.apply(calientes.getLast()));
+        }
+        List<ConsultaArchivada> archivadas = archivoConsultas.buscarRecientes(delShard(filtro), limite);
+        if (archivadas.isEmpty()) {
+            return calientes;
+        }
+        Map<Integer, T> porId = new LinkedHashMap<>();
+        calientes.forEach(c -> porId.put(id.apply(c), c));
+        convertir.apply(archivadas).forEach(a -> porId.putIfAbsent(id.apply(a), a));
+        List<T> resultado = new ArrayList<>(porId.values());
+        resultado.sort(Comparator.comparing(fecha).thenComparing(id).reversed());
+        return resultado.size() > limite ? new ArrayList<>(resultado.subList(0, limite)) : resultado;
+    }
+
+    private FiltroArchivo delShard(FiltroArchivo filtro) {
+        if (!shards.habilitado()) {
+            return filtro;
+        }
+        int shard = shards.actual();
+        return filtro.y(c -> shards.deId(c.idPaciente()) == shard);
+    }
+
+    private List<Consulta> aConsultas(List<ConsultaArchivada> archivadas) {
+        Map<Integer, Paciente> pacientes = cargar(PACIENTES, Paciente.class, archivadas,
+                ConsultaArchivada::idPaciente, Paciente::getIdPaciente);
+        Map<Integer, Doctor> doctores = cargar(DOCTORES, Doctor.class, archivadas,
+                ConsultaArchivada::idDoctor, Doctor::getIdDoctor);
+        List<Consulta> consultas = new ArrayList<>(archivadas.size());
+        for (ConsultaArchivada a : archivadas) {
+            Paciente paciente = pacientes.get(a.idPaciente());
+            Doctor doctor = doctores.get(a.idDoctor());
+            // Paciente o doctor borrados despues de archivar: la fila queda huerfana, como con un join.
+            if (paciente == null || doctor == null) {
+                continue;
+            }
+            Consulta consulta = new Consulta();
+            consulta.setIdConsulta(a.idConsulta());
+            consulta.setVersion(a.version());
+            consulta.setFecha(a.fecha());
+            consulta.setMotivo(a.motivo());
+            consulta.setDiagnostico(a.diagnostico());
+            consulta.setPaciente(paciente);
+            consulta.setDoctor(doctor);
+            if (a.idReceta() != null) {
+                Receta receta = new Receta();
+                receta.setIdReceta(a.idReceta());
+                receta.setVersion(a.versionReceta());
+                receta.setMedicamento(a.medicamento());
+                receta.setDosis(a.dosis());
+                receta.setConsulta(consulta);
+                consulta.setReceta(receta);
+            }
+            consultas.add(consulta);
+        }
+        return consultas;
+    }
+
+    private List<ConsultaVista> aVistas(List<ConsultaArchivada> archivadas) {
+        Map<Integer, Paciente> pacientes = cargar(PACIENTES, Paciente.class, archivadas,
+                ConsultaArchivada::idPaciente, Paciente::getIdPaciente);
+        Map<Integer, Doctor> doctores = cargar(DOCTORES, Doctor.class, archivadas,
+                ConsultaArchivada::idDoctor, Doctor::getIdDoctor);
+        List<ConsultaVista> vistas = new ArrayList<>(archivadas.size());
+        for (ConsultaArchivada a : archivadas) {
+            Paciente p = pacientes.get(a.idPaciente());
+            Doctor d = doctores.get(a.idDoctor());
+            if (p == null || d == null || d.getEspecialidad() == null) {
+                continue;
+            }
+            vistas.add(new ConsultaVista(a.idConsulta(), a.fecha(), a.motivo(), p.getIdPaciente(), p.getNombre(),
+                    p.getApellido(), d.getIdDoctor(), d.getNombre(), d.getApellido(), d.getEspecialidad().getNombre()));
+        }
+        return vistas;
+    }
+
+    private List<ConsultaTimeline> aTimeline(List<ConsultaArchivada> archivadas) {
+        Map<Integer, Doctor> doctores = cargar(DOCTORES, Doctor.class, archivadas,
+                ConsultaArchivada::idDoctor, Doctor::getIdDoctor);
+        List<ConsultaTimeline> timeline = new ArrayList<>(archivadas.size());
+        for (ConsultaArchivada a : archivadas) {
+            Doctor d = doctores.get(a.idDoctor());
+            if (d == null) {
+                continue;
+            }
+            timeline.add(new ConsultaTimeline(a.idConsulta(), a.fecha(), a.motivo(), a.diagnostico(), d.getIdDoctor(),
+                    d.getNombre(), d.getApellido(), d.getEspecialidad() != null ? d.getEspecialidad().getNombre() : null,
+                    a.idReceta(), a.medicamento(), a.dosis()));
+        }
+        return timeline;
+    }
+
+    private <T> Map<Integer, T> cargar(String jpql, Class<T> tipo, List<ConsultaArchivada> archivadas,
+            Function<ConsultaArchivada, Integer> referencia, Function<T, Integer> id) {
+        List<Integer> ids = archivadas.stream().map(referencia).distinct().toList();
+        Map<Integer, T> cargados = new HashMap<>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); i += IDS_POR_CONSULTA) {
+            entityManager.createQuery(jpql, tipo)
+                    .setParameter("ids", ids.subList(i, Math.min(i + IDS_POR_CONSULTA, ids.size())))
+                    .getResultList()
+                    .forEach(e -> cargados.put(id.apply(e), e));
+        }
+        return cargados;
+    }
+
+    private static Predicate<ConsultaArchivada> contiene(Function<ConsultaArchivada, String> campo, String texto) {
+        String buscado = texto.toLowerCase(Locale.ROOT);
+        return c -> {
+            String valor = campo.apply(c);
+            return valor != null && valor.toLowerCase(Locale.ROOT).contains(buscado);
+        };
+    }
+}
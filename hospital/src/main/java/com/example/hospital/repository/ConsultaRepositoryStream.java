@@ -0,0 +1,14 @@
+package com.example.hospital.repository;
+
+import java.util.stream.Stream;
+
+import com.example.hospital.dto.ConsultaTexto;
+import com.example.hospital.entity.Consulta;
+
+/** Recorridos completos de la tabla consulta, con el fetch size de LecturaStream. */
+public interface ConsultaRepositoryStream {
+
+    Stream<Consulta> streamAll();
+
+    Stream<ConsultaTexto> streamTextos();
+}
@@ -0,0 +1,41 @@
+package com.example.hospital.repository;
+
+import java.util.stream.Stream;
+
+import jakarta.persistence.EntityManager;
+
+import com.example.hospital.dto.ConsultaTexto;
+import com.example.hospital.entity.Consulta;
+
+class ConsultaRepositoryStreamImpl implements ConsultaRepositoryStream {
+
+    private final EntityManager entityManager;
+    private final LecturaStream lecturaStream;
+
+    ConsultaRepositoryStreamImpl(EntityManager entityManager, LecturaStream lecturaStream) {
+        this.entityManager = entityManager;
+        this.lecturaStream = lecturaStream;
+    }
+
+    @Override
+    public Stream<Consulta> streamAll() {
+        return lecturaStream.abrir(entityManager.createQuery("""
+                select c from Consulta c
+                left join fetch c.paciente p
+                left join fetch p.historial
+                left join fetch c.doctor d
+                left join fetch d.especialidad
+                left join fetch c.receta
+                order by c.idConsulta
+                """, Consulta.class));
+    }
+
+    @Override
+    public Stream<ConsultaTexto> streamTextos() {
+        return lecturaStream.abrir(entityManager.createQuery("""
+                select new com.example.hospital.dto.ConsultaTexto(c.idConsulta, c.motivo, c.diagnostico)
+                from Consulta c
+                order by c.idConsulta
+                """, ConsultaTexto.class));
+    }
+}
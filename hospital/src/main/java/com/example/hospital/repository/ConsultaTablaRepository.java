@@ -0,0 +1,75 @@
+package com.example.hospital.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import com.example.hospital.dto.ConsultaTimeline;
+import com.example.hospital.dto.ConsultaVista;
+import com.example.hospital.entity.Consulta;
+
+/**
+ * Lecturas solo sobre la tabla consulta. El resto de la aplicacion usa ConsultaRepository, que las combina con
+ * el archivo de consultas antiguas.
+ */
+public interface ConsultaTablaRepository extends Repository<Consulta, Integer> {
+
+    @EntityGraph(attributePaths = {"paciente", "paciente.historial", "doctor", "doctor.especialidad", "receta"})
+    @Query("select c from Consulta c")
+    List<Consulta> findAll();
+
+    List<Consulta> findByPacienteIdPaciente(Integer idPaciente);
+    List<Consulta> findByDoctorIdDoctor(Integer idDoctor);
+    List<Consulta> findByMotivo(String motivo);
+    List<Consulta> findByMotivoContainingIgnoreCase(String motivo);
+    List<Consulta> findByDiagnostico(String diagnostico);
+    List<Consulta> findByDiagnosticoContainingIgnoreCase(String diagnostico);
+    List<Consulta> findByFechaBetween(LocalDateTime inicio, LocalDateTime fin);
+
+    @EntityGraph(attributePaths = {"paciente", "paciente.historial", "doctor", "doctor.especialidad", "receta"})
+    List<Consulta> findByIdConsultaIn(Collection<Integer> ids);
+
+    @Query("""
+            select new com.example.hospital.dto.ConsultaVista(c.idConsulta, c.fecha, c.motivo,
+                p.idPaciente, p.nombre, p.apellido, d.idDoctor, d.nombre, d.apellido, e.nombre)
+            from Consulta c join c.paciente p join c.doctor d join d.especialidad e
+            order by c.fecha desc, c.idConsulta desc
+            """)
+    List<ConsultaVista> findPrimeraPagina(Limit limit);
+
+    @Query("""
+            select new com.example.hospital.dto.ConsultaVista(c.idConsulta, c.fecha, c.motivo,
+                p.idPaciente, p.nombre, p.apellido, d.idDoctor, d.nombre, d.apellido, e.nombre)
+            from Consulta c join c.paciente p join c.doctor d join d.especialidad e
+            where c.fecha < :fecha or (c.fecha = :fecha and c.idConsulta < :idConsulta)
+            order by c.fecha desc, c.idConsulta desc
+            """)
+    List<ConsultaVista> findPaginaDespuesDe(@Param("fecha") LocalDateTime fecha,
+            @Param("idConsulta") Integer idConsulta, Limit limit);
+
+    @Query("""
+            select new com.example.hospital.dto.ConsultaTimeline(c.idConsulta, c.fecha, c.motivo, c.diagnostico,
+                d.idDoctor, d.nombre, d.apellido, e.nombre, r.idReceta, r.medicamento, r.dosis)
+            from Consulta c join c.doctor d left join d.especialidad e left join c.receta r
+            where c.paciente.idPaciente = :idPaciente
+            order by c.fecha desc, c.idConsulta desc
+            """)
+    List<ConsultaTimeline> findTimeline(@Param("idPaciente") Integer idPaciente, Limit limit);
+
+    @Query("""
+            select new com.example.hospital.dto.ConsultaTimeline(c.idConsulta, c.fecha, c.motivo, c.diagnostico,
+                d.idDoctor, d.nombre, d.apellido, e.nombre, r.idReceta, r.medicamento, r.dosis)
+            from Consulta c join c.doctor d left join d.especialidad e left join c.receta r
+            where c.paciente.idPaciente = :idPaciente
+              and (c.fecha < :fecha or (c.fecha = :fecha and c.idConsulta < :idConsulta))
+            order by c.fecha desc, c.idConsulta desc
+            """)
+    List<ConsultaTimeline> findTimelineDespuesDe(@Param("idPaciente") Integer idPaciente,
+            @Param("fecha") LocalDateTime fecha, @Param("idConsulta") Integer idConsulta, Limit limit);
+}
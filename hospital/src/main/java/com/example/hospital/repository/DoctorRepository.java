@@ -2,7 +2,9 @@ package com.example.hospital.repository;
 
 import java.util.List;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.example.hospital.entity.Doctor;
@@ -18,4 +20,8 @@ public interface DoctorRepository extends JpaRepository<Doctor, Integer> {
     List<Doctor> findByEspecialidadIdEspecialidad(Integer idEspecialidad);
     List<Doctor> findByTelefono(String telefono);
     List<Doctor> findByNombreAndApellido(String nombre, String apellido);
+
+    @EntityGraph(attributePaths = "especialidad")
+    @Query("select d from Doctor d")
+    List<Doctor> findAllConEspecialidad();
 }
@@ -1,9 +1,26 @@
 package com.example.hospital.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import com.example.hospital.entity.Especialidad;
 
 @Repository
 public interface EspecialidadRepository extends JpaRepository<Especialidad, Integer> {
+
+    @Override
+    @EntityGraph(attributePaths = "doctores")
+    List<Especialidad> findAll();
+
+    // Sin open-in-view los doctores deben venir cargados para serializar (y para la cache de especialidad).
+    @Override
+    @EntityGraph(attributePaths = "doctores")
+    Optional<Especialidad> findById(Integer id);
+
+    @EntityGraph(attributePaths = "doctores")
+    List<Especialidad> findByIdEspecialidadIn(Collection<Integer> ids);
 }
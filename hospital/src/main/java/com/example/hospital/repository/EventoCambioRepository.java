@@ -0,0 +1,17 @@
+package com.example.hospital.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.example.hospital.entity.EventoCambio;
+
+@Repository
+public interface EventoCambioRepository extends JpaRepository<EventoCambio, Long> {
+    List<EventoCambio> findBySecuenciaGreaterThanOrderBySecuencia(Long secuencia, Limit limit);
+
+    List<EventoCambio> findBySecuenciaInOrderBySecuencia(Collection<Long> secuencias);
+}
@@ -1,9 +1,20 @@
 package com.example.hospital.repository;
 
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import com.example.hospital.entity.Historial;
 
 @Repository
 public interface HistorialRepository extends JpaRepository<Historial, Integer> {
+
+    @Override
+    @EntityGraph(attributePaths = "paciente")
+    List<Historial> findAll();
+
+    @EntityGraph(attributePaths = "paciente")
+    List<Historial> findByIdHistorialIn(Collection<Integer> ids);
 }
@@ -0,0 +1,34 @@
+package com.example.hospital.repository;
+
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+import jakarta.persistence.TypedQuery;
+
+/**
+ * Abre los streams de exportacion y de carga de indices con hospital.streams.fetch-size. Solo estas lecturas lo
+ * usan: con MySQL, Integer.MIN_VALUE hace que Connector/J entregue las filas una a una sin useCursorFetch en la URL,
+ * asi el resto de las sentencias no pasa por cursores del servidor. Mientras el stream este abierto su conexion no
+ * admite otras sentencias, por eso lo recorrido debe venir ya cargado por la propia consulta.
+ */
+@Component
+class LecturaStream {
+
+    private final int fetchSize;
+
+    LecturaStream(@Value("${hospital.streams.fetch-size:1000}") int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    <T> Stream<T> abrir(TypedQuery<T> query) {
+        return query
+                .setHint(HINT_FETCH_SIZE, fetchSize)
+                .setHint(HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
@@ -1,9 +1,43 @@
 package com.example.hospital.repository;
 
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import com.example.hospital.dto.CabeceraTimeline;
+import com.example.hospital.dto.PacienteVista;
 import com.example.hospital.entity.Paciente;
 
 @Repository
-public interface PacienteRepository extends JpaRepository<Paciente, Integer> {
+public interface PacienteRepository extends JpaRepository<Paciente, Integer>, PacienteRepositoryStream {
+
+    // Para las respuestas que devuelven el paciente con su detalle; findById queda simple.
+    @EntityGraph(attributePaths = {"historial", "consultas", "consultas.doctor", "consultas.doctor.especialidad", "consultas.receta"})
+    Optional<Paciente> findConDetalleByIdPaciente(Integer id);
+
+    @Query("""
+            select new com.example.hospital.dto.PacienteVista(p.idPaciente, p.nombre, p.apellido, p.edad, p.cedula, p.telefono)
+            from Paciente p
+            order by p.idPaciente
+            """)
+    List<PacienteVista> findAllVista();
+
+    // Las consultas no van en el join: se cargan por lotes (@BatchSize en Paciente.consultas) al recorrerlas.
+    @Query("""
+            select p from Paciente p
+            left join fetch p.historial
+            """)
+    List<Paciente> findAllConDetalle();
+
+    @Query("""
+            select new com.example.hospital.dto.CabeceraTimeline(p.idPaciente, p.nombre, p.apellido, p.edad,
+                p.cedula, p.telefono, h.idHistorial, h.fecha, h.descripcion)
+            from Paciente p left join p.historial h
+            where p.idPaciente = :idPaciente
+            """)
+    Optional<CabeceraTimeline> findCabeceraTimeline(@Param("idPaciente") Integer idPaciente);
 }
@@ -0,0 +1,14 @@
+package com.example.hospital.repository;
+
+import java.util.stream.Stream;
+
+import com.example.hospital.dto.PacienteVista;
+import com.example.hospital.entity.Paciente;
+
+/** Recorridos completos de la tabla paciente, con el fetch size de LecturaStream. */
+public interface PacienteRepositoryStream {
+
+    Stream<PacienteVista> streamVistas();
+
+    Stream<Paciente> streamAll();
+}
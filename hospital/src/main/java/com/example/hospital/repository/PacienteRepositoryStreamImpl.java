@@ -0,0 +1,37 @@
+package com.example.hospital.repository;
+
+import java.util.stream.Stream;
+
+import jakarta.persistence.EntityManager;
+
+import com.example.hospital.dto.PacienteVista;
+import com.example.hospital.entity.Paciente;
+
+class PacienteRepositoryStreamImpl implements PacienteRepositoryStream {
+
+    private final EntityManager entityManager;
+    private final LecturaStream lecturaStream;
+
+    PacienteRepositoryStreamImpl(EntityManager entityManager, LecturaStream lecturaStream) {
+        this.entityManager = entityManager;
+        this.lecturaStream = lecturaStream;
+    }
+
+    @Override
+    public Stream<PacienteVista> streamVistas() {
+        return lecturaStream.abrir(entityManager.createQuery("""
+                select new com.example.hospital.dto.PacienteVista(p.idPaciente, p.nombre, p.apellido, p.edad, p.cedula, p.telefono)
+                from Paciente p
+                order by p.idPaciente
+                """, PacienteVista.class));
+    }
+
+    @Override
+    public Stream<Paciente> streamAll() {
+        return lecturaStream.abrir(entityManager.createQuery("""
+                select p from Paciente p
+                left join fetch p.historial
+                order by p.idPaciente
+                """, Paciente.class));
+    }
+}
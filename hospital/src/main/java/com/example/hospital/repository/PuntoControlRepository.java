@@ -0,0 +1,10 @@
+package com.example.hospital.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.example.hospital.entity.PuntoControl;
+
+@Repository
+public interface PuntoControlRepository extends JpaRepository<PuntoControl, String> {
+}
@@ -1,9 +1,17 @@
 package com.example.hospital.repository;
 
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import com.example.hospital.entity.Receta;
 
 @Repository
-public interface RecetaRepository extends JpaRepository<Receta, Integer> {
+public interface RecetaRepository extends JpaRepository<Receta, Integer>, RecetaRepositoryArchivo {
+
+    // Solo la tabla: las recetas archivadas son de solo lectura.
+    @Override
+    @EntityGraph(attributePaths = {"consulta", "consulta.paciente", "consulta.paciente.historial", "consulta.doctor", "consulta.doctor.especialidad"})
+    Optional<Receta> findById(Integer id);
 }
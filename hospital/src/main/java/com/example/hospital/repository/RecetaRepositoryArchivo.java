@@ -0,0 +1,17 @@
+package com.example.hospital.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.example.hospital.entity.Receta;
+
+/**
+ * Lecturas de RecetaRepository que incluyen las recetas archivadas con su consulta. Esas se devuelven sin gestionar
+ * y son de solo lectura; findById sigue leyendo solo la tabla, para las escrituras.
+ */
+public interface RecetaRepositoryArchivo {
+
+    List<Receta> findAll();
+
+    List<Receta> findByIdRecetaIn(Collection<Integer> ids);
+}
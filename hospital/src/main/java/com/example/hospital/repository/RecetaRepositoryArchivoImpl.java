@@ -0,0 +1,49 @@
+package com.example.hospital.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.example.hospital.entity.Receta;
+
+/** Primero la tabla y despues el archivo; una receta presente en los dos lados se toma de la tabla. */
+class RecetaRepositoryArchivoImpl implements RecetaRepositoryArchivo {
+
+    private final RecetaTablaRepository tabla;
+    private final ConsultaRepository consultaRepository;
+
+    RecetaRepositoryArchivoImpl(RecetaTablaRepository tabla, ConsultaRepository consultaRepository) {
+        this.tabla = tabla;
+        this.consultaRepository = consultaRepository;
+    }
+
+    @Override
+    public List<Receta> findAll() {
+        return combinar(tabla.findAll(), null);
+    }
+
+    @Override
+    public List<Receta> findByIdRecetaIn(Collection<Integer> ids) {
+        List<Receta> calientes = tabla.findByIdRecetaIn(ids);
+        if (calientes.size() == ids.size()) {
+            return calientes;
+        }
+        Set<Integer> faltantes = new HashSet<>(ids);
+        calientes.forEach(r -> faltantes.remove(r.getIdReceta()));
+        return combinar(calientes, faltantes);
+    }
+
+    private List<Receta> combinar(List<Receta> calientes, Collection<Integer> ids) {
+        List<Receta> archivadas = consultaRepository.findRecetasArchivadas(ids);
+        if (archivadas.isEmpty()) {
+            return calientes;
+        }
+        Set<Integer> enTabla = new HashSet<>();
+        calientes.forEach(r -> enTabla.add(r.getIdReceta()));
+        List<Receta> resultado = new ArrayList<>(calientes);
+        archivadas.stream().filter(r -> !enTabla.contains(r.getIdReceta())).forEach(resultado::add);
+        return resultado;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.hospital.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+
+import com.example.hospital.entity.Receta;
+
+/**
+ * Lecturas solo sobre la tabla receta. El resto de la aplicacion usa RecetaRepository, que las combina con las
+ * recetas archivadas junto a su consulta.
+ */
+public interface RecetaTablaRepository extends Repository<Receta, Integer> {
+
+    @EntityGraph(attributePaths = {"consulta", "consulta.paciente", "consulta.paciente.historial", "consulta.doctor", "consulta.doctor.especialidad"})
+    @Query("select r from Receta r")
+    List<Receta> findAll();
+
+    @EntityGraph(attributePaths = {"consulta", "consulta.paciente", "consulta.paciente.historial", "consulta.doctor", "consulta.doctor.especialidad"})
+    List<Receta> findByIdRecetaIn(Collection<Integer> ids);
+}
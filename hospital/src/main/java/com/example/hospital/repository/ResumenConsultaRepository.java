@@ -0,0 +1,38 @@
+package com.example.hospital.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.hospital.dto.ConteoDiario;
+import com.example.hospital.dto.ConteoTotal;
+import com.example.hospital.entity.ResumenConsulta;
+import com.example.hospital.entity.TipoResumen;
+
+@Repository
+public interface ResumenConsultaRepository extends JpaRepository<ResumenConsulta, Long> {
+
+    @Query("""
+            select new com.example.hospital.dto.ConteoDiario(r.fecha, r.clave, r.total)
+            from ResumenConsulta r
+            where r.tipo = :tipo and r.fecha between :desde and :hasta
+            order by r.fecha, r.clave
+            """)
+    List<ConteoDiario> findConteosDiarios(@Param("tipo") TipoResumen tipo, @Param("desde") LocalDate desde,
+            @Param("hasta") LocalDate hasta);
+
+    @Query("""
+            select new com.example.hospital.dto.ConteoTotal(r.clave, sum(r.total))
+            from ResumenConsulta r
+            where r.tipo = :tipo and r.fecha between :desde and :hasta
+            group by r.clave
+            order by sum(r.total) desc
+            """)
+    List<ConteoTotal> findTotales(@Param("tipo") TipoResumen tipo, @Param("desde") LocalDate desde,
+            @Param("hasta") LocalDate hasta, Limit limit);
+}
@@ -0,0 +1,50 @@
+package com.example.hospital.search;
+
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.hospital.archivo.ArchivoConsultas;
+import com.example.hospital.dto.ConsultaTexto;
+import com.example.hospital.repository.ConsultaRepository;
+import com.example.hospital.shard.Shards;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Construye el indice de consultas en segundo plano al arrancar; las altas posteriores llegan por ConsultaServiceImpl.
+ */
+@Component
+@RequiredArgsConstructor
+public class CargaIndiceConsultas {
+
+    private static final Logger log = LoggerFactory.getLogger(CargaIndiceConsultas.class);
+
+    private final ConsultaRepository consultaRepository;
+    private final IndiceConsultas indiceConsultas;
+    private final ArchivoConsultas archivoConsultas;
+    private final TransactionTemplate transactionTemplate;
+    private final Shards shards;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        Thread.ofVirtual().name("carga-indice-consultas").start(() -> {
+            long inicio = System.currentTimeMillis();
+            shards.enCadaShard(() -> transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<ConsultaTexto> textos = consultaRepository.streamTextos()) {
+                    textos.forEach(t -> indiceConsultas.indexar(t.idConsulta(), t.motivo(), t.diagnostico()));
+                }
+            }));
+            // Las archivadas siguen apareciendo en la busqueda: findByIdConsultaIn tambien las resuelve.
+            archivoConsultas.recorrer(filas -> filas.forEach(
+                    c -> indiceConsultas.indexar(c.idConsulta(), c.motivo(), c.diagnostico())));
+            log.info("Indice de consultas cargado: {} documentos en {} ms",
+                    indiceConsultas.documentos(), System.currentTimeMillis() - inicio);
+        });
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.hospital.search;
+
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.hospital.dto.PacienteVista;
+import com.example.hospital.repository.DoctorRepository;
+import com.example.hospital.repository.PacienteRepository;
+import com.example.hospital.shard.Shards;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Construye los indices de autocompletado en segundo plano al arrancar. Un alta, cambio o baja que llegue mientras
+ * tanto gana sobre la fila leida por la carga.
+ */
+@Component
+@RequiredArgsConstructor
+public class CargaIndiceNombres {
+
+    private static final Logger log = LoggerFactory.getLogger(CargaIndiceNombres.class);
+
+    private final PacienteRepository pacienteRepository;
+    private final DoctorRepository doctorRepository;
+    private final IndiceNombres indiceNombres;
+    private final TransactionTemplate transactionTemplate;
+    private final Shards shards;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        Thread.ofVirtual().name("carga-indice-nombres").start(() -> {
+            long inicio = System.currentTimeMillis();
+            transactionTemplate.executeWithoutResult(status -> doctorRepository.findAllConEspecialidad()
+                    .forEach(doctor -> indiceNombres.doctores()
+                            .indexarSiAusente(doctor.getIdDoctor(), doctor.getNombre(), doctor.getApellido())));
+            shards.enCadaShard(() -> transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<PacienteVista> vistas = pacienteRepository.streamVistas()) {
+                    vistas.forEach(p -> indiceNombres.pacientes()
+                            .indexarSiAusente(p.idPaciente(), p.nombre(), p.apellido(), p.cedula()));
+                }
+            }));
+            log.info("Indice de nombres cargado: {} pacientes y {} doctores en {} ms",
+                    indiceNombres.pacientes().tamanio(), indiceNombres.doctores().tamanio(),
+                    System.currentTimeMillis() - inicio);
+        });
+    }
+}
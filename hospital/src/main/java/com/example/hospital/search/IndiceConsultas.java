@@ -0,0 +1,154 @@
+package com.example.hospital.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Indice invertido en memoria sobre motivo y diagnostico de las consultas.
+ * Todas las palabras buscadas deben aparecer; el orden es por TF-IDF y, a igual puntaje, la consulta mas reciente.
+ */
+@Component
+public class IndiceConsultas {
+
+    private final Map<String, Postings> terminos = new HashMap<>();
+    // Listas de cada consulta indexada: eliminar o reindexar toca solo sus terminos, no todo el vocabulario.
+    private final Map<Integer, Postings[]> listasPorConsulta = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long documentos;
+
+    public void indexar(Integer idConsulta, String motivo, String diagnostico) {
+        Map<String, Integer> frecuencias = new HashMap<>();
+        Tokenizador.tokens(motivo).forEach(token -> frecuencias.merge(token, 1, Integer::sum));
+        Tokenizador.tokens(diagnostico).forEach(token -> frecuencias.merge(token, 1, Integer::sum));
+        if (frecuencias.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Reindexar reemplaza los terminos anteriores de la consulta.
+            quitar(idConsulta);
+            Postings[] listas = new Postings[frecuencias.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entrada : frecuencias.entrySet()) {
+                listas[i] = terminos.computeIfAbsent(entrada.getKey(), Postings::new);
+                listas[i++].agregar(idConsulta, entrada.getValue());
+            }
+            listasPorConsulta.put(idConsulta, listas);
+            documentos++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void eliminar(Integer idConsulta) {
+        lock.writeLock().lock();
+        try {
+            quitar(idConsulta);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public ResultadoIndice buscar(String texto, int desde, int cantidad) {
+        Set<String> consulta = new LinkedHashSet<>(Tokenizador.tokens(texto));
+        if (consulta.isEmpty()) {
+            return ResultadoIndice.vacio();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Postings> listas = new ArrayList<>(consulta.size());
+            for (String termino : consulta) {
+                Postings postings = terminos.get(termino);
+                if (postings == null) {
+                    return ResultadoIndice.vacio();
+                }
+                listas.add(postings);
+            }
+            // Se recorre la lista mas corta y se buscan sus ids en las demas.
+            listas.sort(Comparator.comparingInt(Postings::tamanio));
+            double[] idf = new double[listas.size()];
+            for (int i = 0; i < listas.size(); i++) {
+                idf[i] = Math.log(1.0 + (double) documentos / listas.get(i).tamanio());
+            }
+
+            int limite = desde + cantidad;
+            PriorityQueue<Coincidencia> mejores = new PriorityQueue<>(limite + 1, Coincidencia.ORDEN);
+            int[] cursores = new int[listas.size()];
+            Postings base = listas.get(0);
+            long total = 0;
+            for (int i = 0; i < base.tamanio(); i++) {
+                int id = base.id(i);
+                double puntaje = base.frecuencia(i) * idf[0];
+                boolean coincide = true;
+                for (int j = 1; j < listas.size() && coincide; j++) {
+                    int posicion = listas.get(j).buscar(id, cursores[j]);
+                    if (posicion < 0) {
+                        cursores[j] = -posicion - 1;
+                        coincide = false;
+                    } else {
+                        cursores[j] = posicion;
+                        puntaje += listas.get(j).frecuencia(posicion) * idf[j];
+                    }
+                }
+                if (!coincide) {
+                    continue;
+                }
+                total++;
+                mejores.add(new Coincidencia(id, puntaje));
+                if (mejores.size() > limite) {
+                    mejores.poll();
+                }
+            }
+
+            List<Coincidencia> ordenadas = new ArrayList<>(mejores);
+            ordenadas.sort(Coincidencia.ORDEN.reversed());
+            List<Integer> ids = new ArrayList<>(cantidad);
+            for (int i = desde; i < ordenadas.size(); i++) {
+                ids.add(ordenadas.get(i).id());
+            }
+            return new ResultadoIndice(ids, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long documentos() {
+        lock.readLock().lock();
+        try {
+            return documentos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void quitar(Integer idConsulta) {
+        Postings[] listas = listasPorConsulta.remove(idConsulta);
+        if (listas == null) {
+            return;
+        }
+        for (Postings postings : listas) {
+            postings.eliminar(idConsulta);
+            if (postings.tamanio() == 0) {
+                terminos.remove(postings.termino());
+            }
+        }
+        documentos--;
+    }
+
+    private record Coincidencia(int id, double puntaje) {
+
+        static final Comparator<Coincidencia> ORDEN = Comparator.comparingDouble(Coincidencia::puntaje)
+                .thenComparingInt(Coincidencia::id);
+    }
+}
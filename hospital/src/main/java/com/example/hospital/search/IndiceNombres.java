@@ -0,0 +1,72 @@
+package com.example.hospital.search;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.hospital.dto.Sugerencia;
+
+/**
+ * Indices de autocompletado de pacientes (nombre, apellido, cedula) y doctores (nombre, apellido).
+ * Dentro de una transaccion los cambios se aplican al confirmar, igual que el indice de consultas.
+ */
+@Component
+public class IndiceNombres {
+
+    static final int LIMITE_DEFECTO = 10;
+    static final int LIMITE_MAXIMO = 50;
+
+    private final IndiceTypeahead pacientes = new IndiceTypeahead(3);
+    private final IndiceTypeahead doctores = new IndiceTypeahead(2);
+
+    public void indexarPaciente(Integer id, String nombre, String apellido, String cedula) {
+        alConfirmar(() -> pacientes.indexar(id, nombre, apellido, cedula));
+    }
+
+    public void eliminarPaciente(Integer id) {
+        alConfirmar(() -> pacientes.eliminar(id));
+    }
+
+    public void indexarDoctor(Integer id, String nombre, String apellido) {
+        alConfirmar(() -> doctores.indexar(id, nombre, apellido));
+    }
+
+    public void eliminarDoctor(Integer id) {
+        alConfirmar(() -> doctores.eliminar(id));
+    }
+
+    public List<Sugerencia> buscarPacientes(String texto, Integer limite) {
+        return pacientes.buscar(texto, normalizarLimite(limite));
+    }
+
+    public List<Sugerencia> buscarDoctores(String texto, Integer limite) {
+        return doctores.buscar(texto, normalizarLimite(limite));
+    }
+
+    IndiceTypeahead pacientes() {
+        return pacientes;
+    }
+
+    IndiceTypeahead doctores() {
+        return doctores;
+    }
+
+    private static int normalizarLimite(Integer limite) {
+        return limite == null || limite < 1 ? LIMITE_DEFECTO : Math.min(limite, LIMITE_MAXIMO);
+    }
+
+    private static void alConfirmar(Runnable cambio) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cambio.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cambio.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.hospital.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+import com.example.hospital.dto.Sugerencia;
+
+/**
+ * Indice de autocompletado por prefijo de palabra sobre nombre, apellido y (opcionalmente) cedula.
+ * Cada palabra aporta los trigramas de su prefijo junto con su posicion ("^^j"@0, "^ju"@1, "jua"@2, "uan"@3...), asi
+ * la interseccion de los trigramas de una palabra buscada ya es casi exactamente el conjunto de palabras con ese
+ * prefijo; el texto guardado solo confirma el resultado. Listas de ranuras, textos (UTF-8 en un unico arreglo) y el
+ * mapa id -> ranura son arreglos primitivos: no hay un objeto por paciente.
+ */
+public final class IndiceTypeahead {
+
+    // Cubre una cedula completa; prefijos mas largos se confirman contra el texto.
+    static final int TRIGRAMAS_POR_PALABRA = 10;
+    static final int COMPACTAR_DESDE = 4096;
+
+    private static final int BITS = 6;
+    private static final int BORDE = 63;
+    private static final int OTRO = 62;
+    private static final byte SEPARADOR = 0x1F;
+    // ranuraPorId: 0 = id no visto, ELIMINADO = borrado (la carga inicial no debe revivirlo), n = ranura n - 1.
+    private static final int ELIMINADO = -1;
+
+    private final int campos;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Integer, ListaEnteros> trigramas = new HashMap<>();
+    private int[] ids = new int[1024];
+    private int[] inicios = new int[1025];
+    private byte[] textos = new byte[16 * 1024];
+    private int ranuras;
+    private int[] ranuraPorId = new int[1024];
+    private int vivos;
+
+    public IndiceTypeahead(int campos) {
+        this.campos = campos;
+    }
+
+    public void indexar(int id, String... valores) {
+        lock.writeLock().lock();
+        try {
+            agregar(id, valores);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Para la carga inicial: no pisa un id que ya se indexo o elimino despues de leerse de la base.
+     */
+    public void indexarSiAusente(int id, String... valores) {
+        lock.writeLock().lock();
+        try {
+            if (id >= ranuraPorId.length || ranuraPorId[id] == 0) {
+                agregar(id, valores);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void eliminar(int id) {
+        lock.writeLock().lock();
+        try {
+            asegurarId(id);
+            if (ranuraPorId[id] > 0) {
+                vivos--;
+            }
+            ranuraPorId[id] = ELIMINADO;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Hasta {@code limite} entradas en las que cada palabra de {@code texto} es prefijo de alguna palabra indexada.
+     */
+    public List<Sugerencia> buscar(String texto, int limite) {
+        List<String> palabras = Tokenizador.palabras(texto);
+        List<Sugerencia> resultado = new ArrayList<>();
+        if (palabras.isEmpty()) {
+            return resultado;
+        }
+
+        lock.readLock().lock();
+        try {
+            List<ListaEnteros> listas = new ArrayList<>();
+            for (String palabra : palabras) {
+                boolean[] faltante = {false};
+                trigramas(palabra, codigo -> {
+                    ListaEnteros lista = trigramas.get(codigo);
+                    if (lista == null) {
+                        faltante[0] = true;
+                    } else {
+                        listas.add(lista);
+                    }
+                });
+                if (faltante[0]) {
+                    return resultado;
+                }
+            }
+            // La lista mas corta guia la interseccion; las demas se recorren con busqueda binaria hacia adelante.
+            listas.sort(Comparator.comparingInt(ListaEnteros::tamanio));
+            ListaEnteros guia = listas.getFirst();
+            int[] cursores = new int[listas.size()];
+            for (int i = 0; i < guia.tamanio() && resultado.size() < limite; i++) {
+                int ranura = guia.valor(i);
+                if (ranuraPorId[ids[ranura]] != ranura + 1 || !contieneTodas(listas, cursores, ranura)) {
+                    continue;
+                }
+                String[] valores = valores(ranura);
+                if (coinciden(palabras, valores)) {
+                    resultado.add(new Sugerencia(ids[ranura], valores[0], valores[1],
+                            valores.length > 2 ? valores[2] : null));
+                }
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int tamanio() {
+        lock.readLock().lock();
+        try {
+            return vivos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void agregar(int id, String[] valores) {
+        if (valores.length != campos) {
+            throw new IllegalArgumentException("Se esperaban " + campos + " campos");
+        }
+        asegurarId(id);
+        if (ranuraPorId[id] > 0) {
+            vivos--;
+        }
+        StringBuilder texto = new StringBuilder();
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                texto.append((char) SEPARADOR);
+            }
+            texto.append(valores[i] == null ? "" : valores[i]);
+        }
+        byte[] bytes = texto.toString().getBytes(StandardCharsets.UTF_8);
+        int ranura = nuevaRanura(id, bytes, 0, bytes.length);
+        for (String valor : valores) {
+            for (String palabra : Tokenizador.palabras(valor)) {
+                trigramas(palabra, codigo -> agregarTrigrama(codigo, ranura));
+            }
+        }
+        ranuraPorId[id] = ranura + 1;
+        vivos++;
+        if (ranuras > COMPACTAR_DESDE && ranuras - vivos > vivos) {
+            compactar();
+        }
+    }
+
+    private int nuevaRanura(int id, byte[] origen, int desde, int hasta) {
+        if (ranuras == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+            inicios = Arrays.copyOf(inicios, ids.length + 1);
+        }
+        int inicio = inicios[ranuras];
+        int longitud = hasta - desde;
+        if (inicio + longitud > textos.length) {
+            textos = Arrays.copyOf(textos, Math.max(textos.length * 2, inicio + longitud));
+        }
+        System.arraycopy(origen, desde, textos, inicio, longitud);
+        ids[ranuras] = id;
+        inicios[ranuras + 1] = inicio + longitud;
+        return ranuras++;
+    }
+
+    private void agregarTrigrama(int codigo, int ranura) {
+        ListaEnteros lista = trigramas.computeIfAbsent(codigo, c -> new ListaEnteros());
+        // Las ranuras solo crecen: basta mirar la ultima para no repetir (p. ej. nombre y apellido iguales).
+        if (lista.tamanio() == 0 || lista.valor(lista.tamanio() - 1) != ranura) {
+            lista.agregar(ranura);
+        }
+    }
+
+    /**
+     * Reescribe las ranuras vivas cuando las actualizaciones y bajas dejaron mas ranuras muertas que vivas.
+     */
+    private void compactar() {
+        int[] viejosIds = ids;
+        int[] viejosInicios = inicios;
+        byte[] viejosTextos = textos;
+        int viejas = ranuras;
+        trigramas = new HashMap<>();
+        ids = new int[Math.max(1024, Integer.highestOneBit(Math.max(1, vivos)) * 2)];
+        inicios = new int[ids.length + 1];
+        textos = new byte[Math.max(16 * 1024, viejosInicios[viejas] - viejosInicios[0])];
+        ranuras = 0;
+        for (int vieja = 0; vieja < viejas; vieja++) {
+            int id = viejosIds[vieja];
+            if (ranuraPorId[id] != vieja + 1) {
+                continue;
+            }
+            int ranura = nuevaRanura(id, viejosTextos, viejosInicios[vieja], viejosInicios[vieja + 1]);
+            for (String valor : valores(ranura)) {
+                for (String palabra : Tokenizador.palabras(valor)) {
+                    trigramas(palabra, codigo -> agregarTrigrama(codigo, ranura));
+                }
+            }
+            ranuraPorId[id] = ranura + 1;
+        }
+    }
+
+    private boolean contieneTodas(List<ListaEnteros> listas, int[] cursores, int ranura) {
+        for (int j = 1; j < listas.size(); j++) {
+            int posicion = listas.get(j).buscar(ranura, cursores[j]);
+            if (posicion < 0) {
+                cursores[j] = -posicion - 1;
+                return false;
+            }
+            cursores[j] = posicion;
+        }
+        return true;
+    }
+
+    private String[] valores(int ranura) {
+        String texto = new String(textos, inicios[ranura], inicios[ranura + 1] - inicios[ranura], StandardCharsets.UTF_8);
+        return texto.split(String.valueOf((char) SEPARADOR), -1);
+    }
+
+    private static boolean coinciden(List<String> buscadas, String[] valores) {
+        List<String> palabras = new ArrayList<>();
+        for (String valor : valores) {
+            palabras.addAll(Tokenizador.palabras(valor));
+        }
+        for (String buscada : buscadas) {
+            if (palabras.stream().noneMatch(palabra -> palabra.startsWith(buscada))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void asegurarId(int id) {
+        if (id >= ranuraPorId.length) {
+            ranuraPorId = Arrays.copyOf(ranuraPorId, Math.max(id + 1, ranuraPorId.length + (ranuraPorId.length >> 1)));
+        }
+    }
+
+    private static void trigramas(String palabra, IntConsumer accion) {
+        int primero = BORDE;
+        int segundo = BORDE;
+        int cantidad = Math.min(palabra.length(), TRIGRAMAS_POR_PALABRA);
+        for (int i = 0; i < cantidad; i++) {
+            int tercero = codigo(palabra.charAt(i));
+            accion.accept(i << (3 * BITS) | primero << (2 * BITS) | segundo << BITS | tercero);
+            primero = segundo;
+            segundo = tercero;
+        }
+    }
+
+    // Otros caracteres comparten codigo: solo agregan candidatos que la verificacion descarta.
+    private static int codigo(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 1;
+        }
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 27;
+        }
+        return OTRO;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.hospital.search;
+
+import java.util.Arrays;
+
+/**
+ * Lista creciente de enteros ordenados, sin objetos por elemento.
+ */
+final class ListaEnteros {
+
+    private int[] valores = new int[2];
+    private int tamanio;
+
+    void agregar(int valor) {
+        if (tamanio == valores.length) {
+            valores = Arrays.copyOf(valores, valores.length + (valores.length >> 1) + 1);
+        }
+        valores[tamanio++] = valor;
+    }
+
+    /** Posicion de {@code valor} buscando desde {@code desde}, o un valor negativo si no esta. */
+    int buscar(int valor, int desde) {
+        return Arrays.binarySearch(valores, desde, tamanio, valor);
+    }
+
+    int valor(int posicion) {
+        return valores[posicion];
+    }
+
+    int tamanio() {
+        return tamanio;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.hospital.search;
+
+import java.util.Arrays;
+
+/**
+ * Lista de consultas que contienen un termino, ordenada por id, con la frecuencia del termino en cada una.
+ * Se guarda en arreglos primitivos para no pagar un objeto por aparicion.
+ */
+final class Postings {
+
+    private static final int CAPACIDAD_INICIAL = 4;
+
+    private final String termino;
+    private int[] ids = new int[CAPACIDAD_INICIAL];
+    private byte[] frecuencias = new byte[CAPACIDAD_INICIAL];
+    private int tamanio;
+
+    Postings(String termino) {
+        this.termino = termino;
+    }
+
+    String termino() {
+        return termino;
+    }
+
+    boolean agregar(int id, int frecuencia) {
+        byte tf = (byte) Math.min(frecuencia, Byte.MAX_VALUE);
+        if (tamanio == 0 || ids[tamanio - 1] < id) {
+            asegurarCapacidad();
+            ids[tamanio] = id;
+            frecuencias[tamanio] = tf;
+            tamanio++;
+            return true;
+        }
+        // Caso raro: la carga inicial y una insercion concurrente llegan desordenadas.
+        int posicion = Arrays.binarySearch(ids, 0, tamanio, id);
+        if (posicion >= 0) {
+            return false;
+        }
+        posicion = -posicion - 1;
+        asegurarCapacidad();
+        System.arraycopy(ids, posicion, ids, posicion + 1, tamanio - posicion);
+        System.arraycopy(frecuencias, posicion, frecuencias, posicion + 1, tamanio - posicion);
+        ids[posicion] = id;
+        frecuencias[posicion] = tf;
+        tamanio++;
+        return true;
+    }
+
+    boolean eliminar(int id) {
+        int posicion = Arrays.binarySearch(ids, 0, tamanio, id);
+        if (posicion < 0) {
+            return false;
+        }
+        System.arraycopy(ids, posicion + 1, ids, posicion, tamanio - posicion - 1);
+        System.arraycopy(frecuencias, posicion + 1, frecuencias, posicion, tamanio - posicion - 1);
+        tamanio--;
+        return true;
+    }
+
+    /** Posicion de {@code id} buscando desde {@code desde}, o un valor negativo si no esta. */
+    int buscar(int id, int desde) {
+        return Arrays.binarySearch(ids, desde, tamanio, id);
+    }
+
+    int id(int posicion) {
+        return ids[posicion];
+    }
+
+    int frecuencia(int posicion) {
+        return frecuencias[posicion];
+    }
+
+    int tamanio() {
+        return tamanio;
+    }
+
+    private void asegurarCapacidad() {
+        if (tamanio == ids.length) {
+            int capacidad = ids.length + (ids.length >> 1) + 1;
+            ids = Arrays.copyOf(ids, capacidad);
+            frecuencias = Arrays.copyOf(frecuencias, capacidad);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.hospital.search;
+
+import java.util.List;
+
+public record ResultadoIndice(List<Integer> ids, long total) {
+
+    public static ResultadoIndice vacio() {
+        return new ResultadoIndice(List.of(), 0);
+    }
+}
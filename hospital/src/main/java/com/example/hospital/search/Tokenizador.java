@@ -0,0 +1,69 @@
+package com.example.hospital.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normaliza texto en espanol: minusculas, sin tildes, sin palabras vacias y con un plural reducido al singular.
+ */
+public final class Tokenizador {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "es", "la", "las", "lo", "los", "no", "o", "para",
+            "por", "que", "se", "sin", "su", "sus", "un", "una", "uno", "y");
+
+    private Tokenizador() {
+    }
+
+    public static List<String> tokens(String texto) {
+        List<String> tokens = new ArrayList<>();
+        if (texto == null || texto.isBlank()) {
+            return tokens;
+        }
+        for (String palabra : SEPARADORES.split(normalizar(texto))) {
+            if (palabra.length() < 2 || PALABRAS_VACIAS.contains(palabra)) {
+                continue;
+            }
+            tokens.add(raiz(palabra));
+        }
+        return tokens;
+    }
+
+    /**
+     * Palabras normalizadas (minusculas, sin tildes) sin descartar ninguna ni reducir plurales: para nombres y cedulas.
+     */
+    public static List<String> palabras(String texto) {
+        List<String> palabras = new ArrayList<>();
+        if (texto == null || texto.isBlank()) {
+            return palabras;
+        }
+        for (String palabra : SEPARADORES.split(normalizar(texto))) {
+            if (!palabra.isEmpty()) {
+                palabras.add(palabra);
+            }
+        }
+        return palabras;
+    }
+
+    private static String normalizar(String texto) {
+        return MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    // "dolores" -> "dolor", "fiebres" y "fiebre" -> "fiebr": basta con que indice y consulta coincidan.
+    private static String raiz(String palabra) {
+        String raiz = palabra;
+        if (raiz.length() > 3 && raiz.endsWith("s")) {
+            raiz = raiz.substring(0, raiz.length() - 1);
+        }
+        if (raiz.length() > 4 && raiz.endsWith("e")) {
+            raiz = raiz.substring(0, raiz.length() - 1);
+        }
+        return raiz;
+    }
+}
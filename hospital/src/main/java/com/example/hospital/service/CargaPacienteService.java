@@ -0,0 +1,12 @@
+package com.example.hospital.service;
+
+import java.io.Reader;
+import java.util.Iterator;
+
+import com.example.hospital.dto.ResultadoCarga;
+import com.example.hospital.entity.Paciente;
+
+public interface CargaPacienteService {
+    ResultadoCarga cargarPacientes(Iterator<Paciente> pacientes);
+    ResultadoCarga cargarPacientesCsv(Reader csv);
+}
@@ -1,12 +1,23 @@
 package com.example.hospital.service;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import com.example.hospital.dto.ConsultaVista;
+import com.example.hospital.dto.DisponibilidadDoctor;
+import com.example.hospital.dto.Pagina;
+import com.example.hospital.dto.PaginaCursor;
 import com.example.hospital.entity.Consulta;
 
 public interface ConsultaService{
     Consulta crearConsulta(Consulta consulta);
-    List<Consulta> listarConsulta();
+    PaginaCursor<ConsultaVista> listarConsulta(String cursor, Integer tamanio);
+    void recorrerConsultas(Consumer<Consulta> consumidor);
+    Pagina<Consulta> buscarConsultas(String texto, Integer pagina, Integer tamanio);
+    Pagina<Consulta> agendaDoctor(Integer idDoctor, LocalDate fecha, Integer dias, Integer pagina, Integer tamanio);
+    Pagina<Consulta> consultasRecientesPaciente(Integer idPaciente, Integer pagina, Integer tamanio);
+    List<DisponibilidadDoctor> disponibilidadEspecialidad(Integer idEspecialidad, LocalDate desde, LocalDate hasta);
 
-}
\ No newline at end of file
+}
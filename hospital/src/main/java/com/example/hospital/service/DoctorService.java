@@ -2,6 +2,7 @@ package com.example.hospital.service;
 
 import java.util.List;
 import java.util.Optional;
+import com.example.hospital.dto.Sugerencia;
 import com.example.hospital.entity.Doctor;
 
 public interface DoctorService {
@@ -10,4 +11,5 @@ public interface DoctorService {
     List<Doctor> listarDoctor();
     Optional<Doctor> obtenerDoctorPorId(Integer id);
     void eliminarDoctor(Integer id);
+    List<Sugerencia> buscarDoctores(String texto, Integer limite);
 }
@@ -1,5 +1,6 @@
 package com.example.hospital.service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import com.example.hospital.entity.Especialidad;
@@ -10,4 +11,6 @@ public interface EspecialidadService {
     List<Especialidad> listarEspecialidad();
     Optional<Especialidad> obtenerEspecialidadPorId(Integer id);
     void eliminarEspecialidad(Integer id);
+    List<Especialidad> obtenerEspecialidadesPorIds(Collection<Integer> ids);
+    List<Especialidad> guardarEspecialidades(List<Especialidad> especialidades);
 }
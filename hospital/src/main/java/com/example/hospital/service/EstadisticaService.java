@@ -0,0 +1,16 @@
+package com.example.hospital.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.example.hospital.dto.ConteoDiario;
+import com.example.hospital.dto.ConteoTotal;
+import com.example.hospital.entity.Consulta;
+
+public interface EstadisticaService {
+    void registrarConsulta(Consulta consulta);
+    List<ConteoDiario> consultasPorDoctor(LocalDate desde, LocalDate hasta);
+    List<ConteoDiario> consultasPorEspecialidad(LocalDate desde, LocalDate hasta);
+    List<ConteoTotal> diagnosticosFrecuentes(LocalDate desde, LocalDate hasta, Integer limite);
+    void reconstruir();
+}
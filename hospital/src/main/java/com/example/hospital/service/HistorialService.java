@@ -1,5 +1,6 @@
 package com.example.hospital.service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import com.example.hospital.entity.Historial;
@@ -10,4 +11,6 @@ public interface HistorialService {
     List<Historial> listarHistorial();
     Optional<Historial> obtenerHistorialPorId(Integer id);
     void eliminarHistorial(Integer id);
+    List<Historial> obtenerHistorialesPorIds(Collection<Integer> ids);
+    List<Historial> guardarHistoriales(List<Historial> historiales);
 }
@@ -2,12 +2,19 @@ package com.example.hospital.service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import com.example.hospital.dto.PacienteVista;
+import com.example.hospital.dto.Sugerencia;
+import com.example.hospital.dto.TimelinePaciente;
 import com.example.hospital.entity.Paciente;
 
 public interface PacienteService {
-    Paciente crearPaciente(Paciente paciente);
     Paciente actualizarPaciente(Integer id, Paciente paciente);
     List<Paciente> listarPaciente();
+    List<PacienteVista> listarPacienteVista();
     Optional<Paciente> obtenerPacientePorId(Integer id);
     void eliminarPaciente(Integer id);
+    void recorrerPacientes(Consumer<Paciente> consumidor);
+    Optional<TimelinePaciente> timelinePaciente(Integer idPaciente, String cursor, Integer tamanio);
+    List<Sugerencia> buscarPacientes(String texto, Integer limite);
 }
@@ -1,5 +1,6 @@
 package com.example.hospital.service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import com.example.hospital.entity.Receta;
@@ -10,4 +11,6 @@ public interface RecetaService {
     List<Receta> listarReceta();
     Optional<Receta> obtenerRecetaPorId(Integer id);
     void eliminarReceta(Integer id);
+    List<Receta> obtenerRecetasPorIds(Collection<Integer> ids);
+    List<Receta> guardarRecetas(List<Receta> recetas);
 }
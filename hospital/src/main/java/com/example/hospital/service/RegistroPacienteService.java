@@ -0,0 +1,8 @@
+package com.example.hospital.service;
+
+import com.example.hospital.dto.ResultadoRegistro;
+import com.example.hospital.entity.Paciente;
+
+public interface RegistroPacienteService {
+    ResultadoRegistro registrarPaciente(Paciente paciente, boolean upsert, String claveIdempotencia);
+}
@@ -0,0 +1,26 @@
+package com.example.hospital.service.impl;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Conjunto fijo de candados repartidos por hash de la clave: la misma clave siempre usa el mismo candado y dos
+ * claves distintas solo se esperan si caen en la misma franja.
+ */
+final class CandadosPorClave {
+
+    private final ReentrantLock[] candados;
+
+    CandadosPorClave(int franjas) {
+        candados = new ReentrantLock[franjas];
+        for (int i = 0; i < franjas; i++) {
+            candados[i] = new ReentrantLock();
+        }
+    }
+
+    ReentrantLock de(Object clave) {
+        // Se mezclan los bits altos para que claves con hash parecido (cedulas correlativas) no se agrupen.
+        int hash = clave.hashCode();
+        hash ^= hash >>> 16;
+        return candados[Math.floorMod(hash, candados.length)];
+    }
+}
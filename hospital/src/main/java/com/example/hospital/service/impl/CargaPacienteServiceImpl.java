@@ -0,0 +1,272 @@
+package com.example.hospital.service.impl;
+
+import java.io.BufferedReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.hospital.auditoria.AccionAuditada;
+import com.example.hospital.auditoria.Auditoria;
+import com.example.hospital.auditoria.EntidadAuditada;
+import com.example.hospital.cambios.RegistroCambios;
+import com.example.hospital.cambios.VersionesTabla;
+import com.example.hospital.dto.PacienteVista;
+import com.example.hospital.dto.ResultadoCarga;
+import com.example.hospital.entity.OperacionCambio;
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.search.IndiceNombres;
+import com.example.hospital.service.CargaPacienteService;
+import com.example.hospital.shard.Shards;
+
+/**
+ * Inserta pacientes por lotes con JDBC. Paciente usa IDENTITY, por lo que Hibernate no puede agrupar
+ * los inserts; aqui cada lote viaja en un solo batchUpdate dentro de su propia transaccion.
+ */
+@Service
+public class CargaPacienteServiceImpl implements CargaPacienteService {
+
+    private static final String INSERTAR =
+            "insert into paciente (nombre, apellido, edad, cedula, telefono) values (?, ?, ?, ?, ?)";
+    private static final String CEDULAS_EXISTENTES = "select cedula from paciente where cedula in (:cedulas)";
+    private static final String INSERTADOS =
+            "select id, nombre, apellido, edad, cedula, telefono from paciente where cedula in (:cedulas)";
+    private static final int LONGITUD_NOMBRE = 100;
+    private static final int LONGITUD_CEDULA = 10;
+    private static final int LONGITUD_TELEFONO = 20;
+    private static final int INTENTOS_LOTE = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final VersionesTabla versionesTabla;
+    private final RegistroCambios registroCambios;
+    private final Auditoria auditoria;
+    private final IndiceNombres indiceNombres;
+    private final Shards shards;
+    private final int tamanioLote;
+
+    public CargaPacienteServiceImpl(JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            VersionesTabla versionesTabla,
+            RegistroCambios registroCambios,
+            Auditoria auditoria,
+            IndiceNombres indiceNombres,
+            Shards shards,
+            @Value("${hospital.carga.tamanio-lote:1000}") int tamanioLote) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.versionesTabla = versionesTabla;
+        this.registroCambios = registroCambios;
+        this.auditoria = auditoria;
+        this.indiceNombres = indiceNombres;
+        this.shards = shards;
+        this.tamanioLote = tamanioLote;
+    }
+
+    @Override
+    public ResultadoCarga cargarPacientes(Iterator<Paciente> pacientes) {
+        ResultadoCarga resultado = new ResultadoCarga();
+        List<FilaCarga> lote = new ArrayList<>(tamanioLote);
+        long numero = 0;
+        while (true) {
+            Paciente paciente;
+            try {
+                if (!pacientes.hasNext()) {
+                    break;
+                }
+                paciente = pacientes.next();
+            } catch (RuntimeException e) {
+                // Entrada mal formada: lo leido hasta aqui se inserta y el reporte dice donde se detuvo.
+                resultado.interrumpir(numero + 1, e.getMessage());
+                break;
+            }
+            numero++;
+            String error = validar(paciente);
+            if (error != null) {
+                resultado.rechazar(numero, paciente.getCedula(), error);
+                continue;
+            }
+            lote.add(new FilaCarga(numero, paciente));
+            if (lote.size() == tamanioLote) {
+                insertarLote(lote, resultado);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            insertarLote(lote, resultado);
+        }
+        return resultado;
+    }
+
+    @Override
+    public ResultadoCarga cargarPacientesCsv(Reader csv) {
+        LectorCsv registros = new LectorCsv(new BufferedReader(csv), "nombre");
+        Iterator<Paciente> pacientes = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return registros.hasNext();
+            }
+
+            @Override
+            public Paciente next() {
+                return desdeCsv(registros.next());
+            }
+        };
+        return cargarPacientes(pacientes);
+    }
+
+    // Con shards el lote se parte por el shard de cada cedula: una transaccion y un batch por shard.
+    private void insertarLote(List<FilaCarga> lote, ResultadoCarga resultado) {
+        Map<Integer, List<FilaCarga>> porShard = new TreeMap<>();
+        for (FilaCarga fila : lote) {
+            porShard.computeIfAbsent(shards.deCedula(fila.paciente().getCedula()), s -> new ArrayList<>()).add(fila);
+        }
+        porShard.forEach((shard, filas) -> shards.en(shard, () -> insertarEnShard(filas, resultado)));
+    }
+
+    private void insertarEnShard(List<FilaCarga> lote, ResultadoCarga resultado) {
+        Set<String> vistas = new HashSet<>();
+        List<FilaCarga> pendientes = new ArrayList<>(lote.size());
+        for (FilaCarga fila : lote) {
+            if (vistas.add(fila.paciente().getCedula())) {
+                pendientes.add(fila);
+            } else {
+                resultado.rechazar(fila.numero(), fila.paciente().getCedula(), "Cedula duplicada en la carga");
+            }
+        }
+        String motivo = "Cedula ya registrada";
+        for (int intento = 1; !pendientes.isEmpty(); intento++) {
+            List<FilaCarga> nuevas = sinExistentes(pendientes, resultado, motivo);
+            if (nuevas.isEmpty()) {
+                return;
+            }
+            try {
+                List<Integer> ids = insertar(nuevas);
+                resultado.aceptar(nuevas.size());
+                // Los inserts JDBC no pasan por los eventos de Hibernate.
+                versionesTabla.registrarCambio(VersionesTabla.PACIENTE);
+                ids.forEach(versionesTabla::registrarCambioPaciente);
+                return;
+            } catch (DuplicateKeyException e) {
+                // Otra carga o un registro manual inserto alguna cedula entre la consulta y el batch: se vuelven a
+                // consultar y se reintenta el resto, sin perder el lote entero por una sola fila.
+                if (intento == INTENTOS_LOTE) {
+                    nuevas.forEach(fila -> resultado.rechazar(fila.numero(), fila.paciente().getCedula(),
+                            "Cedula registrada de forma concurrente"));
+                    return;
+                }
+                pendientes = nuevas;
+                motivo = "Cedula registrada de forma concurrente";
+            }
+        }
+    }
+
+    private List<FilaCarga> sinExistentes(List<FilaCarga> filas, ResultadoCarga resultado, String motivo) {
+        Set<String> cedulas = new HashSet<>();
+        filas.forEach(fila -> cedulas.add(fila.paciente().getCedula()));
+        Set<String> existentes = new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                CEDULAS_EXISTENTES, Map.of("cedulas", cedulas), String.class));
+        List<FilaCarga> nuevas = new ArrayList<>(filas.size());
+        for (FilaCarga fila : filas) {
+            if (existentes.contains(fila.paciente().getCedula())) {
+                resultado.rechazar(fila.numero(), fila.paciente().getCedula(), motivo);
+            } else {
+                nuevas.add(fila);
+            }
+        }
+        return nuevas;
+    }
+
+    private List<Integer> insertar(List<FilaCarga> nuevas) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.batchUpdate(INSERTAR, nuevas, nuevas.size(), (ps, fila) -> {
+                Paciente paciente = fila.paciente();
+                ps.setString(1, paciente.getNombre());
+                ps.setString(2, paciente.getApellido());
+                ps.setInt(3, paciente.getEdad());
+                ps.setString(4, paciente.getCedula());
+                ps.setString(5, paciente.getTelefono());
+            });
+            return registrarCambios(nuevas);
+        });
+    }
+
+    private List<Integer> registrarCambios(List<FilaCarga> insertadas) {
+        List<String> cedulas = insertadas.stream().map(fila -> fila.paciente().getCedula()).toList();
+        List<PacienteVista> vistas = namedParameterJdbcTemplate.query(INSERTADOS, Map.of("cedulas", cedulas),
+                (rs, fila) -> new PacienteVista(rs.getInt("id"), rs.getString("nombre"), rs.getString("apellido"),
+                        rs.getInt("edad"), rs.getString("cedula"), rs.getString("telefono")));
+        registroCambios.registrarLote(VersionesTabla.PACIENTE, OperacionCambio.CREAR,
+                vistas.stream().map(PacienteVista::idPaciente).toList(), vistas);
+        auditoria.registrarTodos(EntidadAuditada.PACIENTE, AccionAuditada.CREAR, vistas,
+                PacienteVista::idPaciente, PacienteVista::idPaciente);
+        vistas.forEach(p -> indiceNombres.indexarPaciente(p.idPaciente(), p.nombre(), p.apellido(), p.cedula()));
+        return vistas.stream().map(PacienteVista::idPaciente).toList();
+    }
+
+    private static String validar(Paciente paciente) {
+        if (esVacio(paciente.getNombre()) || esVacio(paciente.getApellido())) {
+            return "Nombre y apellido son obligatorios";
+        }
+        if (paciente.getNombre().length() > LONGITUD_NOMBRE || paciente.getApellido().length() > LONGITUD_NOMBRE) {
+            return "Nombre o apellido demasiado largo";
+        }
+        if (paciente.getEdad() == null || paciente.getEdad() < 0) {
+            return "Edad invalida";
+        }
+        if (esVacio(paciente.getCedula()) || paciente.getCedula().length() > LONGITUD_CEDULA) {
+            return "Cedula invalida";
+        }
+        if (paciente.getTelefono() != null && paciente.getTelefono().length() > LONGITUD_TELEFONO) {
+            return "Telefono demasiado largo";
+        }
+        return null;
+    }
+
+    private static boolean esVacio(String valor) {
+        return valor == null || valor.isBlank();
+    }
+
+    private static Paciente desdeCsv(List<String> columnas) {
+        Paciente paciente = new Paciente();
+        paciente.setNombre(columna(columnas, 0));
+        paciente.setApellido(columna(columnas, 1));
+        paciente.setEdad(entero(columna(columnas, 2)));
+        paciente.setCedula(columna(columnas, 3));
+        paciente.setTelefono(columna(columnas, 4));
+        return paciente;
+    }
+
+    private static String columna(List<String> columnas, int indice) {
+        if (indice >= columnas.size()) {
+            return null;
+        }
+        String valor = columnas.get(indice).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    private static Integer entero(String valor) {
+        try {
+            return valor != null ? Integer.valueOf(valor) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private record FilaCarga(long numero, Paciente paciente) {
+    }
+}
@@ -1,28 +1,214 @@
 package com.example.hospital.service.impl;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 
+import com.example.hospital.agenda.AgendaDoctores;
+import com.example.hospital.cambios.RegistroCambios;
+import com.example.hospital.cambios.VersionesTabla;
+import com.example.hospital.dto.ConsultaCambio;
+import com.example.hospital.dto.ConsultaCursor;
+import com.example.hospital.dto.ConsultaVista;
+import com.example.hospital.dto.DisponibilidadDoctor;
+import com.example.hospital.dto.Pagina;
+import com.example.hospital.dto.PaginaCursor;
 import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.OperacionCambio;
 import com.example.hospital.repository.ConsultaRepository;
+import com.example.hospital.search.IndiceConsultas;
+import com.example.hospital.search.ResultadoIndice;
 import com.example.hospital.service.ConsultaService;
+import com.example.hospital.service.EstadisticaService;
+import com.example.hospital.shard.Shards;
 
 @Service
 @RequiredArgsConstructor
 public class ConsultaServiceImpl implements ConsultaService {
-    
+
+    static final int TAMANIO_PAGINA_DEFECTO = 50;
+    static final int TAMANIO_PAGINA_MAXIMO = 200;
+    static final int FILAS_POR_LIMPIEZA = 500;
+    static final int PROFUNDIDAD_BUSQUEDA_MAXIMA = 10_000;
+    static final int DIAS_AGENDA_MAXIMO = 7;
+
+    static final Comparator<Consulta> POR_FECHA = Comparator.comparing(Consulta::getFecha)
+            .thenComparing(Consulta::getIdConsulta);
+    static final Comparator<ConsultaVista> RECIENTES = Comparator.comparing(ConsultaVista::fecha)
+            .thenComparing(ConsultaVista::idConsulta)
+            .reversed();
+
     private final ConsultaRepository consultaRepository;
+    private final EntityManager entityManager;
+    private final IndiceConsultas indiceConsultas;
+    private final EstadisticaService estadisticaService;
+    private final RegistroCambios registroCambios;
+    private final AgendaDoctores agendaDoctores;
+    private final Shards shards;
 
     @Override
+    @Transactional
     public Consulta crearConsulta(Consulta consulta) {
-        return consultaRepository.save(consulta);
+        Integer idPaciente = consulta.getPaciente() != null ? consulta.getPaciente().getIdPaciente() : null;
+        return shards.en(shards.deId(idPaciente), () -> guardarNueva(consulta));
+    }
+
+    private Consulta guardarNueva(Consulta consulta) {
+        reservarHorario(consulta);
+        Consulta nuevaConsulta = consultaRepository.save(consulta);
+        registroCambios.registrar(VersionesTabla.CONSULTA, nuevaConsulta.getIdConsulta(), OperacionCambio.CREAR,
+                ConsultaCambio.desde(nuevaConsulta));
+        // Indice y estadisticas viven en memoria: se actualizan solo si la transaccion (que puede ser un lote) confirma.
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                indiceConsultas.indexar(nuevaConsulta.getIdConsulta(), nuevaConsulta.getMotivo(), nuevaConsulta.getDiagnostico());
+                estadisticaService.registrarConsulta(nuevaConsulta);
+            }
+        });
+        return nuevaConsulta;
     }
 
     @Override
-    public List<Consulta> listarConsulta() {
-        return consultaRepository.findAll();
+    @Transactional(readOnly = true)
+    public PaginaCursor<ConsultaVista> listarConsulta(String cursor, Integer tamanio) {
+        int limite = normalizarTamanio(tamanio);
+        // Se pide un registro extra para saber si existe una pagina siguiente sin hacer un count.
+        Limit limit = Limit.of(limite + 1);
+        ConsultaCursor posicion = cursor == null || cursor.isBlank() ? null : ConsultaCursor.decodificar(cursor);
+        // Cada shard aporta su propia pagina; la mezcla por fecha se queda con las primeras de todas.
+        List<ConsultaVista> filas = shards.reunir(shard -> posicion == null
+                ? consultaRepository.findPrimeraPagina(limit)
+                : consultaRepository.findPaginaDespuesDe(posicion.fecha(), posicion.idConsulta(), limit), RECIENTES);
+
+        String siguienteCursor = null;
+        if (filas.size() > limite) {
+            filas = filas.subList(0, limite);
+            siguienteCursor = ConsultaCursor.desde(filas.get(limite - 1)).codificar();
+        }
+        return new PaginaCursor<>(filas, limite, siguienteCursor);
     }
-}
 
+    @Override
+    public List<DisponibilidadDoctor> disponibilidadEspecialidad(Integer idEspecialidad, LocalDate desde, LocalDate hasta) {
+        return agendaDoctores.disponibilidad(idEspecialidad, desde, hasta);
+    }
+
+    @Override
+    public void recorrerConsultas(Consumer<Consulta> consumidor) {
+        shards.recorrer(() -> recorrerShard(consumidor));
+    }
+
+    private void recorrerShard(Consumer<Consulta> consumidor) {
+        try (Stream<Consulta> consultas = consultaRepository.streamAll()) {
+            int[] leidas = {0};
+            consultas.forEach(consulta -> {
+                consumidor.accept(consulta);
+                // Se vacia el contexto de persistencia para que el heap no crezca con la tabla.
+                if (++leidas[0] % FILAS_POR_LIMPIEZA == 0) {
+                    entityManager.clear();
+                }
+            });
+        }
+        consultaRepository.recorrerArchivadas(FILAS_POR_LIMPIEZA, lote -> {
+            lote.forEach(consumidor);
+            entityManager.clear();
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Pagina<Consulta> buscarConsultas(String texto, Integer pagina, Integer tamanio) {
+        int limite = normalizarTamanio(tamanio);
+        int numeroPagina = normalizarPagina(pagina);
+        long desde = (long) numeroPagina * limite;
+        if (desde >= PROFUNDIDAD_BUSQUEDA_MAXIMA) {
+            // Mas alla de la profundidad maxima no se devuelven filas, solo el total.
+            return new Pagina<>(List.of(), numeroPagina, limite, indiceConsultas.buscar(texto, 0, 0).total());
+        }
+        ResultadoIndice resultado = indiceConsultas.buscar(texto, (int) desde, limite);
+        if (resultado.ids().isEmpty()) {
+            return new Pagina<>(List.of(), numeroPagina, limite, resultado.total());
+        }
+        // El IN devuelve las filas sin orden; se restituye el orden de relevancia del indice.
+        Map<Integer, List<Integer>> porShard = shards.agrupar(resultado.ids());
+        List<Consulta> consultas = new ArrayList<>(shards.reunir(shard -> porShard.containsKey(shard)
+                ? consultaRepository.findByIdConsultaIn(porShard.get(shard)) : List.<Consulta>of(), null));
+        consultas.sort(Comparator.comparingInt(c -> resultado.ids().indexOf(c.getIdConsulta())));
+        return new Pagina<>(consultas, numeroPagina, limite, resultado.total());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Pagina<Consulta> agendaDoctor(Integer idDoctor, LocalDate fecha, Integer dias, Integer pagina, Integer tamanio) {
+        int rango = dias == null || dias < 1 ? 1 : Math.min(dias, DIAS_AGENDA_MAXIMO);
+        LocalDateTime desde = fecha.atStartOfDay();
+        // Los pacientes del doctor estan repartidos: cada shard aporta su parte de la agenda.
+        Page<Consulta> agenda = shards.reunirPagina(
+                pageable -> consultaRepository.findAgendaDoctor(idDoctor, desde, desde.plusDays(rango), pageable),
+                PageRequest.of(normalizarPagina(pagina), normalizarTamanio(tamanio)), POR_FECHA);
+        return aPagina(agenda);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Pagina<Consulta> consultasRecientesPaciente(Integer idPaciente, Integer pagina, Integer tamanio) {
+        Page<Consulta> recientes = shards.en(shards.deId(idPaciente), () -> consultaRepository.findRecientesPaciente(
+                idPaciente, PageRequest.of(normalizarPagina(pagina), normalizarTamanio(tamanio))));
+        return aPagina(recientes);
+    }
+
+    /**
+     * Ocupa el horario del doctor antes del insert; si la transaccion no confirma, el horario se libera.
+     */
+    private void reservarHorario(Consulta consulta) {
+        if (consulta.getDoctor() == null || consulta.getDoctor().getIdDoctor() == null || consulta.getFecha() == null) {
+            return;
+        }
+        Integer idDoctor = consulta.getDoctor().getIdDoctor();
+        LocalDateTime fecha = consulta.getFecha();
+        if (!agendaDoctores.reservar(idDoctor, fecha)) {
+            throw new DuplicateKeyException("El doctor ya tiene una consulta en ese horario");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    agendaDoctores.liberar(idDoctor, fecha);
+                }
+            }
+        });
+    }
+
+    private static Pagina<Consulta> aPagina(Page<Consulta> page) {
+        return new Pagina<>(page.getContent(), page.getNumber(), page.getSize(), page.getTotalElements());
+    }
+
+    private int normalizarPagina(Integer pagina) {
+        return pagina == null || pagina < 0 ? 0 : pagina;
+    }
+
+    private int normalizarTamanio(Integer tamanio) {
+        if (tamanio == null || tamanio <= 0) {
+            return TAMANIO_PAGINA_DEFECTO;
+        }
+        return Math.min(tamanio, TAMANIO_PAGINA_MAXIMO);
+    }
+}
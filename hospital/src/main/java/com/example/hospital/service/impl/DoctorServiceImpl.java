@@ -3,54 +3,108 @@ package com.example.hospital.service.impl;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
 
+import static com.example.hospital.config.CacheConfig.DOCTOR;
+import static com.example.hospital.config.CacheConfig.DOCTORES;
+import static com.example.hospital.config.CacheConfig.ESPECIALIDAD;
+import static com.example.hospital.config.CacheConfig.ESPECIALIDADES;
+
+import com.example.hospital.agenda.AgendaDoctores;
+import com.example.hospital.config.InvalidacionCache;
+import com.example.hospital.dto.Sugerencia;
 import com.example.hospital.entity.Doctor;
+import com.example.hospital.replica.LecturaPrimaria;
 import com.example.hospital.repository.DoctorRepository;
+import com.example.hospital.search.IndiceNombres;
 import com.example.hospital.service.DoctorService;
+import com.example.hospital.shard.ReplicacionReferencia;
 
 @Service
 @RequiredArgsConstructor
 public class DoctorServiceImpl implements DoctorService {
 
     private final DoctorRepository doctorRepository;
+    private final AgendaDoctores agendaDoctores;
+    private final IndiceNombres indiceNombres;
+    private final ReplicacionReferencia replicacionReferencia;
+    private final InvalidacionCache invalidacionCache;
 
     @Override
+    @Transactional
     public Doctor crearDoctor(Doctor doctor) {
-        return doctorRepository.save(doctor);
+        invalidacionCache.limpiar(DOCTORES, ESPECIALIDAD, ESPECIALIDADES);
+        Doctor nuevoDoctor = doctorRepository.save(doctor);
+        replicacionReferencia.replicar(ReplicacionReferencia.DOCTOR, nuevoDoctor.getIdDoctor());
+        agendaDoctores.registrarDoctor(nuevoDoctor);
+        indiceNombres.indexarDoctor(nuevoDoctor.getIdDoctor(), nuevoDoctor.getNombre(), nuevoDoctor.getApellido());
+        return nuevoDoctor;
     }
 
     @Override
+    @Transactional
     public Doctor actualizarDoctor(Integer id, Doctor doctor) {
+        invalidar(id);
         Optional<Doctor> doctorExistente = doctorRepository.findById(id);
         if (doctorExistente.isPresent()) {
             Doctor doctorActualizar = doctorExistente.get();
+            if (doctor.getVersion() != null && !doctor.getVersion().equals(doctorActualizar.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(Doctor.class, id);
+            }
             doctorActualizar.setNombre(doctor.getNombre());
             doctorActualizar.setApellido(doctor.getApellido());
             doctorActualizar.setTelefono(doctor.getTelefono());
             doctorActualizar.setEspecialidad(doctor.getEspecialidad());
-            return doctorRepository.save(doctorActualizar);
+            Doctor doctorActualizado = doctorRepository.save(doctorActualizar);
+            replicacionReferencia.replicar(ReplicacionReferencia.DOCTOR, id);
+            agendaDoctores.registrarDoctor(doctorActualizado);
+            indiceNombres.indexarDoctor(id, doctorActualizado.getNombre(), doctorActualizado.getApellido());
+            return doctorActualizado;
         }
         throw new RuntimeException("Doctor no encontrado con id: " + id);
     }
 
     @Override
+    @Cacheable(cacheNames = DOCTORES, key = "'todos'")
+    @Transactional(readOnly = true)
     public List<Doctor> listarDoctor() {
-        return doctorRepository.findAll();
+        // Lo leido queda en cache: de una replica atrasada seguiria viejo despues de la invalidacion.
+        return LecturaPrimaria.en(doctorRepository::findAllConEspecialidad);
     }
 
     @Override
+    @Cacheable(cacheNames = DOCTOR, key = "#id", unless = "#result == null")
+    @Transactional(readOnly = true)
     public Optional<Doctor> obtenerDoctorPorId(Integer id) {
-        return doctorRepository.findById(id);
+        return LecturaPrimaria.en(() -> doctorRepository.findById(id));
     }
 
     @Override
+    @Transactional
     public void eliminarDoctor(Integer id) {
+        invalidar(id);
         if (doctorRepository.existsById(id)) {
+            replicacionReferencia.eliminar(ReplicacionReferencia.DOCTOR, id);
             doctorRepository.deleteById(id);
+            agendaDoctores.eliminarDoctor(id);
+            indiceNombres.eliminarDoctor(id);
         } else {
             throw new RuntimeException("Doctor no encontrado con id: " + id);
         }
     }
+
+    @Override
+    public List<Sugerencia> buscarDoctores(String texto, Integer limite) {
+        return indiceNombres.buscarDoctores(texto, limite);
+    }
+
+    // Las especialidades en cache llevan su lista de doctores: toda escritura de doctor las invalida.
+    private void invalidar(Integer id) {
+        invalidacionCache.quitar(DOCTOR, id);
+        invalidacionCache.limpiar(DOCTORES, ESPECIALIDAD, ESPECIALIDADES);
+    }
 }
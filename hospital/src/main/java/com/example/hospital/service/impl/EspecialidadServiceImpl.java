@@ -1,54 +1,138 @@
 package com.example.hospital.service.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
 
+import static com.example.hospital.config.CacheConfig.DOCTOR;
+import static com.example.hospital.config.CacheConfig.DOCTORES;
+import static com.example.hospital.config.CacheConfig.ESPECIALIDAD;
+import static com.example.hospital.config.CacheConfig.ESPECIALIDADES;
+
+import com.example.hospital.config.InvalidacionCache;
 import com.example.hospital.entity.Especialidad;
+import com.example.hospital.replica.LecturaPrimaria;
 import com.example.hospital.repository.EspecialidadRepository;
 import com.example.hospital.service.EspecialidadService;
+import com.example.hospital.shard.ReplicacionReferencia;
 
 @Service
 @RequiredArgsConstructor
 public class EspecialidadServiceImpl implements EspecialidadService {
 
     private final EspecialidadRepository especialidadRepository;
+    private final ReplicacionReferencia replicacionReferencia;
+    private final InvalidacionCache invalidacionCache;
 
     @Override
+    @Transactional
     public Especialidad crearEspecialidad(Especialidad especialidad) {
-        return especialidadRepository.save(especialidad);
+        invalidacionCache.limpiar(ESPECIALIDADES);
+        Especialidad nueva = especialidadRepository.save(especialidad);
+        replicacionReferencia.replicar(ReplicacionReferencia.ESPECIALIDAD, nueva.getIdEspecialidad());
+        return nueva;
     }
 
     @Override
+    @Transactional
     public Especialidad actualizarEspecialidad(Integer id, Especialidad especialidad) {
+        invalidar(id);
         Optional<Especialidad> especialidadExistente = especialidadRepository.findById(id);
         if (especialidadExistente.isPresent()) {
             Especialidad especialidadActualizar = especialidadExistente.get();
+            if (especialidad.getVersion() != null
+                    && !especialidad.getVersion().equals(especialidadActualizar.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(Especialidad.class, id);
+            }
             especialidadActualizar.setNombre(especialidad.getNombre());
             especialidadActualizar.setDescripcion(especialidad.getDescripcion());
-            return especialidadRepository.save(especialidadActualizar);
+            Especialidad actualizada = especialidadRepository.save(especialidadActualizar);
+            replicacionReferencia.replicar(ReplicacionReferencia.ESPECIALIDAD, id);
+            return actualizada;
         }
         throw new RuntimeException("Especialidad no encontrada con id: " + id);
     }
 
     @Override
+    @Cacheable(cacheNames = ESPECIALIDADES, key = "'todas'")
     public List<Especialidad> listarEspecialidad() {
         return especialidadRepository.findAll();
     }
 
     @Override
+    @Cacheable(cacheNames = ESPECIALIDAD, key = "#id", unless = "#result == null")
+    @Transactional(readOnly = true)
     public Optional<Especialidad> obtenerEspecialidadPorId(Integer id) {
-        return especialidadRepository.findById(id);
+        // Lo leido queda en cache: de una replica atrasada seguiria viejo despues de la invalidacion.
+        return LecturaPrimaria.en(() -> especialidadRepository.findById(id));
     }
 
     @Override
+    @Transactional
     public void eliminarEspecialidad(Integer id) {
+        invalidar(id);
         if (especialidadRepository.existsById(id)) {
+            replicacionReferencia.eliminar(ReplicacionReferencia.ESPECIALIDAD, id);
             especialidadRepository.deleteById(id);
         } else {
             throw new RuntimeException("Especialidad no encontrada con id: " + id);
         }
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Especialidad> obtenerEspecialidadesPorIds(Collection<Integer> ids) {
+        Map<Integer, Especialidad> porId = especialidadRepository.findByIdEspecialidadIn(ids).stream()
+                .collect(Collectors.toMap(Especialidad::getIdEspecialidad, Function.identity()));
+        return ids.stream().distinct().map(porId::get).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    @Transactional
+    public List<Especialidad> guardarEspecialidades(List<Especialidad> especialidades) {
+        invalidacionCache.limpiar(ESPECIALIDAD, ESPECIALIDADES, DOCTOR, DOCTORES);
+        List<Integer> ids = especialidades.stream()
+                .map(Especialidad::getIdEspecialidad).filter(Objects::nonNull).toList();
+        Map<Integer, Especialidad> existentes = ids.isEmpty() ? Map.of()
+                : especialidadRepository.findByIdEspecialidadIn(ids).stream()
+                        .collect(Collectors.toMap(Especialidad::getIdEspecialidad, Function.identity()));
+        List<Especialidad> guardadas = new ArrayList<>(especialidades.size());
+        for (Especialidad especialidad : especialidades) {
+            if (especialidad.getIdEspecialidad() == null) {
+                Especialidad nueva = especialidadRepository.save(especialidad);
+                replicacionReferencia.replicar(ReplicacionReferencia.ESPECIALIDAD, nueva.getIdEspecialidad());
+                guardadas.add(nueva);
+                continue;
+            }
+            Especialidad existente = existentes.get(especialidad.getIdEspecialidad());
+            if (existente == null) {
+                throw new RuntimeException("Especialidad no encontrada con id: " + especialidad.getIdEspecialidad());
+            }
+            if (especialidad.getVersion() != null && !especialidad.getVersion().equals(existente.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(Especialidad.class, especialidad.getIdEspecialidad());
+            }
+            existente.setNombre(especialidad.getNombre());
+            existente.setDescripcion(especialidad.getDescripcion());
+            replicacionReferencia.replicar(ReplicacionReferencia.ESPECIALIDAD, existente.getIdEspecialidad());
+            guardadas.add(existente);
+        }
+        return guardadas;
+    }
+
+    // Los doctores en cache llevan su especialidad.
+    private void invalidar(Integer id) {
+        invalidacionCache.quitar(ESPECIALIDAD, id);
+        invalidacionCache.limpiar(ESPECIALIDADES, DOCTOR, DOCTORES);
+    }
 }
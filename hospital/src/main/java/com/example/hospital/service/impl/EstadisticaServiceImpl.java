@@ -0,0 +1,350 @@
+package com.example.hospital.service.impl;
+
+import java.sql.Date;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.hospital.archivo.ArchivoConsultas;
+import com.example.hospital.archivo.ConsultaArchivada;
+import com.example.hospital.dto.ConteoDiario;
+import com.example.hospital.dto.ConteoTotal;
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.entity.TipoResumen;
+import com.example.hospital.repository.ResumenConsultaRepository;
+import com.example.hospital.service.DoctorService;
+import com.example.hospital.service.EstadisticaService;
+import com.example.hospital.shard.Shards;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Mantiene contadores diarios por doctor, especialidad y diagnostico. Las altas suman en memoria y un proceso
+ * periodico vuelca los deltas a resumen_consulta; las consultas de los tableros solo leen esa tabla.
+ */
+@Service
+@RequiredArgsConstructor
+public class EstadisticaServiceImpl implements EstadisticaService {
+
+    private static final Logger log = LoggerFactory.getLogger(EstadisticaServiceImpl.class);
+
+    static final int LONGITUD_CLAVE = 100;
+    static final int DIAGNOSTICOS_DEFECTO = 10;
+    static final int IDS_POR_TRAMO = 50_000;
+    static final int HILOS_RECONSTRUCCION = 4;
+
+    private static final String SUMAR = """
+            insert into resumen_consulta (tipo, fecha, clave, total) values (?, ?, ?, ?)
+            on duplicate key update total = total + values(total)
+            """;
+    private static final String INSERTAR = "insert into resumen_consulta (tipo, fecha, clave, total) values (?, ?, ?, ?)";
+    // Una sola sentencia por tramo: las filas que cuenta son exactamente las que devuelve, con su id.
+    private static final String POR_TRAMO = """
+            select c.id, cast(c.fecha as date), c.id_doctor, d.id_especialidad, c.diagnostico from consulta c
+            join doctor d on d.id = c.id_doctor
+            where c.id between ? and ?
+            """;
+
+    private final ResumenConsultaRepository resumenConsultaRepository;
+    private final DoctorService doctorService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ArchivoConsultas archivoConsultas;
+    private final Shards shards;
+
+    private final Map<Clave, Long> pendientes = new ConcurrentHashMap<>();
+    private final ReentrantLock volcado = new ReentrantLock();
+    // Lectura: cada alta; escritura: el inicio y el fin de una reconstruccion.
+    private final ReadWriteLock registro = new ReentrantReadWriteLock();
+    private final ThreadPoolExecutor hilos = crearHilos();
+    // Altas registradas mientras corre una reconstruccion; null fuera de ella.
+    private Queue<Registro> durante;
+
+    @Override
+    public void registrarConsulta(Consulta consulta) {
+        LocalDate dia = consulta.getFecha().toLocalDate();
+        List<Clave> claves = new ArrayList<>(3);
+        Integer idDoctor = consulta.getDoctor() != null ? consulta.getDoctor().getIdDoctor() : null;
+        if (idDoctor != null) {
+            claves.add(new Clave(TipoResumen.DOCTOR, dia, idDoctor.toString()));
+            doctorService.obtenerDoctorPorId(idDoctor)
+                    .map(Doctor::getEspecialidad)
+                    .ifPresent(e -> claves.add(new Clave(TipoResumen.ESPECIALIDAD, dia, e.getIdEspecialidad().toString())));
+        }
+        String diagnostico = normalizarDiagnostico(consulta.getDiagnostico());
+        if (diagnostico != null) {
+            claves.add(new Clave(TipoResumen.DIAGNOSTICO, dia, diagnostico));
+        }
+        registro.readLock().lock();
+        try {
+            if (durante != null) {
+                // Se decide al terminar la reconstruccion, segun si el recorrido ya conto esta consulta.
+                durante.add(new Registro(consulta.getIdConsulta(), claves));
+            } else {
+                claves.forEach(clave -> sumar(clave, 1));
+            }
+        } finally {
+            registro.readLock().unlock();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ConteoDiario> consultasPorDoctor(LocalDate desde, LocalDate hasta) {
+        return resumenConsultaRepository.findConteosDiarios(TipoResumen.DOCTOR, desde, hasta);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ConteoDiario> consultasPorEspecialidad(LocalDate desde, LocalDate hasta) {
+        return resumenConsultaRepository.findConteosDiarios(TipoResumen.ESPECIALIDAD, desde, hasta);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ConteoTotal> diagnosticosFrecuentes(LocalDate desde, LocalDate hasta, Integer limite) {
+        int cantidad = limite == null || limite <= 0 ? DIAGNOSTICOS_DEFECTO : limite;
+        return resumenConsultaRepository.findTotales(TipoResumen.DIAGNOSTICO, desde, hasta, Limit.of(cantidad));
+    }
+
+    @Scheduled(fixedDelayString = "${hospital.estadisticas.intervalo-volcado-ms:5000}")
+    public void volcarPendientes() {
+        if (!volcado.tryLock()) {
+            return;
+        }
+        Map<Clave, Long> drenados = drenarPendientes();
+        try {
+            if (!drenados.isEmpty()) {
+                List<Object[]> filas = new ArrayList<>(drenados.size());
+                drenados.forEach((clave, total) -> filas.add(clave.fila(total)));
+                jdbcTemplate.batchUpdate(SUMAR, filas);
+            }
+        } catch (RuntimeException e) {
+            // Los deltas vuelven a la cola para el siguiente volcado; el batch fallido no confirmo nada.
+            drenados.forEach(this::sumar);
+            log.warn("No se pudieron volcar {} contadores; se reintentara", drenados.size(), e);
+        } finally {
+            volcado.unlock();
+        }
+    }
+
+    @Override
+    @Async
+    public void reconstruir() {
+        // Mientras se reconstruye no se vuelcan deltas: se acumulan y se escriben sobre la tabla nueva.
+        volcado.lock();
+        try {
+            long inicio = System.currentTimeMillis();
+            Map<Clave, Long> drenados;
+            registro.writeLock().lock();
+            try {
+                // Lo drenado ya esta confirmado, asi que el recorrido lo cuenta; las altas siguientes esperan en durante.
+                durante = new ConcurrentLinkedQueue<>();
+                drenados = drenarPendientes();
+            } finally {
+                registro.writeLock().unlock();
+            }
+            BitSet contadas = new BitSet();
+            boolean reconstruido = false;
+            try {
+                // resumen_consulta vive en el shard 0 pero cuenta las consultas de todos.
+                Map<Clave, Long> totales = new HashMap<>();
+                for (int shard = 0; shard < shards.cantidad(); shard++) {
+                    calcularShard(shard, totales, contadas);
+                }
+                calcularArchivo(totales);
+
+                List<Object[]> filas = new ArrayList<>(totales.size());
+                totales.forEach((clave, total) -> filas.add(clave.fila(total)));
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.update("delete from resumen_consulta");
+                    jdbcTemplate.batchUpdate(INSERTAR, filas);
+                });
+                reconstruido = true;
+                log.info("Estadisticas reconstruidas: {} filas en {} ms", filas.size(), System.currentTimeMillis() - inicio);
+            } finally {
+                terminarReconstruccion(reconstruido, drenados, contadas);
+            }
+        } finally {
+            volcado.unlock();
+        }
+    }
+
+    // Si la tabla nueva quedo escrita solo suman las altas que el recorrido no vio; si no, vuelve todo a la cola.
+    private void terminarReconstruccion(boolean reconstruido, Map<Clave, Long> drenados, BitSet contadas) {
+        Queue<Registro> registrados;
+        registro.writeLock().lock();
+        try {
+            registrados = durante;
+            durante = null;
+            if (!reconstruido) {
+                drenados.forEach(this::sumar);
+            }
+            for (Registro r : registrados) {
+                if (!reconstruido || !contadas.get(r.idConsulta())) {
+                    r.claves().forEach(clave -> sumar(clave, 1));
+                }
+            }
+        } finally {
+            registro.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        hilos.shutdown();
+    }
+
+    private void calcularShard(int shard, Map<Clave, Long> totales, BitSet contadas) {
+        Integer[] rango = shards.en(shard, () -> jdbcTemplate.queryForObject("select min(id), max(id) from consulta",
+                (rs, i) -> new Integer[] {rs.getObject(1, Integer.class), rs.getObject(2, Integer.class)}));
+        if (rango[0] != null) {
+            calcularEnParalelo(shard, rango[0], rango[1], totales, contadas);
+        }
+    }
+
+    private void calcularEnParalelo(int shard, int idMinimo, int idMaximo, Map<Clave, Long> totales, BitSet contadas) {
+        List<Future<Tramo>> tramos = new ArrayList<>();
+        for (long desde = idMinimo; desde <= idMaximo; desde += IDS_POR_TRAMO) {
+            int inicioTramo = (int) desde;
+            int finTramo = (int) Math.min(desde + IDS_POR_TRAMO - 1, idMaximo);
+            // El shard va por hilo: cada tramo lo fija en el suyo.
+            tramos.add(hilos.submit(() -> shards.en(shard, () -> calcularTramo(inicioTramo, finTramo))));
+        }
+        try {
+            for (Future<Tramo> futuro : tramos) {
+                Tramo tramo = futuro.get();
+                tramo.totales().forEach((clave, total) -> totales.merge(clave, total, Long::sum));
+                BitSet ids = tramo.ids();
+                for (int i = ids.nextSetBit(0); i >= 0; i = ids.nextSetBit(i + 1)) {
+                    contadas.set(tramo.desde() + i);
+                }
+            }
+        } catch (Exception e) {
+            tramos.forEach(futuro -> futuro.cancel(true));
+            throw new RuntimeException("No se pudieron reconstruir las estadisticas", e);
+        }
+    }
+
+    private Tramo calcularTramo(int desde, int hasta) {
+        Map<Clave, Long> totales = new HashMap<>();
+        BitSet ids = new BitSet(hasta - desde + 1);
+        jdbcTemplate.query(POR_TRAMO, rs -> {
+            ids.set(rs.getInt(1) - desde);
+            LocalDate dia = rs.getDate(2).toLocalDate();
+            totales.merge(new Clave(TipoResumen.DOCTOR, dia, rs.getString(3)), 1L, Long::sum);
+            String especialidad = rs.getString(4);
+            if (especialidad != null) {
+                totales.merge(new Clave(TipoResumen.ESPECIALIDAD, dia, especialidad), 1L, Long::sum);
+            }
+            String diagnostico = normalizarDiagnostico(rs.getString(5));
+            if (diagnostico != null) {
+                totales.merge(new Clave(TipoResumen.DIAGNOSTICO, dia, diagnostico), 1L, Long::sum);
+            }
+        }, desde, hasta);
+        return new Tramo(desde, totales, ids);
+    }
+
+    // Las consultas archivadas ya no estan en la tabla pero siguen contando en los tableros.
+    private void calcularArchivo(Map<Clave, Long> totales) {
+        if (archivoConsultas.vacio()) {
+            return;
+        }
+        Map<Integer, String> especialidades = new HashMap<>();
+        jdbcTemplate.query("select id, id_especialidad from doctor",
+                rs -> { especialidades.put(rs.getInt(1), rs.getString(2)); });
+        archivoConsultas.recorrer(filas -> {
+            for (ConsultaArchivada c : filas) {
+                LocalDate dia = c.fecha().toLocalDate();
+                totales.merge(new Clave(TipoResumen.DOCTOR, dia, c.idDoctor().toString()), 1L, Long::sum);
+                String especialidad = especialidades.get(c.idDoctor());
+                if (especialidad != null) {
+                    totales.merge(new Clave(TipoResumen.ESPECIALIDAD, dia, especialidad), 1L, Long::sum);
+                }
+                String diagnostico = normalizarDiagnostico(c.diagnostico());
+                if (diagnostico != null) {
+                    totales.merge(new Clave(TipoResumen.DIAGNOSTICO, dia, diagnostico), 1L, Long::sum);
+                }
+            }
+        });
+    }
+
+    private void sumar(Clave clave, long cantidad) {
+        pendientes.merge(clave, cantidad, Long::sum);
+    }
+
+    private Map<Clave, Long> drenarPendientes() {
+        Map<Clave, Long> drenados = new HashMap<>();
+        // remove() es atomico frente a merge(): un alta concurrente crea una entrada nueva para el siguiente volcado.
+        for (Clave clave : pendientes.keySet()) {
+            Long total = pendientes.remove(clave);
+            if (total != null && total > 0) {
+                drenados.put(clave, total);
+            }
+        }
+        return drenados;
+    }
+
+    private static ThreadPoolExecutor crearHilos() {
+        ThreadPoolExecutor hilos = new ThreadPoolExecutor(HILOS_RECONSTRUCCION, HILOS_RECONSTRUCCION, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), tarea -> {
+                    Thread hilo = new Thread(tarea, "estadisticas-reconstruccion");
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+        // Las reconstrucciones son esporadicas: los hilos no se quedan vivos entre una y otra.
+        hilos.allowCoreThreadTimeOut(true);
+        return hilos;
+    }
+
+    static String normalizarDiagnostico(String diagnostico) {
+        if (diagnostico == null || diagnostico.isBlank()) {
+            return null;
+        }
+        String normalizado = Normalizer.normalize(diagnostico.trim(), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .replaceAll("\\s+", " ")
+                .toLowerCase(Locale.ROOT);
+        return normalizado.length() > LONGITUD_CLAVE ? normalizado.substring(0, LONGITUD_CLAVE) : normalizado;
+    }
+
+    private record Registro(int idConsulta, List<Clave> claves) {
+    }
+
+    private record Tramo(int desde, Map<Clave, Long> totales, BitSet ids) {
+    }
+
+    private record Clave(TipoResumen tipo, LocalDate fecha, String clave) {
+
+        Object[] fila(long total) {
+            return new Object[] {tipo.name(), Date.valueOf(fecha), clave, total};
+        }
+    }
+}
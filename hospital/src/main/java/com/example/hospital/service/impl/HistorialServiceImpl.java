@@ -1,55 +1,168 @@
 package com.example.hospital.service.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
 
+import com.example.hospital.auditoria.AccionAuditada;
+import com.example.hospital.auditoria.Auditoria;
+import com.example.hospital.auditoria.EntidadAuditada;
 import com.example.hospital.entity.Historial;
 import com.example.hospital.repository.HistorialRepository;
 import com.example.hospital.service.HistorialService;
+import com.example.hospital.shard.Shards;
 
 @Service
 @RequiredArgsConstructor
 public class HistorialServiceImpl implements HistorialService {
 
     private final HistorialRepository historialRepository;
+    private final Auditoria auditoria;
+    private final Shards shards;
 
     @Override
     public Historial crearHistorial(Historial historial) {
-        return historialRepository.save(historial);
+        Historial nuevo = shards.en(shardDe(historial), () -> historialRepository.save(historial));
+        auditoria.registrar(EntidadAuditada.HISTORIAL, AccionAuditada.CREAR, nuevo.getIdHistorial(),
+                idPaciente(nuevo));
+        return nuevo;
     }
 
     @Override
     public Historial actualizarHistorial(Integer id, Historial historial) {
+        return shards.en(shards.deId(id), () -> actualizar(id, historial));
+    }
+
+    private Historial actualizar(Integer id, Historial historial) {
         Optional<Historial> historialExistente = historialRepository.findById(id);
         if (historialExistente.isPresent()) {
             Historial historialActualizar = historialExistente.get();
+            if (historial.getVersion() != null && !historial.getVersion().equals(historialActualizar.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(Historial.class, id);
+            }
             historialActualizar.setDescripcion(historial.getDescripcion());
             historialActualizar.setFecha(historial.getFecha());
             historialActualizar.setPaciente(historial.getPaciente());
-            return historialRepository.save(historialActualizar);
+            Historial actualizado = historialRepository.save(historialActualizar);
+            auditoria.registrar(EntidadAuditada.HISTORIAL, AccionAuditada.ACTUALIZAR, id, idPaciente(actualizado));
+            return actualizado;
         }
         throw new RuntimeException("Historial no encontrado con id: " + id);
     }
 
     @Override
     public List<Historial> listarHistorial() {
-        return historialRepository.findAll();
+        List<Historial> lista = shards.reunir(shard -> historialRepository.findAll(), null);
+        auditoria.registrarTodos(EntidadAuditada.HISTORIAL, AccionAuditada.LEER, lista,
+                Historial::getIdHistorial, HistorialServiceImpl::idPaciente);
+        return lista;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Historial> obtenerHistorialPorId(Integer id) {
-        return historialRepository.findById(id);
+        Optional<Historial> encontrado = shards.en(shards.deId(id), () -> historialRepository.findById(id));
+        encontrado.ifPresent(h ->
+                auditoria.registrar(EntidadAuditada.HISTORIAL, AccionAuditada.LEER, id, idPaciente(h)));
+        return encontrado;
     }
 
     @Override
     public void eliminarHistorial(Integer id) {
-        if (historialRepository.existsById(id)) {
-            historialRepository.deleteById(id);
+        shards.en(shards.deId(id), () -> eliminar(id));
+    }
+
+    private void eliminar(Integer id) {
+        Optional<Historial> existente = historialRepository.findById(id);
+        if (existente.isPresent()) {
+            historialRepository.delete(existente.get());
+            auditoria.registrar(EntidadAuditada.HISTORIAL, AccionAuditada.ELIMINAR, id,
+                    idPaciente(existente.get()));
         } else {
             throw new RuntimeException("Historial no encontrado con id: " + id);
         }
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Historial> obtenerHistorialesPorIds(Collection<Integer> ids) {
+        Map<Integer, List<Integer>> porShard = shards.agrupar(ids);
+        Map<Integer, Historial> porId = shards.reunir(shard -> porShard.containsKey(shard)
+                        ? historialRepository.findByIdHistorialIn(porShard.get(shard)) : List.<Historial>of(), null)
+                .stream()
+                .collect(Collectors.toMap(Historial::getIdHistorial, Function.identity()));
+        List<Historial> historiales = ids.stream().distinct().map(porId::get).filter(Objects::nonNull).toList();
+        auditoria.registrarTodos(EntidadAuditada.HISTORIAL, AccionAuditada.LEER, historiales,
+                Historial::getIdHistorial, HistorialServiceImpl::idPaciente);
+        return historiales;
+    }
+
+    @Override
+    @Transactional
+    public List<Historial> guardarHistoriales(List<Historial> historiales) {
+        // El lote es una sola transaccion y una transaccion vive en un solo shard.
+        Set<Integer> destinos = historiales.stream()
+                .map(h -> h.getIdHistorial() != null ? shards.deId(h.getIdHistorial()) : shardDe(h))
+                .collect(Collectors.toSet());
+        if (destinos.size() > 1) {
+            throw new IllegalArgumentException("Los historiales del lote pertenecen a pacientes de distintos shards");
+        }
+        return shards.en(destinos.isEmpty() ? 0 : destinos.iterator().next(), () -> guardar(historiales));
+    }
+
+    private List<Historial> guardar(List<Historial> historiales) {
+        Map<Integer, Historial> existentes = cargarExistentes(historiales);
+        List<Historial> guardados = new ArrayList<>(historiales.size());
+        for (Historial historial : historiales) {
+            if (historial.getIdHistorial() == null) {
+                Historial nuevo = historialRepository.save(historial);
+                auditoria.registrar(EntidadAuditada.HISTORIAL, AccionAuditada.CREAR, nuevo.getIdHistorial(),
+                        idPaciente(nuevo));
+                guardados.add(nuevo);
+                continue;
+            }
+            Historial existente = existentes.get(historial.getIdHistorial());
+            if (existente == null) {
+                throw new RuntimeException("Historial no encontrado con id: " + historial.getIdHistorial());
+            }
+            if (historial.getVersion() != null && !historial.getVersion().equals(existente.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(Historial.class, historial.getIdHistorial());
+            }
+            existente.setDescripcion(historial.getDescripcion());
+            existente.setFecha(historial.getFecha());
+            existente.setPaciente(historial.getPaciente());
+            auditoria.registrar(EntidadAuditada.HISTORIAL, AccionAuditada.ACTUALIZAR, existente.getIdHistorial(),
+                    idPaciente(existente));
+            guardados.add(existente);
+        }
+        return guardados;
+    }
+
+    private Map<Integer, Historial> cargarExistentes(List<Historial> historiales) {
+        List<Integer> ids = historiales.stream().map(Historial::getIdHistorial).filter(Objects::nonNull).toList();
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return historialRepository.findByIdHistorialIn(ids).stream()
+                .collect(Collectors.toMap(Historial::getIdHistorial, Function.identity()));
+    }
+
+    private int shardDe(Historial historial) {
+        return shards.deId(historial.getPaciente() != null ? historial.getPaciente().getIdPaciente() : null);
+    }
+
+    private static int idPaciente(Historial historial) {
+        return historial.getPaciente() != null ? historial.getPaciente().getIdPaciente() : 0;
+    }
 }
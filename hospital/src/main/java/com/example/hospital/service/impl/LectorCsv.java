@@ -0,0 +1,131 @@
+package com.example.hospital.service.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Registros CSV (RFC 4180) leidos de a uno: campos entre comillas con comas, saltos de linea y comillas dobles
+ * ("") dentro. Las lineas en blanco se saltan. Unas comillas sin cerrar al final del archivo son un error.
+ * Si el primer registro empieza con la columna {@code encabezado} se toma como encabezado y se descarta.
+ */
+class LectorCsv implements Iterator<List<String>> {
+
+    private static final int FIN = -1;
+
+    private final Reader lector;
+    private final String encabezado;
+    private boolean primero = true;
+    private List<String> siguiente;
+    private int pendiente = -2;
+
+    LectorCsv(Reader lector, String encabezado) {
+        this.lector = lector;
+        this.encabezado = encabezado;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (siguiente == null) {
+            siguiente = leerRegistro();
+            if (primero && siguiente != null) {
+                primero = false;
+                if (siguiente.getFirst().trim().equalsIgnoreCase(encabezado)) {
+                    siguiente = leerRegistro();
+                }
+            }
+        }
+        return siguiente != null;
+    }
+
+    @Override
+    public List<String> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        List<String> registro = siguiente;
+        siguiente = null;
+        return registro;
+    }
+
+    private List<String> leerRegistro() {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        boolean conContenido = false;
+        while (true) {
+            int c = leer();
+            if (entreComillas) {
+                if (c == FIN) {
+                    throw new IllegalArgumentException("Comillas sin cerrar al final del CSV");
+                }
+                if (c == '"') {
+                    int despues = leer();
+                    if (despues == '"') {
+                        campo.append('"');
+                    } else {
+                        entreComillas = false;
+                        devolver(despues);
+                    }
+                } else {
+                    campo.append((char) c);
+                }
+                continue;
+            }
+            if (c == '\r') {
+                int despues = leer();
+                if (despues != '\n') {
+                    devolver(despues);
+                }
+                c = '\n';
+            }
+            switch (c) {
+                case FIN, '\n' -> {
+                    if (!conContenido) {
+                        if (c == FIN) {
+                            return null;
+                        }
+                        campo.setLength(0);
+                        continue;
+                    }
+                    campos.add(campo.toString());
+                    return campos;
+                }
+                case ',' -> {
+                    campos.add(campo.toString());
+                    campo.setLength(0);
+                    conContenido = true;
+                }
+                case '"' -> {
+                    entreComillas = true;
+                    conContenido = true;
+                }
+                default -> {
+                    campo.append((char) c);
+                    conContenido |= !Character.isWhitespace(c);
+                }
+            }
+        }
+    }
+
+    private int leer() {
+        if (pendiente != -2) {
+            int c = pendiente;
+            pendiente = -2;
+            return c;
+        }
+        try {
+            return lector.read();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void devolver(int c) {
+        pendiente = c;
+    }
+}
@@ -2,56 +2,234 @@ package com.example.hospital.service.impl;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 
+import com.example.hospital.auditoria.AccionAuditada;
+import com.example.hospital.auditoria.Auditoria;
+import com.example.hospital.auditoria.EntidadAuditada;
+import com.example.hospital.cambios.RegistroCambios;
+import com.example.hospital.cambios.VersionesTabla;
+import com.example.hospital.config.CacheConfig;
+import com.example.hospital.dto.CabeceraTimeline;
+import com.example.hospital.dto.ConsultaCursor;
+import com.example.hospital.dto.ConsultaTimeline;
+import com.example.hospital.dto.PacienteVista;
+import com.example.hospital.dto.Sugerencia;
+import com.example.hospital.dto.TimelinePaciente;
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.OperacionCambio;
 import com.example.hospital.entity.Paciente;
+import com.example.hospital.replica.LecturaPrimaria;
+import com.example.hospital.repository.ConsultaRepository;
 import com.example.hospital.repository.PacienteRepository;
+import com.example.hospital.search.IndiceNombres;
 import com.example.hospital.service.PacienteService;
+import com.example.hospital.shard.Shards;
 
 @Service
 @RequiredArgsConstructor
 public class PacienteServiceImpl implements PacienteService {
 
+    static final int FILAS_POR_LIMPIEZA = 500;
+    static final int TAMANIO_TIMELINE_DEFECTO = 20;
+    static final int TAMANIO_TIMELINE_MAXIMO = 100;
+
     private final PacienteRepository pacienteRepository;
+    private final EntityManager entityManager;
+    private final RegistroCambios registroCambios;
+    private final Auditoria auditoria;
+    private final ConsultaRepository consultaRepository;
+    private final VersionesTabla versionesTabla;
+    private final CacheManager cacheManager;
+    private final IndiceNombres indiceNombres;
+    private final Shards shards;
 
     @Override
-    public Paciente crearPaciente(Paciente paciente) {
-        return pacienteRepository.save(paciente);
+    @Transactional
+    public Paciente actualizarPaciente(Integer id, Paciente paciente) {
+        // Sin cedula se conserva la actual.
+        if (paciente.getCedula() != null && shards.deCedula(paciente.getCedula()) != shards.deId(id)) {
+            throw new IllegalStateException("La cedula nueva corresponde a otro shard; el paciente no puede moverse");
+        }
+        return shards.en(shards.deId(id), () -> actualizar(id, paciente));
     }
 
-    @Override
-    public Paciente actualizarPaciente(Integer id, Paciente paciente) {
-        Optional<Paciente> pacienteExistente = pacienteRepository.findById(id);
+    private Paciente actualizar(Integer id, Paciente paciente) {
+        Optional<Paciente> pacienteExistente = pacienteRepository.findConDetalleByIdPaciente(id);
         if (pacienteExistente.isPresent()) {
             Paciente pacienteActualizar = pacienteExistente.get();
+            if (paciente.getVersion() != null && !paciente.getVersion().equals(pacienteActualizar.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(Paciente.class, id);
+            }
             pacienteActualizar.setNombre(paciente.getNombre());
             pacienteActualizar.setApellido(paciente.getApellido());
             pacienteActualizar.setEdad(paciente.getEdad());
-            pacienteActualizar.setCedula(paciente.getCedula());
+            if (paciente.getCedula() != null) {
+                pacienteActualizar.setCedula(paciente.getCedula());
+            }
             pacienteActualizar.setTelefono(paciente.getTelefono());
-            return pacienteRepository.save(pacienteActualizar);
+            Paciente pacienteActualizado = pacienteRepository.save(pacienteActualizar);
+            registroCambios.registrar(VersionesTabla.PACIENTE, id, OperacionCambio.ACTUALIZAR,
+                    PacienteVista.desde(pacienteActualizado));
+            auditoria.registrar(EntidadAuditada.PACIENTE, AccionAuditada.ACTUALIZAR, id, id);
+            indiceNombres.indexarPaciente(id, pacienteActualizado.getNombre(), pacienteActualizado.getApellido(),
+                    pacienteActualizado.getCedula());
+            return pacienteActualizado;
         }
         throw new RuntimeException("Paciente no encontrado con id: " + id);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Paciente> listarPaciente() {
-        return pacienteRepository.findAll();
+        List<Paciente> pacientes = shards.reunir(shard -> pacienteRepository.findAllConDetalle(), null);
+        pacientes.forEach(this::auditarLectura);
+        return pacientes;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PacienteVista> listarPacienteVista() {
+        List<PacienteVista> pacientes = shards.reunir(shard -> pacienteRepository.findAllVista(), null);
+        auditoria.registrarTodos(EntidadAuditada.PACIENTE, AccionAuditada.LEER, pacientes,
+                PacienteVista::idPaciente, PacienteVista::idPaciente);
+        return pacientes;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Paciente> obtenerPacientePorId(Integer id) {
-        return pacienteRepository.findById(id);
+        Optional<Paciente> paciente = shards.en(shards.deId(id), () -> pacienteRepository.findConDetalleByIdPaciente(id));
+        paciente.ifPresent(this::auditarLectura);
+        return paciente;
     }
 
     @Override
+    @Transactional
     public void eliminarPaciente(Integer id) {
+        shards.en(shards.deId(id), () -> eliminar(id));
+    }
+
+    private void eliminar(Integer id) {
         if (pacienteRepository.existsById(id)) {
             pacienteRepository.deleteById(id);
+            registroCambios.registrar(VersionesTabla.PACIENTE, id, OperacionCambio.ELIMINAR, null);
+            auditoria.registrar(EntidadAuditada.PACIENTE, AccionAuditada.ELIMINAR, id, id);
+            indiceNombres.eliminarPaciente(id);
         } else {
             throw new RuntimeException("Paciente no encontrado con id: " + id);
         }
     }
+
+    @Override
+    public void recorrerPacientes(Consumer<Paciente> consumidor) {
+        // Un stream por shard, cada uno en su transaccion de solo lectura.
+        shards.recorrer(() -> recorrerShard(consumidor));
+    }
+
+    private void recorrerShard(Consumer<Paciente> consumidor) {
+        try (Stream<Paciente> pacientes = pacienteRepository.streamAll()) {
+            int[] leidos = {0};
+            pacientes.forEach(paciente -> {
+                auditoria.registrar(EntidadAuditada.PACIENTE, AccionAuditada.LEER, paciente.getIdPaciente(),
+                        paciente.getIdPaciente());
+                consumidor.accept(paciente);
+                if (++leidos[0] % FILAS_POR_LIMPIEZA == 0) {
+                    entityManager.clear();
+                }
+            });
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<TimelinePaciente> timelinePaciente(Integer idPaciente, String cursor, Integer tamanio) {
+        int limite = tamanio == null || tamanio < 1 ? TAMANIO_TIMELINE_DEFECTO : Math.min(tamanio, TAMANIO_TIMELINE_MAXIMO);
+        ConsultaCursor posicion = cursor == null || cursor.isBlank() ? null : ConsultaCursor.decodificar(cursor);
+        // La clave lleva la version de todo lo que muestra el timeline: tras un cambio la entrada anterior queda
+        // inalcanzable y Caffeine la expulsa por tamanio o antiguedad.
+        String clave = idPaciente + ":" + versionesTabla.versionPaciente(idPaciente)
+                + ":" + versionesTabla.etag(VersionesTabla.DOCTOR, VersionesTabla.ESPECIALIDAD)
+                + ":" + limite + ":" + (posicion == null ? "" : cursor);
+        Cache cache = cacheManager.getCache(CacheConfig.TIMELINE);
+        TimelinePaciente timeline = cache.get(clave, TimelinePaciente.class);
+        if (timeline == null) {
+            // Lo que se guarda en cache se lee de la primaria. Un paciente que no existe no se guarda: la entrada
+            // vacia podria seguir valiendo despues de su alta.
+            timeline = LecturaPrimaria.en(
+                    () -> shards.en(shards.deId(idPaciente), () -> armarTimeline(idPaciente, posicion, limite)));
+            if (timeline == null) {
+                return Optional.empty();
+            }
+            cache.put(clave, timeline);
+        }
+        // La auditoria va fuera de la cache: cada lectura cuenta, aunque no llegue a la base.
+        auditoria.registrar(EntidadAuditada.PACIENTE, AccionAuditada.LEER, idPaciente, idPaciente);
+        if (timeline.paciente().idHistorial() != null) {
+            auditoria.registrar(EntidadAuditada.HISTORIAL, AccionAuditada.LEER, timeline.paciente().idHistorial(),
+                    idPaciente);
+        }
+        for (ConsultaTimeline consulta : timeline.consultas()) {
+            if (consulta.idReceta() != null) {
+                auditoria.registrar(EntidadAuditada.RECETA, AccionAuditada.LEER, consulta.idReceta(), idPaciente);
+            }
+        }
+        return Optional.of(timeline);
+    }
+
+    @Override
+    public List<Sugerencia> buscarPacientes(String texto, Integer limite) {
+        List<Sugerencia> sugerencias = indiceNombres.buscarPacientes(texto, limite);
+        auditoria.registrarTodos(EntidadAuditada.PACIENTE, AccionAuditada.LEER, sugerencias,
+                Sugerencia::id, Sugerencia::id);
+        return sugerencias;
+    }
+
+    // Dos consultas fijas: cabecera (paciente + historial) y una pagina de consultas con doctor, especialidad y receta.
+    private TimelinePaciente armarTimeline(Integer idPaciente, ConsultaCursor posicion, int limite) {
+        Optional<CabeceraTimeline> cabecera = pacienteRepository.findCabeceraTimeline(idPaciente);
+        if (cabecera.isEmpty()) {
+            return null;
+        }
+        Limit limit = Limit.of(limite + 1);
+        List<ConsultaTimeline> consultas = posicion == null
+                ? consultaRepository.findTimeline(idPaciente, limit)
+                : consultaRepository.findTimelineDespuesDe(idPaciente, posicion.fecha(), posicion.idConsulta(), limit);
+        String siguienteCursor = null;
+        if (consultas.size() > limite) {
+            consultas = consultas.subList(0, limite);
+            ConsultaTimeline ultima = consultas.getLast();
+            siguienteCursor = new ConsultaCursor(ultima.fecha(), ultima.idConsulta()).codificar();
+        }
+        return new TimelinePaciente(cabecera.get(), List.copyOf(consultas), siguienteCursor);
+    }
+
+    // El detalle de paciente incluye historial y recetas: cada uno queda auditado como lectura propia.
+    private void auditarLectura(Paciente paciente) {
+        Integer idPaciente = paciente.getIdPaciente();
+        auditoria.registrar(EntidadAuditada.PACIENTE, AccionAuditada.LEER, idPaciente, idPaciente);
+        if (paciente.getHistorial() != null) {
+            auditoria.registrar(EntidadAuditada.HISTORIAL, AccionAuditada.LEER,
+                    paciente.getHistorial().getIdHistorial(), idPaciente);
+        }
+        if (paciente.getConsultas() != null) {
+            for (Consulta consulta : paciente.getConsultas()) {
+                if (consulta.getReceta() != null) {
+                    auditoria.registrar(EntidadAuditada.RECETA, AccionAuditada.LEER,
+                            consulta.getReceta().getIdReceta(), idPaciente);
+                }
+            }
+        }
+    }
 }
@@ -1,55 +1,205 @@
 package com.example.hospital.service.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
 
+import com.example.hospital.auditoria.AccionAuditada;
+import com.example.hospital.auditoria.Auditoria;
+import com.example.hospital.auditoria.EntidadAuditada;
+import com.example.hospital.entity.Consulta;
 import com.example.hospital.entity.Receta;
+import com.example.hospital.repository.ConsultaRepository;
 import com.example.hospital.repository.RecetaRepository;
 import com.example.hospital.service.RecetaService;
+import com.example.hospital.shard.Shards;
 
 @Service
 @RequiredArgsConstructor
 public class RecetaServiceImpl implements RecetaService {
 
     private final RecetaRepository recetaRepository;
+    private final ConsultaRepository consultaRepository;
+    private final Auditoria auditoria;
+    private final Shards shards;
 
     @Override
     public Receta crearReceta(Receta receta) {
-        return recetaRepository.save(receta);
+        Receta nueva = shards.en(shardDe(receta), () -> {
+            resolverConsultas(List.of(receta));
+            return recetaRepository.save(receta);
+        });
+        auditoria.registrar(EntidadAuditada.RECETA, AccionAuditada.CREAR, nueva.getIdReceta(), idPaciente(nueva));
+        return nueva;
     }
 
     @Override
     public Receta actualizarReceta(Integer id, Receta receta) {
+        return shards.en(shards.deId(id), () -> actualizar(id, receta));
+    }
+
+    private Receta actualizar(Integer id, Receta receta) {
         Optional<Receta> recetaExistente = recetaRepository.findById(id);
         if (recetaExistente.isPresent()) {
             Receta recetaActualizar = recetaExistente.get();
+            if (receta.getVersion() != null && !receta.getVersion().equals(recetaActualizar.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(Receta.class, id);
+            }
             recetaActualizar.setMedicamento(receta.getMedicamento());
             recetaActualizar.setDosis(receta.getDosis());
+            resolverConsultas(List.of(receta));
             recetaActualizar.setConsulta(receta.getConsulta());
-            return recetaRepository.save(recetaActualizar);
+            Receta actualizada = recetaRepository.save(recetaActualizar);
+            auditoria.registrar(EntidadAuditada.RECETA, AccionAuditada.ACTUALIZAR, id, idPaciente(actualizada));
+            return actualizada;
         }
         throw new RuntimeException("Receta no encontrada con id: " + id);
     }
 
     @Override
     public List<Receta> listarReceta() {
-        return recetaRepository.findAll();
+        List<Receta> lista = shards.reunir(shard -> recetaRepository.findAll(), null);
+        auditoria.registrarTodos(EntidadAuditada.RECETA, AccionAuditada.LEER, lista,
+                Receta::getIdReceta, RecetaServiceImpl::idPaciente);
+        return lista;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Receta> obtenerRecetaPorId(Integer id) {
-        return recetaRepository.findById(id);
+        // Por IN y no findById: tambien ve las recetas archivadas.
+        Optional<Receta> encontrada = shards.en(shards.deId(id),
+                () -> recetaRepository.findByIdRecetaIn(List.of(id)).stream().findFirst());
+        encontrada.ifPresent(r ->
+                auditoria.registrar(EntidadAuditada.RECETA, AccionAuditada.LEER, id, idPaciente(r)));
+        return encontrada;
     }
 
     @Override
     public void eliminarReceta(Integer id) {
-        if (recetaRepository.existsById(id)) {
-            recetaRepository.deleteById(id);
+        shards.en(shards.deId(id), () -> eliminar(id));
+    }
+
+    private void eliminar(Integer id) {
+        Optional<Receta> existente = recetaRepository.findById(id);
+        if (existente.isPresent()) {
+            recetaRepository.delete(existente.get());
+            auditoria.registrar(EntidadAuditada.RECETA, AccionAuditada.ELIMINAR, id, idPaciente(existente.get()));
         } else {
             throw new RuntimeException("Receta no encontrada con id: " + id);
         }
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Receta> obtenerRecetasPorIds(Collection<Integer> ids) {
+        Map<Integer, List<Integer>> porShard = shards.agrupar(ids);
+        Map<Integer, Receta> porId = shards.reunir(shard -> porShard.containsKey(shard)
+                        ? recetaRepository.findByIdRecetaIn(porShard.get(shard)) : List.<Receta>of(), null)
+                .stream()
+                .collect(Collectors.toMap(Receta::getIdReceta, Function.identity()));
+        // El IN no garantiza orden: se devuelven en el orden pedido, omitiendo los ids inexistentes.
+        List<Receta> recetas = ids.stream().distinct().map(porId::get).filter(Objects::nonNull).toList();
+        auditoria.registrarTodos(EntidadAuditada.RECETA, AccionAuditada.LEER, recetas,
+                Receta::getIdReceta, RecetaServiceImpl::idPaciente);
+        return recetas;
+    }
+
+    @Override
+    @Transactional
+    public List<Receta> guardarRecetas(List<Receta> recetas) {
+        // El lote es una sola transaccion y una transaccion vive en un solo shard.
+        Set<Integer> destinos = recetas.stream()
+                .map(r -> r.getIdReceta() != null ? shards.deId(r.getIdReceta()) : shardDe(r))
+                .collect(Collectors.toSet());
+        if (destinos.size() > 1) {
+            throw new IllegalArgumentException("Las recetas del lote pertenecen a pacientes de distintos shards");
+        }
+        return shards.en(destinos.isEmpty() ? 0 : destinos.iterator().next(), () -> guardar(recetas));
+    }
+
+    private List<Receta> guardar(List<Receta> recetas) {
+        Map<Integer, Receta> existentes = cargarExistentes(recetas);
+        resolverConsultas(recetas);
+        List<Receta> guardadas = new ArrayList<>(recetas.size());
+        for (Receta receta : recetas) {
+            if (receta.getIdReceta() == null) {
+                Receta nueva = recetaRepository.save(receta);
+                auditoria.registrar(EntidadAuditada.RECETA, AccionAuditada.CREAR, nueva.getIdReceta(), idPaciente(nueva));
+                guardadas.add(nueva);
+                continue;
+            }
+            Receta existente = existentes.get(receta.getIdReceta());
+            if (existente == null) {
+                throw new RuntimeException("Receta no encontrada con id: " + receta.getIdReceta());
+            }
+            if (receta.getVersion() != null && !receta.getVersion().equals(existente.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(Receta.class, receta.getIdReceta());
+            }
+            existente.setMedicamento(receta.getMedicamento());
+            existente.setDosis(receta.getDosis());
+            existente.setConsulta(receta.getConsulta());
+            auditoria.registrar(EntidadAuditada.RECETA, AccionAuditada.ACTUALIZAR, existente.getIdReceta(),
+                    idPaciente(existente));
+            guardadas.add(existente);
+        }
+        return guardadas;
+    }
+
+    // Las recetas a actualizar se leen en un solo IN, solo de la tabla: las archivadas no se editan. Los cambios se
+    // escriben por dirty checking al confirmar.
+    private Map<Integer, Receta> cargarExistentes(List<Receta> recetas) {
+        List<Integer> ids = recetas.stream().map(Receta::getIdReceta).filter(Objects::nonNull).toList();
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return recetaRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Receta::getIdReceta, Function.identity()));
+    }
+
+    // El cuerpo suele traer la consulta solo con su id: se reemplaza por la de la base, que trae el paciente para la
+    // auditoria y para la version por paciente de VersionesTabla.
+    private void resolverConsultas(List<Receta> recetas) {
+        Set<Integer> ids = recetas.stream()
+                .map(Receta::getConsulta).filter(Objects::nonNull)
+                .map(Consulta::getIdConsulta).filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<Integer, Consulta> consultas = consultaRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Consulta::getIdConsulta, Function.identity()));
+        for (Receta receta : recetas) {
+            if (receta.getConsulta() != null && receta.getConsulta().getIdConsulta() != null) {
+                Integer idConsulta = receta.getConsulta().getIdConsulta();
+                Consulta consulta = consultas.get(idConsulta);
+                if (consulta == null) {
+                    throw new RuntimeException("Consulta no encontrada con id: " + idConsulta);
+                }
+                receta.setConsulta(consulta);
+            }
+        }
+    }
+
+    // La receta vive junto a su consulta.
+    private int shardDe(Receta receta) {
+        return shards.deId(receta.getConsulta() != null ? receta.getConsulta().getIdConsulta() : null);
+    }
+
+    private static int idPaciente(Receta receta) {
+        return receta.getConsulta() != null && receta.getConsulta().getPaciente() != null
+                ? receta.getConsulta().getPaciente().getIdPaciente()
+                : 0;
+    }
 }
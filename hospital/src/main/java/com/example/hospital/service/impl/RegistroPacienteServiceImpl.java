@@ -0,0 +1,221 @@
+package com.example.hospital.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.RequiredArgsConstructor;
+
+import com.example.hospital.auditoria.AccionAuditada;
+import com.example.hospital.auditoria.Auditoria;
+import com.example.hospital.auditoria.EntidadAuditada;
+import com.example.hospital.cambios.RegistroCambios;
+import com.example.hospital.cambios.VersionesTabla;
+import com.example.hospital.dto.EstadoRegistro;
+import com.example.hospital.dto.PacienteVista;
+import com.example.hospital.dto.ResultadoRegistro;
+import com.example.hospital.entity.OperacionCambio;
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.repository.PacienteRepository;
+import com.example.hospital.search.IndiceNombres;
+import com.example.hospital.service.RegistroPacienteService;
+import com.example.hospital.shard.Shards;
+
+/**
+ * Alta de pacientes tolerante a reintentos y a registros simultaneos de la misma cedula. Las solicitudes con la
+ * misma cedula se serializan con un candado por franja, y en la base el alta es un insert ignore: si otra instancia
+ * ya inserto la cedula no hay error de clave unica ni transaccion fallida, solo cero filas afectadas y una lectura
+ * de la fila existente. La clave de idempotencia se reserva del mismo modo, dentro de la misma transaccion.
+ */
+@Service
+@RequiredArgsConstructor
+public class RegistroPacienteServiceImpl implements RegistroPacienteService {
+
+    static final int FRANJAS = 1024;
+    static final long HORAS_RETENCION_CLAVES = 24;
+    private static final int LONGITUD_NOMBRE = 100;
+    private static final int LONGITUD_CEDULA = 10;
+    private static final int LONGITUD_TELEFONO = 20;
+
+    private static final String RESERVAR_CLAVE =
+            "insert ignore into clave_idempotencia (clave, huella, fecha) values (?, ?, ?)";
+    private static final String LEER_CLAVE =
+            "select huella, id_paciente, estado from clave_idempotencia where clave = ?";
+    private static final String COMPLETAR_CLAVE =
+            "update clave_idempotencia set id_paciente = ?, estado = ? where clave = ?";
+    private static final String PURGAR_CLAVES = "delete from clave_idempotencia where fecha < ?";
+    private static final String INSERTAR_PACIENTE = """
+            insert ignore into paciente (version, nombre, apellido, edad, cedula, telefono) values (0, ?, ?, ?, ?, ?)
+            """;
+    private static final String ID_POR_CEDULA = "select id from paciente where cedula = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PacienteRepository pacienteRepository;
+    private final RegistroCambios registroCambios;
+    private final VersionesTabla versionesTabla;
+    private final Auditoria auditoria;
+    private final IndiceNombres indiceNombres;
+    private final Shards shards;
+
+    private final CandadosPorClave candados = new CandadosPorClave(FRANJAS);
+
+    @Override
+    public ResultadoRegistro registrarPaciente(Paciente paciente, boolean upsert, String claveIdempotencia) {
+        validar(paciente);
+        paciente.setCedula(paciente.getCedula().trim());
+        // El candado abarca el commit: quien espera encuentra la fila ya confirmada y no intenta insertarla.
+        ReentrantLock candado = candados.de(paciente.getCedula());
+        candado.lock();
+        try {
+            // La clave de idempotencia se guarda en el shard del paciente, junto con el alta.
+            ResultadoRegistro resultado = shards.en(shards.deCedula(paciente.getCedula()),
+                    () -> transactionTemplate.execute(status -> registrar(paciente, upsert, claveIdempotencia)));
+            if (resultado.estado() == EstadoRegistro.CREADO && !resultado.repetido()) {
+                // El insert va por JDBC y no pasa por los eventos de Hibernate.
+                versionesTabla.registrarCambio(VersionesTabla.PACIENTE);
+                versionesTabla.registrarCambioPaciente(resultado.paciente().getIdPaciente());
+            }
+            return resultado;
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    @Scheduled(cron = "${hospital.pacientes.purga-claves-cron:0 17 * * * *}")
+    public void purgarClavesIdempotencia() {
+        Timestamp limite = Timestamp.valueOf(LocalDateTime.now().minusHours(HORAS_RETENCION_CLAVES));
+        shards.enCadaShard(() -> jdbcTemplate.update(PURGAR_CLAVES, limite));
+    }
+
+    private ResultadoRegistro registrar(Paciente paciente, boolean upsert, String claveIdempotencia) {
+        String huella = null;
+        if (claveIdempotencia != null) {
+            huella = huella(paciente, upsert);
+            int reservada = jdbcTemplate.update(RESERVAR_CLAVE, claveIdempotencia, huella,
+                    Timestamp.valueOf(LocalDateTime.now()));
+            if (reservada == 0) {
+                return repetir(claveIdempotencia, huella);
+            }
+        }
+        ResultadoRegistro resultado = insertarOLeer(paciente, upsert);
+        if (claveIdempotencia != null) {
+            jdbcTemplate.update(COMPLETAR_CLAVE, resultado.paciente().getIdPaciente(), resultado.estado().name(),
+                    claveIdempotencia);
+        }
+        return resultado;
+    }
+
+    private ResultadoRegistro insertarOLeer(Paciente paciente, boolean upsert) {
+        KeyHolder llave = new GeneratedKeyHolder();
+        int insertadas = jdbcTemplate.update(conexion -> {
+            PreparedStatement ps = conexion.prepareStatement(INSERTAR_PACIENTE, new String[] {"id"});
+            ps.setString(1, paciente.getNombre());
+            ps.setString(2, paciente.getApellido());
+            ps.setInt(3, paciente.getEdad());
+            ps.setString(4, paciente.getCedula());
+            if (paciente.getTelefono() != null) {
+                ps.setString(5, paciente.getTelefono());
+            } else {
+                ps.setNull(5, Types.VARCHAR);
+            }
+            return ps;
+        }, llave);
+
+        if (insertadas == 1) {
+            paciente.setIdPaciente(llave.getKey().intValue());
+            paciente.setVersion(0L);
+            registroCambios.registrar(VersionesTabla.PACIENTE, paciente.getIdPaciente(), OperacionCambio.CREAR,
+                    PacienteVista.desde(paciente));
+            auditoria.registrar(EntidadAuditada.PACIENTE, AccionAuditada.CREAR, paciente.getIdPaciente(),
+                    paciente.getIdPaciente());
+            indiceNombres.indexarPaciente(paciente.getIdPaciente(), paciente.getNombre(), paciente.getApellido(),
+                    paciente.getCedula());
+            return new ResultadoRegistro(EstadoRegistro.CREADO, paciente, false);
+        }
+
+        Integer id = jdbcTemplate.queryForObject(ID_POR_CEDULA, Integer.class, paciente.getCedula());
+        Paciente existente = pacienteRepository.findConDetalleByIdPaciente(id).orElseThrow();
+        if (!upsert) {
+            auditoria.registrar(EntidadAuditada.PACIENTE, AccionAuditada.LEER, id, id);
+            return new ResultadoRegistro(EstadoRegistro.EXISTENTE, existente, false);
+        }
+        existente.setNombre(paciente.getNombre());
+        existente.setApellido(paciente.getApellido());
+        existente.setEdad(paciente.getEdad());
+        existente.setTelefono(paciente.getTelefono());
+        registroCambios.registrar(VersionesTabla.PACIENTE, id, OperacionCambio.ACTUALIZAR,
+                PacienteVista.desde(existente));
+        auditoria.registrar(EntidadAuditada.PACIENTE, AccionAuditada.ACTUALIZAR, id, id);
+        indiceNombres.indexarPaciente(id, existente.getNombre(), existente.getApellido(), existente.getCedula());
+        return new ResultadoRegistro(EstadoRegistro.ACTUALIZADO, existente, false);
+    }
+
+    private ResultadoRegistro repetir(String claveIdempotencia, String huella) {
+        List<Map<String, Object>> filas = jdbcTemplate.queryForList(LEER_CLAVE, claveIdempotencia);
+        Map<String, Object> fila = filas.getFirst();
+        if (!huella.equals(fila.get("huella"))) {
+            return new ResultadoRegistro(EstadoRegistro.CLAVE_REUTILIZADA, null, true);
+        }
+        if (fila.get("estado") == null) {
+            return new ResultadoRegistro(EstadoRegistro.EN_CURSO, null, true);
+        }
+        Integer id = ((Number) fila.get("id_paciente")).intValue();
+        Paciente paciente = pacienteRepository.findConDetalleByIdPaciente(id).orElse(null);
+        if (paciente != null) {
+            auditoria.registrar(EntidadAuditada.PACIENTE, AccionAuditada.LEER, id, id);
+        }
+        return new ResultadoRegistro(EstadoRegistro.valueOf((String) fila.get("estado")), paciente, true);
+    }
+
+    // insert ignore convierte un NOT NULL violado o un texto demasiado largo en una advertencia (valor por defecto o
+    // truncado) en lugar de un error, asi que se valida todo antes.
+    private static void validar(Paciente paciente) {
+        if (esVacio(paciente.getNombre()) || esVacio(paciente.getApellido())) {
+            throw new IllegalArgumentException("Nombre y apellido son obligatorios");
+        }
+        if (paciente.getNombre().length() > LONGITUD_NOMBRE || paciente.getApellido().length() > LONGITUD_NOMBRE) {
+            throw new IllegalArgumentException("Nombre o apellido demasiado largo");
+        }
+        if (paciente.getEdad() == null || paciente.getEdad() < 0) {
+            throw new IllegalArgumentException("Edad invalida");
+        }
+        if (esVacio(paciente.getCedula()) || paciente.getCedula().trim().length() > LONGITUD_CEDULA) {
+            throw new IllegalArgumentException("Cedula invalida");
+        }
+        if (paciente.getTelefono() != null && paciente.getTelefono().length() > LONGITUD_TELEFONO) {
+            throw new IllegalArgumentException("Telefono demasiado largo");
+        }
+    }
+
+    private static boolean esVacio(String valor) {
+        return valor == null || valor.isBlank();
+    }
+
+    private static String huella(Paciente paciente, boolean upsert) {
+        String contenido = String.join("|", paciente.getNombre(), paciente.getApellido(),
+                String.valueOf(paciente.getEdad()), paciente.getCedula(), String.valueOf(paciente.getTelefono()),
+                Boolean.toString(upsert));
+        try {
+            byte[] resumen = MessageDigest.getInstance("SHA-256").digest(contenido.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(resumen);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.hospital.shard;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Shard al que van las conexiones que pida el hilo actual. Dentro de una transaccion la primera conexion fija el
+ * shard hasta que la transaccion termine: Shards.en se niega a cambiarlo despues.
+ */
+final class ContextoShard {
+
+    private static final ThreadLocal<Integer> FIJADO = new ThreadLocal<>();
+    private static final ThreadLocal<Integer> CONECTADO = new ThreadLocal<>();
+
+    private ContextoShard() {
+    }
+
+    static Integer fijado() {
+        return FIJADO.get();
+    }
+
+    static void fijar(Integer shard) {
+        if (shard == null) {
+            FIJADO.remove();
+        } else {
+            FIJADO.set(shard);
+        }
+    }
+
+    static Integer conectado() {
+        return CONECTADO.get();
+    }
+
+    /** Lo llama el enrutador al entregar una conexion; sin shard fijado se usa el 0. */
+    static int conectar() {
+        Integer fijado = FIJADO.get();
+        int shard = fijado != null ? fijado : 0;
+        if (CONECTADO.get() == null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            CONECTADO.set(shard);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int estado) {
+                    CONECTADO.remove();
+                }
+            });
+        }
+        return shard;
+    }
+}
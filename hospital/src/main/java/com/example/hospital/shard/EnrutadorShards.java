@@ -0,0 +1,145 @@
+package com.example.hospital.shard;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Un pool por shard; cada conexion va al shard fijado en ContextoShard. Al arrancar cada shard recibe las
+ * migraciones de db/migration y sus tablas de pacientes quedan con ids intercalados: el shard k (base 0) de N
+ * genera solo ids con (id - 1) % N == k, asi el id de un paciente, historial, consulta o receta dice donde esta.
+ */
+public class EnrutadorShards extends AbstractRoutingDataSource implements DisposableBean {
+
+    static final List<String> TABLAS_INTERCALADAS = List.of("paciente", "historial", "consulta", "receta");
+
+    private final List<HikariDataSource> shards;
+    private final List<Counter> conexiones;
+
+    private EnrutadorShards(List<HikariDataSource> shards, List<Counter> conexiones) {
+        this.shards = shards;
+        this.conexiones = conexiones;
+    }
+
+    /** Abre un pool por configuracion, migra e intercala cada shard y devuelve el enrutador ya inicializado. */
+    public static EnrutadorShards crear(List<HikariConfig> configuraciones, MeterRegistry registry) {
+        if (configuraciones.isEmpty()) {
+            throw new IllegalArgumentException("hospital.shards.conexiones no define ningun shard");
+        }
+        int cantidad = configuraciones.size();
+        List<HikariDataSource> shards = new ArrayList<>(cantidad);
+        List<Counter> conexiones = new ArrayList<>(cantidad);
+        Map<Object, Object> destinos = new HashMap<>();
+        for (int shard = 0; shard < cantidad; shard++) {
+            HikariConfig config = configuraciones.get(shard);
+            config.setPoolName("shard-" + shard);
+            boolean mysql = config.getJdbcUrl() != null && config.getJdbcUrl().startsWith("jdbc:mysql:");
+            if (mysql) {
+                // MySQL no tiene incremento por tabla, solo por sesion: toda conexion del pool nace con el
+                // incremento y el desfase del shard, y tambien evento_cambio avanza de N en N. Por eso el feed de
+                // cambios, que espera secuencias contiguas, no se sirve con shards (ver FeedCambios).
+                config.setConnectionInitSql("set session auto_increment_increment = " + cantidad
+                        + ", auto_increment_offset = " + (shard + 1));
+            } else if (config.getJdbcUrl() == null || !config.getJdbcUrl().startsWith("jdbc:h2:")) {
+                throw new IllegalArgumentException("Shard " + shard + ": solo MySQL y H2 admiten ids intercalados");
+            }
+            HikariDataSource dataSource = new HikariDataSource(config);
+            shards.add(dataSource);
+            try {
+                migrar(dataSource);
+                comprobarIntercalado(dataSource, shard, cantidad);
+            } catch (RuntimeException e) {
+                shards.forEach(HikariDataSource::close);
+                throw e;
+            }
+            if (!mysql) {
+                intercalarH2(dataSource, shard, cantidad);
+            }
+            destinos.put(shard, dataSource);
+            conexiones.add(Counter.builder("hospital.shards.conexiones")
+                    .description("Conexiones entregadas por shard")
+                    .tag("shard", Integer.toString(shard))
+                    .register(registry));
+        }
+        EnrutadorShards enrutador = new EnrutadorShards(List.copyOf(shards), List.copyOf(conexiones));
+        enrutador.setTargetDataSources(destinos);
+        enrutador.setDefaultTargetDataSource(shards.getFirst());
+        enrutador.setLenientFallback(false);
+        enrutador.afterPropertiesSet();
+        return enrutador;
+    }
+
+    public int cantidad() {
+        return shards.size();
+    }
+
+    /** Pool del shard sin pasar por el enrutador, para copiar datos de referencia entre shards. */
+    public DataSource shard(int shard) {
+        return shards.get(shard);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        int shard = ContextoShard.conectar();
+        conexiones.get(shard).increment();
+        return shard;
+    }
+
+    @Override
+    public void destroy() {
+        shards.forEach(HikariDataSource::close);
+    }
+
+    private static void migrar(DataSource dataSource) {
+        // Mismas opciones que el perfil "rapido": una base creada antes por ddl-auto se toma como version 1.
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+    }
+
+    /**
+     * Las filas que ya estaban tienen que seguir la misma regla que las nuevas: si no, Shards.deId las buscaria en
+     * otro shard. Una base creada sin shards tiene ids contiguos y solo sirve tal cual como unico shard.
+     */
+    private static void comprobarIntercalado(DataSource dataSource, int shard, int cantidad) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (String tabla : TABLAS_INTERCALADAS) {
+            long fuera = jdbcTemplate.queryForObject(
+                    "select count(*) from " + tabla + " where mod(id - 1, ?) <> ?", Long.class, cantidad, shard);
+            if (fuera > 0) {
+                throw new IllegalStateException("Shard " + shard + ": " + fuera + " filas de " + tabla
+                        + " tienen un id de otro shard; una base con datos previos no puede repartirse asi"
+                        + " (ver hospital.shards en application.properties)");
+            }
+        }
+    }
+
+    // H2 no tiene variables de sesion para esto: se cambia la identidad de cada tabla, por encima del id mayor.
+    private static void intercalarH2(DataSource dataSource, int shard, int cantidad) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (String tabla : TABLAS_INTERCALADAS) {
+            long maximo = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + tabla, Long.class);
+            long siguiente = maximo + 1 + Math.floorMod(shard - maximo, cantidad);
+            jdbcTemplate.execute("alter table " + tabla + " alter column id restart with " + siguiente);
+            jdbcTemplate.execute("alter table " + tabla + " alter column id set increment by " + cantidad);
+        }
+    }
+}
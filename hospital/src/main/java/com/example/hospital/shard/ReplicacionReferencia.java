@@ -0,0 +1,136 @@
+package com.example.hospital.shard;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Copia doctor y especialidad del shard 0 a los demas, donde las consultas los referencian. Cada cambio se copia
+ * al confirmar; una copia fallida (shard caido) o una baja que el shard 0 no llego a confirmar las repara la
+ * sincronizacion periodica, que deja cada shard igual al 0.
+ */
+@Component
+public class ReplicacionReferencia {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicacionReferencia.class);
+
+    public static final String ESPECIALIDAD = "especialidad";
+    public static final String DOCTOR = "doctor";
+
+    // En el orden de las claves foraneas: se copia en este orden y se borra en el inverso.
+    private static final List<String> TABLAS = List.of(ESPECIALIDAD, DOCTOR);
+
+    private final JdbcTemplate primaria;
+    private final List<JdbcTemplate> replicas = new ArrayList<>();
+
+    public ReplicacionReferencia(ObjectProvider<EnrutadorShards> enrutador) {
+        EnrutadorShards shards = enrutador.getIfAvailable();
+        this.primaria = shards != null ? new JdbcTemplate(shards.shard(0)) : null;
+        if (shards != null) {
+            for (int shard = 1; shard < shards.cantidad(); shard++) {
+                replicas.add(new JdbcTemplate(shards.shard(shard)));
+            }
+        }
+    }
+
+    /** Copia la fila a los demas shards cuando confirme la transaccion en curso, o ya si no hay ninguna. */
+    public void replicar(String tabla, Integer id) {
+        if (replicas.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            copiar(tabla, id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                copiar(tabla, id);
+            }
+        });
+    }
+
+    /**
+     * Borra la fila de los demas shards antes de borrarla del 0: si algun shard todavia la referencia falla aqui y
+     * la baja no sigue. Si despues la baja en el shard 0 no confirma, la sincronizacion vuelve a copiar la fila.
+     */
+    public void eliminar(String tabla, Integer id) {
+        for (JdbcTemplate replica : replicas) {
+            replica.update("delete from " + tabla + " where id = ?", id);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${hospital.shards.intervalo-sincronizacion-ms:300000}")
+    public void sincronizar() {
+        if (replicas.isEmpty()) {
+            return;
+        }
+        for (String tabla : TABLAS) {
+            List<Map<String, Object>> filas = primaria.queryForList("select * from " + tabla);
+            if (!filas.isEmpty()) {
+                String sql = upsert(tabla, filas.getFirst());
+                List<Object[]> valores = filas.stream().map(fila -> fila.values().toArray()).toList();
+                replicas.forEach(replica -> replica.batchUpdate(sql, valores));
+            }
+        }
+        for (String tabla : TABLAS.reversed()) {
+            Set<Integer> vigentes = new HashSet<>(primaria.queryForList("select id from " + tabla, Integer.class));
+            for (JdbcTemplate replica : replicas) {
+                for (Integer id : replica.queryForList("select id from " + tabla, Integer.class)) {
+                    if (!vigentes.contains(id)) {
+                        borrarSobrante(replica, tabla, id);
+                    }
+                }
+            }
+        }
+    }
+
+    private void copiar(String tabla, Integer id) {
+        try {
+            List<Map<String, Object>> filas = primaria.queryForList("select * from " + tabla + " where id = ?", id);
+            if (filas.isEmpty()) {
+                eliminar(tabla, id);
+                return;
+            }
+            String sql = upsert(tabla, filas.getFirst());
+            Object[] valores = filas.getFirst().values().toArray();
+            replicas.forEach(replica -> replica.update(sql, valores));
+        } catch (DataAccessException e) {
+            log.warn("No se pudo replicar {} {}; se reintenta en la proxima sincronizacion: {}", tabla, id,
+                    e.getMessage());
+        }
+    }
+
+    private static void borrarSobrante(JdbcTemplate replica, String tabla, Integer id) {
+        try {
+            replica.update("delete from " + tabla + " where id = ?", id);
+        } catch (DataAccessException e) {
+            log.warn("{} {} ya no existe en el shard 0 pero un shard aun lo referencia: {}", tabla, id,
+                    e.getMessage());
+        }
+    }
+
+    // Las columnas salen de la propia fila, asi una columna nueva en las migraciones se replica sin tocar esto.
+    private static String upsert(String tabla, Map<String, Object> fila) {
+        List<String> columnas = new ArrayList<>(fila.keySet());
+        List<String> asignaciones = columnas.stream()
+                .filter(columna -> !columna.equalsIgnoreCase("id"))
+                .map(columna -> columna + " = values(" + columna + ")")
+                .toList();
+        return "insert into " + tabla + " (" + String.join(", ", columnas) + ") values ("
+                + String.join(", ", columnas.stream().map(columna -> "?").toList())
+                + ") on duplicate key update " + String.join(", ", asignaciones);
+    }
+}
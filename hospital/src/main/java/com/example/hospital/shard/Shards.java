@@ -0,0 +1,235 @@
+package com.example.hospital.shard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Reparto de los datos de pacientes entre shards. Un paciente va al shard de su cedula y su historial, consultas y
+ * recetas lo acompanan; como los ids se intercalan por shard, cualquiera de esos ids basta para ubicar la fila.
+ * Doctor y especialidad se escriben en el shard 0 y ReplicacionReferencia los copia al resto.
+ * Sin hospital.shards.habilitado todo es un solo shard y estos metodos no cambian nada.
+ */
+@Component
+public class Shards {
+
+    private final EnrutadorShards enrutador;
+    private final int cantidad;
+    private final TransactionTemplate lectura;
+    private final ExecutorService hilos;
+
+    public Shards(ObjectProvider<EnrutadorShards> enrutador, PlatformTransactionManager transactionManager) {
+        this.enrutador = enrutador.getIfAvailable();
+        this.cantidad = this.enrutador != null ? this.enrutador.cantidad() : 1;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.hilos = this.enrutador != null ? Executors.newVirtualThreadPerTaskExecutor() : null;
+    }
+
+    public boolean habilitado() {
+        return enrutador != null;
+    }
+
+    public int cantidad() {
+        return cantidad;
+    }
+
+    /** Shard de un paciente nuevo. La cedula no puede cambiar despues a una de otro shard. */
+    public int deCedula(String cedula) {
+        return cedula == null ? 0 : Math.floorMod(cedula.trim().hashCode(), cantidad);
+    }
+
+    /**
+     * Shard de un id de paciente, historial, consulta o receta. Supone que todos los ids se generaron ya intercalados
+     * (ver EnrutadorShards): no vale para filas que existian antes de habilitar los shards.
+     */
+    public int deId(Integer id) {
+        return id == null ? 0 : Math.floorMod(id - 1, cantidad);
+    }
+
+    public Map<Integer, List<Integer>> agrupar(Collection<Integer> ids) {
+        Map<Integer, List<Integer>> porShard = new TreeMap<>();
+        for (Integer id : ids) {
+            porShard.computeIfAbsent(deId(id), s -> new ArrayList<>()).add(id);
+        }
+        return porShard;
+    }
+
+    /** Shard de las conexiones que pida ahora el hilo actual. */
+    public int actual() {
+        Integer fijado = ContextoShard.fijado();
+        if (fijado != null) {
+            return fijado;
+        }
+        Integer conectado = ContextoShard.conectado();
+        return conectado != null ? conectado : 0;
+    }
+
+    /**
+     * Ejecuta el trabajo con sus conexiones en el shard dado. Puede abrir transacciones o ir dentro de una que
+     * aun no haya usado la base; una transaccion que ya tiene conexion en otro shard no puede continuar aqui.
+     *
+     * @throws IllegalStateException si la transaccion en curso ya usa otro shard
+     */
+    public <T> T en(int shard, Supplier<T> trabajo) {
+        if (enrutador == null) {
+            return trabajo.get();
+        }
+        if (shard < 0 || shard >= cantidad) {
+            throw new IllegalArgumentException("Shard inexistente: " + shard);
+        }
+        Integer conectado = ContextoShard.conectado();
+        if (conectado != null && conectado != shard) {
+            throw new IllegalStateException("La transaccion ya usa el shard " + conectado + " y no puede pasar al " + shard);
+        }
+        Integer anterior = ContextoShard.fijado();
+        ContextoShard.fijar(shard);
+        try {
+            return trabajo.get();
+        } finally {
+            ContextoShard.fijar(anterior);
+        }
+    }
+
+    public void en(int shard, Runnable trabajo) {
+        en(shard, () -> {
+            trabajo.run();
+            return null;
+        });
+    }
+
+    /** Ejecuta el trabajo una vez por shard, en orden, sin transaccion propia. */
+    public void enCadaShard(Runnable trabajo) {
+        for (int shard = 0; shard < cantidad; shard++) {
+            en(shard, trabajo);
+        }
+    }
+
+    /** Como enCadaShard, con una transaccion de solo lectura por shard: para recorridos con streams. */
+    public void recorrer(Runnable trabajo) {
+        enCadaShard(() -> lectura.executeWithoutResult(estado -> trabajo.run()));
+    }
+
+    /**
+     * Ejecuta la consulta en todos los shards a la vez, cada uno en su propia transaccion de solo lectura, y mezcla
+     * los resultados por {@code orden} (o los concatena si es null). Con un solo shard la consulta corre en el hilo
+     * y la transaccion del llamador, sin reordenar. La funcion recibe el shard, para consultas que dependen de el.
+     */
+    public <T> List<T> reunir(IntFunction<List<T>> consulta, Comparator<? super T> orden) {
+        if (enrutador == null) {
+            return consulta.apply(0);
+        }
+        List<List<T>> parciales = dispersar(shard -> {
+            List<T> parcial = new ArrayList<>(consulta.apply(shard));
+            if (orden != null) {
+                // TimSort recorre una sola vez una lista que ya viene ordenada de la base.
+                parcial.sort(orden);
+            }
+            return parcial;
+        });
+        return orden == null ? concatenar(parciales) : mezclar(parciales, orden);
+    }
+
+    /**
+     * Pagina sobre todos los shards. Cada shard devuelve las primeras offset + tamanio filas de su parte, asi que una
+     * pagina profunda cuesta proporcionalmente mas; el total es la suma de los totales de cada shard.
+     */
+    public <T> Page<T> reunirPagina(Function<Pageable, Page<T>> consulta, Pageable pagina, Comparator<? super T> orden) {
+        if (enrutador == null) {
+            return consulta.apply(pagina);
+        }
+        int hasta = (int) Math.min(Integer.MAX_VALUE, pagina.getOffset() + pagina.getPageSize());
+        Pageable prefijo = PageRequest.of(0, hasta, pagina.getSort());
+        List<Page<T>> parciales = dispersar(shard -> consulta.apply(prefijo));
+        List<List<T>> contenidos = new ArrayList<>(parciales.size());
+        long total = 0;
+        for (Page<T> parcial : parciales) {
+            contenidos.add(parcial.getContent());
+            total += parcial.getTotalElements();
+        }
+        List<T> mezcla = mezclar(contenidos, orden);
+        int desde = (int) Math.min(pagina.getOffset(), mezcla.size());
+        return new PageImpl<>(new ArrayList<>(mezcla.subList(desde, Math.min(hasta, mezcla.size()))), pagina, total);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        if (hilos != null) {
+            hilos.shutdown();
+        }
+    }
+
+    private <R> List<R> dispersar(IntFunction<R> consulta) {
+        List<Future<R>> tareas = new ArrayList<>(cantidad);
+        for (int shard = 0; shard < cantidad; shard++) {
+            int destino = shard;
+            tareas.add(hilos.submit(() -> en(destino, () -> lectura.execute(estado -> consulta.apply(destino)))));
+        }
+        List<R> resultados = new ArrayList<>(cantidad);
+        try {
+            for (Future<R> tarea : tareas) {
+                resultados.add(tarea.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Lectura entre shards interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException("Fallo la lectura de un shard", e.getCause());
+        } finally {
+            tareas.forEach(tarea -> tarea.cancel(true));
+        }
+        return resultados;
+    }
+
+    private static <T> List<T> concatenar(List<List<T>> parciales) {
+        List<T> resultado = new ArrayList<>(parciales.stream().mapToInt(List::size).sum());
+        parciales.forEach(resultado::addAll);
+        return resultado;
+    }
+
+    // Mezcla de k listas ordenadas: un monticulo con la cabeza de cada shard.
+    private static <T> List<T> mezclar(List<List<T>> parciales, Comparator<? super T> orden) {
+        List<T> resultado = new ArrayList<>(parciales.stream().mapToInt(List::size).sum());
+        PriorityQueue<int[]> cabezas = new PriorityQueue<>(Math.max(1, parciales.size()),
+                (a, b) -> orden.compare(parciales.get(a[0]).get(a[1]), parciales.get(b[0]).get(b[1])));
+        for (int i = 0; i < parciales.size(); i++) {
+            if (!parciales.get(i).isEmpty()) {
+                cabezas.add(new int[] {i, 0});
+            }
+        }
+        while (!cabezas.isEmpty()) {
+            int[] cabeza = cabezas.poll();
+            List<T> parcial = parciales.get(cabeza[0]);
+            resultado.add(parcial.get(cabeza[1]));
+            if (++cabeza[1] < parcial.size()) {
+                cabezas.add(cabeza);
+            }
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,43 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Indice para la purga de RegistroCambios, que borra por fecha. MySQL no tiene "create index if not exists" y una
+ * base creada antes por ddl-auto=update ya lo tiene (lo declara EventoCambio), asi que se mira antes si existe.
+ */
+public class V3__evento_cambio_fecha extends BaseJavaMigration {
+
+    private static final String INDICE = "idx_evento_cambio_fecha";
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection conexion = context.getConnection();
+        if (existeIndice(conexion)) {
+            return;
+        }
+        try (Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("create index " + INDICE + " on evento_cambio (fecha)");
+        }
+    }
+
+    private static boolean existeIndice(Connection conexion) throws SQLException {
+        DatabaseMetaData metaData = conexion.getMetaData();
+        String tabla = metaData.storesUpperCaseIdentifiers() ? "EVENTO_CAMBIO" : "evento_cambio";
+        try (ResultSet indices = metaData.getIndexInfo(conexion.getCatalog(), conexion.getSchema(), tabla, false, false)) {
+            while (indices.next()) {
+                if (INDICE.equalsIgnoreCase(indices.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,115 @@
+-- Esquema equivalente al que generaba spring.jpa.hibernate.ddl-auto=update.
+-- Sintaxis comun a MySQL y H2 (MODE=MySQL) para poder probar las migraciones con la base embebida.
+
+create table especialidad (
+    id int not null auto_increment,
+    version bigint not null default 0,
+    nombre varchar(100) not null,
+    descripcion text,
+    primary key (id)
+);
+
+create table doctor (
+    id int not null auto_increment,
+    version bigint not null default 0,
+    nombre varchar(100) not null,
+    apellido varchar(100) not null,
+    telefono varchar(20),
+    id_especialidad int not null,
+    primary key (id),
+    constraint fk_doctor_especialidad foreign key (id_especialidad) references especialidad (id)
+);
+
+create table paciente (
+    id int not null auto_increment,
+    version bigint not null default 0,
+    nombre varchar(100) not null,
+    apellido varchar(100) not null,
+    edad int not null,
+    cedula varchar(10) not null,
+    telefono varchar(20),
+    primary key (id),
+    constraint uk_paciente_cedula unique (cedula)
+);
+
+create table historial (
+    id int not null auto_increment,
+    version bigint not null default 0,
+    descripcion text,
+    fecha date not null,
+    id_paciente int not null,
+    primary key (id),
+    constraint uk_historial_paciente unique (id_paciente),
+    constraint fk_historial_paciente foreign key (id_paciente) references paciente (id)
+);
+
+create table consulta (
+    id int not null auto_increment,
+    version bigint not null default 0,
+    fecha datetime(6) not null,
+    motivo varchar(255) not null,
+    diagnostico text,
+    id_paciente int not null,
+    id_doctor int not null,
+    primary key (id),
+    constraint fk_consulta_paciente foreign key (id_paciente) references paciente (id),
+    constraint fk_consulta_doctor foreign key (id_doctor) references doctor (id)
+);
+
+create index idx_consulta_fecha_id on consulta (fecha, id);
+create index idx_consulta_doctor_fecha on consulta (id_doctor, fecha);
+create index idx_consulta_paciente_fecha on consulta (id_paciente, fecha);
+
+create table receta (
+    id int not null auto_increment,
+    version bigint not null default 0,
+    medicamento varchar(200),
+    dosis varchar(200),
+    id_consulta int not null,
+    primary key (id),
+    constraint uk_receta_consulta unique (id_consulta),
+    constraint fk_receta_consulta foreign key (id_consulta) references consulta (id)
+);
+
+create table resumen_consulta (
+    id bigint not null auto_increment,
+    fecha date not null,
+    tipo varchar(20) not null,
+    clave varchar(100) not null,
+    total bigint not null,
+    primary key (id),
+    constraint uk_resumen_consulta unique (tipo, fecha, clave)
+);
+
+create table evento_cambio (
+    secuencia bigint not null auto_increment,
+    tabla varchar(30) not null,
+    id_entidad int not null,
+    operacion varchar(20) not null,
+    fecha datetime(6) not null,
+    datos text,
+    primary key (secuencia)
+);
+
+create table punto_control (
+    nombre varchar(50) not null,
+    posicion bigint not null,
+    primary key (nombre)
+);
+
+create table clave_idempotencia (
+    clave varchar(100) not null,
+    huella varchar(64) not null,
+    id_paciente int,
+    estado varchar(20),
+    fecha datetime(6) not null,
+    primary key (clave)
+);
+
+create index idx_clave_idempotencia_fecha on clave_idempotencia (fecha);
+
+create table latido_replica (
+    id int not null,
+    instante bigint not null,
+    primary key (id)
+);
@@ -0,0 +1,9 @@
+-- Cambios por tabla sumados por todas las instancias; ver VersionesTabla.
+-- "if not exists": una base creada antes por ddl-auto=update ya tiene la tabla y solo se marca como version 1.
+
+create table if not exists version_tabla (
+    tabla varchar(30) not null,
+    version bigint not null,
+    modificado bigint not null,
+    primary key (tabla)
+);
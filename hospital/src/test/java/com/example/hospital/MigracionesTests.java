@@ -0,0 +1,79 @@
+package com.example.hospital;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.entity.Especialidad;
+import com.example.hospital.repository.DoctorRepository;
+import com.example.hospital.repository.EspecialidadRepository;
+
+// Perfil "rapido" sobre una base propia: el esquema lo crean solo las migraciones, sin ddl-auto.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migraciones;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@ActiveProfiles("rapido")
+class MigracionesTests {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EspecialidadRepository especialidadRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Test
+    void lasMigracionesCreanElEsquemaQueUsanLasEntidades() {
+        assertTrue(flyway.info().applied().length >= 1);
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from latido_replica", Integer.class));
+
+        Especialidad especialidad = new Especialidad();
+        especialidad.setNombre("Cardiologia");
+        especialidad = especialidadRepository.save(especialidad);
+        Doctor doctor = new Doctor();
+        doctor.setNombre("Ana");
+        doctor.setApellido("Torres");
+        doctor.setEspecialidad(especialidad);
+        doctorRepository.save(doctor);
+
+        assertEquals(1, doctorRepository.findAllConEspecialidad().size());
+    }
+
+    @Test
+    void unaBaseCreadaPorDdlAutoSeMigraYValidaContraLasEntidades() {
+        String url = "--spring.datasource.url=jdbc:h2:mem:migraciones_previa;MODE=MySQL;DB_CLOSE_DELAY=-1";
+        String dialecto = "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect";
+        // Como antes de las migraciones: el esquema lo deja Hibernate, con version_tabla y el indice de evento_cambio.
+        try (ConfigurableApplicationContext previa = new SpringApplicationBuilder(HospitalApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(url, dialecto, "--spring.jpa.hibernate.ddl-auto=update", "--spring.flyway.enabled=false")) {
+            assertEquals(0, previa.getBean(JdbcTemplate.class)
+                    .queryForObject("select count(*) from version_tabla", Integer.class));
+        }
+
+        try (ConfigurableApplicationContext migrada = new SpringApplicationBuilder(HospitalApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("rapido")
+                .run(url, dialecto, "--spring.jpa.hibernate.ddl-auto=validate")) {
+            Flyway flywayMigrada = migrada.getBean(Flyway.class);
+            assertEquals("3", flywayMigrada.info().current().getVersion().getVersion());
+            assertEquals(0, flywayMigrada.info().pending().length);
+        }
+    }
+}
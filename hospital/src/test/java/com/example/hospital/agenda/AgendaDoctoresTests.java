@@ -0,0 +1,82 @@
+package com.example.hospital.agenda;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.hospital.dto.DisponibilidadDoctor;
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.entity.Especialidad;
+
+class AgendaDoctoresTests {
+
+    private final AgendaDoctores agenda = new AgendaDoctores(null, null, null, null, 30, "08:00", "10:00");
+    private final LocalDate manana = LocalDate.now().plusDays(1);
+
+    @Test
+    void rechazaReservasSolapadasDelMismoDoctor() {
+        assertTrue(agenda.reservar(1, manana.atTime(9, 0)));
+        assertFalse(agenda.reservar(1, manana.atTime(9, 0)));
+        assertFalse(agenda.reservar(1, manana.atTime(9, 15)));
+        assertFalse(agenda.reservar(1, manana.atTime(8, 45)));
+        assertTrue(agenda.reservar(1, manana.atTime(9, 30)));
+        assertTrue(agenda.reservar(1, manana.atTime(8, 30)));
+        assertTrue(agenda.reservar(2, manana.atTime(9, 0)));
+
+        agenda.liberar(1, manana.atTime(9, 0));
+        assertTrue(agenda.libre(1, manana.atTime(9, 0)));
+    }
+
+    @Test
+    void reservasSimultaneasDelMismoHorarioConfirmanUnaSola() throws Exception {
+        LocalDateTime horario = manana.atTime(8, 0);
+        List<Future<Boolean>> resultados = new ArrayList<>();
+        try (ExecutorService hilos = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 64; i++) {
+                int idDoctor = i % 4;
+                resultados.add(hilos.submit(() -> agenda.reservar(idDoctor, horario)));
+            }
+        }
+        long confirmadas = 0;
+        for (Future<Boolean> resultado : resultados) {
+            confirmadas += resultado.get() ? 1 : 0;
+        }
+        assertEquals(4, confirmadas);
+    }
+
+    @Test
+    void disponibilidadExcluyeHorariosOcupados() {
+        agenda.registrarDoctor(doctor(1, 10));
+        agenda.registrarDoctor(doctor(2, 10));
+        agenda.registrarDoctor(doctor(3, 20));
+        agenda.reservar(1, manana.atTime(8, 30));
+        agenda.reservar(1, manana.atTime(9, 10));
+
+        List<DisponibilidadDoctor> disponibilidad = agenda.disponibilidad(10, manana, manana);
+
+        assertEquals(2, disponibilidad.size());
+        assertEquals(List.of(manana.atTime(8, 0)), disponibilidad.get(0).horarios());
+        assertEquals(4, disponibilidad.get(1).horarios().size());
+    }
+
+    private static Doctor doctor(int id, int idEspecialidad) {
+        Especialidad especialidad = new Especialidad();
+        especialidad.setIdEspecialidad(idEspecialidad);
+        Doctor doctor = new Doctor();
+        doctor.setIdDoctor(id);
+        doctor.setNombre("Doctor " + id);
+        doctor.setApellido("Prueba");
+        doctor.setEspecialidad(especialidad);
+        return doctor;
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.hospital.archivo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.hospital.cambios.VersionesTabla;
+
+import com.example.hospital.dto.ConsultaTimeline;
+import com.example.hospital.dto.ConsultaVista;
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.entity.Especialidad;
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.entity.Receta;
+import com.example.hospital.repository.ConsultaRepository;
+import com.example.hospital.repository.DoctorRepository;
+import com.example.hospital.repository.EspecialidadRepository;
+import com.example.hospital.repository.PacienteRepository;
+import com.example.hospital.repository.RecetaRepository;
+import com.example.hospital.service.RecetaService;
+import com.example.hospital.shard.Shards;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+
+// Base propia: archivar borra filas de consulta que las demas pruebas esperan encontrar.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:archivo_consultas;MODE=MySQL;DB_CLOSE_DELAY=-1")
+class ArchivoConsultasTests {
+
+    private static final LocalDateTime CORTE = LocalDate.of(2021, 1, 1).atStartOfDay();
+
+    @DynamicPropertySource
+    static void directorio(DynamicPropertyRegistry registry) throws IOException {
+        Path directorio = Files.createTempDirectory("archivo-consultas");
+        registry.add("hospital.archivo.directorio", directorio::toString);
+    }
+
+    @Autowired
+    private MovimientoArchivo movimientoArchivo;
+
+    @Autowired
+    private ConsultaRepository consultaRepository;
+
+    @Autowired
+    private EspecialidadRepository especialidadRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private RecetaRepository recetaRepository;
+
+    @Autowired
+    private RecetaService recetaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private ArchivoConsultas archivoConsultas;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Shards shards;
+
+    @Autowired
+    private VersionesTabla versionesTabla;
+
+    @Test
+    void lecturasCombinanTablaYArchivo() {
+        Especialidad especialidad = new Especialidad();
+        especialidad.setNombre("Cardiologia");
+        especialidad = especialidadRepository.save(especialidad);
+        Doctor doctor = new Doctor();
+        doctor.setNombre("Ana");
+        doctor.setApellido("Mora");
+        doctor.setEspecialidad(especialidad);
+        doctor = doctorRepository.save(doctor);
+        Paciente lucia = paciente("Lucia", "1700000001");
+        Paciente luis = paciente("Luis", "1700000002");
+
+        Consulta control = consulta(lucia, doctor, LocalDateTime.of(2020, 1, 10, 10, 0), "Control anual", "Hipertension", "Losartan");
+        Consulta cefalea = consulta(lucia, doctor, LocalDateTime.of(2020, 6, 1, 9, 0), "Dolor de cabeza", "Migrana", null);
+        Consulta reciente = consulta(lucia, doctor, LocalDateTime.now().minusDays(1).withNano(0), "Control", "Sano", null);
+        Consulta antigua = consulta(luis, doctor, LocalDateTime.of(2019, 3, 1, 11, 30), "Tos", null, null);
+
+        // La consulta con receta se archiva junto a su receta.
+        assertEquals(3, movimientoArchivo.archivar(CORTE));
+        assertEquals(0, movimientoArchivo.archivar(CORTE));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from consulta where fecha < ?", Integer.class, CORTE));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from receta", Integer.class));
+        assertTrue(archivoConsultas.pendientes().isEmpty());
+        assertEquals(3, registry.get("hospital.archivo.filas").gauge().value());
+
+        assertEquals(4, consultaRepository.findAll().size());
+        assertEquals(3, consultaRepository.findByPacienteIdPaciente(lucia.getIdPaciente()).size());
+        assertEquals(List.of(cefalea.getIdConsulta()), ids(consultaRepository.findByDiagnosticoContainingIgnoreCase("MIGRA")));
+
+        List<Consulta> en2020 = consultaRepository.findByFechaBetween(LocalDateTime.of(2020, 1, 1, 0, 0),
+                LocalDateTime.of(2020, 12, 31, 23, 59));
+        assertEquals(List.of(control.getIdConsulta(), cefalea.getIdConsulta()), ids(en2020));
+        Consulta archivada = en2020.getFirst();
+        assertEquals("Lucia", archivada.getPaciente().getNombre());
+        assertEquals("Cardiologia", archivada.getDoctor().getEspecialidad().getNombre());
+        assertEquals("Losartan", archivada.getReceta().getMedicamento());
+        assertNull(en2020.get(1).getReceta());
+
+        Integer idReceta = archivada.getReceta().getIdReceta();
+        Receta receta = recetaService.obtenerRecetaPorId(idReceta).orElseThrow();
+        assertEquals(control.getIdConsulta(), receta.getConsulta().getIdConsulta());
+        assertEquals("Lucia", receta.getConsulta().getPaciente().getNombre());
+        assertEquals(List.of(idReceta), recetaRepository.findAll().stream().map(Receta::getIdReceta).toList());
+        assertEquals(List.of(idReceta), recetaRepository.findByIdRecetaIn(List.of(idReceta, -1)).stream()
+                .map(Receta::getIdReceta).toList());
+
+        List<ConsultaVista> primera = consultaRepository.findPrimeraPagina(Limit.of(2));
+        assertEquals(List.of(reciente.getIdConsulta(), cefalea.getIdConsulta()),
+                primera.stream().map(ConsultaVista::idConsulta).toList());
+        ConsultaVista ultima = primera.getLast();
+        List<ConsultaVista> segunda = consultaRepository.findPaginaDespuesDe(ultima.fecha(), ultima.idConsulta(), Limit.of(2));
+        assertEquals(List.of(control.getIdConsulta(), antigua.getIdConsulta()),
+                segunda.stream().map(ConsultaVista::idConsulta).toList());
+
+        List<ConsultaTimeline> timeline = consultaRepository.findTimeline(lucia.getIdPaciente(), Limit.of(10));
+        assertEquals(List.of(reciente.getIdConsulta(), cefalea.getIdConsulta(), control.getIdConsulta()),
+                timeline.stream().map(ConsultaTimeline::idConsulta).toList());
+        assertEquals("Losartan", timeline.getLast().medicamento());
+
+        assertEquals(Set.copyOf(List.of(control.getIdConsulta(), reciente.getIdConsulta())), Set.copyOf(ids(
+                consultaRepository.findByIdConsultaIn(List.of(control.getIdConsulta(), reciente.getIdConsulta())))));
+
+        double descartados = registry.get("hospital.archivo.segmentos.descartados").counter().count();
+        assertTrue(consultaRepository.findByFechaBetween(LocalDateTime.of(2022, 1, 1, 0, 0),
+                LocalDateTime.of(2022, 12, 31, 0, 0)).isEmpty());
+        assertEquals(descartados + 1, registry.get("hospital.archivo.segmentos.descartados").counter().count());
+    }
+
+    @Test
+    void alArrancarLosSegmentosPendientesSeReconcilianConLaTabla(@TempDir Path directorio) throws IOException {
+        Especialidad especialidad = new Especialidad();
+        especialidad.setNombre("Dermatologia");
+        Doctor doctor = new Doctor();
+        doctor.setNombre("Raul");
+        doctor.setApellido("Pinto");
+        doctor.setEspecialidad(especialidadRepository.save(especialidad));
+        doctor = doctorRepository.save(doctor);
+        Paciente paciente = paciente("Marta", "1700000003");
+        // Posterior al corte: la otra prueba archiva sobre la misma base.
+        LocalDateTime fecha = LocalDateTime.of(2024, 2, 3, 10, 0);
+        Consulta enTabla = consulta(paciente, doctor, fecha, "Lunar", null, null);
+
+        // Uno cuyo borrado no confirmo (la fila sigue en la tabla) y otro cuyo renombre no llego a hacerse.
+        SegmentoConsultas.escribir(directorio.resolve("consultas-1.seg" + SegmentoConsultas.PENDIENTE), List.of(
+                new ConsultaArchivada(enTabla.getIdConsulta(), 0L, fecha, "Lunar", null, paciente.getIdPaciente(),
+                        doctor.getIdDoctor(), null, null, null, null)));
+        SegmentoConsultas.escribir(directorio.resolve("consultas-2.seg" + SegmentoConsultas.PENDIENTE), List.of(
+                new ConsultaArchivada(Integer.MAX_VALUE - 1, 0L, fecha, "Acne", null, paciente.getIdPaciente(),
+                        doctor.getIdDoctor(), null, null, null, null)));
+        ArchivoConsultas archivo = new ArchivoConsultas(directorio.toString(), new SimpleMeterRegistry());
+        List<Integer> recorridas = new ArrayList<>();
+        archivo.recorrer(filas -> filas.forEach(c -> recorridas.add(c.idConsulta())));
+        assertEquals(List.of(), recorridas);
+
+        new MovimientoArchivo(archivo, entityManager, jdbcTemplate, transactionTemplate, shards, versionesTabla,
+                false, 365, 100).reconciliar();
+
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            assertEquals(List.of("consultas-2.seg"), archivos.map(a -> a.getFileName().toString()).toList());
+        }
+        archivo.recorrer(filas -> filas.forEach(c -> recorridas.add(c.idConsulta())));
+        assertEquals(List.of(Integer.MAX_VALUE - 1), recorridas);
+        consultaRepository.delete(enTabla);
+    }
+
+    @Test
+    void segmentoConservaTextosNulosYVacios(@TempDir Path directorio) {
+        List<ConsultaArchivada> filas = List.of(
+                new ConsultaArchivada(7, 2L, LocalDateTime.of(2018, 5, 4, 8, 15, 30, 123_456_000), "Revisi\u00f3n", null,
+                        3, 9, 11, 0L, "Ibuprofeno 400 mg", ""),
+                new ConsultaArchivada(5, 0L, LocalDateTime.of(2018, 5, 4, 8, 15, 30, 123_456_000), "", "\u00f1and\u00fa",
+                        4, 9, null, null, null, null));
+
+        SegmentoConsultas segmento = SegmentoConsultas.escribir(directorio.resolve("prueba.seg"), filas);
+        List<ConsultaArchivada> leidas = new ArrayList<>();
+        segmento.leer(FiltroArchivo.todas(), leidas::add);
+
+        // Mismo instante: el id desempata el orden.
+        assertEquals(List.of(filas.get(1), filas.get(0)), leidas);
+        assertTrue(segmento.puedeContener(FiltroArchivo.dePaciente(4)));
+        assertFalse(segmento.puedeContener(FiltroArchivo.dePaciente(5)));
+        assertFalse(segmento.puedeContener(FiltroArchivo.deDoctor(8)));
+        assertFalse(segmento.puedeContener(FiltroArchivo.entre(LocalDateTime.of(2019, 1, 1, 0, 0), null)));
+        assertFalse(Files.exists(directorio.resolve("prueba.seg" + SegmentoConsultas.TEMPORAL)));
+    }
+
+    private Paciente paciente(String nombre, String cedula) {
+        Paciente paciente = new Paciente();
+        paciente.setNombre(nombre);
+        paciente.setApellido("Vera");
+        paciente.setEdad(40);
+        paciente.setCedula(cedula);
+        return pacienteRepository.save(paciente);
+    }
+
+    private Consulta consulta(Paciente paciente, Doctor doctor, LocalDateTime fecha, String motivo, String diagnostico,
+            String medicamento) {
+        Consulta consulta = new Consulta();
+        consulta.setPaciente(paciente);
+        consulta.setDoctor(doctor);
+        consulta.setFecha(fecha);
+        consulta.setMotivo(motivo);
+        consulta.setDiagnostico(diagnostico);
+        if (medicamento != null) {
+            Receta receta = new Receta();
+            receta.setMedicamento(medicamento);
+            receta.setDosis("1 diaria");
+            receta.setConsulta(consulta);
+            consulta.setReceta(receta);
+        }
+        return consultaRepository.save(consulta);
+    }
+
+    private static List<Integer> ids(List<Consulta> consultas) {
+        return consultas.stream().map(Consulta::getIdConsulta).toList();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.hospital.auditoria;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AuditoriaTests {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void productoresConcurrentesRotanSegmentosSinPerderRegistros() throws Exception {
+        // 100 registros por segmento: 8 hilos x 1000 registros fuerzan muchas rotaciones.
+        Auditoria auditoria = new Auditoria(true, directorio.toString(), 100 * SegmentoAuditoria.TAMANIO_REGISTRO);
+        Instant inicio = Instant.now();
+        try (ExecutorService hilos = Executors.newFixedThreadPool(8)) {
+            for (int h = 0; h < 8; h++) {
+                int idPaciente = h + 1;
+                hilos.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        auditoria.registrar(EntidadAuditada.PACIENTE, AccionAuditada.LEER, i, idPaciente);
+                    }
+                });
+            }
+        }
+        auditoria.cerrar();
+        Instant fin = Instant.now().plusMillis(1);
+
+        List<RegistroAuditoria> todos = new ArrayList<>();
+        ConsultaAuditoria.recorrer(directorio, null, inicio, fin, todos::add);
+        assertEquals(8000, todos.size());
+
+        List<RegistroAuditoria> deUno = new ArrayList<>();
+        ConsultaAuditoria.recorrer(directorio, 3, inicio, fin, deUno::add);
+        assertEquals(1000, deUno.size());
+        assertTrue(deUno.stream().allMatch(r -> r.idPaciente() == 3 && r.entidad() == EntidadAuditada.PACIENTE));
+
+        try (Stream<Path> segmentos = Files.list(directorio)) {
+            assertTrue(segmentos.count() >= 80);
+        }
+    }
+
+    @Test
+    void filtraPorRangoDeTiempo() {
+        Auditoria auditoria = new Auditoria(true, directorio.toString(), 1 << 16);
+        auditoria.registrar(EntidadAuditada.RECETA, AccionAuditada.CREAR, 10, 5);
+        auditoria.cerrar();
+
+        List<RegistroAuditoria> antes = new ArrayList<>();
+        ConsultaAuditoria.recorrer(directorio, 5, Instant.EPOCH, Instant.now().minusSeconds(3600), antes::add);
+        assertEquals(0, antes.size());
+
+        List<RegistroAuditoria> ahora = new ArrayList<>();
+        ConsultaAuditoria.recorrer(directorio, 5, Instant.EPOCH, Instant.now().plusSeconds(1), ahora::add);
+        assertEquals(1, ahora.size());
+        assertEquals(AccionAuditada.CREAR, ahora.getFirst().accion());
+        assertEquals(10, ahora.getFirst().idEntidad());
+    }
+
+    @Test
+    void empaquetaDireccionesIpv4() {
+        assertEquals(0x7F000001, Auditoria.ipv4("127.0.0.1"));
+        assertEquals(0, Auditoria.ipv4("0:0:0:0:0:0:0:1"));
+        assertEquals(0, Auditoria.ipv4("300.1.1.1"));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.hospital.cambios;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.hospital.entity.EventoCambio;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:cambios;MODE=MySQL;DB_CLOSE_DELAY=-1")
+class LectorCambiosTests {
+
+    @Autowired
+    private RegistroCambios registroCambios;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void vaciar() {
+        jdbcTemplate.update("delete from evento_cambio");
+    }
+
+    @Test
+    void unHuecoRecienteCortaElLote() {
+        LocalDateTime ahora = LocalDateTime.now();
+        insertar(1, ahora);
+        insertar(2, ahora);
+        insertar(4, ahora);
+
+        LectorCambios lector = registroCambios.lector(0);
+        assertEquals(List.of(1L, 2L), secuencias(lector.leer(10)));
+        assertEquals(2, lector.ultimo());
+
+        insertar(3, ahora);
+        assertEquals(List.of(3L, 4L), secuencias(lector.leer(10)));
+        assertEquals(4, lector.ultimo());
+    }
+
+    @Test
+    void unHuecoViejoSeSaltaYSuEventoTardioSeEntregaDespues() {
+        LocalDateTime antes = LocalDateTime.now().minusSeconds(RegistroCambios.ESPERA_HUECO_MS / 1000 + 5);
+        insertar(11, antes);
+        insertar(13, antes);
+
+        LectorCambios lector = registroCambios.lector(10);
+        assertEquals(List.of(11L, 13L), secuencias(lector.leer(10)));
+
+        // La transaccion que tenia la secuencia 12 confirma ahora.
+        insertar(12, LocalDateTime.now());
+        assertEquals(List.of(12L), secuencias(lector.leer(10)));
+        assertEquals(13, lector.ultimo());
+        assertEquals(List.of(), lector.leer(10));
+    }
+
+    @Test
+    void laPurgaBorraSoloLoVencido() {
+        insertar(21, LocalDateTime.now().minusDays(RegistroCambios.DIAS_RETENCION + 1));
+        insertar(22, LocalDateTime.now());
+
+        registroCambios.purgar();
+
+        assertEquals(List.of(22L), jdbcTemplate.queryForList("select secuencia from evento_cambio", Long.class));
+    }
+
+    private void insertar(long secuencia, LocalDateTime fecha) {
+        jdbcTemplate.update("""
+                insert into evento_cambio (secuencia, tabla, id_entidad, operacion, fecha) values (?, 'paciente', 1, 'CREAR', ?)
+                """, secuencia, Timestamp.valueOf(fecha));
+    }
+
+    private static List<Long> secuencias(List<EventoCambio> eventos) {
+        return eventos.stream().map(EventoCambio::getSecuencia).toList();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.hospital.carga;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.threads.virtual.enabled=false")
+class CargaHilosPlataformaTests extends CargaHttpBase {
+
+    @Override
+    protected String modo() {
+        return "plataforma";
+    }
+}
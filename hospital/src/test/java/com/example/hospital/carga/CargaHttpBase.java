@@ -0,0 +1,147 @@
+package com.example.hospital.carga;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.entity.Especialidad;
+import com.example.hospital.entity.Historial;
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.repository.ConsultaRepository;
+import com.example.hospital.repository.DoctorRepository;
+import com.example.hospital.repository.EspecialidadRepository;
+import com.example.hospital.repository.PacienteRepository;
+
+/**
+ * Mide throughput y p99 de los endpoints de listado. Se ejecuta solo con el perfil Maven load-test:
+ * mvn -Pload-test test
+ */
+@Tag("carga")
+abstract class CargaHttpBase {
+
+    private static final int CONCURRENCIA = 200;
+    private static final int PETICIONES = 5_000;
+    private static final int CALENTAMIENTO = 500;
+    private static final List<String> RUTAS = List.of("/api/doctor", "/api/paciente", "/api/consulta?size=50");
+
+    @Value("${local.server.port}")
+    private int puerto;
+
+    @Autowired
+    private EspecialidadRepository especialidadRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private ConsultaRepository consultaRepository;
+
+    protected abstract String modo();
+
+    @BeforeEach
+    void cargarDatos() {
+        if (consultaRepository.count() > 0) {
+            return;
+        }
+        Especialidad especialidad = new Especialidad();
+        especialidad.setNombre("Medicina general");
+        especialidadRepository.save(especialidad);
+        for (int i = 0; i < 50; i++) {
+            Doctor doctor = new Doctor();
+            doctor.setNombre("Doctor " + i);
+            doctor.setApellido("Carga");
+            doctor.setEspecialidad(especialidad);
+            doctorRepository.save(doctor);
+
+            Paciente paciente = new Paciente();
+            paciente.setNombre("Paciente " + i);
+            paciente.setApellido("Carga");
+            paciente.setEdad(40);
+            paciente.setCedula(String.format("%010d", i));
+            Historial historial = new Historial();
+            historial.setFecha(LocalDate.now());
+            historial.setPaciente(paciente);
+            paciente.setHistorial(historial);
+            pacienteRepository.save(paciente);
+
+            Consulta consulta = new Consulta();
+            consulta.setFecha(LocalDateTime.now().minusHours(i));
+            consulta.setMotivo("Control");
+            consulta.setPaciente(paciente);
+            consulta.setDoctor(doctor);
+            consultaRepository.save(consulta);
+        }
+    }
+
+    @Test
+    void medirListados() throws Exception {
+        HttpClient cliente = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        for (String ruta : RUTAS) {
+            URI uri = URI.create("http://localhost:" + puerto + ruta);
+            ejecutar(cliente, uri, CALENTAMIENTO);
+            long inicio = System.nanoTime();
+            long[] latencias = ejecutar(cliente, uri, PETICIONES);
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            Arrays.sort(latencias);
+            System.out.printf("[%s] %-24s %8.0f req/s  p50=%6.2f ms  p99=%6.2f ms%n", modo(), ruta,
+                    PETICIONES / segundos, latencias[PETICIONES / 2] / 1e6, latencias[PETICIONES * 99 / 100] / 1e6);
+        }
+    }
+
+    private long[] ejecutar(HttpClient cliente, URI uri, int peticiones) throws Exception {
+        long[] latencias = new long[peticiones];
+        AtomicInteger errores = new AtomicInteger();
+        Semaphore permisos = new Semaphore(CONCURRENCIA);
+        HttpRequest peticion = HttpRequest.newBuilder(uri).GET().build();
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> tareas = new ArrayList<>(peticiones);
+            for (int i = 0; i < peticiones; i++) {
+                int indice = i;
+                permisos.acquire();
+                tareas.add(hilos.submit(() -> {
+                    try {
+                        long inicio = System.nanoTime();
+                        HttpResponse<Void> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.discarding());
+                        latencias[indice] = System.nanoTime() - inicio;
+                        if (respuesta.statusCode() != 200) {
+                            errores.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errores.incrementAndGet();
+                    } finally {
+                        permisos.release();
+                    }
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        }
+        assertEquals(0, errores.get(), "Peticiones fallidas contra " + uri);
+        return latencias;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.hospital.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.hospital.cambios.VersionesTabla;
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.entity.Especialidad;
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.repository.ConsultaRepository;
+import com.example.hospital.repository.DoctorRepository;
+import com.example.hospital.repository.EspecialidadRepository;
+import com.example.hospital.repository.PacienteRepository;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class CondicionalesTests {
+
+    @Value("${local.server.port}")
+    private int puerto;
+
+    @Autowired
+    private VersionesTabla versionesTabla;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private EspecialidadRepository especialidadRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private ConsultaRepository consultaRepository;
+
+    private final HttpClient cliente = HttpClient.newHttpClient();
+
+    @Test
+    void elListadoResponde304HastaQueOtraInstanciaCambiaLaTabla() throws Exception {
+        versionesTabla.sincronizar();
+        HttpResponse<String> primera = enviar(get("/api/paciente").build());
+        assertEquals(200, primera.statusCode());
+        String etag = primera.headers().firstValue("ETag").orElseThrow();
+
+        assertEquals(304, enviar(get("/api/paciente").header("If-None-Match", etag).build()).statusCode());
+
+        // Otra instancia escribio por su cuenta: solo queda rastro en version_tabla.
+        jdbcTemplate.update("""
+                insert into version_tabla (tabla, version, modificado) values ('paciente', 1, ?)
+                on duplicate key update version = version + 1
+                """, System.currentTimeMillis());
+        versionesTabla.sincronizar();
+
+        HttpResponse<String> cambiada = enviar(get("/api/paciente").header("If-None-Match", etag).build());
+        assertEquals(200, cambiada.statusCode());
+        assertNotEquals(etag, cambiada.headers().firstValue("ETag").orElseThrow());
+    }
+
+    @Test
+    void otraInstanciaOUnReinicioDanElMismoEtag() {
+        versionesTabla.sincronizar();
+        VersionesTabla otra = new VersionesTabla(null, jdbcTemplate);
+        otra.sincronizar();
+
+        assertEquals(versionesTabla.etag(VersionesTabla.PACIENTE, VersionesTabla.CONSULTA),
+                otra.etag(VersionesTabla.PACIENTE, VersionesTabla.CONSULTA));
+    }
+
+    @Test
+    void unIfMatchViejoResponde412() throws Exception {
+        HttpResponse<String> creado = enviar(HttpRequest.newBuilder(uri("/api/paciente"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(paciente("Elena")))
+                .build());
+        assertEquals(201, creado.statusCode());
+        String ubicacion = creado.headers().firstValue("Location").orElseThrow();
+        String etagInicial = creado.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<String> actualizado = enviar(put(ubicacion, "Elena Maria").header("If-Match", etagInicial).build());
+        assertEquals(200, actualizado.statusCode());
+        assertNotEquals(etagInicial, actualizado.headers().firstValue("ETag").orElseThrow());
+
+        assertEquals(412, enviar(put(ubicacion, "Elena Sofia").header("If-Match", etagInicial).build()).statusCode());
+    }
+
+    @Test
+    void unaRecetaConSoloElIdDeLaConsultaCambiaLaVersionDelPaciente() throws Exception {
+        Paciente paciente = new Paciente();
+        paciente.setNombre("Ana");
+        paciente.setApellido("Receta");
+        paciente.setEdad(50);
+        paciente.setCedula("1900000002");
+        paciente = pacienteRepository.save(paciente);
+        Especialidad especialidad = new Especialidad();
+        especialidad.setNombre("Condicional");
+        Doctor doctor = new Doctor();
+        doctor.setNombre("Luis");
+        doctor.setApellido("Receta");
+        doctor.setEspecialidad(especialidadRepository.save(especialidad));
+        Consulta consulta = new Consulta();
+        consulta.setPaciente(paciente);
+        consulta.setDoctor(doctorRepository.save(doctor));
+        consulta.setFecha(LocalDateTime.of(2035, 1, 1, 9, 0));
+        consulta.setMotivo("Control");
+        consulta = consultaRepository.save(consulta);
+        long antes = versionesTabla.versionPaciente(paciente.getIdPaciente());
+
+        HttpResponse<String> creada = enviar(HttpRequest.newBuilder(uri("/api/receta"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("""
+                        {"medicamento":"Ibuprofeno","dosis":"400 mg","consulta":{"idConsulta":%d}}
+                        """.formatted(consulta.getIdConsulta())))
+                .build());
+        assertEquals(201, creada.statusCode());
+        assertNotEquals(antes, versionesTabla.versionPaciente(paciente.getIdPaciente()));
+    }
+
+    private static String paciente(String nombre) {
+        return """
+                {"nombre":"%s","apellido":"Condicional","edad":33,"cedula":"1900000001"}
+                """.formatted(nombre);
+    }
+
+    private HttpRequest.Builder get(String ruta) {
+        return HttpRequest.newBuilder(uri(ruta)).GET();
+    }
+
+    private HttpRequest.Builder put(String ruta, String nombre) {
+        return HttpRequest.newBuilder(uri(ruta))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(paciente(nombre)));
+    }
+
+    private URI uri(String ruta) {
+        return URI.create("http://localhost:" + puerto + ruta);
+    }
+
+    private HttpResponse<String> enviar(HttpRequest solicitud) throws Exception {
+        return cliente.send(solicitud, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.hospital.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.entity.Especialidad;
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.repository.DoctorRepository;
+import com.example.hospital.repository.EspecialidadRepository;
+import com.example.hospital.repository.PacienteRepository;
+
+import tools.jackson.databind.ObjectMapper;
+
+// Cola de dos y bloqueos cortos: con punto_control bloqueado el consumidor no avanza y la cola se llena.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:escritura_diferida;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=300",
+        "hospital.escritura.consultas.habilitada=true",
+        "hospital.escritura.consultas.capacidad=2"
+})
+class EscrituraDiferidaTests {
+
+    @DynamicPropertySource
+    static void diario(DynamicPropertyRegistry registry) throws IOException {
+        String diario = Files.createTempDirectory("escritura-diferida").resolve("consultas.diario").toString();
+        registry.add("hospital.escritura.consultas.diario", () -> diario);
+    }
+
+    @Value("${local.server.port}")
+    private int puerto;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EspecialidadRepository especialidadRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    private final HttpClient cliente = HttpClient.newHttpClient();
+
+    @Test
+    void sinPreferResponde201YConRespondAsync202() throws Exception {
+        Paciente paciente = paciente("2100000001");
+        Doctor doctor = doctor("Respuestas");
+        LocalDateTime horario = LocalDateTime.of(2033, 3, 1, 9, 0);
+
+        HttpResponse<String> creada = crear(paciente, doctor, horario, false);
+        assertEquals(201, creada.statusCode());
+        assertTrue(objectMapper.readTree(creada.body()).get("idConsulta").asInt() > 0);
+
+        HttpResponse<String> aceptada = crear(paciente, doctor, horario.plusHours(1), true);
+        assertEquals(202, aceptada.statusCode());
+        assertTrue(objectMapper.readTree(aceptada.body()).get("numero").asLong() > 0);
+        esperarConsultas(paciente, 2);
+
+        // El horario ya esta ocupado: se rechaza antes de encolar.
+        assertEquals(409, crear(paciente, doctor, horario, true).statusCode());
+    }
+
+    @Test
+    void conLaColaLlenaResponde503YLoAceptadoSeConfirmaDespues() throws Exception {
+        Paciente paciente = paciente("2100000002");
+        Doctor doctor = doctor("Cola");
+        LocalDateTime horario = LocalDateTime.of(2033, 4, 1, 9, 0);
+        assertEquals(201, crear(paciente, doctor, horario, false).statusCode());
+
+        List<Integer> estados = new ArrayList<>();
+        try (Connection conexion = dataSource.getConnection()) {
+            conexion.setAutoCommit(false);
+            try (Statement sentencia = conexion.createStatement()) {
+                sentencia.executeQuery("select posicion from punto_control for update").close();
+            }
+            for (int i = 1; i <= 4; i++) {
+                estados.add(crear(paciente, doctor, horario.plusHours(i), true).statusCode());
+            }
+            conexion.rollback();
+        }
+
+        assertTrue(estados.contains(503), estados.toString());
+        long aceptadas = estados.stream().filter(estado -> estado == 202).count();
+        assertEquals(4, aceptadas + estados.stream().filter(estado -> estado == 503).count(), estados.toString());
+        esperarConsultas(paciente, 1 + aceptadas);
+    }
+
+    private HttpResponse<String> crear(Paciente paciente, Doctor doctor, LocalDateTime fecha, boolean asincrona)
+            throws Exception {
+        String cuerpo = """
+                {"fecha":"%s","motivo":"Control","paciente":{"idPaciente":%d},"doctor":{"idDoctor":%d}}
+                """.formatted(fecha, paciente.getIdPaciente(), doctor.getIdDoctor());
+        HttpRequest.Builder solicitud = HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + "/api/consulta"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo));
+        if (asincrona) {
+            solicitud.header("Prefer", "respond-async");
+        }
+        return cliente.send(solicitud.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private void esperarConsultas(Paciente paciente, long esperadas) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 20_000;
+        long actuales = 0;
+        while (System.currentTimeMillis() < limite) {
+            actuales = jdbcTemplate.queryForObject("select count(*) from consulta where id_paciente = ?", Long.class,
+                    paciente.getIdPaciente());
+            if (actuales == esperadas) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        assertEquals(esperadas, actuales);
+    }
+
+    private Paciente paciente(String cedula) {
+        Paciente paciente = new Paciente();
+        paciente.setNombre("Ines");
+        paciente.setApellido("Diferida");
+        paciente.setEdad(61);
+        paciente.setCedula(cedula);
+        return pacienteRepository.save(paciente);
+    }
+
+    private Doctor doctor(String apellido) {
+        Especialidad especialidad = new Especialidad();
+        especialidad.setNombre("Diferida " + apellido);
+        Doctor doctor = new Doctor();
+        doctor.setNombre("Tomas");
+        doctor.setApellido(apellido);
+        doctor.setEspecialidad(especialidadRepository.save(especialidad));
+        return doctorRepository.save(doctor);
+    }
+}
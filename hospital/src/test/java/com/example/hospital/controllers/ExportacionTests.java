@@ -0,0 +1,137 @@
+package com.example.hospital.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.entity.Especialidad;
+import com.example.hospital.entity.Historial;
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.entity.Receta;
+import com.example.hospital.repository.ConsultaRepository;
+import com.example.hospital.repository.DoctorRepository;
+import com.example.hospital.repository.EspecialidadRepository;
+import com.example.hospital.repository.PacienteRepository;
+import com.example.hospital.repository.RecetaRepository;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+// Fetch size pequenio: el recorrido cruza varios bloques de filas.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "hospital.streams.fetch-size=7")
+class ExportacionTests {
+
+    private static final int FILAS = 30;
+
+    @Value("${local.server.port}")
+    private int puerto;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EspecialidadRepository especialidadRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private ConsultaRepository consultaRepository;
+
+    @Autowired
+    private RecetaRepository recetaRepository;
+
+    @Test
+    void exportaPacientesYConsultasUnaFilaPorLinea() throws Exception {
+        Especialidad especialidad = new Especialidad();
+        especialidad.setNombre("Exportacion");
+        especialidad = especialidadRepository.save(especialidad);
+        Doctor doctor = new Doctor();
+        doctor.setNombre("Doctor");
+        doctor.setApellido("Exportacion");
+        doctor.setEspecialidad(especialidad);
+        doctor = doctorRepository.save(doctor);
+
+        Map<Integer, String> cedulas = new HashMap<>();
+        Set<Integer> consultas = new HashSet<>();
+        for (int i = 0; i < FILAS; i++) {
+            Paciente paciente = new Paciente();
+            paciente.setNombre("Paciente");
+            paciente.setApellido("Exportacion");
+            paciente.setEdad(40);
+            paciente.setCedula("EX" + String.format("%08d", i));
+            Historial historial = new Historial();
+            historial.setFecha(LocalDate.now());
+            historial.setDescripcion("Historial " + i);
+            historial.setPaciente(paciente);
+            paciente.setHistorial(historial);
+            paciente = pacienteRepository.save(paciente);
+            cedulas.put(paciente.getIdPaciente(), paciente.getCedula());
+
+            Consulta consulta = new Consulta();
+            consulta.setFecha(LocalDateTime.now().minusDays(i));
+            consulta.setMotivo("Exportacion " + i);
+            consulta.setPaciente(paciente);
+            consulta.setDoctor(doctor);
+            consulta = consultaRepository.save(consulta);
+            Receta receta = new Receta();
+            receta.setMedicamento("Paracetamol");
+            receta.setConsulta(consulta);
+            recetaRepository.save(receta);
+            consultas.add(consulta.getIdConsulta());
+        }
+
+        Map<Integer, String> exportados = new HashMap<>();
+        for (JsonNode fila : exportar("/api/paciente/export")) {
+            if (cedulas.containsKey(fila.get("idPaciente").asInt())) {
+                assertTrue(fila.get("historialDescripcion").asString().startsWith("Historial "));
+                exportados.put(fila.get("idPaciente").asInt(), fila.get("cedula").asString());
+            }
+        }
+        assertEquals(cedulas, exportados);
+
+        Set<Integer> consultasExportadas = new HashSet<>();
+        for (JsonNode fila : exportar("/api/consulta/export")) {
+            if (consultas.contains(fila.get("idConsulta").asInt())) {
+                assertEquals("Paracetamol", fila.get("receta").get("medicamento").asString());
+                assertEquals("Exportacion", fila.get("doctor").get("especialidad").get("nombre").asString());
+                consultasExportadas.add(fila.get("idConsulta").asInt());
+            }
+        }
+        assertEquals(consultas, consultasExportadas);
+    }
+
+    private List<JsonNode> exportar(String ruta) throws Exception {
+        HttpResponse<Stream<String>> respuesta = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + ruta)).GET().build(),
+                HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, respuesta.statusCode());
+        assertTrue(respuesta.headers().firstValue("Content-Type").orElseThrow().startsWith("application/x-ndjson"));
+        try (Stream<String> lineas = respuesta.body()) {
+            return lineas.map(objectMapper::readTree).toList();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.hospital.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.repository.PacienteRepository;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:guardado_lote;MODE=MySQL;DB_CLOSE_DELAY=-1")
+class GuardadoLoteTests {
+
+    @Value("${local.server.port}")
+    private int puerto;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    private final HttpClient cliente = HttpClient.newHttpClient();
+
+    @Test
+    void unHistorialRepetidoResponde409() throws Exception {
+        Paciente paciente = new Paciente();
+        paciente.setNombre("Lucia");
+        paciente.setApellido("Lote");
+        paciente.setEdad(40);
+        paciente.setCedula("2200000001");
+        int id = pacienteRepository.save(paciente).getIdPaciente();
+
+        String historial = """
+                {"descripcion":"Alta","fecha":"2034-01-02","paciente":{"idPaciente":%d,"version":0}}
+                """.formatted(id);
+        assertEquals(409, enviar("/api/historial/batch", "[" + historial + "," + historial + "]").statusCode());
+    }
+
+    @Test
+    void unDatoRechazadoPorLaBaseResponde400YUnIdInexistente404() throws Exception {
+        assertEquals(400, enviar("/api/especialidad/batch", "[{\"descripcion\":\"Sin nombre\"}]").statusCode());
+        assertEquals(404, enviar("/api/especialidad/batch",
+                "[{\"idEspecialidad\":999999,\"nombre\":\"Fantasma\"}]").statusCode());
+    }
+
+    private HttpResponse<String> enviar(String ruta, String cuerpo) throws Exception {
+        return cliente.send(HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + ruta))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(cuerpo))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
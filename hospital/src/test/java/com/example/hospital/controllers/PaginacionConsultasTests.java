@@ -0,0 +1,119 @@
+package com.example.hospital.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.entity.Especialidad;
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.repository.ConsultaRepository;
+import com.example.hospital.repository.DoctorRepository;
+import com.example.hospital.repository.EspecialidadRepository;
+import com.example.hospital.repository.PacienteRepository;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+// Base propia: la prueba recorre todas las consultas y cuenta exactamente las suyas.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:paginacion_consultas;MODE=MySQL;DB_CLOSE_DELAY=-1")
+class PaginacionConsultasTests {
+
+    @Value("${local.server.port}")
+    private int puerto;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private EspecialidadRepository especialidadRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private ConsultaRepository consultaRepository;
+
+    private final HttpClient cliente = HttpClient.newHttpClient();
+
+    @Test
+    void elCursorRecorreTodasLasConsultasDeLaMasRecienteALaMasAntigua() throws Exception {
+        List<Integer> esperadas = new ArrayList<>();
+        LocalDateTime fecha = LocalDateTime.of(2031, 3, 1, 8, 0);
+        for (int i = 0; i < 5; i++) {
+            esperadas.add(0, crearConsulta(fecha.plusHours(i)).getIdConsulta());
+        }
+
+        JsonNode primera = pagina("/api/consulta?size=2");
+        assertEquals(List.of(esperadas.get(0), esperadas.get(1)), ids(primera));
+        assertEquals(2, primera.get("tamanio").asInt());
+        String cursor = primera.get("siguienteCursor").asString();
+
+        JsonNode segunda = pagina("/api/consulta?size=2&cursor=" + cursor);
+        assertEquals(List.of(esperadas.get(2), esperadas.get(3)), ids(segunda));
+
+        // La ultima pagina no trae cursor.
+        JsonNode tercera = pagina("/api/consulta?size=2&cursor=" + segunda.get("siguienteCursor").asString());
+        assertEquals(List.of(esperadas.get(4)), ids(tercera));
+        assertTrue(tercera.get("siguienteCursor").isNull());
+    }
+
+    @Test
+    void unCursorInvalidoResponde400() throws Exception {
+        assertEquals(400, enviar("/api/consulta?cursor=no-es-un-cursor").statusCode());
+    }
+
+    private Consulta crearConsulta(LocalDateTime fecha) {
+        Especialidad especialidad = new Especialidad();
+        especialidad.setNombre("Paginacion");
+        Doctor doctor = new Doctor();
+        doctor.setNombre("Eva");
+        doctor.setApellido("Cursor");
+        doctor.setEspecialidad(especialidadRepository.save(especialidad));
+        Paciente paciente = new Paciente();
+        paciente.setNombre("Ivan");
+        paciente.setApellido("Cursor");
+        paciente.setEdad(29);
+        paciente.setCedula(Long.toString(fecha.getHour() + 1_500_000_000L));
+        Consulta consulta = new Consulta();
+        consulta.setPaciente(pacienteRepository.save(paciente));
+        consulta.setDoctor(doctorRepository.save(doctor));
+        consulta.setFecha(fecha);
+        consulta.setMotivo("Control");
+        return consultaRepository.save(consulta);
+    }
+
+    private JsonNode pagina(String ruta) throws Exception {
+        HttpResponse<String> respuesta = enviar(ruta);
+        assertEquals(200, respuesta.statusCode());
+        return objectMapper.readTree(respuesta.body());
+    }
+
+    private static List<Integer> ids(JsonNode pagina) {
+        List<Integer> ids = new ArrayList<>();
+        pagina.get("contenido").forEach(consulta -> ids.add(consulta.get("idConsulta").asInt()));
+        return ids;
+    }
+
+    private HttpResponse<String> enviar(String ruta) throws Exception {
+        return cliente.send(HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + ruta)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
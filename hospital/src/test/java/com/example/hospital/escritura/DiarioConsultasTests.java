@@ -0,0 +1,57 @@
+package com.example.hospital.escritura;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+class DiarioConsultasTests {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void releeLoEscritoYDescartaUnaLineaIncompleta() throws Exception {
+        Path archivo = directorio.resolve("consultas.diario");
+        try (DiarioConsultas diario = new DiarioConsultas(archivo, objectMapper)) {
+            diario.agregar(pendiente(1));
+            diario.agregar(pendiente(2));
+            diario.sincronizar(2);
+        }
+        Files.writeString(archivo, "{\"numero\":3,\"fech", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (DiarioConsultas diario = new DiarioConsultas(archivo, objectMapper)) {
+            List<ConsultaPendiente> entradas = diario.leer();
+            assertEquals(List.of(pendiente(1), pendiente(2)), entradas);
+            assertEquals(2, diario.ultimoEscrito());
+        }
+    }
+
+    @Test
+    void truncarDejaElDiarioVacio() {
+        Path archivo = directorio.resolve("consultas.diario");
+        try (DiarioConsultas diario = new DiarioConsultas(archivo, objectMapper)) {
+            diario.agregar(pendiente(1));
+            diario.truncar();
+            assertEquals(0, diario.tamanio());
+            diario.agregar(pendiente(2));
+            assertEquals(List.of(pendiente(2)), diario.leer());
+        }
+    }
+
+    private static ConsultaPendiente pendiente(long numero) {
+        return new ConsultaPendiente(numero, LocalDateTime.of(2024, 3, 1, 9, 30), "Control", null, 7, 3);
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.hospital.escritura;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.hospital.agenda.AgendaDoctores;
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.entity.Especialidad;
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.entity.PuntoControl;
+import com.example.hospital.repository.DoctorRepository;
+import com.example.hospital.repository.EspecialidadRepository;
+import com.example.hospital.repository.PacienteRepository;
+import com.example.hospital.repository.PuntoControlRepository;
+import com.example.hospital.service.ConsultaService;
+import com.example.hospital.shard.Shards;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import tools.jackson.databind.ObjectMapper;
+
+// Instancias propias sobre una base propia; la del contexto queda deshabilitada y no toca punto_control.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:escritura_consultas;MODE=MySQL;DB_CLOSE_DELAY=-1")
+class EscrituraConsultasTests {
+
+    @TempDir
+    Path directorio;
+
+    @Autowired
+    private ConsultaService consultaService;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private EspecialidadRepository especialidadRepository;
+
+    @Autowired
+    private AgendaDoctores agendaDoctores;
+
+    @Autowired
+    private PuntoControlRepository puntoControlRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Shards shards;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void alArrancarReprocesaPorLotesSoloLoNoConfirmado() throws Exception {
+        Paciente paciente = paciente("2000000001");
+        Doctor doctor = doctor("Diario");
+        Path ruta = directorio.resolve("consultas.diario");
+        try (DiarioConsultas diario = new DiarioConsultas(ruta, objectMapper)) {
+            for (long numero = 1; numero <= 5; numero++) {
+                diario.agregar(new ConsultaPendiente(numero, LocalDateTime.of(2032, 1, 5, 8, 0).plusHours(numero),
+                        "Diario " + numero, null, paciente.getIdPaciente(), doctor.getIdDoctor()));
+            }
+            diario.sincronizar(5);
+        }
+        puntoControlRepository.save(new PuntoControl(EscrituraConsultas.PUNTO_CONTROL, 2L));
+        AtomicInteger transacciones = new AtomicInteger();
+        TransactionTemplate contadas = new TransactionTemplate(transactionTemplate.getTransactionManager()) {
+            @Override
+            public <T> T execute(TransactionCallback<T> accion) {
+                transacciones.incrementAndGet();
+                return super.execute(accion);
+            }
+        };
+
+        EscrituraConsultas escritura = escritura(consultaService, contadas, ruta, 2);
+        escritura.iniciar();
+        try {
+            assertEquals(List.of("Diario 3", "Diario 4", "Diario 5"), motivos(paciente));
+            // Tres consultas en lotes de dos.
+            assertEquals(2, transacciones.get());
+            assertEquals(5L, puntoControlRepository.findById(EscrituraConsultas.PUNTO_CONTROL).orElseThrow().getPosicion());
+        } finally {
+            escritura.detener();
+        }
+    }
+
+    @Test
+    void unFalloTrasConfirmarDeAUnaNoRepiteLasYaInsertadas() throws Exception {
+        Paciente paciente = paciente("2000000002");
+        Doctor doctor = doctor("Reintento");
+        LocalDateTime horario = LocalDateTime.of(2032, 2, 9, 10, 0);
+        CountDownLatch primeraEnCurso = new CountDownLatch(1);
+        CountDownLatch soltarPrimera = new CountDownLatch(1);
+        AtomicBoolean fallarUnaVez = new AtomicBoolean(true);
+        AtomicInteger intentosValida = new AtomicInteger();
+        // "Espera" detiene al consumidor para que las tres siguientes formen un solo lote; "Caida" falla una vez.
+        ConsultaService servicio = (ConsultaService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {ConsultaService.class}, (proxy, metodo, argumentos) -> {
+                    if (metodo.getName().equals("crearConsulta")) {
+                        String motivo = ((Consulta) argumentos[0]).getMotivo();
+                        if (motivo.equals("Espera")) {
+                            primeraEnCurso.countDown();
+                            soltarPrimera.await();
+                        }
+                        if (motivo.equals("Valida")) {
+                            intentosValida.incrementAndGet();
+                        }
+                        if (motivo.equals("Caida") && fallarUnaVez.getAndSet(false)) {
+                            throw new IllegalStateException("Conexion perdida");
+                        }
+                    }
+                    try {
+                        return metodo.invoke(consultaService, argumentos);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        EscrituraConsultas escritura = escritura(servicio, transactionTemplate, directorio.resolve("reintento.diario"), 10);
+        escritura.iniciar();
+        try {
+            Aceptacion espera = escritura.aceptar(consulta(paciente, doctor, horario, "Espera"), true);
+            assertTrue(primeraEnCurso.await(5, TimeUnit.SECONDS));
+            Aceptacion valida = escritura.aceptar(consulta(paciente, doctor, horario.minusHours(1), "Valida"), true);
+            // Mismo doctor y horario que "Espera": la base rechaza el lote y se reintenta de a una.
+            Aceptacion repetida = escritura.aceptar(consulta(paciente, doctor, horario, "Repetida"), true);
+            Aceptacion caida = escritura.aceptar(consulta(paciente, doctor, horario.plusHours(1), "Caida"), true);
+            soltarPrimera.countDown();
+
+            espera.confirmacion().get(10, TimeUnit.SECONDS);
+            valida.confirmacion().get(10, TimeUnit.SECONDS);
+            ExecutionException rechazo = assertThrows(ExecutionException.class,
+                    () -> repetida.confirmacion().get(10, TimeUnit.SECONDS));
+            assertInstanceOf(DataIntegrityViolationException.class, rechazo.getCause());
+            caida.confirmacion().get(10, TimeUnit.SECONDS);
+
+            assertEquals(List.of("Caida", "Espera", "Valida"), motivos(paciente));
+            // En el lote y en el reintento de a una; el reintento tras la caida ya no la incluye.
+            assertEquals(2, intentosValida.get());
+        } finally {
+            escritura.detener();
+        }
+        assertThrows(RejectedExecutionException.class,
+                () -> escritura.aceptar(consulta(paciente, doctor, horario.plusHours(2), "Tarde"), false));
+    }
+
+    private EscrituraConsultas escritura(ConsultaService servicio, TransactionTemplate transacciones, Path diario,
+            int tamanioLote) {
+        return new EscrituraConsultas(servicio, pacienteRepository, doctorRepository, agendaDoctores,
+                puntoControlRepository, entityManager, transacciones, objectMapper, new SimpleMeterRegistry(), shards,
+                true, diario.toString(), 10, tamanioLote);
+    }
+
+    private List<String> motivos(Paciente paciente) {
+        return jdbcTemplate.queryForList("select motivo from consulta where id_paciente = ? order by motivo", String.class,
+                paciente.getIdPaciente());
+    }
+
+    private Paciente paciente(String cedula) {
+        Paciente paciente = new Paciente();
+        paciente.setNombre("Julia");
+        paciente.setApellido("Diario");
+        paciente.setEdad(29);
+        paciente.setCedula(cedula);
+        return pacienteRepository.save(paciente);
+    }
+
+    private Doctor doctor(String apellido) {
+        Especialidad especialidad = new Especialidad();
+        especialidad.setNombre("Escritura " + apellido);
+        Doctor doctor = new Doctor();
+        doctor.setNombre("Pablo");
+        doctor.setApellido(apellido);
+        doctor.setEspecialidad(especialidadRepository.save(especialidad));
+        return doctorRepository.save(doctor);
+    }
+
+    private static Consulta consulta(Paciente paciente, Doctor doctor, LocalDateTime fecha, String motivo) {
+        Consulta consulta = new Consulta();
+        consulta.setPaciente(paciente);
+        consulta.setDoctor(doctor);
+        consulta.setFecha(fecha);
+        consulta.setMotivo(motivo);
+        return consulta;
+    }
+}
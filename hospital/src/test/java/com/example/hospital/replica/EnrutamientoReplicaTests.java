@@ -0,0 +1,107 @@
+package com.example.hospital.replica;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Dos bases embebidas propias: la primaria no es la hospital_db1 que comparten las demas pruebas.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replica_primaria;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "hospital.replica.habilitada=true",
+        "hospital.replica.datasource.jdbc-url=" + EnrutamientoReplicaTests.URL_REPLICA,
+        "hospital.replica.datasource.username=sa",
+        "hospital.replica.datasource.password=",
+        "hospital.replica.retraso-maximo-ms=3000",
+        // La prueba llama a comprobar() por su cuenta.
+        "hospital.replica.intervalo-latido-ms=3600000"
+})
+class EnrutamientoReplicaTests {
+
+    static final String URL_REPLICA = "jdbc:h2:mem:replica_lectura;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(URL_REPLICA, "sa", ""));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MonitorReplica monitor;
+
+    @BeforeAll
+    static void prepararReplica() {
+        replica.execute("create table if not exists origen (nombre varchar(20))");
+        replica.execute("create table if not exists latido_replica (id int primary key, instante bigint not null)");
+        replica.update("delete from origen");
+        replica.update("insert into origen (nombre) values ('replica')");
+    }
+
+    @BeforeEach
+    void prepararPrimaria() {
+        jdbcTemplate.execute("create table if not exists origen (nombre varchar(20))");
+        jdbcTemplate.update("delete from origen");
+        jdbcTemplate.update("insert into origen (nombre) values ('primaria')");
+        replica.update("delete from latido_replica");
+    }
+
+    @Test
+    void lecturasVanALaReplicaYEscriturasALaPrimaria() {
+        latidoEnReplica(System.currentTimeMillis());
+        monitor.comprobar();
+
+        assertTrue(monitor.disponible());
+        assertEquals("replica", origen(true));
+        assertEquals("primaria", origen(false));
+    }
+
+    @Test
+    void lasLecturasConEtagOCacheVanALaPrimaria() {
+        latidoEnReplica(System.currentTimeMillis());
+        monitor.comprobar();
+
+        assertTrue(monitor.disponible());
+        assertEquals("primaria", LecturaPrimaria.en(() -> origen(true)));
+        assertEquals("replica", origen(true));
+    }
+
+    @Test
+    void replicaAtrasadaSeDescarta() {
+        latidoEnReplica(System.currentTimeMillis() - 60_000);
+        monitor.comprobar();
+
+        assertFalse(monitor.disponible());
+        assertTrue(monitor.retrasoMs() >= 60_000);
+        assertEquals("primaria", origen(true));
+    }
+
+    @Test
+    void replicaSinLatidoSeDescarta() {
+        monitor.comprobar();
+
+        assertFalse(monitor.disponible());
+        assertEquals(-1, monitor.retrasoMs());
+        assertEquals("primaria", origen(true));
+    }
+
+    private void latidoEnReplica(long instante) {
+        replica.update("insert into latido_replica (id, instante) values (1, ?)", instante);
+    }
+
+    private String origen(boolean soloLectura) {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.setReadOnly(soloLectura);
+        return transaccion.execute(estado -> jdbcTemplate.queryForObject("select nombre from origen", String.class));
+    }
+}
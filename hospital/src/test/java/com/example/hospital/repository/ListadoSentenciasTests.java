@@ -0,0 +1,196 @@
+package com.example.hospital.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.hospital.dto.CabeceraTimeline;
+import com.example.hospital.dto.ConsultaTimeline;
+import com.example.hospital.dto.ConsultaVista;
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.entity.Especialidad;
+import com.example.hospital.entity.Historial;
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.entity.Receta;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+// Base propia: las pruebas cuentan todas las filas de cada listado.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:listado_sentencias;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@Transactional
+class ListadoSentenciasTests {
+
+    private static final int FILAS = 25;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ConsultaRepository consultaRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private RecetaRepository recetaRepository;
+
+    @Autowired
+    private EspecialidadRepository especialidadRepository;
+
+    private Statistics statistics;
+    private final List<Integer> idsRecetas = new ArrayList<>();
+    private final List<Integer> idsEspecialidades = new ArrayList<>();
+    private Integer idPaciente;
+
+    @BeforeEach
+    void cargarDatos() {
+        for (int i = 0; i < FILAS; i++) {
+            Especialidad especialidad = new Especialidad();
+            especialidad.setNombre("Especialidad " + i);
+            entityManager.persist(especialidad);
+
+            Doctor doctor = new Doctor();
+            doctor.setNombre("Doctor " + i);
+            doctor.setApellido("Apellido " + i);
+            doctor.setEspecialidad(especialidad);
+            entityManager.persist(doctor);
+
+            Paciente paciente = new Paciente();
+            paciente.setNombre("Paciente " + i);
+            paciente.setApellido("Apellido " + i);
+            paciente.setEdad(30);
+            paciente.setCedula(String.format("%010d", i));
+            entityManager.persist(paciente);
+
+            Historial historial = new Historial();
+            historial.setFecha(LocalDate.now());
+            historial.setPaciente(paciente);
+            entityManager.persist(historial);
+
+            Consulta consulta = new Consulta();
+            consulta.setFecha(LocalDateTime.now().minusMinutes(i));
+            consulta.setMotivo("Control " + i);
+            consulta.setPaciente(paciente);
+            consulta.setDoctor(doctor);
+            entityManager.persist(consulta);
+
+            Receta receta = new Receta();
+            receta.setMedicamento("Paracetamol");
+            receta.setConsulta(consulta);
+            entityManager.persist(receta);
+
+            idsRecetas.add(receta.getIdReceta());
+            idsEspecialidades.add(especialidad.getIdEspecialidad());
+            idPaciente = paciente.getIdPaciente();
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void paginaDeConsultasEnUnaSentencia() {
+        List<ConsultaVista> consultas = consultaRepository.findPrimeraPagina(Limit.of(FILAS));
+
+        assertEquals(FILAS, consultas.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void listadoConsultasCompletoEnUnaSentencia() {
+        List<Consulta> consultas = consultaRepository.findAll();
+
+        consultas.forEach(c -> {
+            c.getPaciente().getHistorial().getFecha();
+            c.getDoctor().getEspecialidad().getNombre();
+            c.getReceta().getMedicamento();
+        });
+        assertEquals(FILAS, consultas.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void vistaDePacientesEnUnaSentencia() {
+        assertEquals(FILAS, pacienteRepository.findAllVista().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void listadoDePacientesEnDosSentencias() {
+        List<Paciente> pacientes = pacienteRepository.findAllConDetalle();
+
+        pacientes.forEach(p -> {
+            p.getHistorial().getFecha();
+            p.getConsultas().forEach(c -> {
+                c.getDoctor().getEspecialidad().getNombre();
+                c.getReceta().getMedicamento();
+            });
+        });
+        // Pacientes con historial y un lote con las consultas de los 25, sin repetir cada paciente por consulta.
+        assertEquals(FILAS, pacientes.size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void listadoDeDoctoresEnUnaSentencia() {
+        List<Doctor> doctores = doctorRepository.findAllConEspecialidad();
+
+        doctores.forEach(d -> d.getEspecialidad().getNombre());
+        assertEquals(FILAS, doctores.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void recetasPorIdsEnUnaSentencia() {
+        List<Receta> recetas = recetaRepository.findByIdRecetaIn(idsRecetas);
+
+        recetas.forEach(r -> {
+            r.getConsulta().getPaciente().getHistorial().getFecha();
+            r.getConsulta().getDoctor().getEspecialidad().getNombre();
+        });
+        assertEquals(FILAS, recetas.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void especialidadesPorIdsEnUnaSentencia() {
+        List<Especialidad> especialidades = especialidadRepository.findByIdEspecialidadIn(idsEspecialidades);
+
+        especialidades.forEach(e -> e.getDoctores().size());
+        assertEquals(FILAS, especialidades.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void timelineDePacienteEnDosSentencias() {
+        CabeceraTimeline cabecera = pacienteRepository.findCabeceraTimeline(idPaciente).orElseThrow();
+        List<ConsultaTimeline> consultas = consultaRepository.findTimeline(idPaciente, Limit.of(FILAS));
+
+        assertEquals(idPaciente, cabecera.idPaciente());
+        assertEquals(1, consultas.size());
+        assertEquals("Paracetamol", consultas.getFirst().medicamento());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+}
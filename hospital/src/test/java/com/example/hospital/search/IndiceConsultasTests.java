@@ -0,0 +1,57 @@
+package com.example.hospital.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class IndiceConsultasTests {
+
+    @Test
+    void buscaSinTildesNiMayusculasYExigeTodasLasPalabras() {
+        IndiceConsultas indice = new IndiceConsultas();
+        indice.indexar(1, "Dolor de cabeza", "Migraña crónica");
+        indice.indexar(2, "Dolores musculares", "Lumbalgia");
+        indice.indexar(3, "Control", "Migrana leve");
+
+        assertEquals(List.of(3, 1), indice.buscar("MIGRAÑA", 0, 10).ids());
+        assertEquals(List.of(2, 1), indice.buscar("dolor", 0, 10).ids());
+        assertEquals(List.of(1), indice.buscar("dolor migrana", 0, 10).ids());
+        assertEquals(0, indice.buscar("fiebre", 0, 10).total());
+    }
+
+    @Test
+    void ordenaPorRelevanciaYPagina() {
+        IndiceConsultas indice = new IndiceConsultas();
+        indice.indexar(1, "Tos", "Tos seca");
+        indice.indexar(2, "Tos", "Bronquitis");
+        indice.indexar(3, "Fiebre", "Gripe");
+        indice.indexar(4, "Tos", "Tos tos persistente");
+
+        ResultadoIndice primera = indice.buscar("tos", 0, 2);
+        ResultadoIndice segunda = indice.buscar("tos", 2, 2);
+
+        assertEquals(3, primera.total());
+        assertEquals(List.of(4, 1), primera.ids());
+        assertEquals(List.of(2), segunda.ids());
+    }
+
+    @Test
+    void eliminarYReindexarQuitanLosTerminosAnteriores() {
+        IndiceConsultas indice = new IndiceConsultas();
+        indice.indexar(1, "Tos", "Bronquitis");
+        indice.indexar(2, "Tos", "Asma");
+
+        indice.indexar(1, "Fiebre", "Gripe");
+        assertEquals(List.of(2), indice.buscar("tos", 0, 10).ids());
+        assertEquals(List.of(1), indice.buscar("gripe", 0, 10).ids());
+        assertEquals(0, indice.buscar("bronquitis", 0, 10).total());
+        assertEquals(2, indice.documentos());
+
+        indice.eliminar(2);
+        indice.eliminar(2);
+        assertEquals(0, indice.buscar("tos", 0, 10).total());
+        assertEquals(1, indice.documentos());
+    }
+}
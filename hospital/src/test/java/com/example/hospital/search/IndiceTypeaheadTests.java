@@ -0,0 +1,65 @@
+package com.example.hospital.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.hospital.dto.Sugerencia;
+
+class IndiceTypeaheadTests {
+
+    @Test
+    void buscaPorPrefijoDeCadaPalabraSinTildes() {
+        IndiceTypeahead indice = new IndiceTypeahead(3);
+        indice.indexar(1, "Juan", "Pérez", "1712345678");
+        indice.indexar(2, "Juana", "de la Cruz", "0912345678");
+        indice.indexar(3, "María José", "Núñez", "1799999999");
+
+        assertEquals(List.of(1, 2), ids(indice.buscar("ju", 10)));
+        assertEquals(List.of(1), ids(indice.buscar("juan PER", 10)));
+        assertEquals(List.of(3), ids(indice.buscar("nune", 10)));
+        assertEquals(List.of(1, 3), ids(indice.buscar("17", 10)));
+        assertEquals(List.of(2), ids(indice.buscar("091234", 10)));
+        // Solo prefijos: "uan" no esta al inicio de ninguna palabra.
+        assertTrue(indice.buscar("uan", 10).isEmpty());
+        assertEquals(List.of(1), ids(indice.buscar("ju", 1)));
+        assertEquals(new Sugerencia(3, "María José", "Núñez", "1799999999"), indice.buscar("jose", 10).getFirst());
+    }
+
+    @Test
+    void actualizaYEliminaSinQueLaCargaInicialLosReviva() {
+        IndiceTypeahead indice = new IndiceTypeahead(2);
+        indice.indexar(1, "Ana", "Torres");
+        indice.indexar(2, "Andrea", "Vargas");
+
+        indice.indexar(1, "Beatriz", "Torres");
+        indice.eliminar(2);
+        indice.indexarSiAusente(1, "Ana", "Torres");
+        indice.indexarSiAusente(2, "Andrea", "Vargas");
+
+        assertTrue(indice.buscar("an", 10).isEmpty());
+        assertEquals(List.of(1), ids(indice.buscar("bea tor", 10)));
+        assertEquals(1, indice.tamanio());
+    }
+
+    @Test
+    void compactaLasRanurasMuertas() {
+        IndiceTypeahead indice = new IndiceTypeahead(2);
+        for (int vuelta = 0; vuelta < 3; vuelta++) {
+            for (int id = 1; id <= IndiceTypeahead.COMPACTAR_DESDE; id++) {
+                indice.indexar(id, "Nombre" + vuelta, "Apellido" + id);
+            }
+        }
+
+        assertEquals(IndiceTypeahead.COMPACTAR_DESDE, indice.tamanio());
+        assertEquals(List.of(4095), ids(indice.buscar("nombre2 apellido4095", 10)));
+        assertTrue(indice.buscar("nombre0", 10).isEmpty());
+    }
+
+    private static List<Integer> ids(List<Sugerencia> sugerencias) {
+        return sugerencias.stream().map(Sugerencia::id).toList();
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.hospital.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.hospital.auditoria.Auditoria;
+import com.example.hospital.cambios.RegistroCambios;
+import com.example.hospital.cambios.VersionesTabla;
+import com.example.hospital.dto.ResultadoCarga;
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.search.IndiceNombres;
+import com.example.hospital.service.impl.CargaPacienteServiceImpl;
+import com.example.hospital.shard.Shards;
+
+import tools.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+class CargaPacienteTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private VersionesTabla versionesTabla;
+
+    @Autowired
+    private RegistroCambios registroCambios;
+
+    @Autowired
+    private Auditoria auditoria;
+
+    @Autowired
+    private IndiceNombres indiceNombres;
+
+    @Autowired
+    private Shards shards;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("delete from paciente where cedula like 'CG%'");
+    }
+
+    @Test
+    void unaCedulaConcurrenteNoRechazaElRestoDelLote() {
+        jdbcTemplate.update("insert into paciente (nombre, apellido, edad, cedula) values ('Ya', 'Estaba', 50, 'CG2')");
+        // La primera consulta de cedulas no ve la fila, como si otra carga la hubiera insertado justo despues.
+        AtomicBoolean primera = new AtomicBoolean(true);
+        NamedParameterJdbcTemplate tardio = new NamedParameterJdbcTemplate(jdbcTemplate) {
+            @Override
+            public <T> List<T> queryForList(String sql, Map<String, ?> parametros, Class<T> tipo) {
+                return primera.getAndSet(false) ? List.of() : super.queryForList(sql, parametros, tipo);
+            }
+        };
+        CargaPacienteService carga = servicio(tardio, 10);
+
+        ResultadoCarga resultado = carga.cargarPacientes(List.of(
+                paciente("Ana", "CG1"), paciente("Beto", "CG2"), paciente("Carla", "CG3")).iterator());
+
+        assertEquals(2, resultado.getAceptados());
+        assertEquals(1, resultado.getRechazados());
+        assertEquals("CG2", resultado.getRechazos().getFirst().cedula());
+        assertEquals("Cedula registrada de forma concurrente", resultado.getRechazos().getFirst().motivo());
+        assertEquals(3, contar());
+    }
+
+    @Test
+    void unJsonMalFormadoDevuelveLoCargadoYElError() {
+        String json = """
+                [{"nombre":"A","apellido":"Uno","edad":20,"cedula":"CG10"},
+                 {"nombre":"B","apellido":"Dos","edad":21,"cedula":"CG11"},
+                 {"nombre":"C","apellido":"Tres","edad":22,"cedula":"CG12"},
+                 {"nombre": ,"apellido":"Cuatro"},
+                 {"nombre":"E","apellido":"Cinco","edad":24,"cedula":"CG14"}]
+                """;
+        ResultadoCarga resultado = servicio(namedParameterJdbcTemplate, 2).cargarPacientes(
+                objectMapper.readerFor(Paciente.class).readValues(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(3, resultado.getAceptados());
+        assertTrue(resultado.getError().startsWith("Fila 4: "), resultado.getError());
+        assertEquals(3, contar());
+    }
+
+    @Test
+    void elCsvAdmiteCamposEntreComillas() {
+        String csv = "nombre,apellido,edad,cedula,telefono\r\n"
+                + "\"Perez, Ana\",Lopez,30,CG20,\r\n"
+                + "\r\n"
+                + "Luis,\"O\"\"Brien\",40,CG21,\"099 123\"\n"
+                + "\"Maria\nJose\",Vera,20,CG22\n";
+        ResultadoCarga resultado = servicio(namedParameterJdbcTemplate, 2).cargarPacientesCsv(new StringReader(csv));
+
+        assertNull(resultado.getError());
+        assertEquals(3, resultado.getAceptados());
+        assertEquals(0, resultado.getRechazados());
+        assertEquals("Perez, Ana", campo("nombre", "CG20"));
+        assertEquals("O\"Brien", campo("apellido", "CG21"));
+        assertEquals("099 123", campo("telefono", "CG21"));
+        assertEquals("Maria\nJose", campo("nombre", "CG22"));
+    }
+
+    @Test
+    void comillasSinCerrarDetienenLaCargaCsv() {
+        String csv = "Ana,Uno,30,CG30\nBeto,\"Dos,31,CG31\n";
+        ResultadoCarga resultado = servicio(namedParameterJdbcTemplate, 10).cargarPacientesCsv(new StringReader(csv));
+
+        assertEquals(1, resultado.getAceptados());
+        assertTrue(resultado.getError().startsWith("Fila 2: "), resultado.getError());
+    }
+
+    private CargaPacienteService servicio(NamedParameterJdbcTemplate named, int tamanioLote) {
+        return new CargaPacienteServiceImpl(jdbcTemplate, named, transactionTemplate, versionesTabla,
+                registroCambios, auditoria, indiceNombres, shards, tamanioLote);
+    }
+
+    private int contar() {
+        return jdbcTemplate.queryForObject("select count(*) from paciente where cedula like 'CG%'", Integer.class);
+    }
+
+    private String campo(String columna, String cedula) {
+        return jdbcTemplate.queryForObject("select " + columna + " from paciente where cedula = ?", String.class, cedula);
+    }
+
+    private static Paciente paciente(String nombre, String cedula) {
+        Paciente paciente = new Paciente();
+        paciente.setNombre(nombre);
+        paciente.setApellido("Carga");
+        paciente.setEdad(30);
+        paciente.setCedula(cedula);
+        return paciente;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.hospital.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static com.example.hospital.config.CacheConfig.DOCTOR;
+import static com.example.hospital.config.CacheConfig.ESPECIALIDAD;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.entity.Especialidad;
+
+@SpringBootTest
+class CatalogosCacheTests {
+
+    @Autowired
+    private EspecialidadService especialidadService;
+
+    @Autowired
+    private DoctorService doctorService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void lasEscriturasDeDoctorRenuevanLasEspecialidadesEnCache() {
+        Especialidad especialidad = new Especialidad();
+        especialidad.setNombre("Cardiologia cache");
+        Integer id = especialidadService.crearEspecialidad(especialidad).getIdEspecialidad();
+
+        Especialidad antes = especialidadService.obtenerEspecialidadPorId(id).orElseThrow();
+        assertSame(antes, especialidadService.obtenerEspecialidadPorId(id).orElseThrow());
+        assertEquals(0, doctores(especialidadService.listarEspecialidad(), id));
+
+        Doctor doctor = new Doctor();
+        doctor.setNombre("Irene");
+        doctor.setApellido("Cache");
+        doctor.setEspecialidad(antes);
+        doctor = doctorService.crearDoctor(doctor);
+        assertEquals(1, especialidadService.obtenerEspecialidadPorId(id).orElseThrow().getDoctores().size());
+        assertEquals(1, doctores(especialidadService.listarEspecialidad(), id));
+
+        doctor.setNombre("Irene Sofia");
+        doctorService.actualizarDoctor(doctor.getIdDoctor(), doctor);
+        assertEquals("Irene Sofia",
+                especialidadService.obtenerEspecialidadPorId(id).orElseThrow().getDoctores().getFirst().getNombre());
+
+        doctorService.eliminarDoctor(doctor.getIdDoctor());
+        assertEquals(0, especialidadService.obtenerEspecialidadPorId(id).orElseThrow().getDoctores().size());
+        assertEquals(0, doctores(especialidadService.listarEspecialidad(), id));
+    }
+
+    @Test
+    void laCacheSeInvalidaDespuesDelCommit() {
+        Especialidad especialidad = new Especialidad();
+        especialidad.setNombre("Neurologia cache");
+        Integer id = especialidadService.crearEspecialidad(especialidad).getIdEspecialidad();
+        Especialidad enCache = especialidadService.obtenerEspecialidadPorId(id).orElseThrow();
+
+        transactionTemplate.executeWithoutResult(estado -> {
+            Especialidad cambio = new Especialidad();
+            cambio.setIdEspecialidad(id);
+            cambio.setNombre("Neurologia");
+            especialidadService.guardarEspecialidades(List.of(cambio));
+            // Sin confirmar: una lectura concurrente llenaria la cache con lo de antes.
+            assertSame(enCache, cacheManager.getCache(ESPECIALIDAD).get(id).get());
+        });
+        assertNull(cacheManager.getCache(ESPECIALIDAD).get(id));
+        assertEquals("Neurologia", especialidadService.obtenerEspecialidadPorId(id).orElseThrow().getNombre());
+
+        Doctor doctor = new Doctor();
+        doctor.setNombre("Tomas");
+        doctor.setApellido("Cache");
+        doctor.setEspecialidad(enCache);
+        Integer idDoctor = doctorService.crearDoctor(doctor).getIdDoctor();
+        doctorService.obtenerDoctorPorId(idDoctor).orElseThrow();
+        // Si la transaccion no confirma, lo que hay en cache sigue siendo valido.
+        assertThrows(RuntimeException.class, () -> transactionTemplate.executeWithoutResult(estado -> {
+            doctorService.eliminarDoctor(idDoctor);
+            throw new IllegalStateException("rollback");
+        }));
+        assertNotNull(cacheManager.getCache(DOCTOR).get(idDoctor));
+    }
+
+    private static int doctores(List<Especialidad> especialidades, Integer id) {
+        return especialidades.stream()
+                .filter(e -> e.getIdEspecialidad().equals(id))
+                .findFirst()
+                .orElseThrow()
+                .getDoctores()
+                .size();
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.hospital.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.hospital.archivo.ArchivoConsultas;
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.entity.Especialidad;
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.repository.ConsultaRepository;
+import com.example.hospital.repository.DoctorRepository;
+import com.example.hospital.repository.EspecialidadRepository;
+import com.example.hospital.repository.PacienteRepository;
+import com.example.hospital.repository.ResumenConsultaRepository;
+import com.example.hospital.service.impl.EstadisticaServiceImpl;
+import com.example.hospital.shard.Shards;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:estadisticas;MODE=MySQL;DB_CLOSE_DELAY=-1")
+class EstadisticasTests {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ResumenConsultaRepository resumenConsultaRepository;
+
+    @Autowired
+    private DoctorService doctorService;
+
+    @Autowired
+    private ArchivoConsultas archivoConsultas;
+
+    @Autowired
+    private Shards shards;
+
+    @Autowired
+    private EspecialidadRepository especialidadRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private ConsultaRepository consultaRepository;
+
+    @Test
+    void unVolcadoFallidoConservaLosDeltas() {
+        Doctor doctor = doctor("Volcado");
+        Consulta consulta = consulta(paciente("1800000001"), doctor, LocalDate.of(2031, 2, 3), "Gripe estacional");
+        AtomicBoolean fallar = new AtomicBoolean(true);
+        JdbcTemplate inestable = new JdbcTemplate(dataSource) {
+            @Override
+            public int[] batchUpdate(String sql, List<Object[]> argumentos) {
+                if (fallar.getAndSet(false)) {
+                    throw new DataAccessResourceFailureException("Conexion perdida");
+                }
+                return super.batchUpdate(sql, argumentos);
+            }
+        };
+        EstadisticaServiceImpl estadisticas = estadisticas(inestable);
+        try {
+            estadisticas.registrarConsulta(consulta);
+            estadisticas.volcarPendientes();
+            assertEquals(Map.of(), totales(LocalDate.of(2031, 2, 3)));
+
+            estadisticas.volcarPendientes();
+            assertEquals(Map.of(
+                    "DOCTOR:" + doctor.getIdDoctor(), 1L,
+                    "ESPECIALIDAD:" + doctor.getEspecialidad().getIdEspecialidad(), 1L,
+                    "DIAGNOSTICO:gripe estacional", 1L), totales(LocalDate.of(2031, 2, 3)));
+        } finally {
+            estadisticas.cerrar();
+        }
+    }
+
+    @Test
+    void laReconstruccionCuentaUnaVezLasAltasConcurrentes() {
+        LocalDate dia = LocalDate.of(2031, 4, 5);
+        Doctor doctor = doctor("Reconstruccion");
+        Paciente paciente = paciente("1800000002");
+        Consulta previa = consulta(paciente, doctor, dia, "Asma");
+        Consulta vista = consulta(paciente, doctor, dia, "Asma");
+        Consulta tardia = new Consulta();
+        tardia.setIdConsulta(Integer.MAX_VALUE);
+        tardia.setDoctor(doctor);
+        tardia.setFecha(dia.atTime(18, 0));
+        tardia.setDiagnostico("Asma");
+
+        // Dos altas llegan mientras se recorren los tramos: una ya confirmada (el recorrido la ve) y otra que no.
+        AtomicBoolean primerTramo = new AtomicBoolean(true);
+        EstadisticaServiceImpl[] estadisticas = new EstadisticaServiceImpl[1];
+        JdbcTemplate espia = new JdbcTemplate(dataSource) {
+            @Override
+            public void query(String sql, RowCallbackHandler filas, Object... argumentos) {
+                super.query(sql, filas, argumentos);
+                if (primerTramo.getAndSet(false)) {
+                    estadisticas[0].registrarConsulta(vista);
+                    estadisticas[0].registrarConsulta(tardia);
+                }
+            }
+        };
+        estadisticas[0] = estadisticas(espia);
+        try {
+            estadisticas[0].registrarConsulta(previa);
+            estadisticas[0].reconstruir();
+            estadisticas[0].volcarPendientes();
+
+            assertEquals(Map.of(
+                    "DOCTOR:" + doctor.getIdDoctor(), 3L,
+                    "ESPECIALIDAD:" + doctor.getEspecialidad().getIdEspecialidad(), 3L,
+                    "DIAGNOSTICO:asma", 3L), totales(dia));
+        } finally {
+            estadisticas[0].cerrar();
+        }
+    }
+
+    @Test
+    void unaReconstruccionFallidaDevuelveLasAltasALaCola() {
+        LocalDate dia = LocalDate.of(2031, 6, 7);
+        Doctor doctor = doctor("Fallida");
+        Consulta consulta = consulta(paciente("1800000003"), doctor, dia, null);
+        EstadisticaServiceImpl[] estadisticas = new EstadisticaServiceImpl[1];
+        JdbcTemplate inestable = new JdbcTemplate(dataSource) {
+            @Override
+            public void query(String sql, RowCallbackHandler filas, Object... argumentos) {
+                throw new DataAccessResourceFailureException("Conexion perdida");
+            }
+        };
+        estadisticas[0] = estadisticas(inestable);
+        try {
+            estadisticas[0].registrarConsulta(consulta);
+            assertThrows(RuntimeException.class, estadisticas[0]::reconstruir);
+            estadisticas[0].volcarPendientes();
+
+            assertEquals(Map.of(
+                    "DOCTOR:" + doctor.getIdDoctor(), 1L,
+                    "ESPECIALIDAD:" + doctor.getEspecialidad().getIdEspecialidad(), 1L), totales(dia));
+        } finally {
+            estadisticas[0].cerrar();
+        }
+    }
+
+    // Instancia propia, sin proxy: reconstruir() corre en el hilo del test.
+    private EstadisticaServiceImpl estadisticas(JdbcTemplate plantilla) {
+        return new EstadisticaServiceImpl(resumenConsultaRepository, doctorService, plantilla, transactionTemplate,
+                archivoConsultas, shards);
+    }
+
+    private Map<String, Long> totales(LocalDate dia) {
+        return jdbcTemplate.queryForList("select tipo, clave, total from resumen_consulta where fecha = ?", dia)
+                .stream()
+                .collect(Collectors.toMap(fila -> fila.get("tipo") + ":" + fila.get("clave"),
+                        fila -> ((Number) fila.get("total")).longValue()));
+    }
+
+    private Doctor doctor(String apellido) {
+        Especialidad especialidad = new Especialidad();
+        especialidad.setNombre("Neumologia " + apellido);
+        Doctor doctor = new Doctor();
+        doctor.setNombre("Rosa");
+        doctor.setApellido(apellido);
+        doctor.setEspecialidad(especialidadRepository.save(especialidad));
+        return doctorRepository.save(doctor);
+    }
+
+    private Paciente paciente(String cedula) {
+        Paciente paciente = new Paciente();
+        paciente.setNombre("Mario");
+        paciente.setApellido("Vera");
+        paciente.setEdad(52);
+        paciente.setCedula(cedula);
+        return pacienteRepository.save(paciente);
+    }
+
+    private Consulta consulta(Paciente paciente, Doctor doctor, LocalDate dia, String diagnostico) {
+        Consulta consulta = new Consulta();
+        consulta.setPaciente(paciente);
+        consulta.setDoctor(doctor);
+        consulta.setFecha(dia.atTime(9, 30));
+        consulta.setMotivo("Control");
+        consulta.setDiagnostico(diagnostico);
+        return consultaRepository.save(consulta);
+    }
+}
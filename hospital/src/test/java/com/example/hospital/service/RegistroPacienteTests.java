@@ -0,0 +1,96 @@
+package com.example.hospital.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.hospital.dto.EstadoRegistro;
+import com.example.hospital.dto.ResultadoRegistro;
+import com.example.hospital.entity.Paciente;
+
+@SpringBootTest
+class RegistroPacienteTests {
+
+    @Autowired
+    private RegistroPacienteService registroPacienteService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // El contexto (y la base H2) se comparte con otras pruebas que cuentan filas.
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("delete from paciente where cedula like '17000000%'");
+        jdbcTemplate.update("delete from clave_idempotencia");
+    }
+
+    @Test
+    void registrosSimultaneosDeLaMismaCedulaCreanUnSoloPaciente() throws Exception {
+        List<Future<ResultadoRegistro>> resultados = new ArrayList<>();
+        try (ExecutorService hilos = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                resultados.add(hilos.submit(() ->
+                        registroPacienteService.registrarPaciente(paciente("1700000001"), false, null)));
+            }
+        }
+        long creados = 0;
+        Integer id = null;
+        for (Future<ResultadoRegistro> resultado : resultados) {
+            ResultadoRegistro registro = resultado.get();
+            if (registro.estado() == EstadoRegistro.CREADO) {
+                creados++;
+            } else {
+                assertEquals(EstadoRegistro.EXISTENTE, registro.estado());
+            }
+            assertTrue(id == null || id.equals(registro.paciente().getIdPaciente()));
+            id = registro.paciente().getIdPaciente();
+        }
+        assertEquals(1, creados);
+    }
+
+    @Test
+    void reintentoConLaMismaClaveRepiteLaRespuesta() {
+        ResultadoRegistro primero = registroPacienteService.registrarPaciente(paciente("1700000002"), false, "clave-1");
+        ResultadoRegistro reintento = registroPacienteService.registrarPaciente(paciente("1700000002"), false, "clave-1");
+
+        assertEquals(EstadoRegistro.CREADO, primero.estado());
+        assertEquals(EstadoRegistro.CREADO, reintento.estado());
+        assertTrue(reintento.repetido());
+        assertEquals(primero.paciente().getIdPaciente(), reintento.paciente().getIdPaciente());
+
+        ResultadoRegistro otroCuerpo = registroPacienteService.registrarPaciente(paciente("1700000003"), false, "clave-1");
+        assertEquals(EstadoRegistro.CLAVE_REUTILIZADA, otroCuerpo.estado());
+    }
+
+    @Test
+    void upsertActualizaLaCedulaExistente() {
+        registroPacienteService.registrarPaciente(paciente("1700000004"), false, null);
+        Paciente cambios = paciente("1700000004");
+        cambios.setTelefono("0999999999");
+
+        ResultadoRegistro resultado = registroPacienteService.registrarPaciente(cambios, true, null);
+
+        assertEquals(EstadoRegistro.ACTUALIZADO, resultado.estado());
+        assertEquals("0999999999", resultado.paciente().getTelefono());
+    }
+
+    private static Paciente paciente(String cedula) {
+        Paciente paciente = new Paciente();
+        paciente.setNombre("Ana");
+        paciente.setApellido("Mora");
+        paciente.setEdad(41);
+        paciente.setCedula(cedula);
+        return paciente;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.hospital.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.hospital.cambios.VersionesTabla;
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.entity.Especialidad;
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.repository.ConsultaRepository;
+import com.example.hospital.repository.DoctorRepository;
+import com.example.hospital.repository.EspecialidadRepository;
+import com.example.hospital.repository.PacienteRepository;
+
+// Base propia: la primera prueba adivina el id del siguiente paciente.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:timeline_paciente;MODE=MySQL;DB_CLOSE_DELAY=-1")
+class TimelinePacienteTests {
+
+    @Autowired
+    private PacienteService pacienteService;
+
+    @Autowired
+    private RegistroPacienteService registroPacienteService;
+
+    @Autowired
+    private VersionesTabla versionesTabla;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private EspecialidadRepository especialidadRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private ConsultaRepository consultaRepository;
+
+    @Test
+    void unPacienteQueAunNoExisteNoQuedaEnCache() {
+        int siguiente = jdbcTemplate.queryForObject("select coalesce(max(id), 0) + 1 from paciente", Integer.class);
+        assertTrue(pacienteService.timelinePaciente(siguiente, null, null).isEmpty());
+
+        // El alta va por JDBC.
+        Paciente paciente = registroPacienteService.registrarPaciente(paciente("1600000001"), false, null).paciente();
+        assertEquals(siguiente, paciente.getIdPaciente());
+
+        assertTrue(pacienteService.timelinePaciente(siguiente, null, null).isPresent());
+    }
+
+    @Test
+    void unaConsultaNuevaInvalidaElTimeline() {
+        Paciente paciente = pacienteRepository.save(paciente("1600000002"));
+        Doctor doctor = doctor();
+        assertEquals(0, pacienteService.timelinePaciente(paciente.getIdPaciente(), null, null).orElseThrow()
+                .consultas().size());
+
+        Consulta consulta = new Consulta();
+        consulta.setPaciente(paciente);
+        consulta.setDoctor(doctor);
+        consulta.setFecha(LocalDateTime.of(2030, 5, 6, 9, 0));
+        consulta.setMotivo("Control");
+        consultaRepository.save(consulta);
+
+        assertEquals(1, pacienteService.timelinePaciente(paciente.getIdPaciente(), null, null).orElseThrow()
+                .consultas().size());
+    }
+
+    @Test
+    void unaConsultaDeOtraInstanciaInvalidaElTimelineAlSincronizar() {
+        Paciente paciente = pacienteRepository.save(paciente("1600000003"));
+        Doctor doctor = doctor();
+        versionesTabla.sincronizar();
+        assertEquals(0, pacienteService.timelinePaciente(paciente.getIdPaciente(), null, null).orElseThrow()
+                .consultas().size());
+
+        // Otra instancia escribio por su cuenta: solo queda rastro en version_tabla.
+        jdbcTemplate.update("""
+                insert into consulta (version, fecha, motivo, id_paciente, id_doctor) values (0, ?, 'Control', ?, ?)
+                """, LocalDateTime.of(2030, 5, 7, 9, 0), paciente.getIdPaciente(), doctor.getIdDoctor());
+        jdbcTemplate.update("""
+                insert into version_tabla (tabla, version, modificado) values ('consulta', 1, ?)
+                on duplicate key update version = version + 1
+                """, System.currentTimeMillis());
+        versionesTabla.sincronizar();
+
+        assertEquals(1, pacienteService.timelinePaciente(paciente.getIdPaciente(), null, null).orElseThrow()
+                .consultas().size());
+    }
+
+    private Doctor doctor() {
+        Especialidad especialidad = new Especialidad();
+        especialidad.setNombre("Timeline");
+        Doctor doctor = new Doctor();
+        doctor.setNombre("Ines");
+        doctor.setApellido("Timeline");
+        doctor.setEspecialidad(especialidadRepository.save(especialidad));
+        return doctorRepository.save(doctor);
+    }
+
+    private static Paciente paciente(String cedula) {
+        Paciente paciente = new Paciente();
+        paciente.setNombre("Rosa");
+        paciente.setApellido("Timeline");
+        paciente.setEdad(41);
+        paciente.setCedula(cedula);
+        return paciente;
+    }
+}
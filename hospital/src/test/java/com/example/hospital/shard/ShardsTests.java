@@ -0,0 +1,277 @@
+package com.example.hospital.shard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.hospital.cambios.FeedCambios;
+import com.example.hospital.dto.ConsultaVista;
+import com.example.hospital.dto.Pagina;
+import com.example.hospital.dto.PaginaCursor;
+import com.example.hospital.entity.Consulta;
+import com.example.hospital.entity.Doctor;
+import com.example.hospital.entity.Especialidad;
+import com.example.hospital.entity.Paciente;
+import com.example.hospital.entity.Receta;
+import com.example.hospital.service.ConsultaService;
+import com.example.hospital.service.DoctorService;
+import com.example.hospital.service.EspecialidadService;
+import com.example.hospital.service.PacienteService;
+import com.example.hospital.service.RecetaService;
+import com.example.hospital.service.RegistroPacienteService;
+import com.zaxxer.hikari.HikariConfig;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Tres bases embebidas propias como shards; el esquema lo crean las migraciones en cada una.
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=none",
+        "hospital.shards.habilitado=true",
+        "hospital.shards.conexiones[0].jdbc-url=" + ShardsTests.URL + "0" + ShardsTests.OPCIONES,
+        "hospital.shards.conexiones[0].username=sa",
+        "hospital.shards.conexiones[1].jdbc-url=" + ShardsTests.URL + "1" + ShardsTests.OPCIONES,
+        "hospital.shards.conexiones[1].username=sa",
+        "hospital.shards.conexiones[2].jdbc-url=" + ShardsTests.URL + "2" + ShardsTests.OPCIONES,
+        "hospital.shards.conexiones[2].username=sa",
+        // La prueba llama a sincronizar() por su cuenta.
+        "hospital.shards.intervalo-sincronizacion-ms=3600000"
+})
+class ShardsTests {
+
+    static final String URL = "jdbc:h2:mem:shard_";
+    static final String OPCIONES = ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static final List<JdbcTemplate> bases = List.of(base(0), base(1), base(2));
+
+    @Autowired
+    private Shards shards;
+
+    @Autowired
+    private FeedCambios feedCambios;
+
+    @Autowired
+    private ReplicacionReferencia replicacionReferencia;
+
+    @Autowired
+    private EspecialidadService especialidadService;
+
+    @Autowired
+    private DoctorService doctorService;
+
+    @Autowired
+    private PacienteService pacienteService;
+
+    @Autowired
+    private RegistroPacienteService registroPacienteService;
+
+    @Autowired
+    private ConsultaService consultaService;
+
+    @Autowired
+    private RecetaService recetaService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void losDatosDeUnPacienteQuedanEnElShardDeSuCedula() {
+        Doctor doctor = crearDoctor("Ana");
+        LocalDateTime fecha = LocalDate.now().plusDays(40).atTime(9, 0);
+        for (int i = 0; i < 9; i++) {
+            Paciente paciente = crearPaciente("S1-" + i);
+            int shard = shards.deCedula(paciente.getCedula());
+            assertEquals(shard, shards.deId(paciente.getIdPaciente()));
+
+            Consulta consulta = crearConsulta(paciente, doctor, fecha.plusMinutes(30L * i));
+            Receta receta = new Receta();
+            receta.setMedicamento("Ibuprofeno");
+            receta.setDosis("400 mg");
+            receta.setConsulta(consulta);
+            receta = recetaService.crearReceta(receta);
+
+            assertEquals(shard, shards.deId(consulta.getIdConsulta()));
+            assertEquals(shard, shards.deId(receta.getIdReceta()));
+            for (int otro = 0; otro < bases.size(); otro++) {
+                int esperado = otro == shard ? 1 : 0;
+                assertEquals(esperado, contar(otro, "paciente", paciente.getIdPaciente()));
+                assertEquals(esperado, contar(otro, "consulta", consulta.getIdConsulta()));
+                assertEquals(esperado, contar(otro, "receta", receta.getIdReceta()));
+            }
+            assertEquals(paciente.getCedula(),
+                    pacienteService.obtenerPacientePorId(paciente.getIdPaciente()).orElseThrow().getCedula());
+        }
+    }
+
+    @Test
+    void losListadosReunenTodosLosShardsOrdenadosPorFecha() {
+        Doctor doctor = crearDoctor("Luis");
+        LocalDateTime fecha = LocalDate.now().plusDays(50).atTime(8, 0);
+        Set<Integer> creadas = new HashSet<>();
+        Set<Integer> shardsUsados = new HashSet<>();
+        for (int i = 0; i < 12; i++) {
+            Paciente paciente = crearPaciente("S2-" + i);
+            shardsUsados.add(shards.deId(paciente.getIdPaciente()));
+            creadas.add(crearConsulta(paciente, doctor, fecha.plusMinutes(30L * i)).getIdConsulta());
+        }
+        assertEquals(3, shardsUsados.size());
+
+        // Paginas de 5 con cursor: las doce consultas del doctor salen una vez y de la mas reciente a la mas antigua.
+        List<ConsultaVista> recorridas = new ArrayList<>();
+        String cursor = null;
+        do {
+            PaginaCursor<ConsultaVista> pagina = consultaService.listarConsulta(cursor, 5);
+            recorridas.addAll(pagina.getContenido());
+            cursor = pagina.getSiguienteCursor();
+        } while (cursor != null);
+        List<Integer> delDoctor = recorridas.stream()
+                .filter(v -> v.idDoctor().equals(doctor.getIdDoctor()))
+                .map(ConsultaVista::idConsulta)
+                .toList();
+        assertEquals(12, delDoctor.size());
+        assertEquals(creadas, Set.copyOf(delDoctor));
+        for (int i = 1; i < recorridas.size(); i++) {
+            assertFalse(recorridas.get(i).fecha().isAfter(recorridas.get(i - 1).fecha()));
+        }
+
+        Pagina<Consulta> agenda = consultaService.agendaDoctor(doctor.getIdDoctor(), fecha.toLocalDate(), 1, 1, 5);
+        assertEquals(12, agenda.getTotal());
+        assertEquals(5, agenda.getContenido().size());
+        assertEquals(fecha.plusMinutes(150), agenda.getContenido().getFirst().getFecha());
+    }
+
+    @Test
+    void doctorYEspecialidadSeReplicanEnTodosLosShards() {
+        Doctor doctor = crearDoctor("Marta");
+        for (JdbcTemplate base : bases) {
+            assertEquals("Marta", base.queryForObject("select nombre from doctor where id = ?", String.class,
+                    doctor.getIdDoctor()));
+        }
+
+        doctor.setNombre("Marta Elena");
+        doctorService.actualizarDoctor(doctor.getIdDoctor(), doctor);
+        bases.get(2).update("delete from doctor where id = ?", doctor.getIdDoctor());
+        replicacionReferencia.sincronizar();
+        for (JdbcTemplate base : bases) {
+            assertEquals("Marta Elena", base.queryForObject("select nombre from doctor where id = ?", String.class,
+                    doctor.getIdDoctor()));
+        }
+
+        doctorService.eliminarDoctor(doctor.getIdDoctor());
+        for (int shard = 0; shard < bases.size(); shard++) {
+            assertEquals(0, contar(shard, "doctor", doctor.getIdDoctor()));
+        }
+    }
+
+    @Test
+    void unaTransaccionNoCambiaDeShard() {
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            shards.en(1, () -> jdbcTemplate.queryForObject("select count(*) from paciente", Integer.class));
+            shards.en(2, () -> jdbcTemplate.queryForObject("select count(*) from paciente", Integer.class));
+        }));
+    }
+
+    @Test
+    void unaCedulaDeOtroShardNoSeAceptaYSinCedulaSeConservaLaActual() {
+        Paciente paciente = crearPaciente("S5-0");
+        int shard = shards.deId(paciente.getIdPaciente());
+        String otra = "S5-1";
+        for (int i = 2; shards.deCedula(otra) == shard; i++) {
+            otra = "S5-" + i;
+        }
+        Paciente cambio = new Paciente();
+        cambio.setNombre("Otro");
+        cambio.setApellido("S5-0");
+        cambio.setEdad(31);
+        cambio.setCedula(otra);
+        assertThrows(IllegalStateException.class,
+                () -> pacienteService.actualizarPaciente(paciente.getIdPaciente(), cambio));
+
+        cambio.setCedula(null);
+        Paciente actualizado = pacienteService.actualizarPaciente(paciente.getIdPaciente(), cambio);
+        assertEquals("Otro", actualizado.getNombre());
+        assertEquals("S5-0", actualizado.getCedula());
+    }
+
+    @Test
+    void unaBaseConIdsContiguosNoSeAceptaComoShard() {
+        String previa = URL + "previa" + OPCIONES;
+        EnrutadorShards unico = EnrutadorShards.crear(List.of(conexion(previa)), new SimpleMeterRegistry());
+        JdbcTemplate base = new JdbcTemplate(unico.shard(0));
+        for (String cedula : List.of("S6-0", "S6-1")) {
+            base.update("insert into paciente (version, nombre, apellido, edad, cedula) values (0, 'Ana', 'Previa', 40, ?)",
+                    cedula);
+        }
+        unico.destroy();
+
+        // La segunda fila (id 2) le corresponderia al shard 1.
+        assertThrows(IllegalStateException.class, () -> EnrutadorShards.crear(
+                List.of(conexion(previa), conexion(URL + "previa_1" + OPCIONES)), new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void elFeedDeCambiosNoSeSirveConShards() {
+        // Cada shard tiene su propio outbox: una sola secuencia no los ordena.
+        assertThrows(IllegalStateException.class, () -> feedCambios.suscribir(0, null));
+    }
+
+    private Doctor crearDoctor(String nombre) {
+        Especialidad especialidad = new Especialidad();
+        especialidad.setNombre("General " + nombre);
+        especialidad = especialidadService.crearEspecialidad(especialidad);
+        Doctor doctor = new Doctor();
+        doctor.setNombre(nombre);
+        doctor.setApellido("Rivas");
+        doctor.setEspecialidad(especialidad);
+        return doctorService.crearDoctor(doctor);
+    }
+
+    private Paciente crearPaciente(String cedula) {
+        Paciente paciente = new Paciente();
+        paciente.setNombre("Paciente");
+        paciente.setApellido(cedula);
+        paciente.setEdad(30);
+        paciente.setCedula(cedula);
+        return registroPacienteService.registrarPaciente(paciente, false, null).paciente();
+    }
+
+    private Consulta crearConsulta(Paciente paciente, Doctor doctor, LocalDateTime fecha) {
+        Consulta consulta = new Consulta();
+        consulta.setFecha(fecha);
+        consulta.setMotivo("Control");
+        consulta.setPaciente(paciente);
+        consulta.setDoctor(doctor);
+        return consultaService.crearConsulta(consulta);
+    }
+
+    private static int contar(int shard, String tabla, Integer id) {
+        return bases.get(shard).queryForObject("select count(*) from " + tabla + " where id = ?", Integer.class, id);
+    }
+
+    private static HikariConfig conexion(String url) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setUsername("sa");
+        return config;
+    }
+
+    private static JdbcTemplate base(int shard) {
+        return new JdbcTemplate(new DriverManagerDataSource(URL + shard + OPCIONES, "sa", ""));
+    }
+}
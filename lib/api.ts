@@ -8,7 +8,8 @@ import type {
     ConsultaFormData,
     Especialidad,
     Historial,
-    Receta
+    Receta,
+    PaginaCursor
 } from '@/types';
 
 const API_BASE_URL = 'http://localhost:8082/api';
@@ -85,8 +86,20 @@ export const pacientesApi = {
 };
 
 export const consultasApi = {
+    // El listado es paginado: se sigue el cursor hasta la ultima pagina.
     getAll: async (): Promise<Consulta[]> => {
-        const response = await api.get<Consulta[]>('/consulta');
+        const consultas: Consulta[] = [];
+        let cursor: string | undefined;
+        do {
+            const pagina = await consultasApi.getPage(cursor, 200);
+            consultas.push(...pagina.contenido);
+            cursor = pagina.siguienteCursor ?? undefined;
+        } while (cursor);
+        return consultas;
+    },
+
+    getPage: async (cursor?: string, size?: number): Promise<PaginaCursor<Consulta>> => {
+        const response = await api.get<PaginaCursor<Consulta>>('/consulta', { params: { cursor, size } });
         return response.data;
     },
 
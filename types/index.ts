@@ -43,6 +43,12 @@ export interface Receta {
     id_consulta: number;
 }
 
+export interface PaginaCursor<T> {
+    contenido: T[];
+    tamanio: number;
+    siguienteCursor: string | null;
+}
+
 // ... existing types ...
 
 export interface RecetaFormData {